@@ -0,0 +1,161 @@
+package net.gcae.utils.extractor.analyzer;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.gcae.utils.extractor.model.ClassDefinition;
+import net.gcae.utils.extractor.model.CurlCall;
+import net.gcae.utils.extractor.model.FileAnalysis;
+import net.gcae.utils.extractor.model.FileReference;
+import net.gcae.utils.extractor.model.FunctionDefinition;
+import net.gcae.utils.extractor.model.InheritanceInfo;
+import net.gcae.utils.extractor.model.InterfaceDefinition;
+import net.gcae.utils.extractor.model.InterfaceImplementation;
+import net.gcae.utils.extractor.model.PathTable;
+import net.gcae.utils.extractor.model.SQLQuery;
+
+/**
+ * Measures each stage of PHP file analysis on its own: tokenizing, the line and
+ * brace indexes, every extractor over a prepared token stream, and the whole file
+ * from raw bytes to a filled {@link FileAnalysis}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ExtractorBenchmark {
+
+    private static final String FILE_PATH = "src/Benchmark.php";
+    private final PathTable paths = new PathTable();
+    private final int fileId = paths.intern(FILE_PATH);
+
+    @Param({PhpSamples.SMALL, PhpSamples.MEDIUM, PhpSamples.PATHOLOGICAL})
+    public String size;
+
+    private PHPAnalyzer analyzer;
+    private String content;
+    private ByteBuffer bytes;
+    private TokenStream tokens;
+    private LineIndex lines;
+    private BraceIndex braces;
+
+    @Setup
+    public void setUp() {
+        analyzer = new PHPAnalyzer();
+        content = PhpSamples.get(size);
+        bytes = ByteBuffer.wrap(content.getBytes(StandardCharsets.UTF_8));
+        tokens = PhpLexer.tokenize(content);
+        lines = LineIndex.of(content);
+        braces = BraceIndex.of(tokens);
+    }
+
+    @Benchmark
+    public TokenStream tokenize() {
+        return PhpLexer.tokenize(content);
+    }
+
+    @Benchmark
+    public LineIndex lineIndex() {
+        return LineIndex.of(content);
+    }
+
+    @Benchmark
+    public BraceIndex braceIndex() {
+        return BraceIndex.of(tokens);
+    }
+
+    @Benchmark
+    public List<SQLQuery> analyzeSQLQueries() {
+        List<SQLQuery> queries = new ArrayList<>();
+        analyzer.analyzeSQLQueries(tokens, fileId, lines, queries);
+        return queries;
+    }
+
+    @Benchmark
+    public List<FileReference> analyzeRequires() {
+        List<FileReference> requires = new ArrayList<>();
+        analyzer.analyzeRequires(tokens, fileId, lines, requires);
+        return requires;
+    }
+
+    @Benchmark
+    public List<FileReference> analyzeIncludes() {
+        List<FileReference> includes = new ArrayList<>();
+        analyzer.analyzeIncludes(tokens, fileId, lines, includes);
+        return includes;
+    }
+
+    @Benchmark
+    public List<CurlCall> analyzeCurlCalls() {
+        List<CurlCall> calls = new ArrayList<>();
+        analyzer.analyzeCurlCalls(tokens, braces, fileId, lines, calls);
+        return calls;
+    }
+
+    @Benchmark
+    public List<FunctionDefinition> analyzeFunctions() {
+        List<FunctionDefinition> functions = new ArrayList<>();
+        analyzer.analyzeFunctions(tokens, braces, fileId, lines, functions);
+        return functions;
+    }
+
+    @Benchmark
+    public List<ClassDefinition> analyzeClasses() {
+        List<ClassDefinition> classes = new ArrayList<>();
+        analyzer.analyzeClasses(tokens, braces, fileId, lines, classes);
+        return classes;
+    }
+
+    @Benchmark
+    public List<InheritanceInfo> analyzeTraits() {
+        List<InheritanceInfo> traits = new ArrayList<>();
+        analyzer.analyzeTraits(tokens, fileId, lines, traits);
+        return traits;
+    }
+
+    @Benchmark
+    public List<InheritanceInfo> analyzeClassInheritance() {
+        List<InheritanceInfo> inheritances = new ArrayList<>();
+        analyzer.analyzeClassInheritance(tokens, fileId, lines, inheritances);
+        return inheritances;
+    }
+
+    @Benchmark
+    public List<InterfaceImplementation> analyzeImplementations() {
+        List<InterfaceImplementation> implementations = new ArrayList<>();
+        analyzer.analyzeImplementations(tokens, fileId, lines, implementations);
+        return implementations;
+    }
+
+    @Benchmark
+    public List<InterfaceDefinition> analyzeInterfaces() {
+        List<InterfaceDefinition> interfaces = new ArrayList<>();
+        analyzer.analyzeInterfaces(tokens, braces, fileId, lines, interfaces);
+        return interfaces;
+    }
+
+    @Benchmark
+    public FileAnalysis wholeFile() {
+        SourceReader.Source source = SourceReader.decode(bytes);
+        FileAnalysis analysis = new FileAnalysis(paths);
+        analyzer.analyzePHPContent(source.text, FILE_PATH, analysis);
+        return analysis;
+    }
+}
@@ -0,0 +1,128 @@
+package net.gcae.utils.extractor.analyzer;
+
+/**
+ * Generates the PHP sources the benchmarks run on. The content is built in code
+ * rather than read from disk so every run measures exactly the same input.
+ */
+final class PhpSamples {
+
+    static final String SMALL = "small";
+    static final String MEDIUM = "medium";
+    static final String PATHOLOGICAL = "pathological";
+
+    private PhpSamples() {}
+
+    static String get(String size) {
+        switch (size) {
+            case SMALL: return unit(0);
+            case MEDIUM: return medium();
+            case PATHOLOGICAL: return pathological();
+            default: throw new IllegalArgumentException("Unknown sample size: " + size);
+        }
+    }
+
+    /**
+     * A typical file of about sixty lines: includes, a class with methods, SQL and CURL calls.
+     */
+    private static String unit(int n) {
+        StringBuilder php = new StringBuilder(4096);
+        php.append("<?php\n");
+        php.append("require_once 'config/database.php';\n");
+        php.append("include \"lib/helpers").append(n).append(".php\";\n\n");
+        php.append("interface Repository").append(n).append(" extends Countable {\n");
+        php.append("    public function find($id);\n");
+        php.append("    public function save(array $data);\n");
+        php.append("}\n\n");
+        php.append("class UserRepository").append(n).append(" extends BaseRepository implements Repository")
+                .append(n).append(", JsonSerializable {\n");
+        php.append("    use LoggerTrait, CacheTrait;\n\n");
+        php.append("    private $db;\n\n");
+        php.append("    public function __construct(mysqli $db) {\n");
+        php.append("        $this->db = $db;\n");
+        php.append("    }\n\n");
+        php.append("    public function find($id) {\n");
+        php.append("        $sql = \"SELECT u.id, u.name, r.title FROM users u JOIN roles r ON r.id = u.role_id WHERE u.id = \" . (int) $id . \";\";\n");
+        php.append("        $result = mysqli_query($this->db, $sql);\n");
+        php.append("        return mysqli_fetch_assoc($result);\n");
+        php.append("    }\n\n");
+        php.append("    public function save(array $data) {\n");
+        php.append("        // UPDATE statements in comments are ignored\n");
+        php.append("        $sql = \"UPDATE users SET name = '{$data['name']}' WHERE id = {$data['id']}\";\n");
+        php.append("        if (!mysqli_query($this->db, $sql)) {\n");
+        php.append("            throw new RuntimeException(mysqli_error($this->db));\n");
+        php.append("        }\n");
+        php.append("        return true;\n");
+        php.append("    }\n\n");
+        php.append("    public function count(): int {\n");
+        php.append("        $row = mysqli_fetch_row(mysqli_query($this->db, 'SELECT COUNT(*) FROM users'));\n");
+        php.append("        return (int) $row[0];\n");
+        php.append("    }\n\n");
+        php.append("    public function jsonSerialize(): array {\n");
+        php.append("        return ['table' => 'users', 'driver' => get_class($this->db)];\n");
+        php.append("    }\n");
+        php.append("}\n\n");
+        php.append("function notify").append(n).append("($url, array $payload) {\n");
+        php.append("    $ch = curl_init($url);\n");
+        php.append("    curl_setopt($ch, CURLOPT_POST, true);\n");
+        php.append("    curl_setopt($ch, CURLOPT_POSTFIELDS, json_encode($payload));\n");
+        php.append("    curl_setopt($ch, CURLOPT_RETURNTRANSFER, true);\n");
+        php.append("    $response = curl_exec($ch);\n");
+        php.append("    curl_close($ch);\n");
+        php.append("    return $response;\n");
+        php.append("}\n");
+        php.append("?>\n");
+        php.append("<div class=\"footer\"><?= htmlspecialchars($title) ?></div>\n");
+        return php.toString();
+    }
+
+    /**
+     * About 3,000 lines: fifty typical units concatenated into one file.
+     */
+    private static String medium() {
+        StringBuilder php = new StringBuilder(256 * 1024);
+        for (int n = 0; n < 50; n++) {
+            php.append(unit(n));
+        }
+        return php.toString();
+    }
+
+    /**
+     * Inputs that used to cost more than linear time: a long literal full of
+     * keywords followed by spaces and no terminator, a long concatenation chain,
+     * deeply nested braces and a class with thousands of methods.
+     */
+    private static String pathological() {
+        StringBuilder php = new StringBuilder(1024 * 1024);
+        php.append("<?php\n$html = \"");
+        for (int i = 0; i < 2000; i++) {
+            php.append("select");
+            for (int s = 0; s < 100; s++) {
+                php.append(' ');
+            }
+            php.append('x');
+        }
+        php.append("\";\n");
+
+        php.append("$sql = \"SELECT * FROM t WHERE a = \"");
+        for (int i = 0; i < 5000; i++) {
+            php.append(" . $v").append(i).append(" . \" AND c").append(i).append(" = \"");
+        }
+        php.append(";\n");
+
+        php.append("function nested() {\n");
+        for (int i = 0; i < 2000; i++) {
+            php.append("if ($a) {");
+        }
+        for (int i = 0; i < 2000; i++) {
+            php.append('}');
+        }
+        php.append("\n}\n");
+
+        php.append("class Wide {\n");
+        for (int i = 0; i < 5000; i++) {
+            php.append("    public function m").append(i).append("($x) { return $x + ").append(i).append("; }\n");
+        }
+        php.append("}\n");
+        return php.toString();
+    }
+}
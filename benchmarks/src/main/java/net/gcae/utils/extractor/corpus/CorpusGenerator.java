@@ -0,0 +1,394 @@
+package net.gcae.utils.extractor.corpus;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates a synthetic PHP project tree. The same seed and settings always
+ * produce byte-identical files, so scale tests can be repeated and compared
+ * without sharing real code.
+ *
+ * <p>Densities are the expected number of constructs per 100 generated lines.
+ * Every other line is filler: assignments, echo statements, conditionals and
+ * comments. About one file in ten is a static asset (JavaScript, CSS or HTML).
+ */
+public class CorpusGenerator {
+
+    private long seed = 42;
+    private int fileCount = 1000;
+    private int depth = 4;
+    private int linesPerFile = 200;
+    private double sqlDensity = 2.0;
+    private double curlDensity = 0.5;
+    private double includeDensity = 1.0;
+    private double classDensity = 0.5;
+    private double interfaceDensity = 0.2;
+    private double traitDensity = 0.2;
+    private double staticFileRatio = 0.1;
+
+    private static final String[] TABLES = {"users", "orders", "products", "invoices", "sessions", "audit_log", "settings"};
+    private static final String[] STATIC_EXTENSIONS = {"js", "css", "html"};
+
+    // Getters and Setters
+    public long getSeed() { return seed; }
+    public void setSeed(long seed) { this.seed = seed; }
+
+    public int getFileCount() { return fileCount; }
+    public void setFileCount(int fileCount) { this.fileCount = fileCount; }
+
+    public int getDepth() { return depth; }
+    public void setDepth(int depth) { this.depth = depth; }
+
+    public int getLinesPerFile() { return linesPerFile; }
+    public void setLinesPerFile(int linesPerFile) { this.linesPerFile = linesPerFile; }
+
+    public double getSqlDensity() { return sqlDensity; }
+    public void setSqlDensity(double sqlDensity) { this.sqlDensity = sqlDensity; }
+
+    public double getCurlDensity() { return curlDensity; }
+    public void setCurlDensity(double curlDensity) { this.curlDensity = curlDensity; }
+
+    public double getIncludeDensity() { return includeDensity; }
+    public void setIncludeDensity(double includeDensity) { this.includeDensity = includeDensity; }
+
+    public double getClassDensity() { return classDensity; }
+    public void setClassDensity(double classDensity) { this.classDensity = classDensity; }
+
+    public double getInterfaceDensity() { return interfaceDensity; }
+    public void setInterfaceDensity(double interfaceDensity) { this.interfaceDensity = interfaceDensity; }
+
+    public double getTraitDensity() { return traitDensity; }
+    public void setTraitDensity(double traitDensity) { this.traitDensity = traitDensity; }
+
+    public double getStaticFileRatio() { return staticFileRatio; }
+    public void setStaticFileRatio(double staticFileRatio) { this.staticFileRatio = staticFileRatio; }
+
+    /**
+     * Writes the project under {@code root}, which must not contain an earlier corpus.
+     */
+    public CorpusStats generate(Path root) throws IOException {
+        Random random = new Random(seed);
+        List<String> paths = layOut(random);
+        List<String> phpPaths = new ArrayList<>();
+        for (String path : paths) {
+            if (path.endsWith(".php")) {
+                phpPaths.add(path);
+            }
+        }
+
+        CorpusStats stats = new CorpusStats();
+        for (int i = 0; i < paths.size(); i++) {
+            String path = paths.get(i);
+            Path file = root.resolve(path);
+            Files.createDirectories(file.getParent());
+            String content = path.endsWith(".php")
+                    ? new PhpFileBuilder(random, i, path, phpPaths, stats).build()
+                    : staticFile(random, path);
+            byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+            Files.write(file, bytes);
+            stats.files++;
+            stats.bytes += bytes.length;
+        }
+        return stats;
+    }
+
+    /**
+     * Chooses the directory tree and the relative path of every file. Directories
+     * hold about twenty files each and are nested at most {@code depth} levels.
+     */
+    private List<String> layOut(Random random) {
+        List<String> directories = new ArrayList<>();
+        List<Integer> levels = new ArrayList<>();
+        directories.add("");
+        levels.add(0);
+        int directoryCount = Math.max(1, fileCount / 20);
+        for (int d = 1; d < directoryCount; d++) {
+            int parent = random.nextInt(directories.size());
+            if (levels.get(parent) >= depth) {
+                parent = 0;
+            }
+            directories.add(directories.get(parent) + "module" + d + "/");
+            levels.add(levels.get(parent) + 1);
+        }
+
+        List<String> paths = new ArrayList<>(fileCount);
+        for (int i = 0; i < fileCount; i++) {
+            String directory = directories.get(random.nextInt(directories.size()));
+            String extension = random.nextDouble() < staticFileRatio
+                    ? STATIC_EXTENSIONS[random.nextInt(STATIC_EXTENSIONS.length)] : "php";
+            paths.add(directory + "file" + i + "." + extension);
+        }
+        return paths;
+    }
+
+    private String staticFile(Random random, String path) {
+        int lines = jitter(random, linesPerFile);
+        StringBuilder text = new StringBuilder(lines * 32);
+        for (int line = 0; line < lines; line++) {
+            if (path.endsWith(".js")) {
+                text.append("var value").append(line).append(" = compute(").append(random.nextInt(1000)).append(");\n");
+            } else if (path.endsWith(".css")) {
+                text.append(".rule").append(line).append(" { margin: ").append(random.nextInt(40)).append("px; }\n");
+            } else {
+                text.append("<p id=\"p").append(line).append("\">Paragraph ").append(random.nextInt(1000)).append("</p>\n");
+            }
+        }
+        return text.toString();
+    }
+
+    private static int jitter(Random random, int lines) {
+        // Between half and one and a half times the configured length
+        return Math.max(1, lines / 2 + random.nextInt(Math.max(1, lines)));
+    }
+
+    /**
+     * Writes one PHP file, drawing constructs according to the configured densities.
+     */
+    private class PhpFileBuilder {
+
+        private final Random random;
+        private final int index;
+        private final Path directory;
+        private final List<String> phpPaths;
+        private final CorpusStats stats;
+        private final StringBuilder php = new StringBuilder(8192);
+        private final List<String> interfaces = new ArrayList<>();
+        private final List<String> traits = new ArrayList<>();
+        private int lines;
+        private int names;
+
+        PhpFileBuilder(Random random, int index, String path, List<String> phpPaths, CorpusStats stats) {
+            this.random = random;
+            this.index = index;
+            this.directory = Paths.get(path).getParent();
+            this.phpPaths = phpPaths;
+            this.stats = stats;
+        }
+
+        String build() {
+            int target = jitter(random, linesPerFile);
+            line("<?php");
+            while (lines < target) {
+                double roll = random.nextDouble() * 100;
+                if ((roll -= sqlDensity) < 0) {
+                    sql("");
+                } else if ((roll -= curlDensity) < 0) {
+                    curl("");
+                } else if ((roll -= includeDensity) < 0) {
+                    include();
+                } else if ((roll -= classDensity) < 0) {
+                    classDeclaration();
+                } else if ((roll -= interfaceDensity) < 0) {
+                    interfaceDeclaration();
+                } else if ((roll -= traitDensity) < 0) {
+                    traitDeclaration();
+                } else {
+                    filler("");
+                }
+            }
+            return php.toString();
+        }
+
+        private void sql(String indent) {
+            String table = TABLES[random.nextInt(TABLES.length)];
+            switch (random.nextInt(4)) {
+                case 0:
+                    line(indent + "$sql = \"SELECT id, name FROM " + table + " WHERE id = \" . (int) $id;");
+                    break;
+                case 1:
+                    line(indent + "$sql = \"INSERT INTO " + table + " (name, created) VALUES ('{$name}', NOW())\";");
+                    break;
+                case 2:
+                    line(indent + "$sql = \"UPDATE " + table + " SET name = '\" . $name . \"' WHERE id = \" . $id;");
+                    break;
+                default:
+                    line(indent + "$sql = <<<SQL");
+                    line("SELECT a.*, b.total FROM " + table + " a");
+                    line("JOIN totals b ON b.ref = a.id");
+                    line("WHERE a.status = 'active';");
+                    line("SQL;");
+                    break;
+            }
+            line(indent + "$result = mysqli_query($db, $sql);");
+            stats.sqlQueries++;
+        }
+
+        private void curl(String indent) {
+            line(indent + "$ch = curl_init(\"https://api.example.com/v1/resource" + random.nextInt(100) + "\");");
+            line(indent + "curl_setopt($ch, CURLOPT_RETURNTRANSFER, true);");
+            line(indent + "$response = curl_exec($ch);");
+            line(indent + "curl_close($ch);");
+            stats.curlCalls++;
+        }
+
+        private void include() {
+            String target = phpPaths.get(random.nextInt(phpPaths.size()));
+            String keyword = random.nextBoolean() ? "require_once" : "include";
+            line(keyword + " __DIR__ . '/" + relativize(target) + "';");
+            stats.includes++;
+        }
+
+        private void classDeclaration() {
+            String name = name("Service");
+            StringBuilder header = new StringBuilder("class ").append(name);
+            if (random.nextInt(3) == 0) {
+                header.append(" extends BaseService");
+            }
+            if (!interfaces.isEmpty()) {
+                header.append(" implements ").append(interfaces.get(random.nextInt(interfaces.size())));
+            }
+            line(header.append(" {").toString());
+            if (!traits.isEmpty()) {
+                line("    use " + traits.get(random.nextInt(traits.size())) + ";");
+            }
+            int methods = 1 + random.nextInt(5);
+            for (int m = 0; m < methods; m++) {
+                line("    public function method" + m + "($id, $name = null) {");
+                int body = 2 + random.nextInt(12);
+                for (int b = 0; b < body; b++) {
+                    double roll = random.nextDouble() * 100;
+                    if (roll < sqlDensity * 4) {
+                        sql("        ");
+                    } else if (roll < (sqlDensity + curlDensity) * 4) {
+                        curl("        ");
+                    } else {
+                        filler("        ");
+                    }
+                }
+                line("        return $id;");
+                line("    }");
+            }
+            line("}");
+            stats.classes++;
+        }
+
+        private void interfaceDeclaration() {
+            String name = name("Contract");
+            line("interface " + name + " {");
+            int methods = 1 + random.nextInt(4);
+            for (int m = 0; m < methods; m++) {
+                line("    public function method" + m + "($id, $name = null);");
+            }
+            line("}");
+            interfaces.add(name);
+            stats.interfaces++;
+        }
+
+        private void traitDeclaration() {
+            String name = name("Behaviour");
+            line("trait " + name + " {");
+            line("    public function describe() {");
+            line("        return __TRAIT__ . ':' . static::class;");
+            line("    }");
+            line("}");
+            traits.add(name);
+            stats.traits++;
+        }
+
+        private void filler(String indent) {
+            int value = random.nextInt(10000);
+            switch (random.nextInt(5)) {
+                case 0:
+                    line(indent + "$value" + value + " = array_map('trim', explode(',', $input));");
+                    break;
+                case 1:
+                    line(indent + "echo htmlspecialchars($row['name'] ?? 'n/a'), \"<br>\\n\";");
+                    break;
+                case 2:
+                    line(indent + "if ($count > " + value + ") { $count = " + value + "; }");
+                    break;
+                case 3:
+                    line(indent + "// Keep the total below " + value + " (SELECT in comments is not SQL)");
+                    break;
+                default:
+                    line(indent + "$total += $item" + value + "->price * $item" + value + "->quantity;");
+                    break;
+            }
+        }
+
+        private String name(String prefix) {
+            return prefix + index + "_" + (names++);
+        }
+
+        private String relativize(String target) {
+            // Includes are written relative to the including file's directory
+            if (directory == null) {
+                return target;
+            }
+            return directory.relativize(Paths.get(target)).toString().replace('\\', '/');
+        }
+
+        private void line(String text) {
+            php.append(text).append('\n');
+            lines++;
+        }
+    }
+
+    /**
+     * What a generated corpus contains, for comparing runs of different sizes.
+     */
+    public static class CorpusStats {
+        private int files;
+        private long bytes;
+        private int sqlQueries;
+        private int curlCalls;
+        private int includes;
+        private int classes;
+        private int interfaces;
+        private int traits;
+
+        public int getFiles() { return files; }
+        public long getBytes() { return bytes; }
+        public int getSqlQueries() { return sqlQueries; }
+        public int getCurlCalls() { return curlCalls; }
+        public int getIncludes() { return includes; }
+        public int getClasses() { return classes; }
+        public int getInterfaces() { return interfaces; }
+        public int getTraits() { return traits; }
+    }
+
+    /**
+     * Writes a corpus without running anything on it.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("Usage: java -cp benchmarks.jar " + CorpusGenerator.class.getName()
+                    + " <output-dir> [--files <n>] [--depth <n>] [--lines <n>] [--seed <n>]");
+            System.exit(1);
+        }
+        CorpusGenerator generator = new CorpusGenerator();
+        for (int i = 1; i + 1 < args.length; i += 2) {
+            generator.configure(args[i], args[i + 1]);
+        }
+        Path root = Paths.get(args[0]);
+        CorpusStats stats = generator.generate(root);
+        System.out.println("Generated " + stats.getFiles() + " files (" + stats.getBytes() + " bytes) in " + root);
+    }
+
+    /**
+     * Applies one command line option; shared with {@link ScalingBenchmark}.
+     * Returns false when the option is not a generator setting.
+     */
+    boolean configure(String option, String value) {
+        switch (option) {
+            case "--seed": seed = Long.parseLong(value); return true;
+            case "--files": fileCount = Integer.parseInt(value); return true;
+            case "--depth": depth = Integer.parseInt(value); return true;
+            case "--lines": linesPerFile = Integer.parseInt(value); return true;
+            case "--sql-density": sqlDensity = Double.parseDouble(value); return true;
+            case "--curl-density": curlDensity = Double.parseDouble(value); return true;
+            case "--include-density": includeDensity = Double.parseDouble(value); return true;
+            case "--class-density": classDensity = Double.parseDouble(value); return true;
+            case "--interface-density": interfaceDensity = Double.parseDouble(value); return true;
+            case "--trait-density": traitDensity = Double.parseDouble(value); return true;
+            case "--static-ratio": staticFileRatio = Double.parseDouble(value); return true;
+            default: return false;
+        }
+    }
+}
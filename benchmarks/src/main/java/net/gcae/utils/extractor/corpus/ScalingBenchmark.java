@@ -0,0 +1,321 @@
+package net.gcae.utils.extractor.corpus;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.stream.Stream;
+
+import org.slf4j.LoggerFactory;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import net.gcae.utils.extractor.analyzer.PHPAnalyzer;
+import net.gcae.utils.extractor.model.AnalysisSummary;
+import net.gcae.utils.extractor.report.ExcelReportWriter;
+
+/**
+ * End-to-end scaling benchmark: generates corpora of increasing size and runs
+ * {@link PHPAnalyzer#analyzeProject} with Excel report generation on each.
+ *
+ * <p>Every size is measured in a fresh JVM so that peak RSS, GC time and JIT
+ * state do not carry over from the previous run. Results are written as JSON,
+ * one entry per size, together with the settings that produced the corpus.
+ */
+public class ScalingBenchmark {
+
+    private static final String MEASURE = "--measure";
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && args[0].equals(MEASURE)) {
+            measure(Paths.get(args[1]), Paths.get(args[2]), Integer.parseInt(args[3]));
+            return;
+        }
+
+        CorpusGenerator generator = new CorpusGenerator();
+        List<Integer> sizes = new ArrayList<>();
+        List<String> jvmArgs = new ArrayList<>();
+        int threads = Runtime.getRuntime().availableProcessors();
+        Path output = Paths.get("scaling-results.json");
+        Path workDir = null;
+        boolean keep = false;
+
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (arg.equals("--sizes") && i + 1 < args.length) {
+                for (String size : args[++i].split(",")) {
+                    sizes.add(Integer.parseInt(size.trim()));
+                }
+            } else if (arg.equals("--threads") && i + 1 < args.length) {
+                threads = Integer.parseInt(args[++i]);
+            } else if (arg.equals("--output") && i + 1 < args.length) {
+                output = Paths.get(args[++i]);
+            } else if (arg.equals("--work-dir") && i + 1 < args.length) {
+                workDir = Paths.get(args[++i]);
+            } else if (arg.equals("--jvm-arg") && i + 1 < args.length) {
+                jvmArgs.add(args[++i]);
+            } else if (arg.equals("--keep")) {
+                keep = true;
+            } else if (arg.equals("--help")) {
+                printUsage();
+                return;
+            } else if (i + 1 < args.length && generator.configure(arg, args[i + 1])) {
+                i++;
+            } else {
+                System.err.println("Unknown option: " + arg);
+                printUsage();
+                System.exit(1);
+            }
+        }
+        if (sizes.isEmpty()) {
+            sizes.add(100);
+            sizes.add(1000);
+            sizes.add(10000);
+        }
+        if (workDir == null) {
+            workDir = Files.createTempDirectory("phpextractor-scaling");
+        }
+
+        List<Properties> runs = new ArrayList<>();
+        System.out.printf(Locale.ROOT, "%10s %12s %10s %10s %10s %12s %10s%n",
+                "files", "bytes", "seconds", "files/s", "MB/s", "peak RSS MB", "GC ms");
+        for (int size : sizes) {
+            Path corpus = workDir.resolve("corpus-" + size);
+            deleteTree(corpus);
+            generator.setFileCount(size);
+            long generationStart = System.nanoTime();
+            CorpusGenerator.CorpusStats stats = generator.generate(corpus);
+            double generationSeconds = (System.nanoTime() - generationStart) / 1e9;
+
+            Path resultFile = workDir.resolve("result-" + size + ".properties");
+            runChild(jvmArgs, corpus, resultFile, threads);
+            Properties run = new Properties();
+            try (InputStream in = Files.newInputStream(resultFile)) {
+                run.load(in);
+            }
+            Files.delete(resultFile);
+            run.setProperty("corpusFiles", String.valueOf(stats.getFiles()));
+            run.setProperty("corpusBytes", String.valueOf(stats.getBytes()));
+            run.setProperty("generationSeconds", String.valueOf(generationSeconds));
+            runs.add(run);
+
+            double seconds = Double.parseDouble(run.getProperty("seconds"));
+            System.out.printf(Locale.ROOT, "%10d %12d %10.2f %10.1f %10.2f %12.1f %10d%n",
+                    stats.getFiles(), stats.getBytes(), seconds, stats.getFiles() / seconds,
+                    stats.getBytes() / seconds / (1024 * 1024),
+                    Long.parseLong(run.getProperty("peakRssBytes")) / (1024.0 * 1024.0),
+                    Long.parseLong(run.getProperty("gcMillis")));
+            if (!keep) {
+                deleteTree(corpus);
+            }
+        }
+        writeResults(output, generator, threads, runs);
+        System.out.println("Results written to: " + output.toAbsolutePath());
+    }
+
+    private static void runChild(List<String> jvmArgs, Path corpus, Path resultFile, int threads)
+            throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(jvmArgs);
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(ScalingBenchmark.class.getName());
+        command.add(MEASURE);
+        command.add(corpus.toString());
+        command.add(resultFile.toString());
+        command.add(String.valueOf(threads));
+        Process process = new ProcessBuilder(command).inheritIO().start();
+        int exitCode = process.waitFor();
+        if (exitCode != 0) {
+            throw new IOException("Measurement of " + corpus + " failed with exit code " + exitCode);
+        }
+    }
+
+    /**
+     * Runs in the child JVM: analyzes the corpus once into a report and records what it cost.
+     */
+    private static void measure(Path corpus, Path resultFile, int threads) throws IOException {
+        // Per-file debug logging would dominate the measurement
+        ((Logger) LoggerFactory.getLogger("net.gcae.utils")).setLevel(Level.WARN);
+        ((Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME)).setLevel(Level.WARN);
+
+        Path report = Files.createTempFile("phpextractor-scaling", ".xlsx");
+        PHPAnalyzer analyzer = new PHPAnalyzer(threads);
+        long gcMillis = -gcMillis();
+        long gcCount = -gcCount();
+        long start = System.nanoTime();
+        long finishStart;
+        AnalysisSummary summary;
+        try (ExcelReportWriter writer = new ExcelReportWriter(report.toString())) {
+            summary = analyzer.analyzeProject(new File(corpus.toString()), writer);
+            finishStart = System.nanoTime();
+            writer.finish();
+        }
+        long end = System.nanoTime();
+        gcMillis += gcMillis();
+        gcCount += gcCount();
+
+        Properties result = new Properties();
+        result.setProperty("files", String.valueOf(summary.getFiles()));
+        result.setProperty("sqlQueries", String.valueOf(summary.getSqlQueries()));
+        result.setProperty("functions", String.valueOf(summary.getFunctions()));
+        result.setProperty("classes", String.valueOf(summary.getClasses()));
+        result.setProperty("seconds", String.valueOf((end - start) / 1e9));
+        result.setProperty("reportFinishSeconds", String.valueOf((end - finishStart) / 1e9));
+        result.setProperty("reportBytes", String.valueOf(Files.size(report)));
+        result.setProperty("gcMillis", String.valueOf(gcMillis));
+        result.setProperty("gcCount", String.valueOf(gcCount));
+        result.setProperty("peakRssBytes", String.valueOf(peakRss()));
+        result.setProperty("peakHeapBytes", String.valueOf(peakHeap()));
+        try (OutputStream out = Files.newOutputStream(resultFile)) {
+            result.store(out, null);
+        }
+        Files.delete(report);
+    }
+
+    private static long gcMillis() {
+        long total = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, collector.getCollectionTime());
+        }
+        return total;
+    }
+
+    private static long gcCount() {
+        long total = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, collector.getCollectionCount());
+        }
+        return total;
+    }
+
+    /**
+     * Returns the process's peak resident set size (VmHWM), or -1 where /proc is not available.
+     */
+    private static long peakRss() {
+        Path status = Paths.get("/proc/self/status");
+        if (!Files.isReadable(status)) {
+            return -1;
+        }
+        try {
+            for (String line : Files.readAllLines(status, StandardCharsets.UTF_8)) {
+                if (line.startsWith("VmHWM:")) {
+                    String kilobytes = line.substring("VmHWM:".length()).replace("kB", "").trim();
+                    return Long.parseLong(kilobytes) * 1024;
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            return -1;
+        }
+        return -1;
+    }
+
+    private static long peakHeap() {
+        long total = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                total += pool.getPeakUsage().getUsed();
+            }
+        }
+        return total;
+    }
+
+    private static void writeResults(Path output, CorpusGenerator generator, int threads, List<Properties> runs)
+            throws IOException {
+        Path parent = output.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        try (PrintWriter json = new PrintWriter(Files.newBufferedWriter(output, StandardCharsets.UTF_8))) {
+            json.println("{");
+            json.printf(Locale.ROOT, "  \"javaVersion\": \"%s\",%n", System.getProperty("java.version"));
+            json.printf(Locale.ROOT, "  \"processors\": %d,%n", Runtime.getRuntime().availableProcessors());
+            json.printf(Locale.ROOT, "  \"threads\": %d,%n", threads);
+            json.printf(Locale.ROOT, "  \"seed\": %d,%n", generator.getSeed());
+            json.printf(Locale.ROOT, "  \"depth\": %d,%n", generator.getDepth());
+            json.printf(Locale.ROOT, "  \"linesPerFile\": %d,%n", generator.getLinesPerFile());
+            json.printf(Locale.ROOT, "  \"densities\": {\"sql\": %s, \"curl\": %s, \"include\": %s, "
+                            + "\"class\": %s, \"interface\": %s, \"trait\": %s},%n",
+                    generator.getSqlDensity(), generator.getCurlDensity(), generator.getIncludeDensity(),
+                    generator.getClassDensity(), generator.getInterfaceDensity(), generator.getTraitDensity());
+            json.printf(Locale.ROOT, "  \"staticFileRatio\": %s,%n", generator.getStaticFileRatio());
+            json.println("  \"runs\": [");
+            for (int i = 0; i < runs.size(); i++) {
+                Properties run = runs.get(i);
+                long files = Long.parseLong(run.getProperty("corpusFiles"));
+                long bytes = Long.parseLong(run.getProperty("corpusBytes"));
+                double seconds = Double.parseDouble(run.getProperty("seconds"));
+                json.println("    {");
+                json.printf(Locale.ROOT, "      \"files\": %d,%n", files);
+                json.printf(Locale.ROOT, "      \"bytes\": %d,%n", bytes);
+                json.printf(Locale.ROOT, "      \"filesAnalyzed\": %s,%n", run.getProperty("files"));
+                json.printf(Locale.ROOT, "      \"sqlQueries\": %s,%n", run.getProperty("sqlQueries"));
+                json.printf(Locale.ROOT, "      \"functions\": %s,%n", run.getProperty("functions"));
+                json.printf(Locale.ROOT, "      \"classes\": %s,%n", run.getProperty("classes"));
+                json.printf(Locale.ROOT, "      \"generationSeconds\": %.3f,%n",
+                        Double.parseDouble(run.getProperty("generationSeconds")));
+                json.printf(Locale.ROOT, "      \"seconds\": %.3f,%n", seconds);
+                json.printf(Locale.ROOT, "      \"reportFinishSeconds\": %.3f,%n",
+                        Double.parseDouble(run.getProperty("reportFinishSeconds")));
+                json.printf(Locale.ROOT, "      \"filesPerSecond\": %.1f,%n", files / seconds);
+                json.printf(Locale.ROOT, "      \"megabytesPerSecond\": %.3f,%n", bytes / seconds / (1024 * 1024));
+                json.printf(Locale.ROOT, "      \"reportBytes\": %s,%n", run.getProperty("reportBytes"));
+                json.printf(Locale.ROOT, "      \"peakRssBytes\": %s,%n", run.getProperty("peakRssBytes"));
+                json.printf(Locale.ROOT, "      \"peakHeapBytes\": %s,%n", run.getProperty("peakHeapBytes"));
+                json.printf(Locale.ROOT, "      \"gcMillis\": %s,%n", run.getProperty("gcMillis"));
+                json.printf(Locale.ROOT, "      \"gcCount\": %s%n", run.getProperty("gcCount"));
+                json.println(i + 1 < runs.size() ? "    }," : "    }");
+            }
+            json.println("  ]");
+            json.println("}");
+        }
+    }
+
+    private static void deleteTree(Path root) throws IOException {
+        if (!Files.exists(root)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(root)) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    private static void printUsage() {
+        System.out.println("Usage: java -cp benchmarks.jar " + ScalingBenchmark.class.getName() + " [options]");
+        System.out.println();
+        System.out.println("Options:");
+        System.out.println("  --sizes <n,n,...>         File counts to measure (default: 100,1000,10000)");
+        System.out.println("  --threads <n>             Analyzer worker threads (default: available processors)");
+        System.out.println("  --output <file>           JSON result file (default: scaling-results.json)");
+        System.out.println("  --work-dir <dir>          Where corpora are generated (default: a temporary directory)");
+        System.out.println("  --keep                    Keep the generated corpora");
+        System.out.println("  --jvm-arg <arg>           Extra argument for the measured JVM, e.g. -Xmx2g (repeatable)");
+        System.out.println("  --seed <n>                Generator seed (default: 42)");
+        System.out.println("  --depth <n>               Maximum directory depth (default: 4)");
+        System.out.println("  --lines <n>               Average lines per file (default: 200)");
+        System.out.println("  --sql-density <d>         SQL statements per 100 lines (default: 2.0)");
+        System.out.println("  --curl-density <d>        CURL sessions per 100 lines (default: 0.5)");
+        System.out.println("  --include-density <d>     Includes per 100 lines (default: 1.0)");
+        System.out.println("  --class-density <d>       Classes per 100 lines (default: 0.5)");
+        System.out.println("  --interface-density <d>   Interfaces per 100 lines (default: 0.2)");
+        System.out.println("  --trait-density <d>       Traits per 100 lines (default: 0.2)");
+        System.out.println("  --static-ratio <r>        Fraction of JS/CSS/HTML files (default: 0.1)");
+    }
+}
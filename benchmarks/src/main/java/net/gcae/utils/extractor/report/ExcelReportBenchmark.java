@@ -0,0 +1,103 @@
+package net.gcae.utils.extractor.report;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.gcae.utils.extractor.model.Complexity;
+import net.gcae.utils.extractor.model.CurlCall;
+import net.gcae.utils.extractor.model.CurlCallType;
+import net.gcae.utils.extractor.model.FileInventory;
+import net.gcae.utils.extractor.model.FileType;
+import net.gcae.utils.extractor.model.FunctionDefinition;
+import net.gcae.utils.extractor.model.PathTable;
+import net.gcae.utils.extractor.model.SQLQuery;
+
+/**
+ * Measures writing a complete workbook of the given number of rows, spread over
+ * the files, queries, functions and CURL sheets. Each run is a single shot since
+ * the larger sizes take seconds; records are drawn from a fixed pool so the cost
+ * measured is the writer's and not the model's.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Thread)
+public class ExcelReportBenchmark {
+
+    private static final int POOL_SIZE = 1024;
+
+    @Param({"10000", "100000", "1000000"})
+    public int rows;
+
+    @Param({"100"})
+    public int rowWindow;
+
+    private final FileInventory[] files = new FileInventory[POOL_SIZE];
+    private final SQLQuery[] queries = new SQLQuery[POOL_SIZE];
+    private final FunctionDefinition[] functions = new FunctionDefinition[POOL_SIZE];
+    private final CurlCall[] calls = new CurlCall[POOL_SIZE];
+    private final PathTable paths = new PathTable();
+    private Path outputDir;
+
+    @Setup
+    public void setUp() throws IOException {
+        outputDir = Files.createTempDirectory("phpextractor-bench");
+        for (int i = 0; i < POOL_SIZE; i++) {
+            int fileId = paths.intern("/var/www/app/module" + (i % 37) + "/File" + i + ".php");
+            int line = i * 7 + 1;
+            files[i] = new FileInventory("File" + i + ".php", fileId, FileType.PHP, 1000L + i * 13, 40 + i % 400, "UTF-8");
+            queries[i] = new SQLQuery("Query_" + i, "table" + (i % 50), fileId, line, "MySQLi",
+                    "SELECT a.id, a.name, b.value FROM table" + (i % 50) + " a JOIN other b ON b.a_id = a.id WHERE a.id = " + i,
+                    i % 10 == 0 ? Complexity.MEDIUM : Complexity.LOW);
+            functions[i] = new FunctionDefinition("function" + i, fileId, line, i % 80,
+                    i % 80 > 50 ? Complexity.HIGH : Complexity.LOW, "$id, array $options = []");
+            calls[i] = new CurlCall(CurlCallType.CURL_SETOPT, fileId, line, "CURLOPT_URL=$baseUrl . '/api/" + i + "'");
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void deleteReport() throws IOException {
+        Files.deleteIfExists(outputDir.resolve("report.xlsx"));
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(outputDir);
+    }
+
+    @Benchmark
+    public long writeWorkbook() throws IOException {
+        Path output = outputDir.resolve("report.xlsx");
+        try (ExcelReportWriter writer = new ExcelReportWriter(output.toString(), rowWindow)) {
+            for (int i = 0; i < rows; i++) {
+                int n = (i >>> 2) % POOL_SIZE;
+                switch (i & 3) {
+                    case 0: writer.addFile(files[n], paths); break;
+                    case 1: writer.addQuery(queries[n], paths); break;
+                    case 2: writer.addFunction(functions[n], paths); break;
+                    default: writer.addCall(calls[n], paths); break;
+                }
+            }
+            writer.finish();
+        }
+        return Files.size(output);
+    }
+}
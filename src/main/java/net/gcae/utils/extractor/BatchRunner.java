@@ -0,0 +1,206 @@
+package net.gcae.utils.extractor;
+
+import net.gcae.utils.extractor.analyzer.FairWorkerPool;
+import net.gcae.utils.extractor.model.AnalysisSummary;
+import net.gcae.utils.extractor.report.BatchOverviewWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Analyzes a list of projects in one JVM. Several projects run at the same time and
+ * their files share one pool of analyzer threads, which takes files from the running
+ * projects in turn. Each project gets a report, and a cache unless caching is off, in
+ * an output subdirectory named after it; a failing project does not stop the others.
+ */
+public class BatchRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(BatchRunner.class);
+
+    public static final int DEFAULT_CONCURRENT_PROJECTS = 4;
+
+    private final ExtractorOptions options;
+    private final List<File> projects;
+    private final File outputDir;
+    private final int concurrentProjects;
+
+    /**
+     * @param options options of every project; the memory budget is divided among the projects running at once
+     */
+    public BatchRunner(ExtractorOptions options, List<File> projects, File outputDir, int concurrentProjects) {
+        this.options = options;
+        this.projects = projects;
+        this.outputDir = outputDir;
+        this.concurrentProjects = Math.max(1, Math.min(concurrentProjects, projects.size()));
+    }
+
+    /**
+     * Reads a project list: one directory per line, relative paths resolved against
+     * the list's directory, blank lines and lines starting with # ignored.
+     */
+    public static List<File> readProjectList(Path listFile) throws IOException {
+        Path base = listFile.toAbsolutePath().getParent();
+        List<File> projects = new ArrayList<>();
+        for (String line : Files.readAllLines(listFile, StandardCharsets.UTF_8)) {
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+                continue;
+            }
+            projects.add(base.resolve(trimmed).normalize().toFile());
+        }
+        return projects;
+    }
+
+    /**
+     * Runs every project and returns their outcomes in list order. Each outcome is
+     * also passed to the listener as soon as its project ends.
+     */
+    public List<ProjectResult> run(Consumer<ProjectResult> listener) throws InterruptedException {
+        List<String> names = outputNames();
+        List<ProjectResult> results = new ArrayList<>();
+        AtomicInteger finished = new AtomicInteger();
+        AtomicInteger threads = new AtomicInteger();
+        ExecutorService projectPool = Executors.newFixedThreadPool(concurrentProjects, runnable -> {
+            Thread thread = new Thread(runnable, "php-batch-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try (FairWorkerPool workerPool = new FairWorkerPool(options.getThreads(), "php-analyzer-")) {
+            logger.info("Analyzing {} projects, {} at a time, on {} analyzer threads",
+                    projects.size(), concurrentProjects, workerPool.getThreads());
+            List<Future<ProjectResult>> futures = new ArrayList<>();
+            for (int i = 0; i < projects.size(); i++) {
+                File project = projects.get(i);
+                String name = names.get(i);
+                futures.add(projectPool.submit(() -> {
+                    ProjectResult result = runProject(project, name, workerPool);
+                    result.position = finished.incrementAndGet();
+                    synchronized (listener) {
+                        listener.accept(result);
+                    }
+                    return result;
+                }));
+            }
+            for (Future<ProjectResult> future : futures) {
+                results.add(future.get());
+            }
+        } catch (ExecutionException e) {
+            // runProject reports its own failures
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            projectPool.shutdownNow();
+        }
+        return results;
+    }
+
+    /**
+     * Writes the combined overview of a completed batch.
+     */
+    public static void writeOverview(List<ProjectResult> results, String overviewPath) throws IOException {
+        try (BatchOverviewWriter writer = new BatchOverviewWriter(overviewPath)) {
+            for (ProjectResult result : results) {
+                writer.addProject(result.name, result.project.getPath(), result.summary, result.millis,
+                        result.reportPath, result.error);
+            }
+            writer.finish();
+        }
+    }
+
+    private ProjectResult runProject(File project, String name, FairWorkerPool workerPool) {
+        ProjectResult result = new ProjectResult(project, name);
+        long start = System.nanoTime();
+        try {
+            ExtractorOptions projectOptions = options.copy();
+            // Running projects share the budget instead of each taking all of it
+            projectOptions.apply("--memory-budget",
+                    Long.toString(Math.max(1, options.getMemoryBudget() / concurrentProjects / (1024 * 1024))));
+            if (options.getCacheDir() != null) {
+                // Separate caches, since each project prunes the entries it did not see
+                projectOptions.apply("--cache-dir", new File(options.getCacheDir(), name).getPath());
+            }
+            ReportJob job = new ReportJob(projectOptions, project, new File(outputDir, name));
+            job.setWorkerPool(workerPool);
+            String problem = job.prepare();
+            if (problem != null) {
+                result.error = problem;
+            } else {
+                ReportJob.Result report = job.run();
+                result.reportPath = report.getReportPath();
+                result.summary = report.getSummary();
+            }
+        } catch (Exception e) {
+            logger.error("Analysis of {} failed: {}", project, e.getMessage(), e);
+            result.error = e.getMessage() != null ? e.getMessage() : e.toString();
+        }
+        result.millis = (System.nanoTime() - start) / 1_000_000L;
+        return result;
+    }
+
+    /**
+     * Names each project's output subdirectory after its directory, numbering repeated names.
+     */
+    private List<String> outputNames() {
+        List<String> names = new ArrayList<>();
+        Set<String> used = new HashSet<>();
+        for (File project : projects) {
+            Path fileName = project.getAbsoluteFile().toPath().normalize().getFileName();
+            String base = fileName != null ? fileName.toString() : "project";
+            String name = base;
+            for (int n = 2; !used.add(name.toLowerCase(Locale.ROOT)); n++) {
+                name = base + "_" + n;
+            }
+            names.add(name);
+        }
+        return names;
+    }
+
+    /**
+     * Outcome of one project of the batch.
+     */
+    public static final class ProjectResult {
+        private final File project;
+        private final String name;
+        private int position;
+        private long millis;
+        private String reportPath;
+        private AnalysisSummary summary;
+        private String error;
+
+        ProjectResult(File project, String name) {
+            this.project = project;
+            this.name = name;
+        }
+
+        public File getProject() { return project; }
+        public String getName() { return name; }
+
+        /**
+         * Returns how many projects, this one included, had ended when it ended.
+         */
+        public int getPosition() { return position; }
+        public long getMillis() { return millis; }
+        public String getReportPath() { return reportPath; }
+        public AnalysisSummary getSummary() { return summary; }
+
+        /**
+         * Returns why the project failed, or null when its report was written.
+         */
+        public String getError() { return error; }
+    }
+}
@@ -0,0 +1,234 @@
+package net.gcae.utils.extractor;
+
+import net.gcae.utils.extractor.analyzer.PHPAnalyzer;
+import net.gcae.utils.extractor.report.ExcelReportWriter;
+import net.gcae.utils.extractor.report.HtmlReportWriter;
+import net.gcae.utils.extractor.report.ReportFormat;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Settings of one extraction run, given as command line options or as the
+ * parameters of a daemon request. Options are applied by their command line name.
+ */
+public class ExtractorOptions {
+
+    private int threads = 1;
+    private List<String> excludePatterns = new ArrayList<>();
+    private boolean useGitignore = true;
+    private long memoryBudget = PHPAnalyzer.DEFAULT_MEMORY_BUDGET;
+    private int rowWindow = ExcelReportWriter.DEFAULT_ROW_WINDOW;
+    private boolean useCache = true;
+    private String cacheDir;
+    private String snapshotPath;
+    private String fromSnapshot;
+    private String metricsPath;
+    private boolean performanceSheet;
+    private long fileTimeoutMillis = PHPAnalyzer.DEFAULT_FILE_TIMEOUT_MILLIS;
+    private boolean force;
+    private int shard;
+    private int shardCount;
+    private List<String> mergeInputs = new ArrayList<>();
+    private ReportFormat format = ReportFormat.XLSX;
+    private boolean gzip;
+    private boolean stdout;
+    private int htmlPageSize = HtmlReportWriter.DEFAULT_PAGE_SIZE;
+    private boolean index = true;
+    private List<String> includePaths = new ArrayList<>();
+    private boolean entryPointIncludes;
+
+    /**
+     * Returns true for options that take no value.
+     */
+    public static boolean isFlag(String option) {
+        switch (option) {
+            case "--no-cache":
+            case "--performance-sheet":
+            case "--force":
+            case "--no-gitignore":
+            case "--gzip":
+            case "--stdout":
+            case "--no-index":
+            case "--entry-point-includes":
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Returns true for options followed by a value.
+     */
+    public static boolean takesValue(String option) {
+        switch (option) {
+            case "--threads":
+            case "--exclude":
+            case "--memory-budget":
+            case "--xlsx-window":
+            case "--cache-dir":
+            case "--snapshot":
+            case "--from-snapshot":
+            case "--metrics":
+            case "--file-timeout":
+            case "--shard":
+            case "--merge":
+            case "--format":
+            case "--html-page-size":
+            case "--include-path":
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Applies one option; the value is ignored for flags.
+     *
+     * @throws IllegalArgumentException if the option is unknown or its value is not valid
+     */
+    public void apply(String option, String value) {
+        switch (option) {
+            case "--threads": threads = parseCount(value, option); break;
+            case "--exclude": excludePatterns.add(value); break;
+            case "--memory-budget": memoryBudget = Math.max(1, parseCount(value, option)) * 1024L * 1024L; break;
+            case "--xlsx-window": rowWindow = Math.max(0, parseCount(value, option)); break;
+            case "--cache-dir": cacheDir = value; break;
+            case "--no-cache": useCache = false; break;
+            case "--snapshot": snapshotPath = value; break;
+            case "--from-snapshot": fromSnapshot = value; break;
+            case "--metrics": metricsPath = value; break;
+            case "--performance-sheet": performanceSheet = true; break;
+            case "--file-timeout": fileTimeoutMillis = Math.max(0, parseCount(value, option)) * 1000L; break;
+            case "--force": force = true; break;
+            case "--no-gitignore": useGitignore = false; break;
+            case "--shard": parseShard(value, option); break;
+            case "--merge": mergeInputs.add(value); break;
+            case "--format": format = ReportFormat.fromName(value); break;
+            case "--gzip": gzip = true; break;
+            case "--stdout": stdout = true; break;
+            case "--no-index": index = false; break;
+            case "--html-page-size": htmlPageSize = Math.max(1, parseCount(value, option)); break;
+            case "--include-path": addIncludePaths(value); break;
+            case "--entry-point-includes": entryPointIncludes = true; break;
+            default: throw new IllegalArgumentException("Unknown option: " + option);
+        }
+    }
+
+    /**
+     * Returns an independent copy, so per-request options can start from shared defaults.
+     */
+    public ExtractorOptions copy() {
+        ExtractorOptions copy = new ExtractorOptions();
+        copy.threads = threads;
+        copy.excludePatterns = new ArrayList<>(excludePatterns);
+        copy.useGitignore = useGitignore;
+        copy.memoryBudget = memoryBudget;
+        copy.rowWindow = rowWindow;
+        copy.useCache = useCache;
+        copy.cacheDir = cacheDir;
+        copy.snapshotPath = snapshotPath;
+        copy.fromSnapshot = fromSnapshot;
+        copy.metricsPath = metricsPath;
+        copy.performanceSheet = performanceSheet;
+        copy.fileTimeoutMillis = fileTimeoutMillis;
+        copy.force = force;
+        copy.shard = shard;
+        copy.shardCount = shardCount;
+        copy.mergeInputs = new ArrayList<>(mergeInputs);
+        copy.format = format;
+        copy.gzip = gzip;
+        copy.stdout = stdout;
+        copy.htmlPageSize = htmlPageSize;
+        copy.index = index;
+        copy.includePaths = new ArrayList<>(includePaths);
+        copy.entryPointIncludes = entryPointIncludes;
+        return copy;
+    }
+
+    /**
+     * Parses "i/N", a 1-based shard number and the number of shards.
+     */
+    private void parseShard(String value, String option) {
+        int slash = value.indexOf('/');
+        try {
+            int index = Integer.parseInt(value.substring(0, slash));
+            int count = Integer.parseInt(value.substring(slash + 1));
+            if (count >= 1 && index >= 1 && index <= count) {
+                shard = index;
+                shardCount = count;
+                return;
+            }
+        } catch (NumberFormatException | StringIndexOutOfBoundsException e) {
+            // Reported below
+        }
+        throw new IllegalArgumentException("Invalid value for " + option + ": " + value);
+    }
+
+    /**
+     * Adds the directories of a value written like PHP's include_path, separated by the platform's path separator.
+     */
+    private void addIncludePaths(String value) {
+        for (String directory : value.split(Pattern.quote(File.pathSeparator))) {
+            if (!directory.trim().isEmpty()) {
+                includePaths.add(directory.trim());
+            }
+        }
+    }
+
+    private static int parseCount(String value, String option) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid value for " + option + ": " + value);
+        }
+    }
+
+    // Getters
+    public int getThreads() { return threads; }
+    public List<String> getExcludePatterns() { return excludePatterns; }
+    public boolean isUseGitignore() { return useGitignore; }
+    public long getMemoryBudget() { return memoryBudget; }
+    public int getRowWindow() { return rowWindow; }
+    public boolean isUseCache() { return useCache; }
+    public String getCacheDir() { return cacheDir; }
+    public String getSnapshotPath() { return snapshotPath; }
+    public String getFromSnapshot() { return fromSnapshot; }
+    public String getMetricsPath() { return metricsPath; }
+    public boolean isPerformanceSheet() { return performanceSheet; }
+    public long getFileTimeoutMillis() { return fileTimeoutMillis; }
+    public boolean isForce() { return force; }
+    public int getShard() { return shard; }
+
+    /**
+     * Returns the number of shards, or 0 when the run analyzes the whole project.
+     */
+    public int getShardCount() { return shardCount; }
+    public List<String> getMergeInputs() { return mergeInputs; }
+    public ReportFormat getFormat() { return format; }
+    public boolean isGzip() { return gzip; }
+
+    /**
+     * Returns true when the report is written to standard output instead of the output directory.
+     */
+    public boolean isStdout() { return stdout; }
+    public int getHtmlPageSize() { return htmlPageSize; }
+
+    /**
+     * Returns true when a queryable index is written beside the report.
+     */
+    public boolean isIndex() { return index; }
+
+    /**
+     * Returns the directories searched for include targets given without a path, relative ones
+     * being taken from the project directory.
+     */
+    public List<String> getIncludePaths() { return includePaths; }
+
+    /**
+     * Returns true when the report lists every file each entry point includes, a row per pair.
+     */
+    public boolean isEntryPointIncludes() { return entryPointIncludes; }
+}
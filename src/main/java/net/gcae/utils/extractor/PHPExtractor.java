@@ -1,14 +1,29 @@
 package net.gcae.utils.extractor;
 
-import net.gcae.utils.extractor.analyzer.PHPAnalyzer;
-import net.gcae.utils.extractor.model.AnalysisResult;
-import net.gcae.utils.extractor.report.ExcelReportGenerator;
+import net.gcae.utils.extractor.analyzer.AnalysisMetrics;
+import net.gcae.utils.extractor.index.IndexEntry;
+import net.gcae.utils.extractor.index.IndexKind;
+import net.gcae.utils.extractor.index.IndexReader;
+import net.gcae.utils.extractor.model.AnalysisSummary;
+import net.gcae.utils.extractor.report.HtmlReportWriter;
+import net.gcae.utils.extractor.report.ReportFormat;
+import net.gcae.utils.extractor.server.AnalysisServer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
 
 /**
  * Main class for PHP Code Extractor application
@@ -18,65 +33,121 @@ public class PHPExtractor {
     private static final Logger logger = LoggerFactory.getLogger(PHPExtractor.class);
     
     public static void main(String[] args) {
-        if (args.length < 1) {
-            System.err.println("Usage: java -jar PHPExtractor.jar <php-project-path> [output-path]");
-            System.err.println("Example: java -jar PHPExtractor.jar /path/to/php/project ./reports");
+        if (args.length > 0 && args[0].equals("query")) {
+            runQuery(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        
+        List<String> positional = new ArrayList<>();
+        ExtractorOptions options = new ExtractorOptions();
+        boolean daemon = false;
+        int port = AnalysisServer.DEFAULT_PORT;
+        int concurrentJobs = 0;
+        String tokenFile = null;
+        boolean watch = false;
+        String batchList = null;
+        String overviewPath = null;
+        long debounceMillis = ProjectWatcher.DEFAULT_DEBOUNCE_MILLIS;
+        
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            try {
+                if (arg.equals("--daemon")) {
+                    daemon = true;
+                } else if (arg.equals("--port") && i + 1 < args.length) {
+                    port = parseCount(args[++i], "--port");
+                } else if (arg.equals("--token-file") && i + 1 < args.length) {
+                    tokenFile = args[++i];
+                } else if (arg.equals("--jobs") && i + 1 < args.length) {
+                    concurrentJobs = Math.max(1, parseCount(args[++i], "--jobs"));
+                } else if (arg.equals("--batch") && i + 1 < args.length) {
+                    batchList = args[++i];
+                } else if (arg.equals("--overview") && i + 1 < args.length) {
+                    overviewPath = args[++i];
+                } else if (arg.equals("--watch")) {
+                    watch = true;
+                } else if (arg.equals("--watch-debounce") && i + 1 < args.length) {
+                    debounceMillis = parseCount(args[++i], "--watch-debounce");
+                } else if (ExtractorOptions.takesValue(arg) && i + 1 < args.length) {
+                    options.apply(arg, args[++i]);
+                } else if (ExtractorOptions.isFlag(arg)) {
+                    options.apply(arg, null);
+                } else if (arg.startsWith("--")) {
+                    System.err.println("Unknown option: " + arg);
+                    printUsage();
+                    System.exit(1);
+                } else {
+                    positional.add(arg);
+                }
+            } catch (IllegalArgumentException e) {
+                System.err.println(e.getMessage());
+                printUsage();
+                System.exit(1);
+            }
+        }
+        
+        boolean sharded = options.getShardCount() > 0;
+        boolean merge = !options.getMergeInputs().isEmpty();
+        if (watch && (daemon || options.getFromSnapshot() != null || sharded || merge)) {
+            System.err.println("--watch cannot be combined with " + (daemon ? "--daemon"
+                    : options.getFromSnapshot() != null ? "--from-snapshot" : sharded ? "--shard" : "--merge"));
+            printUsage();
+            System.exit(1);
+        }
+        if (watch && options.getFormat() != ReportFormat.XLSX) {
+            System.err.println("--watch writes xlsx reports only");
+            printUsage();
+            System.exit(1);
+        }
+        if (sharded && (options.getFromSnapshot() != null || merge)) {
+            System.err.println("--shard cannot be combined with " + (merge ? "--merge" : "--from-snapshot"));
+            printUsage();
+            System.exit(1);
+        }
+        if (batchList != null) {
+            String conflict = daemon ? "--daemon" : watch ? "--watch" : options.getFromSnapshot() != null ? "--from-snapshot"
+                    : sharded ? "--shard" : merge ? "--merge" : options.isStdout() ? "--stdout"
+                    : options.getSnapshotPath() != null ? "--snapshot"
+                    : options.getMetricsPath() != null ? "--metrics" : null;
+            if (conflict != null || positional.size() > 1) {
+                System.err.println(conflict != null ? "--batch cannot be combined with " + conflict
+                        : "--batch takes only the output path");
+                printUsage();
+                System.exit(1);
+            }
+            runBatch(options, batchList, positional.isEmpty() ? "." : positional.get(0),
+                    concurrentJobs > 0 ? concurrentJobs : BatchRunner.DEFAULT_CONCURRENT_PROJECTS, overviewPath);
+            return;
+        }
+        if (daemon) {
+            runDaemon(options, port, Math.max(1, concurrentJobs), tokenFile, positional);
+            return;
+        }
+        
+        // A report rendered from a snapshot or merged from partial results takes only the output path
+        boolean analyze = options.getFromSnapshot() == null && !merge;
+        if (analyze ? positional.isEmpty() : positional.size() > 1) {
+            printUsage();
             System.exit(1);
         }
         
-        String phpProjectPath = args[0];
-        String outputPath = args.length > 1 ? args[1] : ".";
+        String phpProjectPath = analyze ? positional.get(0) : null;
+        int outputIndex = analyze ? 1 : 0;
+        String outputPath = positional.size() > outputIndex ? positional.get(outputIndex) : ".";
         
         try {
-            logger.info("Starting PHP Code Analysis for: {}", phpProjectPath);
             logger.info("Output directory: {}", outputPath);
-            
-            // Validate input directory
-            File projectDir = new File(phpProjectPath);
-            if (!projectDir.exists() || !projectDir.isDirectory()) {
-                logger.error("Invalid project path: {} - Directory does not exist or is not a directory", phpProjectPath);
-                System.err.println("Error: Invalid project path - " + phpProjectPath);
-                System.exit(1);
-            }
-            
-            // Validate/create output directory
-            File outputDir = new File(outputPath);
-            if (!outputDir.exists()) {
-                boolean created = outputDir.mkdirs();
-                if (!created) {
-                    logger.error("Could not create output directory: {}", outputPath);
-                    System.err.println("Error: Could not create output directory - " + outputPath);
-                    System.exit(1);
-                }
-                logger.info("Created output directory: {}", outputPath);
+            if (watch) {
+                runWatch(options, new File(phpProjectPath), new File(outputPath), debounceMillis);
+                return;
             }
-            
-            // Create analyzer and perform analysis
-            PHPAnalyzer analyzer = new PHPAnalyzer();
-            AnalysisResult result = analyzer.analyzeProject(projectDir);
-            
-            // Check if any data was found
-            if (!result.hasData()) {
-                logger.warn("No analyzable data found in project directory: {}", phpProjectPath);
-                System.out.println("Warning: No PHP files or analyzable content found in the specified directory.");
+            ReportJob job = new ReportJob(options, phpProjectPath != null ? new File(phpProjectPath) : null, new File(outputPath));
+            String problem = job.prepare();
+            if (problem != null) {
+                System.err.println("Error: " + problem);
+                System.exit(1);
             }
-            
-            // Generate Excel report
-            String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
-            String reportFileName = String.format("IT_CodeAnalysis_%s.xlsx", timestamp);
-            String reportPath = new File(outputDir, reportFileName).getAbsolutePath();
-            
-            ExcelReportGenerator reportGenerator = new ExcelReportGenerator();
-            reportGenerator.generateReport(result, reportPath);
-            
-            logger.info("Analysis completed successfully. Report generated: {}", reportPath);
-            System.out.println("Analysis completed successfully!");
-            System.out.println("Report generated: " + reportPath);
-            System.out.println("\nSummary:");
-            System.out.println("- Files analyzed: " + (result.getFiles() != null ? result.getFiles().size() : 0));
-            System.out.println("- SQL queries found: " + (result.getSqlQueries() != null ? result.getSqlQueries().size() : 0));
-            System.out.println("- Functions found: " + (result.getFunctions() != null ? result.getFunctions().size() : 0));
-            System.out.println("- Classes found: " + (result.getClasses() != null ? result.getClasses().size() : 0));
+            printResult(job.run(), options);
             
         } catch (Exception e) {
             logger.error("Error during analysis: {}", e.getMessage(), e);
@@ -85,4 +156,273 @@ public class PHPExtractor {
             System.exit(1);
         }
     }
+    
+    /**
+     * Analyzes the project once, then keeps the report current until interrupted.
+     */
+    private static void runWatch(ExtractorOptions options, File projectDir, File outputDir, long debounceMillis)
+            throws Exception {
+        ProjectWatcher watcher = new ProjectWatcher(options, projectDir, outputDir, debounceMillis);
+        String problem = watcher.prepare();
+        if (problem != null) {
+            System.err.println("Error: " + problem);
+            System.exit(1);
+        }
+        printResult(watcher.start(), options);
+        System.out.println("\nWatching " + projectDir + " for changes; press Ctrl-C to stop.");
+        watcher.watch(update -> {
+            AnalysisSummary summary = update.getSummary();
+            System.out.println(String.format(Locale.ROOT,
+                    "Report updated in %d ms: %d files analyzed again, %d removed (%d files, %d SQL queries, %d functions, %d classes)",
+                    update.getMillis(), update.getAnalyzed(), update.getRemoved(), summary.getFiles(),
+                    summary.getSqlQueries(), summary.getFunctions(), summary.getClasses()));
+        });
+    }
+    
+    private static void runBatch(ExtractorOptions options, String listPath, String outputPath, int concurrentProjects,
+                                 String overviewPath) {
+        List<File> projects;
+        try {
+            projects = BatchRunner.readProjectList(Paths.get(listPath));
+        } catch (IOException e) {
+            System.err.println("Error: Could not read project list - " + listPath + " (" + e.getMessage() + ")");
+            System.exit(1);
+            return;
+        }
+        if (projects.isEmpty()) {
+            System.err.println("Error: No projects listed in " + listPath);
+            System.exit(1);
+        }
+        
+        long start = System.nanoTime();
+        List<BatchRunner.ProjectResult> results;
+        try {
+            results = new BatchRunner(options, projects, new File(outputPath), concurrentProjects).run(result -> {
+                String prefix = String.format(Locale.ROOT, "[%d/%d] %s: ", result.getPosition(), projects.size(), result.getName());
+                if (result.getError() != null) {
+                    System.out.println(prefix + "FAILED - " + result.getError());
+                } else {
+                    AnalysisSummary summary = result.getSummary();
+                    System.out.println(prefix + String.format(Locale.ROOT,
+                            "%d files, %d SQL queries, %d functions, %d classes in %.1f s -> %s",
+                            summary.getFiles(), summary.getSqlQueries(), summary.getFunctions(), summary.getClasses(),
+                            result.getMillis() / 1000.0, result.getReportPath()));
+                }
+            });
+            if (overviewPath != null) {
+                BatchRunner.writeOverview(results, overviewPath);
+            }
+        } catch (Exception e) {
+            logger.error("Batch failed: {}", e.getMessage(), e);
+            System.err.println("Batch failed: " + e.getMessage());
+            System.exit(1);
+            return;
+        }
+        
+        long failed = results.stream().filter(result -> result.getError() != null).count();
+        System.out.println(String.format(Locale.ROOT, "\nBatch completed in %.1f s: %d projects analyzed, %d failed",
+                (System.nanoTime() - start) / 1e9, results.size() - failed, failed));
+        if (overviewPath != null) {
+            System.out.println("Overview generated: " + overviewPath);
+        }
+        if (failed > 0) {
+            System.exit(1);
+        }
+    }
+    
+    private static void printResult(ReportJob.Result result, ExtractorOptions options) {
+        AnalysisSummary summary = result.getSummary();
+        AnalysisMetrics metrics = result.getMetrics();
+        // Standard output may be carrying the report itself
+        PrintStream out = options.isStdout() ? System.err : System.out;
+        
+        if (!summary.hasData()) {
+            out.println("Warning: No PHP files or analyzable content found in the specified directory.");
+        }
+        out.println("Analysis completed successfully!");
+        if (options.getShardCount() > 0) {
+            out.println("Partial result written (shard " + options.getShard() + " of "
+                    + options.getShardCount() + "): " + result.getReportPath());
+        } else {
+            out.println("Report generated: " + result.getReportPath());
+        }
+        if (result.getIndexPath() != null) {
+            out.println("Index written: " + result.getIndexPath());
+        }
+        out.println("\nSummary:");
+        out.println("- Files analyzed: " + summary.getFiles());
+        out.println("- SQL queries found: " + summary.getSqlQueries());
+        out.println("- Functions found: " + summary.getFunctions());
+        out.println("- Classes found: " + summary.getClasses());
+        if (summary.getQuarantined() > 0) {
+            out.println("- Files quarantined (code not analyzed): " + summary.getQuarantined());
+        }
+        if (metrics != null) {
+            printPerformance(metrics, out);
+        }
+        if (metrics != null && options.getMetricsPath() != null) {
+            out.println("Metrics written: " + options.getMetricsPath());
+        }
+    }
+    
+    /**
+     * Answers a lookup from the index of an earlier run: query <index-file|dir> <kind> <name>.
+     * A directory stands for the newest index in it, and a name ending in * is a prefix.
+     */
+    private static void runQuery(String[] args) {
+        if (args.length != 3) {
+            printUsage();
+            System.exit(1);
+        }
+        try {
+            long start = System.nanoTime();
+            IndexKind kind = IndexKind.fromName(args[1]);
+            Path indexPath = findIndex(Paths.get(args[0]));
+            String name = args[2];
+            List<IndexEntry> entries;
+            try (IndexReader reader = IndexReader.open(indexPath)) {
+                entries = name.endsWith("*")
+                        ? reader.lookupPrefix(kind, name.substring(0, name.length() - 1))
+                        : reader.lookup(kind, name);
+            }
+            StringBuilder lines = new StringBuilder();
+            for (IndexEntry entry : entries) {
+                lines.append(entry.getKey()).append('\t').append(entry.getRole().getLabel())
+                        .append('\t').append(entry.getFileLocation()).append('\n');
+            }
+            System.out.print(lines);
+            System.out.flush();
+            System.err.println(String.format(Locale.ROOT, "%d location%s for %s '%s' in %.1f ms (%s)", entries.size(),
+                    entries.size() == 1 ? "" : "s", kind.getName(), name, (System.nanoTime() - start) / 1e6, indexPath));
+            if (entries.isEmpty()) {
+                System.exit(1);
+            }
+        } catch (IllegalArgumentException | IOException e) {
+            System.err.println("Error: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+    
+    private static Path findIndex(Path path) throws IOException {
+        if (!Files.isDirectory(path)) {
+            if (!Files.isRegularFile(path)) {
+                throw new IOException("Index not found: " + path);
+            }
+            return path;
+        }
+        Path newest = null;
+        FileTime newestTime = null;
+        try (DirectoryStream<Path> indexes = Files.newDirectoryStream(path, "*" + ReportJob.INDEX_EXTENSION)) {
+            for (Path index : indexes) {
+                FileTime time = Files.getLastModifiedTime(index);
+                if (newest == null || time.compareTo(newestTime) > 0) {
+                    newest = index;
+                    newestTime = time;
+                }
+            }
+        }
+        if (newest == null) {
+            throw new IOException("No " + ReportJob.INDEX_EXTENSION + " index in " + path + "; run the analysis first");
+        }
+        return newest;
+    }
+    
+    private static void runDaemon(ExtractorOptions defaults, int port, int concurrentJobs, String tokenFile,
+                                  List<String> positional) {
+        if (!positional.isEmpty()) {
+            System.err.println("The daemon takes no project path; submit jobs to it instead");
+            printUsage();
+            System.exit(1);
+        }
+        try {
+            Path token = tokenFile != null ? Paths.get(tokenFile)
+                    : Paths.get(System.getProperty("user.home"), AnalysisServer.DEFAULT_TOKEN_FILE);
+            AnalysisServer server = new AnalysisServer(defaults, port, concurrentJobs, token);
+            System.out.println("PHPExtractor daemon listening on http://127.0.0.1:" + server.getPort() + "/");
+            System.out.println("Send the token in " + server.getTokenFile() + " as Authorization: Bearer <token>");
+            server.run();
+        } catch (Exception e) {
+            logger.error("Daemon failed: {}", e.getMessage(), e);
+            System.err.println("Daemon failed: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+    
+    private static void printPerformance(AnalysisMetrics metrics, PrintStream out) {
+        out.println("\nPerformance:");
+        out.println(String.format(Locale.ROOT, "- Total time: %.2f s (%.1f MB read, %d files reused from cache)",
+                metrics.getWallNanos() / 1e9, metrics.getBytesRead() / (1024.0 * 1024.0), metrics.getFilesReused()));
+        out.println(String.format(Locale.ROOT, "- Read: %.0f ms, decode: %.0f ms (summed over threads)",
+                metrics.getReadNanos() / 1e6, metrics.getDecodeNanos() / 1e6));
+        
+        AnalysisMetrics.Stage[] stages = AnalysisMetrics.Stage.values();
+        Arrays.sort(stages, Comparator.comparingLong(metrics::getStageNanos).reversed());
+        StringBuilder slowestStages = new StringBuilder("- Slowest extractors:");
+        for (int i = 0; i < Math.min(3, stages.length); i++) {
+            slowestStages.append(String.format(Locale.ROOT, "%s %s %.0f ms", i == 0 ? "" : ",",
+                    stages[i].getLabel(), metrics.getStageNanos(stages[i]) / 1e6));
+        }
+        out.println(slowestStages);
+        
+        List<AnalysisMetrics.FileTiming> slowestFiles = metrics.getSlowestFiles();
+        if (!slowestFiles.isEmpty()) {
+            out.println("- Slowest files:");
+            for (AnalysisMetrics.FileTiming file : slowestFiles.subList(0, Math.min(5, slowestFiles.size()))) {
+                out.println(String.format(Locale.ROOT, "    %8.1f ms  %s", file.getNanos() / 1e6, file.getPath()));
+            }
+        }
+    }
+    
+    private static void printUsage() {
+        System.err.println("Usage: java -jar PHPExtractor.jar [options] <php-project-path> [output-path]");
+        System.err.println("       java -jar PHPExtractor.jar --from-snapshot <file> [options] [output-path]");
+        System.err.println("       java -jar PHPExtractor.jar --merge <file|dir> [--merge ...] [options] [output-path]");
+        System.err.println("       java -jar PHPExtractor.jar --batch <list-file> [--overview <file>] [options] [output-path]");
+        System.err.println("       java -jar PHPExtractor.jar --daemon [--port <n>] [--jobs <n>] [--token-file <file>] [options]");
+        System.err.println("       java -jar PHPExtractor.jar query <index-file|dir> <kind> <name>[*]");
+        System.err.println("                       kind: table, class, function, interface, include or curl");
+        System.err.println("Options:");
+        System.err.println("  --threads <n>        Number of files analyzed in parallel (default 1, 0 = all processors)");
+        System.err.println("  --exclude <pattern>  Skip paths matching a .gitignore-style pattern (repeatable)");
+        System.err.println("  --no-gitignore       Do not honor .gitignore files found in the project");
+        System.err.println("  --memory-budget <mb> Heap reserved for files in flight between walker and report (default 256)");
+        System.err.println("  --xlsx-window <rows> Report rows kept in memory per sheet (default 100, 0 = whole workbook in memory)");
+        System.err.println("  --cache-dir <dir>    Analysis cache location (default <output-path>/" + ReportJob.CACHE_DIRECTORY + ")");
+        System.err.println("  --no-cache           Analyze every file without reading or updating the cache");
+        System.err.println("  --format <name>      Report format: xlsx (default), csv (a directory of files, one per category), jsonl,");
+        System.err.println("                       or html (a directory with an index page and each category split into pages)");
+        System.err.println("  --html-page-size <n> Rows per page of the html report (default " + HtmlReportWriter.DEFAULT_PAGE_SIZE + ")");
+        System.err.println("  --gzip               Compress csv and jsonl output with gzip");
+        System.err.println("  --stdout             With --format jsonl, write the report to standard output");
+        System.err.println("  --include-path <dirs> Directories searched for require and include targets given without a path,");
+        System.err.println("                       separated by '" + File.pathSeparator + "' (repeatable; relative ones are taken from the project path)");
+        System.err.println("  --entry-point-includes List every file each entry point includes, directly or not");
+        System.err.println("  --no-index           Do not write the .idx index used by the query command");
+        System.err.println("  --snapshot <file>    Also save the results to a binary snapshot");
+        System.err.println("  --from-snapshot <f>  Render the report from a snapshot instead of analyzing a project");
+        System.err.println("  --shard <i/N>        Analyze only shard i of N and write a partial result instead of the report");
+        System.err.println("  --merge <file|dir>   Render the report from the partial results of every shard (repeatable)");
+        System.err.println("  --file-timeout <s>   Time allowed per file before it is quarantined (default 30, 0 = no limit)");
+        System.err.println("  --force              Analyze files quarantined by earlier runs again");
+        System.err.println("  --metrics <file>     Write per-extractor timings and the slowest files as JSON");
+        System.err.println("  --performance-sheet  Add a Performance sheet with the same timings to the report");
+        System.err.println("  --watch              Keep the report up to date as files change, until interrupted");
+        System.err.println("  --watch-debounce <ms> Quiet time before the report is rewritten after changes (default " + ProjectWatcher.DEFAULT_DEBOUNCE_MILLIS + ")");
+        System.err.println("  --daemon             Stay running and accept jobs over HTTP on 127.0.0.1 (see README)");
+        System.err.println("  --port <n>           Daemon port (default " + AnalysisServer.DEFAULT_PORT + ")");
+        System.err.println("  --token-file <file>  Where the daemon writes the token its clients must send (default ~/" + AnalysisServer.DEFAULT_TOKEN_FILE + ")");
+        System.err.println("  --batch <file>       Analyze every project listed in the file, one per line, into <output-path>/<project>");
+        System.err.println("  --overview <file>    With --batch, also write an overview workbook with one row per project");
+        System.err.println("  --jobs <n>           Jobs the daemon (default 1), or projects a batch (default " + BatchRunner.DEFAULT_CONCURRENT_PROJECTS + "), runs at the same time;");
+        System.err.println("                       --threads sizes the worker pool they share");
+        System.err.println("Example: java -jar PHPExtractor.jar --threads 8 /path/to/php/project ./reports");
+    }
+    
+    private static int parseCount(String value, String option) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid value for " + option + ": " + value);
+        }
+    }
 }
\ No newline at end of file
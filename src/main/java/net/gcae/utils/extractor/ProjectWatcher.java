@@ -0,0 +1,417 @@
+package net.gcae.utils.extractor;
+
+import net.gcae.utils.extractor.analyzer.AnalysisMetrics;
+import net.gcae.utils.extractor.analyzer.AnalysisSink;
+import net.gcae.utils.extractor.analyzer.PHPAnalyzer;
+import net.gcae.utils.extractor.analyzer.ProjectWalker;
+import net.gcae.utils.extractor.analyzer.SourceFile;
+import net.gcae.utils.extractor.graph.IncludeGraphBuilder;
+import net.gcae.utils.extractor.index.IndexWriter;
+import net.gcae.utils.extractor.model.AnalysisSummary;
+import net.gcae.utils.extractor.model.FileAnalysis;
+import net.gcae.utils.extractor.report.ExcelReportWriter;
+import net.gcae.utils.extractor.report.MetricsReport;
+import net.gcae.utils.extractor.snapshot.SnapshotWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Keeps the report of a project up to date while its files are edited. After a
+ * complete first analysis, only the files reported by a {@link WatchService} as
+ * created, modified or deleted are analyzed again, and their records replace the
+ * ones kept from before. The report is rewritten once a burst of changes has been
+ * quiet for the debounce interval, always to the same path and atomically.
+ *
+ * <p>Changes the per-file events cannot describe precisely, such as new, renamed or
+ * deleted directories, edited .gitignore files or an overflowing event queue, lead
+ * to a walk of the whole project that analyzes every file whose size or
+ * modification time differs from what was analyzed before.
+ */
+public class ProjectWatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProjectWatcher.class);
+
+    public static final long DEFAULT_DEBOUNCE_MILLIS = 500;
+
+    // A burst that never goes quiet still updates the report after this many intervals
+    private static final int MAX_DEBOUNCE_INTERVALS = 20;
+
+    private final ExtractorOptions options;
+    private final File projectDir;
+    private final long debounceMillis;
+    private final ReportJob job;
+    private final ProjectWalker walker;
+
+    // Records of every listed file by relative path, kept in walk order so an updated report
+    // lists files as a full run would; null until the file has been analyzed
+    private SortedMap<String, Tracked> files = newFileMap();
+
+    private final Map<WatchKey, Path> watchKeys = new HashMap<>();
+    private final Set<Path> watchedDirectories = new HashSet<>();
+    private WatchService watchService;
+    // Created per session; its path table holds the paths of every file seen since the start
+    private PHPAnalyzer analyzer;
+    private ExecutorService updatePool;
+    private String reportPath;
+    private String indexPath;
+
+    public ProjectWatcher(ExtractorOptions options, File projectDir, File outputDir, long debounceMillis) {
+        this.options = options;
+        this.projectDir = projectDir;
+        this.debounceMillis = Math.max(1, debounceMillis);
+        this.job = new ReportJob(options, projectDir, outputDir);
+        this.walker = new ProjectWalker(projectDir.toPath(), options.getExcludePatterns(), options.isUseGitignore());
+    }
+
+    /**
+     * Checks the project and output paths; see {@link ReportJob#prepare()}.
+     */
+    public String prepare() {
+        return job.prepare();
+    }
+
+    /**
+     * Starts watching the project, analyzes it completely and writes the first report.
+     */
+    public ReportJob.Result start() throws IOException {
+        logger.info("Starting PHP Code Analysis for: {}", projectDir);
+        analyzer = job.createAnalyzer();
+        AnalysisMetrics metrics = new AnalysisMetrics();
+        analyzer.setMetrics(metrics);
+        if (analyzer.getThreads() > 1) {
+            updatePool = Executors.newFixedThreadPool(analyzer.getThreads(), runnable -> {
+                Thread thread = new Thread(runnable, "php-watch-analyzer");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+
+        // Directories are registered before the first analysis, so files edited while
+        // it runs are analyzed again afterwards
+        watchService = projectDir.toPath().getFileSystem().newWatchService();
+        Map<Path, SourceFile> listed = new LinkedHashMap<>();
+        walker.walk(file -> listed.put(file.getPath(), file), this::register);
+
+        AnalysisSink collector = analysis -> {
+            Path path = Paths.get(analysis.getFilePath());
+            files.put(relativePath(path), new Tracked(listed.get(path), analysis));
+        };
+        analyzer.analyzeProject(projectDir, collector);
+        // Files that could not be analyzed are remembered so a rescan does not retry them
+        for (SourceFile file : listed.values()) {
+            files.putIfAbsent(relativePath(file.getPath()), new Tracked(file, null));
+        }
+        analyzer.setMetrics(null);
+
+        reportPath = job.reportPath();
+        indexPath = options.isIndex() ? job.indexPath(reportPath) : null;
+        AnalysisSummary summary = writeReport(metrics);
+        if (options.getMetricsPath() != null) {
+            MetricsReport.writeJson(metrics, Paths.get(options.getMetricsPath()));
+        }
+        logger.info("Analysis completed successfully. Report generated: {}", reportPath);
+        return new ReportJob.Result(reportPath, indexPath, summary, metrics);
+    }
+
+    /**
+     * Applies changes as they happen until the thread is interrupted. Each rewrite of
+     * the report is passed to the listener.
+     */
+    public void watch(Consumer<Update> listener) throws IOException, InterruptedException {
+        logger.info("Watching {} directories of {} for changes", watchKeys.size(), projectDir);
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                Set<Path> changed = new LinkedHashSet<>();
+                boolean rescan = false;
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(debounceMillis * MAX_DEBOUNCE_INTERVALS);
+                do {
+                    rescan |= collect(key, changed);
+                } while (System.nanoTime() < deadline
+                        && (key = watchService.poll(debounceMillis, TimeUnit.MILLISECONDS)) != null);
+
+                long start = System.nanoTime();
+                Update update = rescan ? rescan() : apply(changed);
+                if (update.analyzed == 0 && update.removed == 0) {
+                    continue;
+                }
+                if (analyzer.getQuarantine() != null) {
+                    analyzer.getQuarantine().save();
+                }
+                update.summary = writeReport(null);
+                update.reportPath = reportPath;
+                update.millis = (System.nanoTime() - start) / 1_000_000L;
+                logger.info("Report updated: {} files analyzed again, {} removed, {} ms",
+                        update.analyzed, update.removed, update.millis);
+                listener.accept(update);
+            }
+        } finally {
+            watchService.close();
+            if (updatePool != null) {
+                updatePool.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * Collects the files named by the key's events.
+     *
+     * @return true when the events call for a rescan of the whole project
+     */
+    private boolean collect(WatchKey key, Set<Path> changed) {
+        boolean rescan = false;
+        Path directory = watchKeys.get(key);
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW || directory == null) {
+                rescan = true;
+                continue;
+            }
+            Path path = directory.resolve((Path) event.context());
+            boolean isDirectory = Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS);
+            if (options.isUseGitignore() && path.getFileName().toString().equals(".gitignore")) {
+                rescan = true;
+            } else if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && isDirectory) {
+                rescan = true;
+            } else if (event.kind() == StandardWatchEventKinds.ENTRY_DELETE && watchedDirectories.contains(path)) {
+                rescan = true;
+            } else if (!isDirectory) {
+                changed.add(path);
+            }
+        }
+        if (!key.reset()) {
+            // The directory is gone or no longer accessible
+            watchedDirectories.remove(watchKeys.remove(key));
+        }
+        return rescan;
+    }
+
+    private Update apply(Set<Path> changed) throws IOException {
+        Update update = new Update();
+        List<SourceFile> toAnalyze = new ArrayList<>();
+        for (Path path : changed) {
+            SourceFile file = walker.select(path);
+            if (file != null) {
+                toAnalyze.add(file);
+            } else if (files.remove(relativePath(path)) != null) {
+                logger.debug("Removed from the report: {}", path);
+                update.removed++;
+            }
+        }
+        analyze(toAnalyze);
+        update.analyzed = toAnalyze.size();
+        return update;
+    }
+
+    private Update rescan() throws IOException {
+        logger.info("Rescanning {}", projectDir);
+        Update update = new Update();
+        SortedMap<String, Tracked> previous = files;
+        SortedMap<String, Tracked> current = newFileMap();
+        List<SourceFile> toAnalyze = new ArrayList<>();
+        walker.walk(file -> {
+            String path = relativePath(file.getPath());
+            Tracked tracked = previous.get(path);
+            if (tracked != null && tracked.matches(file)) {
+                current.put(path, tracked);
+            } else {
+                current.put(path, null);
+                toAnalyze.add(file);
+            }
+        }, this::register);
+        for (String path : previous.keySet()) {
+            if (!current.containsKey(path)) {
+                update.removed++;
+            }
+        }
+        files = current;
+        analyze(toAnalyze);
+        update.analyzed = toAnalyze.size();
+        return update;
+    }
+
+    private void analyze(List<SourceFile> toAnalyze) throws IOException {
+        if (updatePool == null || toAnalyze.size() < 2) {
+            for (SourceFile file : toAnalyze) {
+                files.put(relativePath(file.getPath()), new Tracked(file, analyzer.analyzeSingleFile(file)));
+            }
+            return;
+        }
+        List<Future<FileAnalysis>> results = new ArrayList<>(toAnalyze.size());
+        for (SourceFile file : toAnalyze) {
+            results.add(updatePool.submit(() -> analyzer.analyzeSingleFile(file)));
+        }
+        try {
+            for (int i = 0; i < toAnalyze.size(); i++) {
+                SourceFile file = toAnalyze.get(i);
+                files.put(relativePath(file.getPath()), new Tracked(file, results.get(i).get()));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while analyzing changed files", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Analysis of a changed file failed: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    private static SortedMap<String, Tracked> newFileMap() {
+        return new TreeMap<>(ProjectWalker::compareRelativePaths);
+    }
+
+    /**
+     * Returns a file's path relative to the project, with / as separator, as the walk orders it.
+     */
+    private String relativePath(Path file) {
+        String relativePath = projectDir.toPath().relativize(file).toString();
+        return File.separatorChar != '/' ? relativePath.replace(File.separatorChar, '/') : relativePath;
+    }
+
+    private void register(Path directory) {
+        if (watchedDirectories.contains(directory)) {
+            return;
+        }
+        try {
+            WatchKey key = directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+            watchKeys.put(key, directory);
+            watchedDirectories.add(directory);
+        } catch (IOException e) {
+            logger.warn("Could not watch directory {}: {}", directory, e.getMessage());
+        }
+    }
+
+    /**
+     * Writes the report, the index and the snapshot if one was requested, from the kept
+     * records. Each is written to a temporary file first and then moved over the previous
+     * one; the temporary files of a failed update are removed.
+     */
+    private AnalysisSummary writeReport(AnalysisMetrics metrics) throws IOException {
+        AnalysisSummary summary = new AnalysisSummary();
+        Path report = Paths.get(reportPath);
+        Path reportTemp = report.resolveSibling(report.getFileName() + ".tmp");
+        Path snapshot = options.getSnapshotPath() != null ? Paths.get(options.getSnapshotPath()) : null;
+        Path snapshotTemp = snapshot != null ? snapshot.resolveSibling(snapshot.getFileName() + ".tmp") : null;
+        try {
+            // The index writer moves its own temporary file into place
+            try (ExcelReportWriter reportWriter = new ExcelReportWriter(reportTemp.toString(), options.getRowWindow());
+                 SnapshotWriter snapshotWriter = snapshot != null ? new SnapshotWriter(snapshotTemp) : null;
+                 IndexWriter indexWriter = indexPath != null ? new IndexWriter(Paths.get(indexPath)) : null) {
+                List<AnalysisSink> sinks = new ArrayList<>();
+                sinks.add(reportWriter);
+                if (snapshotWriter != null) {
+                    sinks.add(snapshotWriter);
+                }
+                if (indexWriter != null) {
+                    sinks.add(indexWriter);
+                }
+                IncludeGraphBuilder graphBuilder = job.createGraphBuilder();
+                sinks.add(graphBuilder);
+                AnalysisSink sink = AnalysisSink.tee(sinks.toArray(new AnalysisSink[0]));
+                for (Tracked tracked : files.values()) {
+                    if (tracked != null && tracked.analysis != null) {
+                        sink.accept(tracked.analysis);
+                        summary.add(tracked.analysis);
+                    }
+                }
+                if (metrics != null && options.isPerformanceSheet()) {
+                    reportWriter.addPerformance(metrics);
+                }
+                reportWriter.addIncludeGraph(graphBuilder.build(), options.isEntryPointIncludes());
+                sink.finish();
+            }
+            replace(reportTemp, report);
+            if (snapshot != null) {
+                replace(snapshotTemp, snapshot);
+            }
+        } catch (IOException | RuntimeException e) {
+            deleteTemporary(reportTemp);
+            deleteTemporary(snapshotTemp);
+            throw e;
+        }
+        return summary;
+    }
+
+    private static void deleteTemporary(Path temp) {
+        if (temp == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(temp);
+        } catch (IOException e) {
+            logger.warn("Could not delete {}: {}", temp, e.getMessage());
+        }
+    }
+
+    private static void replace(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * A listed file, with the attributes it had when it was analyzed.
+     */
+    private static final class Tracked {
+        final long size;
+        final long lastModified;
+        final FileAnalysis analysis;
+
+        Tracked(SourceFile file, FileAnalysis analysis) {
+            // A file analyzed without having been listed is checked again by the next rescan
+            this.size = file != null ? file.getSize() : -1;
+            this.lastModified = file != null ? file.getLastModified() : -1;
+            this.analysis = analysis;
+        }
+
+        boolean matches(SourceFile file) {
+            return size == file.getSize() && lastModified == file.getLastModified();
+        }
+    }
+
+    /**
+     * One rewrite of the report.
+     */
+    public static final class Update {
+        private int analyzed;
+        private int removed;
+        private long millis;
+        private String reportPath;
+        private AnalysisSummary summary;
+
+        public int getAnalyzed() { return analyzed; }
+        public int getRemoved() { return removed; }
+        public long getMillis() { return millis; }
+        public String getReportPath() { return reportPath; }
+        public AnalysisSummary getSummary() { return summary; }
+    }
+}
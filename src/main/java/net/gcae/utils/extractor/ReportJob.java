@@ -0,0 +1,453 @@
+package net.gcae.utils.extractor;
+
+import net.gcae.utils.extractor.analyzer.AnalysisMetrics;
+import net.gcae.utils.extractor.analyzer.AnalysisSink;
+import net.gcae.utils.extractor.analyzer.FairWorkerPool;
+import net.gcae.utils.extractor.analyzer.PHPAnalyzer;
+import net.gcae.utils.extractor.cache.AnalysisCache;
+import net.gcae.utils.extractor.cache.QuarantineList;
+import net.gcae.utils.extractor.graph.IncludeGraphBuilder;
+import net.gcae.utils.extractor.index.IndexWriter;
+import net.gcae.utils.extractor.model.AnalysisSummary;
+import net.gcae.utils.extractor.model.PathTable;
+import net.gcae.utils.extractor.report.CsvReportWriter;
+import net.gcae.utils.extractor.report.ExcelReportWriter;
+import net.gcae.utils.extractor.report.HtmlReportWriter;
+import net.gcae.utils.extractor.report.JsonLinesReportWriter;
+import net.gcae.utils.extractor.report.MetricsReport;
+import net.gcae.utils.extractor.report.ReportFormat;
+import net.gcae.utils.extractor.report.TabularReportWriter;
+import net.gcae.utils.extractor.snapshot.SnapshotMerger;
+import net.gcae.utils.extractor.snapshot.SnapshotReader;
+import net.gcae.utils.extractor.snapshot.SnapshotWriter;
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * One extraction run: analyzes a project, or replays a snapshot, into an Excel
+ * report and the optional snapshot and metrics files. The command line runs one
+ * job per invocation; the daemon runs one per request.
+ */
+public class ReportJob {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReportJob.class);
+
+    // Default location of the analysis cache, inside the output directory
+    public static final String CACHE_DIRECTORY = ".phpextractor-cache";
+
+    // Report path of a job that writes its report to standard output
+    public static final String STANDARD_OUTPUT = "-";
+
+    public static final String INDEX_EXTENSION = ".idx";
+
+    private final ExtractorOptions options;
+    private final File projectDir;
+    private final File outputDir;
+
+    // Worker pool shared with other jobs; null starts threads for this run
+    private FairWorkerPool workerPool;
+
+    // Receives every file's records after the report; null when nobody listens
+    private AnalysisSink listener;
+
+    // Kept open by the caller across jobs on the same cache directory; null opens them for this run
+    private AnalysisCache cache;
+    private QuarantineList quarantine;
+
+    /**
+     * @param projectDir the project to analyze, or null when the report is rendered from a
+     *        snapshot or merged from partial results
+     */
+    public ReportJob(ExtractorOptions options, File projectDir, File outputDir) {
+        this.options = options;
+        this.projectDir = projectDir;
+        this.outputDir = outputDir;
+    }
+
+    public void setWorkerPool(FairWorkerPool workerPool) { this.workerPool = workerPool; }
+    public void setListener(AnalysisSink listener) { this.listener = listener; }
+
+    /**
+     * Uses an already open cache instead of opening the one in {@link #getCacheDirectory()}.
+     */
+    public void setCache(AnalysisCache cache) { this.cache = cache; }
+
+    /**
+     * Uses an already loaded quarantine list instead of loading the one in {@link #getCacheDirectory()}.
+     */
+    public void setQuarantine(QuarantineList quarantine) { this.quarantine = quarantine; }
+
+    /**
+     * Whether the job analyzes a project, rather than rendering a snapshot or merging partial results.
+     */
+    public boolean analyzesProject() {
+        return options.getFromSnapshot() == null && options.getMergeInputs().isEmpty();
+    }
+
+    /**
+     * Whether the job reads and updates the analysis cache.
+     */
+    public boolean usesCache() {
+        return options.isUseCache();
+    }
+
+    /**
+     * Checks the input and creates the output directory.
+     *
+     * @return a message describing the problem, or null when the job can run
+     */
+    public String prepare() {
+        String formatProblem = checkFormat();
+        if (formatProblem != null) {
+            return formatProblem;
+        }
+        if (options.getShardCount() > 0 && (options.getFromSnapshot() != null || !options.getMergeInputs().isEmpty())) {
+            return "--shard cannot be combined with --from-snapshot or --merge";
+        }
+        if (!options.getMergeInputs().isEmpty()) {
+            for (String input : options.getMergeInputs()) {
+                if (!new File(input).exists()) {
+                    logger.error("Invalid partial result path: {}", input);
+                    return "Invalid partial result path - " + input;
+                }
+            }
+        } else if (options.getFromSnapshot() != null) {
+            if (!new File(options.getFromSnapshot()).isFile()) {
+                logger.error("Invalid snapshot path: {}", options.getFromSnapshot());
+                return "Invalid snapshot path - " + options.getFromSnapshot();
+            }
+        } else if (projectDir == null || !projectDir.isDirectory()) {
+            logger.error("Invalid project path: {} - Directory does not exist or is not a directory", projectDir);
+            return "Invalid project path - " + projectDir;
+        }
+        if (!outputDir.exists()) {
+            if (!outputDir.mkdirs()) {
+                logger.error("Could not create output directory: {}", outputDir);
+                return "Could not create output directory - " + outputDir;
+            }
+            logger.info("Created output directory: {}", outputDir);
+        }
+        return null;
+    }
+
+    /**
+     * Returns the directory holding the analysis cache and the quarantine list.
+     */
+    public File getCacheDirectory() {
+        File directory = options.getCacheDir() != null ? new File(options.getCacheDir()) : new File(outputDir, CACHE_DIRECTORY);
+        // A shard prunes the entries of files it did not see, so each shard keeps its own
+        return options.getShardCount() > 0
+                ? new File(directory, "shard-" + options.getShard() + "-of-" + options.getShardCount())
+                : directory;
+    }
+
+    /**
+     * Runs the job; {@link #prepare()} must have succeeded.
+     */
+    public Result run() throws IOException {
+        // A shard writes only its partial result, which takes the report's place
+        boolean partial = options.getShardCount() > 0;
+        String reportPath = partial ? partialResultPath() : reportPath();
+        String indexPath = null;
+
+        // The paths the records refer to belong to this run and are released with it
+        PathTable paths = new PathTable();
+
+        // Write each file's records to the report, and optionally a snapshot, as they are produced
+        AnalysisSummary summary;
+        AnalysisMetrics metrics = null;
+        String snapshotPath = partial ? reportPath : options.getSnapshotPath();
+        String root = projectDir != null ? projectDir.toPath().toString() : null;
+        boolean written = false;
+        try {
+            indexPath = partial || !options.isIndex() ? null : indexPath(reportPath);
+            try (TabularReportWriter reportWriter = partial ? null : createReportWriter(reportPath);
+                 SnapshotWriter snapshotWriter = snapshotPath != null
+                         ? new SnapshotWriter(Paths.get(snapshotPath), root, options.getShard(), options.getShardCount())
+                         : null;
+                 IndexWriter indexWriter = indexPath != null ? new IndexWriter(Paths.get(indexPath)) : null) {
+                List<AnalysisSink> sinks = new ArrayList<>();
+                if (reportWriter != null) {
+                    sinks.add(reportWriter);
+                }
+                if (snapshotWriter != null) {
+                    sinks.add(snapshotWriter);
+                }
+                if (indexWriter != null) {
+                    sinks.add(indexWriter);
+                }
+                IncludeGraphBuilder graphBuilder = reportWriter != null ? createGraphBuilder() : null;
+                if (graphBuilder != null) {
+                    sinks.add(graphBuilder);
+                }
+                if (listener != null) {
+                    sinks.add(listener);
+                }
+                AnalysisSink sink = sinks.size() == 1 ? sinks.get(0) : AnalysisSink.tee(sinks.toArray(new AnalysisSink[0]));
+
+                if (!options.getMergeInputs().isEmpty()) {
+                    List<Path> partialResults = partialResults();
+                    logger.info("Merging {} partial results", partialResults.size());
+                    summary = SnapshotMerger.merge(partialResults, paths, sink);
+                } else if (options.getFromSnapshot() != null) {
+                    logger.info("Rendering report from snapshot: {}", options.getFromSnapshot());
+                    summary = SnapshotReader.read(Paths.get(options.getFromSnapshot()), paths, sink);
+                } else {
+                    logger.info("Starting PHP Code Analysis for: {}", projectDir);
+                    metrics = new AnalysisMetrics();
+                    PHPAnalyzer analyzer = createAnalyzer();
+                    analyzer.setMetrics(metrics);
+                    analyzer.setPaths(paths);
+                    summary = analyzer.analyzeProject(projectDir, sink);
+                }
+
+                // Check if any data was found
+                if (!summary.hasData()) {
+                    logger.warn("No analyzable data found in: {}", projectDir != null ? projectDir
+                            : options.getFromSnapshot() != null ? options.getFromSnapshot() : options.getMergeInputs());
+                }
+
+                if (reportWriter instanceof ExcelReportWriter && metrics != null && options.isPerformanceSheet()) {
+                    ((ExcelReportWriter) reportWriter).addPerformance(metrics);
+                }
+                if (graphBuilder != null) {
+                    reportWriter.addIncludeGraph(graphBuilder.build(), options.isEntryPointIncludes());
+                }
+                sink.finish();
+            }
+            written = true;
+        } finally {
+            // A failed job leaves nothing behind in the names it reserved
+            if (!written) {
+                if (!partial) {
+                    deleteReserved(reportPath);
+                }
+                deleteReserved(indexPath);
+            }
+        }
+        if (metrics != null && options.getMetricsPath() != null) {
+            MetricsReport.writeJson(metrics, Paths.get(options.getMetricsPath()));
+        }
+        logger.info("Analysis completed successfully. Report generated: {}", reportPath);
+        return new Result(reportPath, indexPath, summary, metrics);
+    }
+
+    /**
+     * Creates an analyzer configured by the job's options, with its cache and quarantine list opened.
+     */
+    PHPAnalyzer createAnalyzer() throws IOException {
+        PHPAnalyzer analyzer = new PHPAnalyzer(options.getThreads());
+        analyzer.setExcludePatterns(options.getExcludePatterns());
+        analyzer.setUseGitignore(options.isUseGitignore());
+        analyzer.setMemoryBudget(options.getMemoryBudget());
+        analyzer.setWorkerPool(workerPool);
+        analyzer.setFileTimeoutMillis(options.getFileTimeoutMillis());
+        analyzer.setForce(options.isForce());
+        analyzer.setShard(options.getShard(), options.getShardCount());
+
+        // The quarantine list lives with the cache but is kept even when the cache is off
+        File cacheDirectory = getCacheDirectory();
+        analyzer.setQuarantine(quarantine != null ? quarantine : QuarantineList.open(cacheDirectory.toPath()));
+        if (options.isUseCache()) {
+            analyzer.setCache(cache != null ? cache : AnalysisCache.open(cacheDirectory.toPath(), PHPAnalyzer.EXTRACTOR_VERSION));
+        }
+        return analyzer;
+    }
+
+    /**
+     * Creates the collector of require and include targets whose graph is added to the report.
+     */
+    IncludeGraphBuilder createGraphBuilder() throws IOException {
+        return new IncludeGraphBuilder(options.getIncludePaths(), projectDir != null ? projectDir.toPath() : recordedRoot(),
+                options.getThreads());
+    }
+
+    /**
+     * Returns the project directory recorded in the snapshot, or the first partial result, the
+     * report is rendered from; null when none was recorded.
+     */
+    private Path recordedRoot() throws IOException {
+        List<Path> sources = options.getMergeInputs().isEmpty()
+                ? Collections.singletonList(Paths.get(options.getFromSnapshot())) : partialResults();
+        if (sources.isEmpty()) {
+            return null;
+        }
+        try (SnapshotReader reader = SnapshotReader.open(sources.get(0), new PathTable())) {
+            return reader.getRoot().isEmpty() ? null : Paths.get(reader.getRoot());
+        }
+    }
+
+    private String checkFormat() {
+        ReportFormat format = options.getFormat();
+        if (options.isStdout() && format != ReportFormat.JSONL) {
+            return "--stdout needs --format jsonl";
+        }
+        if (options.isGzip() && format != ReportFormat.CSV && format != ReportFormat.JSONL) {
+            return "--gzip applies to the csv and jsonl formats only";
+        }
+        if (options.isPerformanceSheet() && format != ReportFormat.XLSX) {
+            return "--performance-sheet applies to the xlsx format only";
+        }
+        return null;
+    }
+
+    private TabularReportWriter createReportWriter(String reportPath) throws IOException {
+        switch (options.getFormat()) {
+            case CSV:
+                return new CsvReportWriter(Paths.get(reportPath), options.isGzip());
+            case HTML:
+                return new HtmlReportWriter(Paths.get(reportPath), options.getHtmlPageSize());
+            case JSONL:
+                return options.isStdout()
+                        ? JsonLinesReportWriter.toStandardOutput(options.isGzip())
+                        : new JsonLinesReportWriter(Paths.get(reportPath), options.isGzip());
+            default:
+                return new ExcelReportWriter(reportPath, options.getRowWindow());
+        }
+    }
+
+    private String partialResultPath() {
+        if (options.getSnapshotPath() != null) {
+            return options.getSnapshotPath();
+        }
+        String name = String.format("IT_CodeAnalysis_shard_%d_of_%d.snap", options.getShard(), options.getShardCount());
+        return new File(outputDir, name).getAbsolutePath();
+    }
+
+    /**
+     * Returns the partial results to merge; a directory stands for the .snap files in it.
+     */
+    private List<Path> partialResults() throws IOException {
+        List<Path> partialResults = new ArrayList<>();
+        for (String input : options.getMergeInputs()) {
+            Path path = Paths.get(input);
+            if (!Files.isDirectory(path)) {
+                partialResults.add(path);
+                continue;
+            }
+            try (Stream<Path> files = Files.list(path)) {
+                files.filter(file -> file.getFileName().toString().endsWith(".snap") && Files.isRegularFile(file))
+                        .sorted()
+                        .forEach(partialResults::add);
+            }
+        }
+        return partialResults;
+    }
+
+    /**
+     * Reserves the report's path: a file, or a directory for the formats written as several files.
+     */
+    String reportPath() throws IOException {
+        return options.isStdout() ? STANDARD_OUTPUT : uniquePath(reportExtension(), options.getFormat().isDirectory());
+    }
+
+    /**
+     * Reserves the path of the index written beside the report, named after it unless
+     * another job has already taken that name.
+     */
+    String indexPath(String reportPath) throws IOException {
+        if (!reportPath.equals(STANDARD_OUTPUT)) {
+            Path index = Paths.get(reportPath.substring(0, reportPath.length() - reportExtension().length())
+                    + INDEX_EXTENSION);
+            try {
+                Files.createFile(index);
+                return index.toString();
+            } catch (FileAlreadyExistsException e) {
+                logger.debug("Index name {} already taken", index);
+            }
+        }
+        return uniquePath(INDEX_EXTENSION, false);
+    }
+
+    /**
+     * Deletes a report or index path reserved by this job, with whatever was written to it.
+     */
+    private static void deleteReserved(String path) {
+        if (path == null || path.equals(STANDARD_OUTPUT)) {
+            return;
+        }
+        try {
+            File reserved = new File(path);
+            if (reserved.isDirectory()) {
+                FileUtils.deleteDirectory(reserved);
+            } else {
+                Files.deleteIfExists(reserved.toPath());
+            }
+        } catch (IOException e) {
+            logger.warn("Could not delete {} of the failed job: {}", path, e.getMessage());
+        }
+    }
+
+    private String reportExtension() {
+        ReportFormat format = options.getFormat();
+        return format.isDirectory() ? "" : "." + format.getName() + (options.isGzip() ? ".gz" : "");
+    }
+
+    /**
+     * Creates the first free file, or directory, named after the current time, and returns its path.
+     * Jobs starting within the same second, in this process or another, must not write to the same
+     * report, so a name counts as taken once it exists and it is created atomically.
+     */
+    private String uniquePath(String extension, boolean directory) throws IOException {
+        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
+        for (int n = 1; ; n++) {
+            String name = n == 1 ? String.format("IT_CodeAnalysis_%s%s", timestamp, extension)
+                    : String.format("IT_CodeAnalysis_%s_%d%s", timestamp, n, extension);
+            Path path = outputDir.toPath().resolve(name).toAbsolutePath();
+            try {
+                if (directory) {
+                    Files.createDirectory(path);
+                } else {
+                    Files.createFile(path);
+                }
+                return path.toString();
+            } catch (FileAlreadyExistsException e) {
+                // Taken by another job; try the next number
+            }
+        }
+    }
+
+    /**
+     * Outputs and counts of a completed job.
+     */
+    public static final class Result {
+        private final String reportPath;
+        private final String indexPath;
+        private final AnalysisSummary summary;
+        private final AnalysisMetrics metrics;
+
+        Result(String reportPath, String indexPath, AnalysisSummary summary, AnalysisMetrics metrics) {
+            this.reportPath = reportPath;
+            this.indexPath = indexPath;
+            this.summary = summary;
+            this.metrics = metrics;
+        }
+
+        public String getReportPath() { return reportPath; }
+
+        /**
+         * Returns the index written beside the report, or null when none was written.
+         */
+        public String getIndexPath() { return indexPath; }
+        public AnalysisSummary getSummary() { return summary; }
+
+        /**
+         * Returns the run's timings, or null when the report was rendered from a snapshot.
+         */
+        public AnalysisMetrics getMetrics() { return metrics; }
+    }
+}
@@ -0,0 +1,174 @@
+package net.gcae.utils.extractor.analyzer;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Timings and counts collected while a project is analyzed: time and matches per
+ * extractor, bytes read, read and decode time, and the slowest files.
+ *
+ * <p>Worker threads record into it concurrently. Counters are adders, and the
+ * slowest-files list is only locked when a file is slower than the fastest one
+ * already kept, so collecting metrics costs a few clock reads per file.
+ */
+public class AnalysisMetrics {
+
+    public static final int DEFAULT_SLOWEST_FILES = 20;
+
+    /**
+     * Timed steps of PHP file analysis, in the order they run.
+     */
+    public enum Stage {
+        TOKENIZE("tokenize"),
+        SQL_QUERIES("analyzeSQLQueries"),
+        REQUIRES("analyzeRequires"),
+        INCLUDES("analyzeIncludes"),
+        CURL_CALLS("analyzeCurlCalls"),
+        FUNCTIONS("analyzeFunctions"),
+        CLASSES("analyzeClasses"),
+        TRAITS("analyzeTraits"),
+        CLASS_INHERITANCE("analyzeClassInheritance"),
+        IMPLEMENTATIONS("analyzeImplementations"),
+        INTERFACES("analyzeInterfaces");
+
+        private final String label;
+
+        Stage(String label) {
+            this.label = label;
+        }
+
+        public String getLabel() { return label; }
+    }
+
+    private final int slowestLimit;
+    private final AtomicLongArray stageNanos = new AtomicLongArray(Stage.values().length);
+    private final AtomicLongArray stageMatches = new AtomicLongArray(Stage.values().length);
+    private final LongAdder filesAnalyzed = new LongAdder();
+    private final LongAdder filesReused = new LongAdder();
+    private final LongAdder filesQuarantined = new LongAdder();
+    private final LongAdder phpFiles = new LongAdder();
+    private final LongAdder bytesRead = new LongAdder();
+    private final LongAdder readNanos = new LongAdder();
+    private final LongAdder decodeNanos = new LongAdder();
+    private final LongAdder fileNanos = new LongAdder();
+    private final PriorityQueue<FileTiming> slowest = new PriorityQueue<>(Comparator.comparingLong(FileTiming::getNanos));
+    private volatile long slowestThreshold = -1;
+    private volatile long wallNanos;
+
+    public AnalysisMetrics() {
+        this(DEFAULT_SLOWEST_FILES);
+    }
+
+    /**
+     * @param slowestLimit number of slowest files to keep
+     */
+    public AnalysisMetrics(int slowestLimit) {
+        this.slowestLimit = Math.max(0, slowestLimit);
+    }
+
+    void recordStage(Stage stage, long nanos, int matches) {
+        stageNanos.addAndGet(stage.ordinal(), nanos);
+        stageMatches.addAndGet(stage.ordinal(), matches);
+    }
+
+    void recordRead(long bytes, long nanos) {
+        bytesRead.add(bytes);
+        readNanos.add(nanos);
+    }
+
+    void recordDecode(long nanos) {
+        decodeNanos.add(nanos);
+    }
+
+    void recordReused() {
+        filesReused.increment();
+    }
+
+    /**
+     * Records a file skipped because it is quarantined, and the time it took to list it.
+     */
+    void recordQuarantined(String path, long bytes, long nanos) {
+        filesQuarantined.increment();
+        recordTime(path, bytes, nanos);
+    }
+
+    void recordFile(String path, long bytes, long nanos, boolean php) {
+        filesAnalyzed.increment();
+        if (php) {
+            phpFiles.increment();
+        }
+        recordTime(path, bytes, nanos);
+    }
+
+    private void recordTime(String path, long bytes, long nanos) {
+        fileNanos.add(nanos);
+        if (slowestLimit == 0 || nanos <= slowestThreshold) {
+            return;
+        }
+        synchronized (slowest) {
+            slowest.add(new FileTiming(path, bytes, nanos));
+            if (slowest.size() > slowestLimit) {
+                slowest.poll();
+            }
+            if (slowest.size() == slowestLimit) {
+                slowestThreshold = slowest.peek().getNanos();
+            }
+        }
+    }
+
+    void setWallNanos(long wallNanos) {
+        this.wallNanos = wallNanos;
+    }
+
+    // Getters
+    public long getStageNanos(Stage stage) { return stageNanos.get(stage.ordinal()); }
+    public long getStageMatches(Stage stage) { return stageMatches.get(stage.ordinal()); }
+    public long getFilesAnalyzed() { return filesAnalyzed.sum(); }
+    public long getFilesReused() { return filesReused.sum(); }
+
+    /**
+     * Returns the number of files skipped, unread, because an earlier run quarantined them.
+     */
+    public long getFilesQuarantined() { return filesQuarantined.sum(); }
+    public long getPhpFiles() { return phpFiles.sum(); }
+    public long getBytesRead() { return bytesRead.sum(); }
+    public long getReadNanos() { return readNanos.sum(); }
+    public long getDecodeNanos() { return decodeNanos.sum(); }
+    public long getFileNanos() { return fileNanos.sum(); }
+    public long getWallNanos() { return wallNanos; }
+
+    /**
+     * Returns the slowest files analyzed, slowest first.
+     */
+    public List<FileTiming> getSlowestFiles() {
+        List<FileTiming> files;
+        synchronized (slowest) {
+            files = new ArrayList<>(slowest);
+        }
+        files.sort(Comparator.comparingLong(FileTiming::getNanos).reversed());
+        return files;
+    }
+
+    /**
+     * Time spent analyzing one file, from reading it to its last extractor.
+     */
+    public static final class FileTiming {
+        private final String path;
+        private final long bytes;
+        private final long nanos;
+
+        FileTiming(String path, long bytes, long nanos) {
+            this.path = path;
+            this.bytes = bytes;
+            this.nanos = nanos;
+        }
+
+        public String getPath() { return path; }
+        public long getBytes() { return bytes; }
+        public long getNanos() { return nanos; }
+    }
+}
@@ -0,0 +1,225 @@
+package net.gcae.utils.extractor.analyzer;
+
+import net.gcae.utils.extractor.model.AnalysisSummary;
+import net.gcae.utils.extractor.model.FileAnalysis;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+
+/**
+ * Streams a project through walker, bounded queue, analyzer workers and sink.
+ *
+ * <p>The walker runs on its own thread and, before queueing a file, reserves an
+ * estimate of the heap the file will occupy while in flight from a fixed budget.
+ * The reservation is returned only after the file's records have been handed to
+ * the sink, so files being read, analyzed or waiting to be written never exceed
+ * the budget regardless of project size. Results reach the sink in walk order
+ * on the calling thread.
+ *
+ * <p>Workers are threads of their own, or the threads of a pool shared with other
+ * runs. On a shared pool the walker queues each file in the run's own lane, and the
+ * pool alternates between the lanes of all runs.
+ */
+class AnalysisPipeline {
+
+    private static final Logger logger = LoggerFactory.getLogger(AnalysisPipeline.class);
+
+    // Budget accounting is done in KiB so large budgets fit in a semaphore
+    private static final int KIB = 1024;
+
+    // Approximate heap per byte of source while in flight: decoded text, token arrays and records
+    private static final int BYTES_IN_FLIGHT_PER_BYTE = 6;
+
+    private static final Task END = new Task(-1, null, 0);
+
+    private final int workers;
+    private final int budgetPermits;
+    private final FairWorkerPool workerPool;
+    private final Function<SourceFile, FileAnalysis> analyzer;
+
+    private final Object lock = new Object();
+    private final Map<Long, Completed> completed = new HashMap<>();
+    private long submitted;
+    private boolean walkFinished;
+    private Throwable failure;
+
+    /**
+     * @param workers worker threads to start, or with a shared pool, files queued per worker
+     * @param workerPool pool to run the files on, or null to start a thread per worker
+     */
+    AnalysisPipeline(int workers, long memoryBudget, FairWorkerPool workerPool, Function<SourceFile, FileAnalysis> analyzer) {
+        this.workers = Math.max(1, workers);
+        this.budgetPermits = (int) Math.max(1, Math.min(Integer.MAX_VALUE, memoryBudget / KIB));
+        this.workerPool = workerPool;
+        this.analyzer = analyzer;
+    }
+
+    AnalysisSummary run(ProjectWalker walker, AnalysisSink sink) throws IOException {
+        Semaphore budget = new Semaphore(budgetPermits);
+        BlockingQueue<Task> queue = new ArrayBlockingQueue<>(workers * 4);
+        FairWorkerPool.Lane lane = workerPool != null ? workerPool.openLane(workers * 4) : null;
+
+        Thread walkerThread = new Thread(() -> walk(walker, queue, lane, budget), "php-walker");
+        walkerThread.setDaemon(true);
+        Thread[] workerThreads = new Thread[workerPool == null ? workers : 0];
+        for (int i = 0; i < workerThreads.length; i++) {
+            workerThreads[i] = new Thread(() -> work(queue), "php-analyzer-" + (i + 1));
+            workerThreads[i].setDaemon(true);
+        }
+
+        walkerThread.start();
+        for (Thread worker : workerThreads) {
+            worker.start();
+        }
+
+        AnalysisSummary summary = new AnalysisSummary();
+        try {
+            long next = 0;
+            while (true) {
+                Completed result;
+                synchronized (lock) {
+                    while ((result = completed.remove(next)) == null && failure == null
+                            && !(walkFinished && next == submitted)) {
+                        lock.wait();
+                    }
+                    if (failure != null) {
+                        break;
+                    }
+                    if (result == null) {
+                        break; // every submitted file has been written
+                    }
+                }
+                if (result.analysis != null) {
+                    sink.accept(result.analysis);
+                    summary.add(result.analysis);
+                }
+                budget.release(result.permits);
+                next++;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Analysis interrupted", e);
+        } finally {
+            walkerThread.interrupt();
+            for (Thread worker : workerThreads) {
+                worker.interrupt();
+            }
+            if (lane != null) {
+                lane.close();
+            }
+        }
+
+        if (failure != null) {
+            if (failure instanceof IOException) {
+                throw (IOException) failure;
+            }
+            throw new IOException("Analysis failed: " + failure.getMessage(), failure);
+        }
+        return summary;
+    }
+
+    private void walk(ProjectWalker walker, BlockingQueue<Task> queue, FairWorkerPool.Lane lane, Semaphore budget) {
+        long[] sequence = {0};
+        try {
+            walker.walk(file -> {
+                int permits = permitsFor(file);
+                try {
+                    budget.acquire(permits);
+                    Task task = new Task(sequence[0], file, permits);
+                    if (lane != null) {
+                        lane.submit(() -> process(task));
+                    } else {
+                        queue.put(task);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Walk interrupted", e);
+                }
+                sequence[0]++;
+            });
+            logger.info("Found {} valid files to analyze", sequence[0]);
+        } catch (Throwable e) {
+            fail(e);
+        } finally {
+            synchronized (lock) {
+                submitted = sequence[0];
+                walkFinished = true;
+                lock.notifyAll();
+            }
+            if (lane == null) {
+                for (int i = 0; i < workers; i++) {
+                    queue.offer(END);
+                }
+            }
+        }
+    }
+
+    private void work(BlockingQueue<Task> queue) {
+        try {
+            while (true) {
+                Task task = queue.take();
+                if (task == END) {
+                    return;
+                }
+                process(task);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void process(Task task) {
+        try {
+            FileAnalysis analysis = analyzer.apply(task.file);
+            synchronized (lock) {
+                completed.put(task.sequence, new Completed(analysis, task.permits));
+                lock.notifyAll();
+            }
+        } catch (Throwable e) {
+            fail(e);
+        }
+    }
+
+    private void fail(Throwable e) {
+        synchronized (lock) {
+            if (failure == null) {
+                failure = e;
+            }
+            lock.notifyAll();
+        }
+    }
+
+    private int permitsFor(SourceFile file) {
+        long estimate = file.getSize() * BYTES_IN_FLIGHT_PER_BYTE / KIB + 1;
+        return (int) Math.min(budgetPermits, estimate);
+    }
+
+    private static final class Task {
+        final long sequence;
+        final SourceFile file;
+        final int permits;
+
+        Task(long sequence, SourceFile file, int permits) {
+            this.sequence = sequence;
+            this.file = file;
+            this.permits = permits;
+        }
+    }
+
+    private static final class Completed {
+        final FileAnalysis analysis;
+        final int permits;
+
+        Completed(FileAnalysis analysis, int permits) {
+            this.analysis = analysis;
+            this.permits = permits;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package net.gcae.utils.extractor.analyzer;
+
+import net.gcae.utils.extractor.model.FileAnalysis;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Receives per-file analysis results as they are produced. Results are delivered
+ * one at a time, in walk order, from a single thread, so implementations do not
+ * need to be thread-safe.
+ */
+public interface AnalysisSink extends Closeable {
+
+    /**
+     * Consumes the records extracted from one file.
+     */
+    void accept(FileAnalysis analysis) throws IOException;
+
+    /**
+     * Completes the output once every file has been accepted.
+     */
+    default void finish() throws IOException {
+    }
+
+    /**
+     * Releases resources; called whether or not {@link #finish()} succeeded.
+     */
+    @Override
+    default void close() throws IOException {
+    }
+
+    /**
+     * Returns a sink that hands every result to each of the given sinks in turn.
+     * Closing it does not close them; their owners remain responsible for that.
+     */
+    static AnalysisSink tee(AnalysisSink... sinks) {
+        return new AnalysisSink() {
+            @Override
+            public void accept(FileAnalysis analysis) throws IOException {
+                for (AnalysisSink sink : sinks) {
+                    sink.accept(analysis);
+                }
+            }
+
+            @Override
+            public void finish() throws IOException {
+                for (AnalysisSink sink : sinks) {
+                    sink.finish();
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,183 @@
+package net.gcae.utils.extractor.analyzer;
+
+import java.util.Arrays;
+
+/**
+ * Matches every bracket of a token stream and records where named functions are
+ * declared, in one pass per file. Strings and comments never reach the token
+ * stream, so braces inside them are not counted.
+ *
+ * <p>Finding the end of a body is then an array lookup, and counting the methods
+ * of a class two binary searches, instead of a walk over the tokens in between
+ * for every declaration.
+ *
+ * <p>Methods of anonymous classes ({@code new class { ... }}) belong to no declared
+ * class, so they are not recorded: they are neither functions of the file nor
+ * methods of the class whose method creates the object.
+ */
+public final class BraceIndex {
+
+    private final int[] closing;
+    private final int[] functionNames;
+    private final int functionCount;
+
+    private BraceIndex(int[] closing, int[] functionNames, int functionCount) {
+        this.closing = closing;
+        this.functionNames = functionNames;
+        this.functionCount = functionCount;
+    }
+
+    /**
+     * Builds the index for the given tokens. Each kind of bracket is matched on its
+     * own, so a stray {@code )} does not unbalance the braces around it.
+     */
+    public static BraceIndex of(TokenStream tokens) {
+        int size = tokens.size();
+        int[] closing = new int[size];
+        Arrays.fill(closing, -1);
+        int[] parens = new int[16];
+        int[] squares = new int[16];
+        int[] braces = new int[16];
+        int parenDepth = 0;
+        int squareDepth = 0;
+        int braceDepth = 0;
+        int[] functionNames = new int[16];
+        int functionCount = 0;
+        // Paren depth of an anonymous class whose body has not opened yet, or -1
+        int anonymousParens = -1;
+        // Brace depth outside the outermost anonymous class body being read, or -1
+        int anonymousBraces = -1;
+
+        for (int i = 0; i < size; i++) {
+            int kind = tokens.kind(i);
+            if (kind == TokenStream.KW_CLASS && anonymousBraces < 0 && isAnonymousClass(tokens, i)) {
+                anonymousParens = parenDepth;
+                continue;
+            }
+            if (kind == TokenStream.KW_FUNCTION) {
+                int name = anonymousBraces >= 0 ? -1 : functionNameAt(tokens, i);
+                if (name >= 0 && tokens.isPunct(name + 1, '(')) {
+                    if (functionCount == functionNames.length) {
+                        functionNames = Arrays.copyOf(functionNames, functionCount * 2);
+                    }
+                    functionNames[functionCount++] = name;
+                }
+                continue;
+            }
+            if (kind != TokenStream.PUNCT || tokens.end(i) - tokens.start(i) != 1) {
+                continue;
+            }
+            switch (tokens.getContent().charAt(tokens.start(i))) {
+                case '(':
+                    if (parenDepth == parens.length) {
+                        parens = Arrays.copyOf(parens, parenDepth * 2);
+                    }
+                    parens[parenDepth++] = i;
+                    break;
+                case '[':
+                    if (squareDepth == squares.length) {
+                        squares = Arrays.copyOf(squares, squareDepth * 2);
+                    }
+                    squares[squareDepth++] = i;
+                    break;
+                case '{':
+                    if (braceDepth == braces.length) {
+                        braces = Arrays.copyOf(braces, braceDepth * 2);
+                    }
+                    // The first brace outside the constructor arguments opens the anonymous body
+                    if (anonymousParens == parenDepth) {
+                        anonymousBraces = braceDepth;
+                        anonymousParens = -1;
+                    }
+                    braces[braceDepth++] = i;
+                    break;
+                case ')':
+                    if (parenDepth > 0) {
+                        closing[parens[--parenDepth]] = i;
+                    }
+                    break;
+                case ']':
+                    if (squareDepth > 0) {
+                        closing[squares[--squareDepth]] = i;
+                    }
+                    break;
+                case '}':
+                    if (braceDepth > 0) {
+                        closing[braces[--braceDepth]] = i;
+                        if (braceDepth == anonymousBraces) {
+                            anonymousBraces = -1;
+                        }
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+        return new BraceIndex(closing, functionNames, functionCount);
+    }
+
+    /**
+     * Whether the class keyword at {@code i} starts an anonymous class, as in
+     * {@code new class} or {@code new readonly class}.
+     */
+    static boolean isAnonymousClass(TokenStream tokens, int i) {
+        if (tokens.kind(i - 1) == TokenStream.KW_NEW) {
+            return true;
+        }
+        return tokens.kind(i - 2) == TokenStream.KW_NEW && tokens.kind(i - 1) == TokenStream.IDENT
+                && tokens.text(i - 1).equalsIgnoreCase("readonly");
+    }
+
+    /**
+     * Returns the name token of a named function declared at {@code i}, or -1.
+     */
+    private static int functionNameAt(TokenStream tokens, int i) {
+        if (tokens.kind(i) != TokenStream.KW_FUNCTION || tokens.isMemberAccess(i)) {
+            return -1;
+        }
+        int name = tokens.isPunct(i + 1, '&') ? i + 2 : i + 1;
+        return tokens.isName(name) ? name : -1;
+    }
+
+    /**
+     * Returns the index of the token closing the bracket opened at {@code open}, or -1 when it is never closed.
+     */
+    public int closing(int open) {
+        return closing[open];
+    }
+
+    /**
+     * Returns the number of named function declarations followed by a parameter list.
+     */
+    public int getFunctionCount() {
+        return functionCount;
+    }
+
+    /**
+     * Returns the name token of the n-th function declaration, in source order.
+     */
+    public int functionName(int n) {
+        return functionNames[n];
+    }
+
+    /**
+     * Counts the function declarations whose name lies strictly between two tokens.
+     */
+    public int countFunctionsBetween(int from, int to) {
+        return Math.max(0, lowerBound(to) - lowerBound(from + 1));
+    }
+
+    private int lowerBound(int token) {
+        int low = 0;
+        int high = functionCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (functionNames[mid] < token) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,147 @@
+package net.gcae.utils.extractor.analyzer;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Analyzer threads shared by runs that execute at the same time, such as the jobs
+ * of the daemon or the projects of a batch. Each run queues its files in a lane of
+ * its own, and an idle thread takes the next file from the lanes in turn, so a large
+ * project cannot hold up smaller ones that started later, and a single run still
+ * gets every thread when it is alone.
+ */
+public final class FairWorkerPool implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(FairWorkerPool.class);
+
+    private final Thread[] threads;
+
+    // Lanes and their queues are guarded by this pool's monitor
+    private final List<Lane> lanes = new ArrayList<>();
+    private int nextLane;
+    private boolean closed;
+
+    /**
+     * @param threads number of threads; values below 1 use all available processors
+     * @param namePrefix prefix of the thread names
+     */
+    public FairWorkerPool(int threads, String namePrefix) {
+        int count = threads < 1 ? Runtime.getRuntime().availableProcessors() : threads;
+        this.threads = new Thread[count];
+        AtomicInteger started = new AtomicInteger();
+        for (int i = 0; i < count; i++) {
+            this.threads[i] = new Thread(this::work, namePrefix + started.incrementAndGet());
+            this.threads[i].setDaemon(true);
+            this.threads[i].start();
+        }
+    }
+
+    public int getThreads() {
+        return threads.length;
+    }
+
+    /**
+     * Opens a lane for one run.
+     *
+     * @param capacity tasks the lane holds before {@link Lane#submit(Runnable)} blocks
+     */
+    public synchronized Lane openLane(int capacity) {
+        if (closed) {
+            throw new IllegalStateException("Worker pool is closed");
+        }
+        Lane lane = new Lane(Math.max(1, capacity));
+        lanes.add(lane);
+        return lane;
+    }
+
+    /**
+     * Stops the threads once the task each is running has finished; queued tasks are dropped.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            closed = true;
+            lanes.clear();
+            notifyAll();
+        }
+        for (Thread thread : threads) {
+            thread.interrupt();
+        }
+    }
+
+    private void work() {
+        try {
+            Runnable task;
+            while ((task = next()) != null) {
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    // Tasks report their own failures; this only keeps the thread alive
+                    logger.warn("Worker task failed: {}", e.getMessage(), e);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private synchronized Runnable next() throws InterruptedException {
+        while (!closed) {
+            int count = lanes.size();
+            for (int i = 0; i < count; i++) {
+                Lane lane = lanes.get((nextLane + i) % count);
+                Runnable task = lane.tasks.poll();
+                if (task != null) {
+                    nextLane = (nextLane + i + 1) % count;
+                    // A submitter may be waiting for room in this lane
+                    notifyAll();
+                    return task;
+                }
+            }
+            wait();
+        }
+        return null;
+    }
+
+    /**
+     * The queue of one run. Closing it drops the tasks not yet started.
+     */
+    public final class Lane implements AutoCloseable {
+        private final ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+        private final int capacity;
+
+        private Lane(int capacity) {
+            this.capacity = capacity;
+        }
+
+        /**
+         * Queues a task, waiting while the lane is full.
+         */
+        public void submit(Runnable task) throws InterruptedException {
+            synchronized (FairWorkerPool.this) {
+                while (tasks.size() >= capacity && !closed && lanes.contains(this)) {
+                    FairWorkerPool.this.wait();
+                }
+                if (closed || !lanes.contains(this)) {
+                    throw new IllegalStateException("Lane is closed");
+                }
+                tasks.add(task);
+                FairWorkerPool.this.notifyAll();
+            }
+        }
+
+        @Override
+        public void close() {
+            synchronized (FairWorkerPool.this) {
+                lanes.remove(this);
+                tasks.clear();
+                FairWorkerPool.this.notifyAll();
+            }
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package net.gcae.utils.extractor.analyzer;
+
+/**
+ * Time budget for analyzing one file. The lexer and the analyzer check it as
+ * they go and give up with {@link Exceeded} once it has run out, so a
+ * pathological file costs at most its budget instead of stalling the run.
+ */
+final class FileDeadline {
+
+    static final FileDeadline NONE = new FileDeadline(0);
+
+    private final long deadline;
+
+    private FileDeadline(long deadline) {
+        this.deadline = deadline;
+    }
+
+    /**
+     * Returns a deadline the given number of nanoseconds from now; 0 or less means no limit.
+     */
+    static FileDeadline after(long nanos) {
+        return nanos > 0 ? new FileDeadline(System.nanoTime() + nanos) : NONE;
+    }
+
+    void check() {
+        if (this != NONE && System.nanoTime() - deadline > 0) {
+            throw new Exceeded();
+        }
+    }
+
+    /**
+     * Thrown when a file's budget runs out; carries no stack trace since it is expected.
+     */
+    static final class Exceeded extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        Exceeded() {
+            super("File analysis time budget exceeded", null, false, false);
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package net.gcae.utils.extractor.analyzer;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Exclusion rules in .gitignore syntax, scoped to one directory of the project.
+ * Patterns are compiled once: plain names go into a hash lookup, everything
+ * else becomes a precompiled regular expression. As in git, the last matching
+ * rule wins and a leading '!' re-includes a path.
+ */
+final class IgnoreRules {
+
+    static final int NO_MATCH = 0;
+    static final int IGNORED = 1;
+    static final int INCLUDED = 2;
+
+    private final String base;
+    private final List<Rule> rules = new ArrayList<>();
+    private final Map<String, Rule> literalNames = new HashMap<>();
+    private boolean onlyLiteralNames = true;
+
+    /**
+     * @param base directory the rules apply to, relative to the project root with '/' separators ("" for the root)
+     */
+    IgnoreRules(String base) {
+        this.base = base.isEmpty() || base.endsWith("/") ? base : base + "/";
+    }
+
+    static IgnoreRules parse(String base, List<String> lines) {
+        IgnoreRules rules = new IgnoreRules(base);
+        for (String line : lines) {
+            rules.add(line);
+        }
+        return rules;
+    }
+
+    boolean isEmpty() {
+        return rules.isEmpty();
+    }
+
+    /**
+     * Adds one pattern line; blank lines and comments are ignored.
+     */
+    void add(String line) {
+        String pattern = stripTrailingSpaces(line);
+        if (pattern.isEmpty() || pattern.startsWith("#")) {
+            return;
+        }
+        boolean negated = false;
+        if (pattern.startsWith("!")) {
+            negated = true;
+            pattern = pattern.substring(1);
+        } else if (pattern.startsWith("\\#") || pattern.startsWith("\\!")) {
+            pattern = pattern.substring(1);
+        }
+        boolean directoryOnly = pattern.endsWith("/");
+        if (directoryOnly) {
+            pattern = pattern.substring(0, pattern.length() - 1);
+        }
+        // A slash anywhere but at the end anchors the pattern to the base directory
+        boolean anchored = pattern.indexOf('/') >= 0;
+        if (pattern.startsWith("/")) {
+            pattern = pattern.substring(1);
+        }
+        if (pattern.isEmpty()) {
+            return;
+        }
+
+        Rule rule = new Rule(negated, directoryOnly);
+        if (!anchored && !hasWildcard(pattern)) {
+            rule.literal = pattern;
+            literalNames.put(pattern, rule);
+        } else {
+            rule.anchored = anchored;
+            rule.pattern = Pattern.compile(toRegex(pattern));
+            onlyLiteralNames = false;
+        }
+        rules.add(rule);
+    }
+
+    /**
+     * Matches a path against the rules.
+     *
+     * @param relativePath path relative to the project root with '/' separators
+     * @param name the last path segment
+     * @param directory whether the path is a directory
+     * @return {@link #IGNORED}, {@link #INCLUDED} or {@link #NO_MATCH}
+     */
+    int match(String relativePath, String name, boolean directory) {
+        if (rules.isEmpty() || !relativePath.startsWith(base)) {
+            return NO_MATCH;
+        }
+        if (onlyLiteralNames) {
+            Rule rule = literalNames.get(name);
+            if (rule == null) {
+                return NO_MATCH;
+            }
+            if (directory || !rule.directoryOnly) {
+                return rule.result();
+            }
+        }
+        String local = relativePath.substring(base.length());
+        for (int i = rules.size() - 1; i >= 0; i--) {
+            Rule rule = rules.get(i);
+            if (rule.directoryOnly && !directory) {
+                continue;
+            }
+            boolean matches;
+            if (rule.literal != null) {
+                matches = rule.literal.equals(name);
+            } else {
+                matches = rule.pattern.matcher(rule.anchored ? local : name).matches();
+            }
+            if (matches) {
+                return rule.result();
+            }
+        }
+        return NO_MATCH;
+    }
+
+    private static boolean hasWildcard(String pattern) {
+        for (int i = 0; i < pattern.length(); i++) {
+            char c = pattern.charAt(i);
+            if (c == '*' || c == '?' || c == '[' || c == '\\') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String stripTrailingSpaces(String line) {
+        int end = line.length();
+        while (end > 0 && (line.charAt(end - 1) == ' ' || line.charAt(end - 1) == '\t' || line.charAt(end - 1) == '\r')
+                && !(end > 1 && line.charAt(end - 2) == '\\')) {
+            end--;
+        }
+        return line.substring(0, end);
+    }
+
+    /**
+     * Translates a gitignore glob into a regular expression over '/'-separated paths.
+     */
+    static String toRegex(String glob) {
+        StringBuilder regex = new StringBuilder(glob.length() + 16);
+        int length = glob.length();
+        for (int i = 0; i < length; i++) {
+            char c = glob.charAt(i);
+            switch (c) {
+                case '*':
+                    if (i + 1 < length && glob.charAt(i + 1) == '*') {
+                        boolean leadingSlash = i == 0 || glob.charAt(i - 1) == '/';
+                        boolean trailingSlash = i + 2 < length && glob.charAt(i + 2) == '/';
+                        if (leadingSlash && trailingSlash) {
+                            regex.append("(?:.*/)?"); // "**/" matches zero or more directories
+                            i += 2;
+                        } else {
+                            regex.append(".*");
+                            i++;
+                        }
+                    } else {
+                        regex.append("[^/]*");
+                    }
+                    break;
+                case '?':
+                    regex.append("[^/]");
+                    break;
+                case '[':
+                    int close = glob.indexOf(']', i + 2);
+                    if (close < 0) {
+                        regex.append("\\[");
+                    } else {
+                        String set = glob.substring(i + 1, close);
+                        if (set.startsWith("!")) {
+                            set = "^" + set.substring(1);
+                        }
+                        regex.append('[').append(set.replace("\\", "\\\\")).append(']');
+                        i = close;
+                    }
+                    break;
+                case '\\':
+                    if (i + 1 < length) {
+                        regex.append(Pattern.quote(String.valueOf(glob.charAt(++i))));
+                    }
+                    break;
+                default:
+                    if ("().+^$|{}".indexOf(c) >= 0) {
+                        regex.append('\\');
+                    }
+                    regex.append(c);
+            }
+        }
+        return regex.toString();
+    }
+
+    private static final class Rule {
+        final boolean negated;
+        final boolean directoryOnly;
+        boolean anchored;
+        String literal;
+        Pattern pattern;
+
+        Rule(boolean negated, boolean directoryOnly) {
+            this.negated = negated;
+            this.directoryOnly = directoryOnly;
+        }
+
+        int result() {
+            return negated ? INCLUDED : IGNORED;
+        }
+    }
+}
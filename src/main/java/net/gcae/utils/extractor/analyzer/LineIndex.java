@@ -0,0 +1,60 @@
+package net.gcae.utils.extractor.analyzer;
+
+import java.util.Arrays;
+
+/**
+ * Maps character offsets of a file's content to 1-based line numbers.
+ * Newline offsets are gathered once per file so every lookup is a binary search
+ * instead of a rescan of the text preceding the match.
+ */
+public final class LineIndex {
+
+    private final int[] newlines;
+    private final int count;
+
+    private LineIndex(int[] newlines, int count) {
+        this.newlines = newlines;
+        this.count = count;
+    }
+
+    /**
+     * Builds the index for the given content. Both "\n" and "\r\n" terminate a line.
+     */
+    public static LineIndex of(CharSequence content) {
+        int[] offsets = new int[Math.max(16, content.length() / 32)];
+        int count = 0;
+        for (int i = 0, length = content.length(); i < length; i++) {
+            if (content.charAt(i) == '\n') {
+                if (count == offsets.length) {
+                    offsets = Arrays.copyOf(offsets, count * 2);
+                }
+                offsets[count++] = i;
+            }
+        }
+        return new LineIndex(offsets, count);
+    }
+
+    /**
+     * Returns the 1-based line containing the given character offset.
+     */
+    public int lineOf(int position) {
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (newlines[mid] < position) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low + 1;
+    }
+
+    /**
+     * Returns the number of newline characters in the indexed content.
+     */
+    public int getNewlineCount() {
+        return count;
+    }
+}
@@ -1,19 +1,17 @@
 package net.gcae.utils.extractor.analyzer;
 
+import net.gcae.utils.extractor.cache.AnalysisCache;
+import net.gcae.utils.extractor.cache.QuarantineList;
 import net.gcae.utils.extractor.model.*;
-import org.apache.commons.io.FileUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
+import java.nio.ByteBuffer;
 import java.nio.file.Path;
+import java.security.MessageDigest;
 import java.util.*;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-import java.util.stream.Stream;
 
 /**
  * Analyzes PHP projects to extract code elements
@@ -22,398 +20,691 @@ public class PHPAnalyzer {
     
     private static final Logger logger = LoggerFactory.getLogger(PHPAnalyzer.class);
     
-    // File extensions to analyze
-    private static final Set<String> VALID_EXTENSIONS = Set.of(".php", ".html", ".htm", ".js", ".css");
+    public static final long DEFAULT_MEMORY_BUDGET = 256L * 1024 * 1024;
     
-    // Regex patterns for different code elements
-    private static final Pattern SQL_PATTERN = Pattern.compile(
-        "(?i)(SELECT|INSERT|UPDATE|DELETE|CREATE|DROP|ALTER)\\s+.*?(?=;|$|\\)|\\?|'|\"|\\s*$)", 
-        Pattern.MULTILINE | Pattern.DOTALL
-    );
+    public static final long DEFAULT_FILE_TIMEOUT_MILLIS = 30_000;
     
-    private static final Pattern REQUIRE_PATTERN = Pattern.compile(
-        "(?i)require(?:_once)?\\s*\\(\\s*[\"']([^\"']+)[\"']\\s*\\)"
-    );
+    // Bump whenever extraction results change so cached records are discarded
+    public static final int EXTRACTOR_VERSION = 5;
     
-    private static final Pattern INCLUDE_PATTERN = Pattern.compile(
-        "(?i)include(?:_once)?\\s*\\(\\s*[\"']([^\"']+)[\"']\\s*\\)"
-    );
+    // Number of worker threads; 1 keeps the sequential behaviour
+    private int threads = 1;
     
-    private static final Pattern CURL_INIT_PATTERN = Pattern.compile(
-        "(?i)curl_init\\s*\\(([^)]*)\\)"
-    );
+    // Pool the workers run on, shared with other analyses; null starts threads for each run
+    private FairWorkerPool workerPool;
     
-    private static final Pattern CURL_SETOPT_PATTERN = Pattern.compile(
-        "(?i)curl_setopt\\s*\\([^,]+,\\s*([^,]+),\\s*([^)]+)\\)"
-    );
+    // Additional exclusions in .gitignore syntax, relative to the project root
+    private List<String> excludePatterns = new ArrayList<>();
+    private boolean useGitignore = true;
     
-    private static final Pattern CURL_EXEC_PATTERN = Pattern.compile(
-        "(?i)curl_exec\\s*\\(([^)]+)\\)"
-    );
+    // Heap allowed for files between the walker and the sink
+    private long memoryBudget = DEFAULT_MEMORY_BUDGET;
     
-    private static final Pattern FUNCTION_PATTERN = Pattern.compile(
-        "(?i)function\\s+([a-zA-Z_][a-zA-Z0-9_]*)\\s*\\(([^)]*)\\)\\s*\\{"
-    );
+    // Records of previous runs; null analyzes every file
+    private AnalysisCache cache;
     
-    private static final Pattern CLASS_PATTERN = Pattern.compile(
-        "(?i)class\\s+([a-zA-Z_][a-zA-Z0-9_]*)(?:\\s+extends\\s+([a-zA-Z_][a-zA-Z0-9_]*))?(?:\\s+implements\\s+([^{]+))?\\s*\\{"
-    );
+    // Timings and counts of the run; null skips collecting them
+    private AnalysisMetrics metrics;
     
-    private static final Pattern USE_PATTERN = Pattern.compile(
-        "(?i)use\\s+([a-zA-Z_][a-zA-Z0-9_\\\\]*)(?:\\s+as\\s+([a-zA-Z_][a-zA-Z0-9_]*))?\\s*;"
-    );
+    // Time budget per file; files exceeding it are quarantined
+    private long fileTimeoutMillis = DEFAULT_FILE_TIMEOUT_MILLIS;
     
-    private static final Pattern EXTENDS_PATTERN = Pattern.compile(
-        "(?i)class\\s+([a-zA-Z_][a-zA-Z0-9_]*)\\s+extends\\s+([a-zA-Z_][a-zA-Z0-9_]*)"
-    );
+    // Files quarantined by earlier runs, skipped unless forced; null keeps no list
+    private QuarantineList quarantine;
+    private boolean force;
     
-    private static final Pattern IMPLEMENTS_PATTERN = Pattern.compile(
-        "(?i)class\\s+([a-zA-Z_][a-zA-Z0-9_]*)\\s+implements\\s+([^{]+)"
-    );
+    // 1-based shard of the files to analyze out of shardCount; shardCount 0 analyzes every file
+    private int shard;
+    private int shardCount;
     
-    private static final Pattern INTERFACE_PATTERN = Pattern.compile(
-        "(?i)interface\\s+([a-zA-Z_][a-zA-Z0-9_]*)(?:\\s+extends\\s+([a-zA-Z_][a-zA-Z0-9_]*))?\\s*\\{"
-    );
+    // Table the records' file paths are interned in, owned by the run
+    private PathTable paths = new PathTable();
+    
+    public PHPAnalyzer() {}
+    
+    public PHPAnalyzer(int threads) {
+        setThreads(threads);
+    }
+    
+    public int getThreads() { return threads; }
+    
+    /**
+     * Sets the number of files analyzed concurrently. Values below 1 use all available processors.
+     */
+    public void setThreads(int threads) {
+        this.threads = threads < 1 ? Runtime.getRuntime().availableProcessors() : threads;
+    }
+    
+    public FairWorkerPool getWorkerPool() { return workerPool; }
+    
+    /**
+     * Analyzes files on a pool shared with other analyses instead of starting threads for
+     * each run; {@link #getThreads()} then only sets how many files are queued ahead.
+     */
+    public void setWorkerPool(FairWorkerPool workerPool) { this.workerPool = workerPool; }
+    
+    public List<String> getExcludePatterns() { return excludePatterns; }
+    public void setExcludePatterns(List<String> excludePatterns) { this.excludePatterns = excludePatterns; }
+    
+    public boolean isUseGitignore() { return useGitignore; }
+    public void setUseGitignore(boolean useGitignore) { this.useGitignore = useGitignore; }
+    
+    public long getMemoryBudget() { return memoryBudget; }
+    
+    /**
+     * Sets the heap, in bytes, that files in flight between the walker and the sink may occupy.
+     */
+    public void setMemoryBudget(long memoryBudget) { this.memoryBudget = memoryBudget; }
+    
+    public AnalysisCache getCache() { return cache; }
+    
+    /**
+     * Sets the cache used to skip unchanged files; it should be opened with {@link #EXTRACTOR_VERSION}.
+     */
+    public void setCache(AnalysisCache cache) { this.cache = cache; }
+    
+    public AnalysisMetrics getMetrics() { return metrics; }
+    public void setMetrics(AnalysisMetrics metrics) { this.metrics = metrics; }
+    
+    public long getFileTimeoutMillis() { return fileTimeoutMillis; }
+    
+    /**
+     * Sets the time allowed for analyzing one file; 0 or less means no limit.
+     */
+    public void setFileTimeoutMillis(long fileTimeoutMillis) { this.fileTimeoutMillis = fileTimeoutMillis; }
+    
+    public QuarantineList getQuarantine() { return quarantine; }
+    public void setQuarantine(QuarantineList quarantine) { this.quarantine = quarantine; }
+    
+    public boolean isForce() { return force; }
+    
+    /**
+     * Analyzes quarantined files again instead of skipping them.
+     */
+    public void setForce(boolean force) { this.force = force; }
+    
+    public int getShard() { return shard; }
+    public int getShardCount() { return shardCount; }
+    
+    /**
+     * Analyzes only the files of one shard; see {@link ProjectWalker#setShard(int, int)}.
+     */
+    public void setShard(int shard, int shardCount) {
+        this.shard = shard;
+        this.shardCount = shardCount;
+    }
+    
+    public PathTable getPaths() { return paths; }
+    
+    /**
+     * Sets the table the file paths of the records are interned in. Each run should
+     * use a table of its own, so paths are released with the run's records.
+     */
+    public void setPaths(PathTable paths) { this.paths = paths; }
     
     public AnalysisResult analyzeProject(File projectDir) throws IOException {
+        AnalysisResult result = new AnalysisResult(new ArrayList<>(), new ArrayList<>(), new ArrayList<>(),
+                new ArrayList<>(), new ArrayList<>(), new ArrayList<>(), new ArrayList<>(), new ArrayList<>(),
+                new ArrayList<>(), new ArrayList<>(), new ArrayList<>());
+        result.setPaths(paths);
+        analyzeProject(projectDir, result::addFileAnalysis);
+        return result;
+    }
+    
+    /**
+     * Analyzes the project and streams each file's records to the sink in walk order,
+     * without keeping them in memory. The sink is neither finished nor closed.
+     */
+    public AnalysisSummary analyzeProject(File projectDir, AnalysisSink sink) throws IOException {
         logger.info("Starting analysis of project: {}", projectDir.getAbsolutePath());
+        long startTime = System.nanoTime();
         
-        List<FileInventory> files = new ArrayList<>();
-        List<SQLQuery> sqlQueries = new ArrayList<>();
-        List<FileReference> requires = new ArrayList<>();
-        List<FileReference> includes = new ArrayList<>();
-        List<CurlCall> curlCalls = new ArrayList<>();
-        List<FunctionDefinition> functions = new ArrayList<>();
-        List<ClassDefinition> classes = new ArrayList<>();
-        List<InheritanceInfo> traits = new ArrayList<>();
-        List<InheritanceInfo> classInheritances = new ArrayList<>();
-        List<InterfaceImplementation> implementations = new ArrayList<>();
-        List<InterfaceDefinition> interfaces = new ArrayList<>();
+        // Excluded directories are pruned during the walk instead of filtered afterwards
+        ProjectWalker walker = new ProjectWalker(projectDir.toPath(), excludePatterns, useGitignore);
+        walker.setShard(shard, shardCount);
+        if (shardCount > 0) {
+            logger.info("Analyzing shard {} of {}", shard, shardCount);
+        }
+        if (threads > 1) {
+            logger.info("Analyzing with {} worker threads", threads);
+        }
+        if (cache != null) {
+            cache.startRun();
+        }
+        AnalysisPipeline pipeline = new AnalysisPipeline(threads, memoryBudget, workerPool, this::analyzeFileSafely);
+        AnalysisSummary summary = pipeline.run(walker, sink);
+        if (metrics != null) {
+            metrics.setWallNanos(System.nanoTime() - startTime);
+        }
         
-        // Use Files.walk for recursive directory traversal
-        try (Stream<Path> paths = Files.walk(projectDir.toPath())) {
-            List<Path> validFiles = paths
-                .filter(Files::isRegularFile)
-                .filter(this::isValidFile)
-                .collect(java.util.stream.Collectors.toList());
-                
-            logger.info("Found {} valid files to analyze", validFiles.size());
-            
-            for (Path path : validFiles) {
-                try {
-                    logger.debug("Analyzing file: {}", path);
-                    analyzeFile(path, files, sqlQueries, requires, includes, curlCalls, 
-                              functions, classes, traits, classInheritances, implementations, interfaces);
-                } catch (Exception e) {
-                    logger.warn("Error analyzing file {}: {}", path, e.getMessage());
-                }
-            }
+        if (quarantine != null) {
+            quarantine.save();
+        }
+        if (cache != null) {
+            int pruned = cache.prune();
+            logger.info("Analysis cache: {} files reused, {} analyzed, {} stale entries removed",
+                       cache.getReusedCount(), cache.getStoredCount(), pruned);
         }
         
         logger.info("Analysis completed. Found {} files, {} SQL queries, {} functions, {} classes", 
-                   files.size(), sqlQueries.size(), functions.size(), classes.size());
+                   summary.getFiles(), summary.getSqlQueries(), summary.getFunctions(), summary.getClasses());
         
-        return new AnalysisResult(files, sqlQueries, requires, includes, curlCalls, 
-                                functions, classes, traits, classInheritances, implementations, interfaces);
+        return summary;
     }
     
-    private boolean isValidFile(Path path) {
-        String fileName = path.getFileName().toString().toLowerCase();
-        
-        // Skip hidden files and directories
-        if (fileName.startsWith(".")) {
-            return false;
-        }
-        
-        // Skip common non-source directories
-        String pathStr = path.toString().toLowerCase();
-        if (pathStr.contains("/.git/") || 
-            pathStr.contains("/node_modules/") || 
-            pathStr.contains("/vendor/") ||
-            pathStr.contains("/.svn/") ||
-            pathStr.contains("/target/") ||
-            pathStr.contains("/build/") ||
-            pathStr.contains("/dist/") ||
-            pathStr.contains("/logs/")) {
-            return false;
-        }
-        
-        // Check for valid extensions
-        boolean isValid = VALID_EXTENSIONS.stream().anyMatch(fileName::endsWith);
-        
-        if (isValid) {
-            logger.debug("Valid file found: {}", path);
+    /**
+     * Analyzes a single file outside of a project walk, for callers that learn which
+     * files changed. The cache and the quarantine list are updated but neither is
+     * pruned or saved. Returns null when the file could not be analyzed.
+     */
+    public FileAnalysis analyzeSingleFile(SourceFile file) {
+        return analyzeFileSafely(file);
+    }
+    
+    /**
+     * Analyzes one file, isolating failures so a bad file never aborts the run.
+     */
+    private FileAnalysis analyzeFileSafely(SourceFile file) {
+        try {
+            logger.debug("Analyzing file: {}", file);
+            return analyzeFile(file);
+        } catch (Exception e) {
+            logger.warn("Error analyzing file {}: {}", file, e.getMessage());
+            return null;
         }
-        
-        return isValid;
     }
     
-    private void analyzeFile(Path filePath, List<FileInventory> files, List<SQLQuery> sqlQueries,
-                           List<FileReference> requires, List<FileReference> includes,
-                           List<CurlCall> curlCalls, List<FunctionDefinition> functions,
-                           List<ClassDefinition> classes, List<InheritanceInfo> traits,
-                           List<InheritanceInfo> classInheritances, List<InterfaceImplementation> implementations,
-                           List<InterfaceDefinition> interfaces) throws IOException {
+    private FileAnalysis analyzeFile(SourceFile sourceFile) throws IOException {
         
+        Path filePath = sourceFile.getPath();
         logger.debug("Processing file: {}", filePath);
+        long startTime = metrics != null ? System.nanoTime() : 0;
+        FileDeadline deadline = FileDeadline.after(fileTimeoutMillis * 1_000_000L);
+        String fileName = filePath.getFileName().toString();
+        FileType fileType = getFileType(fileName);
+        long fileSize = sourceFile.getSize();
+        boolean php = fileType == FileType.PHP;
+        
+        // A quarantined file is listed from its size and modification time, without being read
+        if (php && quarantine != null && !force
+                && quarantine.contains(filePath, fileSize, sourceFile.getLastModified())) {
+            logger.info("Skipping quarantined file {} (use --force to analyze it again)", filePath);
+            FileInventory inventory = new FileInventory(fileName, paths.intern(filePath.toString()), fileType, fileSize,
+                    0, null);
+            inventory.setQuarantined(true);
+            FileAnalysis analysis = new FileAnalysis(paths);
+            analysis.setFile(inventory);
+            if (metrics != null) {
+                metrics.recordQuarantined(filePath.toString(), fileSize, System.nanoTime() - startTime);
+            }
+            return analysis;
+        }
         
-        String content;
+        AnalysisCache.Entry cached = cache != null ? cache.lookup(filePath, paths) : null;
+        if (cached != null && cached.isUnchanged(sourceFile.getSize(), sourceFile.getLastModified())) {
+            logger.debug("Reusing cached records for {}", filePath);
+            if (metrics != null) {
+                metrics.recordReused();
+            }
+            return cache.reuse(cached, filePath, sourceFile.getSize(), sourceFile.getLastModified());
+        }
+        
+        // PHP files are read once, only very large ones mapped rather than copied. Other
+        // files are only scanned, a chunk at a time, and never held in memory whole
+        long readStart = metrics != null ? System.nanoTime() : 0;
+        ByteBuffer bytes = null;
+        SourceReader.Scan scan = null;
+        MessageDigest digest = cache != null && !php ? AnalysisCache.contentDigest() : null;
         try {
-            content = Files.readString(filePath, StandardCharsets.UTF_8);
-        } catch (Exception e) {
-            logger.debug("UTF-8 failed for {}, trying with ISO-8859-1", filePath);
-            try {
-                content = FileUtils.readFileToString(filePath.toFile(), StandardCharsets.ISO_8859_1);
-            } catch (Exception e2) {
-                logger.warn("Could not read file {} with any encoding: {}", filePath, e2.getMessage());
-                return; // Skip this file
+            if (php) {
+                bytes = SourceReader.read(filePath, sourceFile.getSize());
+            } else {
+                scan = SourceReader.scan(filePath, digest);
             }
+        } catch (IOException e) {
+            logger.warn("Could not read file {}: {}", filePath, e.getMessage());
+            return null; // Skip this file
+        }
+        if (metrics != null) {
+            metrics.recordRead(php ? bytes.remaining() : scan.bytes, System.nanoTime() - readStart);
         }
         
-        String fileName = filePath.getFileName().toString();
-        String fileType = getFileType(fileName);
-        long fileSize = Files.size(filePath);
-        int lineCount = (int) content.lines().count();
+        byte[] contentHash = null;
+        if (cache != null) {
+            contentHash = php ? AnalysisCache.contentHash(bytes) : digest.digest();
+            if (cached != null && cached.hasContent(contentHash)) {
+                logger.debug("Content of {} unchanged, reusing cached records", filePath);
+                if (metrics != null) {
+                    metrics.recordReused();
+                }
+                return cache.reuse(cached, filePath, sourceFile.getSize(), sourceFile.getLastModified());
+            }
+        }
+        
+        int fileId = paths.intern(filePath.toString());
+        
+        // Only PHP content is analyzed, so other files were scanned for line breaks without decoding
+        long decodeStart = metrics != null ? System.nanoTime() : 0;
+        String content = null;
+        String encoding;
+        int lineCount;
+        if (php) {
+            SourceReader.Source source = SourceReader.decode(bytes);
+            content = source.text;
+            encoding = source.encoding;
+            lineCount = (int) content.lines().count();
+        } else {
+            encoding = scan.encoding;
+            lineCount = scan.lines;
+        }
+        if (metrics != null) {
+            metrics.recordDecode(System.nanoTime() - decodeStart);
+        }
         
-        files.add(new FileInventory(fileName, filePath.toString(), fileType, fileSize, lineCount));
-        logger.debug("Added file: {} (type: {}, size: {} bytes, lines: {})", fileName, fileType, fileSize, lineCount);
+        FileInventory inventory = new FileInventory(fileName, fileId, fileType, fileSize, lineCount, encoding);
+        FileAnalysis analysis = new FileAnalysis(paths);
+        analysis.setFile(inventory);
+        logger.debug("Added file: {} (type: {}, size: {} bytes, lines: {}, encoding: {})", fileName, fileType.getLabel(), fileSize, lineCount, encoding);
         
         // Only analyze PHP files for code elements
-        if (fileType.equals("PHP")) {
+        if (php) {
             logger.debug("Analyzing PHP content for: {}", fileName);
-            analyzePHPContent(content, filePath.toString(), sqlQueries, requires, includes, 
-                            curlCalls, functions, classes, traits, classInheritances, implementations, interfaces);
+            try {
+                analyzePHPContent(content, fileId, analysis, deadline);
+            } catch (FileDeadline.Exceeded e) {
+                logger.warn("Analysis of {} exceeded its {} ms budget; file quarantined", filePath, fileTimeoutMillis);
+                analysis = new FileAnalysis(paths);
+                analysis.setFile(inventory);
+                inventory.setQuarantined(true);
+                if (quarantine != null) {
+                    quarantine.add(filePath, sourceFile.getSize(), sourceFile.getLastModified(),
+                            "timeout " + fileTimeoutMillis + " ms");
+                }
+                // The file used its whole budget, so it belongs among the slowest files
+                if (metrics != null) {
+                    metrics.recordFile(filePath.toString(), fileSize, System.nanoTime() - startTime, php);
+                }
+                return analysis;
+            }
+            if (quarantine != null) {
+                quarantine.remove(filePath);
+            }
+        }
+        
+        if (cache != null) {
+            cache.store(filePath, sourceFile.getSize(), sourceFile.getLastModified(), contentHash, analysis);
         }
+        if (metrics != null) {
+            metrics.recordFile(filePath.toString(), fileSize, System.nanoTime() - startTime, php);
+        }
+        return analysis;
     }
     
-    private String getFileType(String fileName) {
+    private FileType getFileType(String fileName) {
         String extension = fileName.substring(fileName.lastIndexOf('.') + 1).toLowerCase();
         switch (extension) {
-            case "php": return "PHP";
+            case "php": return FileType.PHP;
             case "html":
-            case "htm": return "HTML";
-            case "js": return "JavaScript";
-            case "css": return "CSS";
-            default: return "Other";
+            case "htm": return FileType.HTML;
+            case "js": return FileType.JAVASCRIPT;
+            case "css": return FileType.CSS;
+            default: return FileType.OTHER;
         }
     }
     
-    private void analyzePHPContent(String content, String filePath, List<SQLQuery> sqlQueries,
-                                 List<FileReference> requires, List<FileReference> includes,
-                                 List<CurlCall> curlCalls, List<FunctionDefinition> functions,
-                                 List<ClassDefinition> classes, List<InheritanceInfo> traits,
-                                 List<InheritanceInfo> classInheritances, List<InterfaceImplementation> implementations,
-                                 List<InterfaceDefinition> interfaces) {
+    // The extractors are package-private so the benchmarks module can run them one at a time
+    void analyzePHPContent(String content, String filePath, FileAnalysis analysis) {
+        analyzePHPContent(content, analysis.getPaths().intern(filePath), analysis, FileDeadline.NONE);
+    }
+    
+    private void analyzePHPContent(String content, int fileId, FileAnalysis analysis, FileDeadline deadline) {
         
-        String[] lines = content.split("\\r?\\n");
+        // Tokenize once; every extractor walks the same token stream
+        long time = metrics != null ? System.nanoTime() : 0;
+        TokenStream tokens = PhpLexer.tokenize(content, deadline);
+        LineIndex lines = LineIndex.of(content);
+        BraceIndex braces = BraceIndex.of(tokens);
+        time = endStage(deadline, AnalysisMetrics.Stage.TOKENIZE, time, tokens.size());
         
         // Analyze SQL queries
-        analyzeSQLQueries(content, filePath, lines, sqlQueries);
+        analyzeSQLQueries(tokens, fileId, lines, analysis.getSqlQueries());
+        time = endStage(deadline, AnalysisMetrics.Stage.SQL_QUERIES, time, analysis.getSqlQueries().size());
         
         // Analyze requires
-        analyzeRequires(content, filePath, lines, requires);
+        analyzeRequires(tokens, fileId, lines, analysis.getRequires());
+        time = endStage(deadline, AnalysisMetrics.Stage.REQUIRES, time, analysis.getRequires().size());
         
         // Analyze includes
-        analyzeIncludes(content, filePath, lines, includes);
+        analyzeIncludes(tokens, fileId, lines, analysis.getIncludes());
+        time = endStage(deadline, AnalysisMetrics.Stage.INCLUDES, time, analysis.getIncludes().size());
         
         // Analyze CURL calls
-        analyzeCurlCalls(content, filePath, lines, curlCalls);
+        analyzeCurlCalls(tokens, braces, fileId, lines, analysis.getCurlCalls());
+        time = endStage(deadline, AnalysisMetrics.Stage.CURL_CALLS, time, analysis.getCurlCalls().size());
         
         // Analyze functions
-        analyzeFunctions(content, filePath, lines, functions);
+        analyzeFunctions(tokens, braces, fileId, lines, analysis.getFunctions());
+        time = endStage(deadline, AnalysisMetrics.Stage.FUNCTIONS, time, analysis.getFunctions().size());
         
         // Analyze classes
-        analyzeClasses(content, filePath, lines, classes);
+        analyzeClasses(tokens, braces, fileId, lines, analysis.getClasses());
+        time = endStage(deadline, AnalysisMetrics.Stage.CLASSES, time, analysis.getClasses().size());
         
         // Analyze traits (use statements)
-        analyzeTraits(content, filePath, lines, traits);
+        analyzeTraits(tokens, fileId, lines, analysis.getTraits());
+        time = endStage(deadline, AnalysisMetrics.Stage.TRAITS, time, analysis.getTraits().size());
         
         // Analyze class inheritance
-        analyzeClassInheritance(content, filePath, lines, classInheritances);
+        analyzeClassInheritance(tokens, fileId, lines, analysis.getClassInheritances());
+        time = endStage(deadline, AnalysisMetrics.Stage.CLASS_INHERITANCE, time, analysis.getClassInheritances().size());
         
         // Analyze interface implementations
-        analyzeImplementations(content, filePath, lines, implementations);
+        analyzeImplementations(tokens, fileId, lines, analysis.getImplementations());
+        time = endStage(deadline, AnalysisMetrics.Stage.IMPLEMENTATIONS, time, analysis.getImplementations().size());
         
         // Analyze interface definitions
-        analyzeInterfaces(content, filePath, lines, interfaces);
+        analyzeInterfaces(tokens, braces, fileId, lines, analysis.getInterfaces());
+        endStage(deadline, AnalysisMetrics.Stage.INTERFACES, time, analysis.getInterfaces().size());
     }
     
-    private void analyzeSQLQueries(String content, String filePath, String[] lines, List<SQLQuery> sqlQueries) {
-        Matcher matcher = SQL_PATTERN.matcher(content);
-        int queryCount = 0;
+    void analyzeSQLQueries(TokenStream tokens, int fileId, LineIndex lines, List<SQLQuery> sqlQueries) {
+        String content = tokens.getContent();
+        String[] dataSource = {null};
         
-        while (matcher.find()) {
-            queryCount++;
-            String query = matcher.group().trim();
-            int lineNumber = getLineNumber(content, matcher.start(), lines);
+        // SQL is only looked for inside string literals and heredoc bodies, following concatenations
+        SqlScanner.scan(tokens, (query, offset) -> {
+            int line = lines.lineOf(offset);
             
-            String queryName = "Query_" + queryCount;
+            if (dataSource[0] == null) {
+                dataSource[0] = detectDataSource(content);
+            }
+            String queryName = "Query_" + (sqlQueries.size() + 1);
             String dbTable = extractTableName(query);
-            String fileLocation = filePath + ":" + lineNumber;
-            String dataSource = detectDataSource(content);
-            String complexity = calculateQueryComplexity(query);
+            Complexity complexity = calculateQueryComplexity(query);
             
-            sqlQueries.add(new SQLQuery(queryName, dbTable, fileLocation, dataSource, query, complexity));
-        }
+            sqlQueries.add(new SQLQuery(queryName, dbTable, fileId, line, dataSource[0], query, complexity));
+        });
     }
     
-    private void analyzeRequires(String content, String filePath, String[] lines, List<FileReference> requires) {
-        Matcher matcher = REQUIRE_PATTERN.matcher(content);
-        
-        while (matcher.find()) {
-            String requiredFile = matcher.group(1);
-            int lineNumber = getLineNumber(content, matcher.start(), lines);
-            String fileLocation = filePath + ":" + lineNumber;
-            
-            requires.add(new FileReference(requiredFile, fileLocation, "require"));
-        }
+    void analyzeRequires(TokenStream tokens, int fileId, LineIndex lines, List<FileReference> requires) {
+        analyzeFileReferences(tokens, TokenStream.KW_REQUIRE, ReferenceType.REQUIRE, fileId, lines, requires);
     }
     
-    private void analyzeIncludes(String content, String filePath, String[] lines, List<FileReference> includes) {
-        Matcher matcher = INCLUDE_PATTERN.matcher(content);
-        
-        while (matcher.find()) {
-            String includedFile = matcher.group(1);
-            int lineNumber = getLineNumber(content, matcher.start(), lines);
-            String fileLocation = filePath + ":" + lineNumber;
-            
-            includes.add(new FileReference(includedFile, fileLocation, "include"));
-        }
+    void analyzeIncludes(TokenStream tokens, int fileId, LineIndex lines, List<FileReference> includes) {
+        analyzeFileReferences(tokens, TokenStream.KW_INCLUDE, ReferenceType.INCLUDE, fileId, lines, includes);
     }
     
-    private void analyzeCurlCalls(String content, String filePath, String[] lines, List<CurlCall> curlCalls) {
-        // Analyze curl_init
-        Matcher initMatcher = CURL_INIT_PATTERN.matcher(content);
-        while (initMatcher.find()) {
-            int lineNumber = getLineNumber(content, initMatcher.start(), lines);
-            String fileLocation = filePath + ":" + lineNumber;
-            String target = initMatcher.group(1).trim();
+    private void analyzeFileReferences(TokenStream tokens, int keyword, ReferenceType referenceType, int fileId,
+                                       LineIndex lines, List<FileReference> references) {
+        for (int i = 0; i < tokens.size(); i++) {
+            if (tokens.kind(i) != keyword || tokens.isMemberAccess(i)) {
+                continue;
+            }
+            // Both require('file.php') and require 'file.php' forms, the path possibly built by
+            // concatenation as in require __DIR__ . '/file.php'; its first literal operand names
+            // the file, while literals elsewhere, such as array keys, do not
+            int expression = tokens.isPunct(i + 1, '(') ? i + 2 : i + 1;
+            int target = expression;
+            while (target < tokens.size() && !tokens.isPunct(target, ';') && tokens.kind(target) != TokenStream.CLOSE_TAG
+                    && !(tokens.isStringLiteral(target) && (target == expression || tokens.isPunct(target - 1, '.')))) {
+                target++;
+            }
+            if (!tokens.isStringLiteral(target)) {
+                continue;
+            }
+            String referencedFile = tokens.literalText(target);
+            if (isCurrentDirectory(tokens, expression, target) && referencedFile.startsWith("/")) {
+                referencedFile = "." + referencedFile;
+            }
+            int line = lines.lineOf(tokens.start(i));
             
-            curlCalls.add(new CurlCall("curl_init", fileLocation, target, "Initialize CURL session"));
+            references.add(new FileReference(referencedFile, fileId, line, referenceType));
         }
-        
-        // Analyze curl_setopt
-        Matcher setoptMatcher = CURL_SETOPT_PATTERN.matcher(content);
-        while (setoptMatcher.find()) {
-            int lineNumber = getLineNumber(content, setoptMatcher.start(), lines);
-            String fileLocation = filePath + ":" + lineNumber;
-            String option = setoptMatcher.group(1).trim();
-            String value = setoptMatcher.group(2).trim();
-            
-            curlCalls.add(new CurlCall("curl_setopt", fileLocation, option + "=" + value, "Set CURL option"));
+    }
+    
+    /**
+     * True when the tokens from {@code from} up to {@code literal} are {@code __DIR__ .} or
+     * {@code dirname(__FILE__) .}, so the literal is relative to the including file; it is then
+     * recorded as ./file.php, which is how the include graph reads a path of that form.
+     */
+    private static boolean isCurrentDirectory(TokenStream tokens, int from, int literal) {
+        if (literal == from + 2) {
+            return isName(tokens, from, "__DIR__") && tokens.isPunct(from + 1, '.');
         }
-        
-        // Analyze curl_exec
-        Matcher execMatcher = CURL_EXEC_PATTERN.matcher(content);
-        while (execMatcher.find()) {
-            int lineNumber = getLineNumber(content, execMatcher.start(), lines);
-            String fileLocation = filePath + ":" + lineNumber;
-            String handle = execMatcher.group(1).trim();
+        return literal == from + 5 && isName(tokens, from, "dirname") && tokens.isPunct(from + 1, '(')
+                && isName(tokens, from + 2, "__FILE__") && tokens.isPunct(from + 3, ')') && tokens.isPunct(from + 4, '.');
+    }
+    
+    private static boolean isName(TokenStream tokens, int i, String name) {
+        return tokens.isName(i) && tokens.text(i).equalsIgnoreCase(name);
+    }
+    
+    void analyzeCurlCalls(TokenStream tokens, BraceIndex braces, int fileId, LineIndex lines, List<CurlCall> curlCalls) {
+        for (int i = 0; i < tokens.size(); i++) {
+            int kind = tokens.kind(i);
+            if ((kind != TokenStream.KW_CURL_INIT && kind != TokenStream.KW_CURL_SETOPT && kind != TokenStream.KW_CURL_EXEC)
+                    || tokens.isMemberAccess(i) || !tokens.isPunct(i + 1, '(')) {
+                continue;
+            }
+            int close = braces.closing(i + 1);
+            if (close < 0) {
+                continue;
+            }
+            int line = lines.lineOf(tokens.start(i));
             
-            curlCalls.add(new CurlCall("curl_exec", fileLocation, handle, "Execute CURL session"));
+            if (kind == TokenStream.KW_CURL_INIT) {
+                String target = tokens.textBetween(i + 1, close).trim();
+                curlCalls.add(new CurlCall(CurlCallType.CURL_INIT, fileId, line, target));
+            } else if (kind == TokenStream.KW_CURL_SETOPT) {
+                List<String> arguments = splitArguments(tokens, i + 1, close);
+                if (arguments.size() >= 3) {
+                    String option = arguments.get(1);
+                    String value = arguments.get(2);
+                    curlCalls.add(new CurlCall(CurlCallType.CURL_SETOPT, fileId, line, option + "=" + value));
+                }
+            } else {
+                String handle = tokens.textBetween(i + 1, close).trim();
+                if (!handle.isEmpty()) {
+                    curlCalls.add(new CurlCall(CurlCallType.CURL_EXEC, fileId, line, handle));
+                }
+            }
         }
     }
     
-    private void analyzeFunctions(String content, String filePath, String[] lines, List<FunctionDefinition> functions) {
-        Matcher matcher = FUNCTION_PATTERN.matcher(content);
-        
-        while (matcher.find()) {
-            String functionName = matcher.group(1);
-            String parameters = matcher.group(2);
-            int startLine = getLineNumber(content, matcher.start(), lines);
+    void analyzeFunctions(TokenStream tokens, BraceIndex braces, int fileId, LineIndex lines, List<FunctionDefinition> functions) {
+        for (int n = 0; n < braces.getFunctionCount(); n++) {
+            int name = braces.functionName(n);
+            int i = tokens.isPunct(name - 1, '&') ? name - 2 : name - 1;
+            int closeParen = braces.closing(name + 1);
+            int body = closeParen < 0 ? -1 : findBody(tokens, closeParen + 1);
+            if (body < 0) {
+                continue; // abstract or interface method
+            }
+            String functionName = tokens.text(name);
+            String parameters = tokens.textBetween(name + 1, closeParen);
+            int startLine = lines.lineOf(tokens.start(i));
             
-            // Calculate function length by finding matching braces
-            int functionLength = calculateFunctionLength(content, matcher.start());
-            String complexity = calculateFunctionComplexity(functionLength);
-            String fileLocation = filePath + ":" + startLine;
+            // Function length is the number of lines spanned by the body braces
+            int functionLength = calculateFunctionLength(tokens, braces, body, lines);
+            Complexity complexity = calculateFunctionComplexity(functionLength);
             
-            functions.add(new FunctionDefinition(functionName, fileLocation, functionLength, complexity, parameters));
+            functions.add(new FunctionDefinition(functionName, fileId, startLine, functionLength, complexity, parameters));
         }
     }
     
-    private void analyzeClasses(String content, String filePath, String[] lines, List<ClassDefinition> classes) {
-        Matcher matcher = CLASS_PATTERN.matcher(content);
-        
-        while (matcher.find()) {
-            String className = matcher.group(1);
-            String parentClass = matcher.group(2);
-            String interfaces = matcher.group(3);
-            int lineNumber = getLineNumber(content, matcher.start(), lines);
-            String fileLocation = filePath + ":" + lineNumber;
+    void analyzeClasses(TokenStream tokens, BraceIndex braces, int fileId, LineIndex lines, List<ClassDefinition> classes) {
+        for (int i = 0; i < tokens.size(); i++) {
+            if (!isClassDeclaration(tokens, i)) {
+                continue;
+            }
+            String className = tokens.text(i + 1);
+            String parentClass = "";
+            String interfaces = "";
+            int next = i + 2;
+            if (tokens.kind(next) == TokenStream.KW_EXTENDS && tokens.isName(next + 1)) {
+                parentClass = tokens.text(next + 1);
+                next += 2;
+            }
+            int body = findBody(tokens, next);
+            if (body < 0) {
+                continue;
+            }
+            if (tokens.kind(next) == TokenStream.KW_IMPLEMENTS) {
+                interfaces = tokens.textBetween(next, body).trim();
+            }
+            int line = lines.lineOf(tokens.start(i));
             
             // Count methods in class
-            int methodCount = countMethodsInClass(content, matcher.start());
+            int methodCount = countMethodsInClass(braces, body);
             
-            classes.add(new ClassDefinition(className, fileLocation, methodCount, 
-                                          parentClass != null ? parentClass : "", 
-                                          interfaces != null ? interfaces.trim() : ""));
+            classes.add(new ClassDefinition(className, fileId, line, methodCount, parentClass, interfaces));
         }
     }
     
-    private void analyzeTraits(String content, String filePath, String[] lines, List<InheritanceInfo> traits) {
-        Matcher matcher = USE_PATTERN.matcher(content);
-        
-        while (matcher.find()) {
-            String traitName = matcher.group(1);
-            String alias = matcher.group(2);
-            int lineNumber = getLineNumber(content, matcher.start(), lines);
-            String fileLocation = filePath + ":" + lineNumber;
-            
-            traits.add(new InheritanceInfo("Current Class", traitName, fileLocation, "use trait"));
+    void analyzeTraits(TokenStream tokens, int fileId, LineIndex lines, List<InheritanceInfo> traits) {
+        for (int i = 0; i < tokens.size(); i++) {
+            if (tokens.kind(i) != TokenStream.KW_USE || tokens.isMemberAccess(i)) {
+                continue;
+            }
+            // use Name [as Alias]; or use A, B; -- closures (use (...)) and use function/const are skipped
+            List<String> names = new ArrayList<>();
+            int next = i + 1;
+            while (tokens.kind(next) == TokenStream.IDENT) {
+                names.add(tokens.text(next));
+                next++;
+                if (tokens.kind(next) == TokenStream.KW_AS && tokens.isName(next + 1)) {
+                    next += 2;
+                }
+                if (!tokens.isPunct(next, ',')) {
+                    break;
+                }
+                next++;
+            }
+            if (names.isEmpty() || !(tokens.isPunct(next, ';') || tokens.isPunct(next, '{'))) {
+                continue;
+            }
+            int line = lines.lineOf(tokens.start(i));
+            for (String traitName : names) {
+                traits.add(new InheritanceInfo("Current Class", traitName, fileId, line, InheritanceType.USE_TRAIT));
+            }
         }
     }
     
-    private void analyzeClassInheritance(String content, String filePath, String[] lines, List<InheritanceInfo> classInheritances) {
-        Matcher matcher = EXTENDS_PATTERN.matcher(content);
-        
-        while (matcher.find()) {
-            String childClass = matcher.group(1);
-            String parentClass = matcher.group(2);
-            int lineNumber = getLineNumber(content, matcher.start(), lines);
-            String fileLocation = filePath + ":" + lineNumber;
+    void analyzeClassInheritance(TokenStream tokens, int fileId, LineIndex lines, List<InheritanceInfo> classInheritances) {
+        for (int i = 0; i < tokens.size(); i++) {
+            if (!isClassDeclaration(tokens, i) || tokens.kind(i + 2) != TokenStream.KW_EXTENDS || !tokens.isName(i + 3)) {
+                continue;
+            }
+            String childClass = tokens.text(i + 1);
+            String parentClass = tokens.text(i + 3);
+            int line = lines.lineOf(tokens.start(i));
             
-            classInheritances.add(new InheritanceInfo(childClass, parentClass, fileLocation, "extends"));
+            classInheritances.add(new InheritanceInfo(childClass, parentClass, fileId, line, InheritanceType.EXTENDS));
         }
     }
     
-    private void analyzeImplementations(String content, String filePath, String[] lines, List<InterfaceImplementation> implementations) {
-        Matcher matcher = IMPLEMENTS_PATTERN.matcher(content);
-        
-        while (matcher.find()) {
-            String className = matcher.group(1);
-            String interfaceList = matcher.group(2);
-            int lineNumber = getLineNumber(content, matcher.start(), lines);
-            String fileLocation = filePath + ":" + lineNumber;
+    void analyzeImplementations(TokenStream tokens, int fileId, LineIndex lines, List<InterfaceImplementation> implementations) {
+        for (int i = 0; i < tokens.size(); i++) {
+            if (!isClassDeclaration(tokens, i)) {
+                continue;
+            }
+            int next = i + 2;
+            if (tokens.kind(next) == TokenStream.KW_EXTENDS) {
+                next += 2;
+            }
+            if (tokens.kind(next) != TokenStream.KW_IMPLEMENTS) {
+                continue;
+            }
+            String className = tokens.text(i + 1);
+            int line = lines.lineOf(tokens.start(i));
             
-            // Split multiple interfaces
-            String[] interfaces = interfaceList.split(",");
-            for (String interfaceName : interfaces) {
-                implementations.add(new InterfaceImplementation(className, interfaceName.trim(), fileLocation));
+            // One row per implemented interface
+            for (next++; tokens.isName(next); next += 2) {
+                implementations.add(new InterfaceImplementation(className, tokens.text(next), fileId, line));
+                if (!tokens.isPunct(next + 1, ',')) {
+                    break;
+                }
             }
         }
     }
     
-    private void analyzeInterfaces(String content, String filePath, String[] lines, List<InterfaceDefinition> interfaces) {
-        Matcher matcher = INTERFACE_PATTERN.matcher(content);
-        
-        while (matcher.find()) {
-            String interfaceName = matcher.group(1);
-            String extendsInterface = matcher.group(2);
-            int lineNumber = getLineNumber(content, matcher.start(), lines);
-            String fileLocation = filePath + ":" + lineNumber;
+    void analyzeInterfaces(TokenStream tokens, BraceIndex braces, int fileId, LineIndex lines, List<InterfaceDefinition> interfaces) {
+        for (int i = 0; i < tokens.size(); i++) {
+            if (tokens.kind(i) != TokenStream.KW_INTERFACE || tokens.isMemberAccess(i) || !tokens.isName(i + 1)) {
+                continue;
+            }
+            int body = findBody(tokens, i + 2);
+            if (body < 0) {
+                continue;
+            }
+            String interfaceName = tokens.text(i + 1);
+            String extendsInterface = tokens.kind(i + 2) == TokenStream.KW_EXTENDS
+                    ? tokens.textBetween(i + 2, body).trim() : "";
+            int line = lines.lineOf(tokens.start(i));
             
             // Count methods in interface
-            int methodCount = countMethodsInInterface(content, matcher.start());
+            int methodCount = countMethodsInInterface(braces, body);
             
-            interfaces.add(new InterfaceDefinition(interfaceName, fileLocation, methodCount, 
-                                                 extendsInterface != null ? extendsInterface : ""));
+            interfaces.add(new InterfaceDefinition(interfaceName, fileId, line, methodCount, extendsInterface));
+        }
+    }
+    
+    /**
+     * Checks the file's deadline after a stage, records the time since {@code since}
+     * against the stage and returns the current time.
+     */
+    private long endStage(FileDeadline deadline, AnalysisMetrics.Stage stage, long since, int matches) {
+        deadline.check();
+        if (metrics == null) {
+            return 0;
         }
+        long now = System.nanoTime();
+        metrics.recordStage(stage, now - since, matches);
+        return now;
     }
     
     // Helper methods
-    private int getLineNumber(String content, int position, String[] lines) {
-        String beforePosition = content.substring(0, position);
-        return beforePosition.split("\\r?\\n").length;
+    private boolean isClassDeclaration(TokenStream tokens, int i) {
+        // Skips Foo::class, $x->class and anonymous "new class"
+        return tokens.kind(i) == TokenStream.KW_CLASS && !tokens.isMemberAccess(i)
+                && !BraceIndex.isAnonymousClass(tokens, i) && tokens.isName(i + 1);
+    }
+    
+    /**
+     * Finds the opening brace of a declaration body, skipping return types and
+     * extends/implements lists. Returns -1 when the declaration has no body.
+     */
+    private int findBody(TokenStream tokens, int from) {
+        for (int i = from; i < tokens.size(); i++) {
+            if (tokens.isPunct(i, '{')) {
+                return i;
+            }
+            if (tokens.isPunct(i, ';') || tokens.isPunct(i, '}') || tokens.kind(i) == TokenStream.CLOSE_TAG) {
+                return -1;
+            }
+        }
+        return -1;
+    }
+    
+    private List<String> splitArguments(TokenStream tokens, int open, int close) {
+        List<String> arguments = new ArrayList<>();
+        int depth = 0;
+        int argumentStart = open;
+        for (int i = open + 1; i < close; i++) {
+            if (tokens.kind(i) != TokenStream.PUNCT) {
+                continue;
+            }
+            if (tokens.isPunct(i, '(') || tokens.isPunct(i, '[') || tokens.isPunct(i, '{')) {
+                depth++;
+            } else if (tokens.isPunct(i, ')') || tokens.isPunct(i, ']') || tokens.isPunct(i, '}')) {
+                depth--;
+            } else if (depth == 0 && tokens.isPunct(i, ',')) {
+                arguments.add(tokens.textBetween(argumentStart, i).trim());
+                argumentStart = i;
+            }
+        }
+        arguments.add(tokens.textBetween(argumentStart, close).trim());
+        return arguments;
     }
     
     private String extractTableName(String query) {
@@ -446,84 +737,46 @@ public class PHPAnalyzer {
         }
     }
     
-    private String calculateQueryComplexity(String query) {
+    private Complexity calculateQueryComplexity(String query) {
         int length = query.length();
         int joinCount = query.toUpperCase().split("JOIN").length - 1;
         int subqueryCount = query.split("\\(\\s*SELECT").length - 1;
         
         if (length > 500 || joinCount > 3 || subqueryCount > 2) {
-            return "High";
+            return Complexity.HIGH;
         } else if (length > 200 || joinCount > 1 || subqueryCount > 0) {
-            return "Medium";
+            return Complexity.MEDIUM;
         } else {
-            return "Low";
+            return Complexity.LOW;
         }
     }
     
-    private int calculateFunctionLength(String content, int startPos) {
-        int braceCount = 0;
-        int lineCount = 0;
-        boolean inFunction = false;
-        
-        for (int i = startPos; i < content.length(); i++) {
-            char c = content.charAt(i);
-            if (c == '{') {
-                braceCount++;
-                inFunction = true;
-            } else if (c == '}') {
-                braceCount--;
-                if (inFunction && braceCount == 0) {
-                    break;
-                }
-            } else if (c == '\n' && inFunction) {
-                lineCount++;
-            }
-        }
-        return lineCount;
+    private int calculateFunctionLength(TokenStream tokens, BraceIndex braces, int openBrace, LineIndex lines) {
+        int closeBrace = braces.closing(openBrace);
+        int end = closeBrace < 0 ? tokens.getContent().length() : tokens.start(closeBrace);
+        return lines.lineOf(end) - lines.lineOf(tokens.start(openBrace));
     }
     
-    private String calculateFunctionComplexity(int lineCount) {
+    private Complexity calculateFunctionComplexity(int lineCount) {
         if (lineCount > 50) {
-            return "High";
+            return Complexity.HIGH;
         } else if (lineCount > 20) {
-            return "Medium";
+            return Complexity.MEDIUM;
         } else {
-            return "Low";
+            return Complexity.LOW;
         }
     }
     
-    private int countMethodsInClass(String content, int classStartPos) {
-        // Find class end and count function keywords within
-        int braceCount = 0;
-        boolean inClass = false;
-        int methodCount = 0;
-        String classContent = "";
-        
-        for (int i = classStartPos; i < content.length(); i++) {
-            char c = content.charAt(i);
-            if (c == '{') {
-                braceCount++;
-                inClass = true;
-            } else if (c == '}') {
-                braceCount--;
-                if (inClass && braceCount == 0) {
-                    classContent = content.substring(classStartPos, i);
-                    break;
-                }
-            }
+    private int countMethodsInClass(BraceIndex braces, int openBrace) {
+        // Count named function declarations between the class braces
+        int closeBrace = braces.closing(openBrace);
+        if (closeBrace < 0) {
+            return 0;
         }
-        
-        if (!classContent.isEmpty()) {
-            Matcher methodMatcher = Pattern.compile("(?i)function\\s+[a-zA-Z_][a-zA-Z0-9_]*\\s*\\(").matcher(classContent);
-            while (methodMatcher.find()) {
-                methodCount++;
-            }
-        }
-        
-        return methodCount;
+        return braces.countFunctionsBetween(openBrace, closeBrace);
     }
     
-    private int countMethodsInInterface(String content, int interfaceStartPos) {
-        return countMethodsInClass(content, interfaceStartPos); // Same logic
+    private int countMethodsInInterface(BraceIndex braces, int openBrace) {
+        return countMethodsInClass(braces, openBrace); // Same logic
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,367 @@
+package net.gcae.utils.extractor.analyzer;
+
+import java.util.Arrays;
+
+/**
+ * Hand-written single-pass PHP tokenizer. It tracks {@code <?php ... ?>} regions,
+ * skips inline HTML and comments, and recognises quoted strings, heredoc/nowdoc
+ * blocks, variables, identifiers and punctuation. Whitespace and comments are
+ * dropped, everything else ends up in a {@link TokenStream}.
+ */
+public final class PhpLexer {
+
+    // Tokens between deadline checks
+    private static final int CHECK_INTERVAL = 4096;
+
+    private final String content;
+    private final int length;
+    private final FileDeadline deadline;
+
+    private byte[] kinds;
+    private int[] starts;
+    private int[] ends;
+    private int size;
+
+    private PhpLexer(String content, FileDeadline deadline) {
+        this.content = content;
+        this.length = content.length();
+        this.deadline = deadline;
+        int capacity = Math.max(64, length / 6);
+        this.kinds = new byte[capacity];
+        this.starts = new int[capacity];
+        this.ends = new int[capacity];
+    }
+
+    public static TokenStream tokenize(String content) {
+        return tokenize(content, FileDeadline.NONE);
+    }
+
+    static TokenStream tokenize(String content, FileDeadline deadline) {
+        PhpLexer lexer = new PhpLexer(content, deadline);
+        lexer.run();
+        return new TokenStream(content, lexer.kinds, lexer.starts, lexer.ends, lexer.size);
+    }
+
+    private void run() {
+        int i = 0;
+        while (i < length) {
+            i = skipInlineHtml(i);
+            if (i < length) {
+                i = scanPhp(i);
+            }
+        }
+    }
+
+    /**
+     * Advances past inline HTML to the first character after the next PHP open tag.
+     */
+    private int skipInlineHtml(int i) {
+        while (true) {
+            int open = content.indexOf("<?", i);
+            if (open < 0) {
+                return length;
+            }
+            int after = open + 2;
+            if (content.regionMatches(true, after, "php", 0, 3)) {
+                return after + 3;
+            }
+            if (after < length && content.charAt(after) == '=') {
+                return after + 1;
+            }
+            if (content.regionMatches(true, after, "xml", 0, 3)) {
+                i = after;
+                continue;
+            }
+            return after; // short open tag
+        }
+    }
+
+    /**
+     * Tokenizes PHP code until a close tag or the end of the content.
+     */
+    private int scanPhp(int i) {
+        while (i < length) {
+            char c = content.charAt(i);
+            if (c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\f') {
+                i++;
+            } else if (c == '#') {
+                if (i + 1 < length && content.charAt(i + 1) == '[') {
+                    add(TokenStream.PUNCT, i, i + 1); // attribute
+                    i++;
+                } else {
+                    i = skipLineComment(i + 1);
+                }
+            } else if (c == '/' && i + 1 < length && content.charAt(i + 1) == '/') {
+                i = skipLineComment(i + 2);
+            } else if (c == '/' && i + 1 < length && content.charAt(i + 1) == '*') {
+                int close = content.indexOf("*/", i + 2);
+                i = close < 0 ? length : close + 2;
+            } else if (c == '?' && i + 1 < length && content.charAt(i + 1) == '>') {
+                add(TokenStream.CLOSE_TAG, i, i + 2);
+                return i + 2;
+            } else if (c == '$' && i + 1 < length && isIdentifierStart(content.charAt(i + 1))) {
+                int end = scanIdentifier(i + 1);
+                add(TokenStream.VARIABLE, i, end);
+                i = end;
+            } else if (isIdentifierStart(c) || (c == '\\' && i + 1 < length && isIdentifierStart(content.charAt(i + 1)))) {
+                int end = scanQualifiedName(i);
+                add(classify(i, end), i, end);
+                i = end;
+            } else if (c >= '0' && c <= '9') {
+                int end = i + 1;
+                while (end < length && (isIdentifierPart(content.charAt(end)) || content.charAt(end) == '.')) {
+                    end++;
+                }
+                add(TokenStream.NUMBER, i, end);
+                i = end;
+            } else if (c == '\'') {
+                int end = scanQuoted(i, '\'');
+                add(TokenStream.STRING, i, end);
+                i = end;
+            } else if (c == '"' || c == '`') {
+                int end = scanQuoted(i, c);
+                add(TokenStream.TEMPLATE, i, end);
+                i = end;
+            } else if (c == '<' && content.startsWith("<<<", i)) {
+                int end = scanHeredoc(i);
+                if (end < 0) {
+                    add(TokenStream.PUNCT, i, i + 1);
+                    i++;
+                } else {
+                    i = end;
+                }
+            } else {
+                int end = i + punctuationLength(i, c);
+                add(TokenStream.PUNCT, i, end);
+                i = end;
+            }
+        }
+        return i;
+    }
+
+    private int skipLineComment(int i) {
+        while (i < length) {
+            char c = content.charAt(i);
+            if (c == '\n') {
+                return i + 1;
+            }
+            if (c == '?' && i + 1 < length && content.charAt(i + 1) == '>') {
+                return i; // a close tag ends a line comment
+            }
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Returns the offset after the closing quote of a literal. Double-quoted and backtick
+     * literals may interpolate expressions in {@code {$...}} or {@code ${...}}, whose own
+     * quotes, as in {@code "{$a["k"]}"}, do not end the literal.
+     */
+    private int scanQuoted(int i, char quote) {
+        boolean interpolates = quote != '\'';
+        int j = i + 1;
+        while (j < length) {
+            char c = content.charAt(j);
+            if (c == '\\') {
+                j += 2;
+            } else if (c == quote) {
+                return j + 1;
+            } else if (interpolates && c == '{' && j + 1 < length && content.charAt(j + 1) == '$') {
+                j = skipInterpolation(j + 1);
+            } else if (interpolates && c == '$' && j + 1 < length && content.charAt(j + 1) == '{') {
+                j = skipInterpolation(j + 2);
+            } else {
+                j++;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Skips an interpolated expression from just after its opening brace to just after the
+     * matching closing brace, stepping over the literals inside it.
+     */
+    private int skipInterpolation(int j) {
+        int depth = 1;
+        while (j < length) {
+            char c = content.charAt(j);
+            if (c == '\'' || c == '"' || c == '`') {
+                j = scanQuoted(j, c);
+                continue;
+            }
+            if (c == '{') {
+                depth++;
+            } else if (c == '}' && --depth == 0) {
+                return j + 1;
+            }
+            j++;
+        }
+        return length;
+    }
+
+    /**
+     * Scans a heredoc or nowdoc block starting at {@code <<<}. The emitted token covers the
+     * body only. Returns the offset after the closing label, or -1 if this is not a heredoc.
+     */
+    private int scanHeredoc(int i) {
+        int j = i + 3;
+        while (j < length && (content.charAt(j) == ' ' || content.charAt(j) == '\t')) {
+            j++;
+        }
+        char quote = j < length ? content.charAt(j) : 0;
+        boolean quoted = quote == '\'' || quote == '"';
+        if (quoted) {
+            j++;
+        }
+        if (j >= length || !isIdentifierStart(content.charAt(j))) {
+            return -1;
+        }
+        int labelStart = j;
+        j = scanIdentifier(j);
+        int labelEnd = j;
+        if (quoted) {
+            if (j >= length || content.charAt(j) != quote) {
+                return -1;
+            }
+            j++;
+        }
+        if (j < length && content.charAt(j) == '\r') {
+            j++;
+        }
+        if (j >= length || content.charAt(j) != '\n') {
+            return -1;
+        }
+        int bodyStart = j + 1;
+        int labelLength = labelEnd - labelStart;
+
+        // The closing label is the first line consisting of optional indentation and the label
+        int lineStart = bodyStart;
+        while (lineStart < length) {
+            int k = lineStart;
+            while (k < length && (content.charAt(k) == ' ' || content.charAt(k) == '\t')) {
+                k++;
+            }
+            if (content.regionMatches(k, content, labelStart, labelLength)
+                    && (k + labelLength >= length || !isIdentifierPart(content.charAt(k + labelLength)))) {
+                int bodyEnd = Math.max(bodyStart, lineStart - 1);
+                if (bodyEnd > bodyStart && content.charAt(bodyEnd - 1) == '\r') {
+                    bodyEnd--;
+                }
+                add(quote == '\'' ? TokenStream.NOWDOC : TokenStream.HEREDOC, bodyStart, bodyEnd);
+                return k + labelLength;
+            }
+            int newline = content.indexOf('\n', lineStart);
+            if (newline < 0) {
+                break;
+            }
+            lineStart = newline + 1;
+        }
+        // Unterminated: the rest of the file is the body
+        add(quote == '\'' ? TokenStream.NOWDOC : TokenStream.HEREDOC, bodyStart, length);
+        return length;
+    }
+
+    private int punctuationLength(int i, char c) {
+        char next = i + 1 < length ? content.charAt(i + 1) : 0;
+        if ((c == ':' && next == ':') || (c == '-' && next == '>') || (c == '=' && next == '>')) {
+            return 2;
+        }
+        if (c == '?' && next == '-' && i + 2 < length && content.charAt(i + 2) == '>') {
+            return 3;
+        }
+        return 1;
+    }
+
+    private int scanIdentifier(int i) {
+        while (i < length && isIdentifierPart(content.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private int scanQualifiedName(int i) {
+        while (i < length) {
+            char c = content.charAt(i);
+            if (isIdentifierPart(c)) {
+                i++;
+            } else if (c == '\\' && i + 1 < length && isIdentifierStart(content.charAt(i + 1))) {
+                i += 2;
+            } else {
+                break;
+            }
+        }
+        return i;
+    }
+
+    private static boolean isIdentifierStart(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_' || c >= 0x80;
+    }
+
+    private static boolean isIdentifierPart(char c) {
+        return isIdentifierStart(c) || (c >= '0' && c <= '9');
+    }
+
+    /**
+     * Classifies the identifiers extractors dispatch on, so they compare a byte instead of text.
+     */
+    private byte classify(int start, int end) {
+        if (content.charAt(start) == '\\') {
+            start++; // fully qualified, e.g. \curl_init
+        }
+        switch (end - start) {
+            case 2:
+                return matches(start, "as") ? TokenStream.KW_AS : TokenStream.IDENT;
+            case 3:
+                if (matches(start, "use")) return TokenStream.KW_USE;
+                if (matches(start, "new")) return TokenStream.KW_NEW;
+                return TokenStream.IDENT;
+            case 5:
+                if (matches(start, "class")) return TokenStream.KW_CLASS;
+                if (matches(start, "trait")) return TokenStream.KW_TRAIT;
+                return TokenStream.IDENT;
+            case 7:
+                if (matches(start, "extends")) return TokenStream.KW_EXTENDS;
+                if (matches(start, "require")) return TokenStream.KW_REQUIRE;
+                if (matches(start, "include")) return TokenStream.KW_INCLUDE;
+                return TokenStream.IDENT;
+            case 8:
+                return matches(start, "function") ? TokenStream.KW_FUNCTION : TokenStream.IDENT;
+            case 9:
+                if (matches(start, "interface")) return TokenStream.KW_INTERFACE;
+                if (matches(start, "curl_init")) return TokenStream.KW_CURL_INIT;
+                if (matches(start, "curl_exec")) return TokenStream.KW_CURL_EXEC;
+                return TokenStream.IDENT;
+            case 10:
+                return matches(start, "implements") ? TokenStream.KW_IMPLEMENTS : TokenStream.IDENT;
+            case 11:
+                return matches(start, "curl_setopt") ? TokenStream.KW_CURL_SETOPT : TokenStream.IDENT;
+            case 12:
+                if (matches(start, "require_once")) return TokenStream.KW_REQUIRE;
+                if (matches(start, "include_once")) return TokenStream.KW_INCLUDE;
+                return TokenStream.IDENT;
+            default:
+                return TokenStream.IDENT;
+        }
+    }
+
+    private boolean matches(int start, String keyword) {
+        return content.regionMatches(true, start, keyword, 0, keyword.length());
+    }
+
+    private void add(byte kind, int start, int end) {
+        if (size % CHECK_INTERVAL == 0) {
+            deadline.check();
+        }
+        if (size == kinds.length) {
+            int capacity = size * 2;
+            kinds = Arrays.copyOf(kinds, capacity);
+            starts = Arrays.copyOf(starts, capacity);
+            ends = Arrays.copyOf(ends, capacity);
+        }
+        kinds[size] = kind;
+        starts[size] = start;
+        ends[size] = end;
+        size++;
+    }
+}
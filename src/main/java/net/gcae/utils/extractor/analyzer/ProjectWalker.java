@@ -0,0 +1,348 @@
+package net.gcae.utils.extractor.analyzer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Walks a project directory and selects the files to analyze. Excluded directories
+ * are pruned before they are entered, so nothing below node_modules, vendor or
+ * .git is ever listed. Exclusions come from a fixed set of directory names, from
+ * .gitignore files found along the way and from caller-supplied patterns in
+ * .gitignore syntax relative to the project root. Links to files are listed like the
+ * files they point to; links to directories are not followed.
+ */
+public class ProjectWalker {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProjectWalker.class);
+
+    // File extensions to analyze
+    private static final Set<String> VALID_EXTENSIONS = Set.of("php", "html", "htm", "js", "css");
+
+    // Common non-source directories, matched case-insensitively by name
+    private static final Set<String> EXCLUDED_DIRECTORIES = Set.of(
+        ".git", ".svn", "node_modules", "vendor", "target", "build", "dist", "logs"
+    );
+
+    private static final String GITIGNORE = ".gitignore";
+
+    private final Path root;
+    private final IgnoreRules excludes;
+    private final boolean useGitignore;
+
+    // 1-based shard of the files to list out of shardCount; shardCount 0 lists every file
+    private int shard;
+    private int shardCount;
+
+    public ProjectWalker(Path root) {
+        this(root, List.of(), true);
+    }
+
+    /**
+     * @param root project directory
+     * @param excludePatterns additional exclusions in .gitignore syntax, relative to the root
+     * @param useGitignore whether .gitignore files in the project are honored
+     */
+    public ProjectWalker(Path root, List<String> excludePatterns, boolean useGitignore) {
+        this.root = root;
+        this.excludes = IgnoreRules.parse("", excludePatterns);
+        this.useGitignore = useGitignore;
+    }
+
+    public Path getRoot() { return root; }
+
+    /**
+     * Lists only the files of one shard.
+     *
+     * @param shard 1-based shard number
+     * @param shardCount number of shards, or 0 to list every file
+     */
+    public void setShard(int shard, int shardCount) {
+        this.shard = shard;
+        this.shardCount = shardCount;
+    }
+
+    /**
+     * Lists all files to analyze, in walk order.
+     */
+    public List<SourceFile> listFiles() throws IOException {
+        List<SourceFile> files = new ArrayList<>();
+        walk(files::add);
+        return files;
+    }
+
+    /**
+     * Walks the project and hands every file to analyze to the consumer, in walk order.
+     */
+    public void walk(Consumer<SourceFile> consumer) throws IOException {
+        walk(consumer, null);
+    }
+
+    /**
+     * Walks the project like {@link #walk(Consumer)} and also hands every directory
+     * entered, starting with the root, to the directory consumer, which may be null.
+     */
+    public void walk(Consumer<SourceFile> consumer, Consumer<Path> directories) throws IOException {
+        // Directories being walked, innermost first; an explicit stack, so deep trees cannot overflow the call stack
+        Deque<Directory> open = new ArrayDeque<>();
+        Deque<IgnoreRules> gitignores = new ArrayDeque<>();
+        open.push(enter(root, gitignores, directories));
+
+        while (!open.isEmpty()) {
+            Directory dir = open.peek();
+            if (dir.next == dir.entries.size()) {
+                open.pop();
+                if (dir.hasRules) {
+                    gitignores.pop();
+                }
+                continue;
+            }
+            Path entry = dir.entries.get(dir.next++);
+
+            // Decide what the name allows first, so entries that would be skipped as a
+            // file and as a directory alike are never stat'ed
+            String name = entry.getFileName().toString();
+            if (EXCLUDED_DIRECTORIES.contains(name.toLowerCase(Locale.ROOT))) {
+                logger.debug("Skipping excluded directory: {}", entry);
+                continue;
+            }
+            boolean listable = isValidFile(name) && !isIgnored(entry, name, false, gitignores) && isInShard(entry);
+            boolean walkable = !isIgnored(entry, name, true, gitignores);
+            if (!listable && !walkable) {
+                continue;
+            }
+            BasicFileAttributes attrs;
+            try {
+                attrs = Files.readAttributes(entry, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+            } catch (IOException e) {
+                logger.warn("Could not access {}: {}", entry, e.getMessage());
+                continue;
+            }
+            if (attrs.isSymbolicLink()) {
+                // Links to files are listed as the files they point to; links to directories are not entered
+                BasicFileAttributes target = listable ? readTarget(entry) : null;
+                if (target != null && target.isRegularFile()) {
+                    consumer.accept(new SourceFile(entry, target));
+                }
+                continue;
+            }
+            if (attrs.isDirectory()) {
+                if (!walkable) {
+                    logger.debug("Skipping excluded directory: {}", entry);
+                    continue;
+                }
+                open.push(enter(entry, gitignores, directories));
+            } else if (listable && attrs.isRegularFile()) {
+                consumer.accept(new SourceFile(entry, attrs));
+            }
+        }
+    }
+
+    /**
+     * Lists a directory about to be walked and pushes its .gitignore rules, if any.
+     */
+    private Directory enter(Path dir, Deque<IgnoreRules> gitignores, Consumer<Path> directories) {
+        if (directories != null) {
+            directories.accept(dir);
+        }
+
+        // Entries are visited in name order, so every run lists files in the same order
+        List<Path> entries = new ArrayList<>();
+        boolean hasGitignore = false;
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+            for (Path entry : stream) {
+                entries.add(entry);
+                hasGitignore |= entry.getFileName().toString().equals(GITIGNORE);
+            }
+        } catch (IOException | DirectoryIteratorException e) {
+            logger.warn("Error listing directory {}: {}", dir, e.getMessage());
+        }
+        entries.sort(Comparator.comparing(entry -> entry.getFileName().toString()));
+        IgnoreRules rules = useGitignore && hasGitignore ? readGitignore(dir) : null;
+        if (rules != null) {
+            gitignores.push(rules);
+        }
+        return new Directory(entries, rules != null);
+    }
+
+    /**
+     * Decides for a single file whether a walk would list it, reading the .gitignore
+     * files of the directories above it. Returns null when the file does not exist,
+     * is not a regular file, lies outside the root or below a linked directory, is
+     * excluded or belongs to another shard.
+     */
+    public SourceFile select(Path file) throws IOException {
+        if (!file.startsWith(root) || file.equals(root)) {
+            return null;
+        }
+        Path relative = root.relativize(file);
+        Deque<IgnoreRules> gitignores = new ArrayDeque<>();
+        Path dir = root;
+        for (int i = 0; ; i++) {
+            if (useGitignore) {
+                IgnoreRules rules = readGitignore(dir);
+                if (rules != null) {
+                    gitignores.push(rules);
+                }
+            }
+            if (i == relative.getNameCount() - 1) {
+                break;
+            }
+            dir = dir.resolve(relative.getName(i));
+            String name = dir.getFileName().toString();
+            if (EXCLUDED_DIRECTORIES.contains(name.toLowerCase(Locale.ROOT))
+                    || isIgnored(dir, name, true, gitignores) || Files.isSymbolicLink(dir)) {
+                return null;
+            }
+        }
+
+        String name = file.getFileName().toString();
+        if (!isValidFile(name) || isIgnored(file, name, false, gitignores) || !isInShard(file)) {
+            return null;
+        }
+        BasicFileAttributes attrs;
+        try {
+            attrs = Files.readAttributes(file, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+        return attrs.isRegularFile() ? new SourceFile(file, attrs) : null;
+    }
+
+    /**
+     * Reads the attributes of the file a link points to, or returns null when the link is broken.
+     */
+    private static BasicFileAttributes readTarget(Path link) {
+        try {
+            return Files.readAttributes(link, BasicFileAttributes.class);
+        } catch (IOException e) {
+            logger.debug("Skipping broken link {}: {}", link, e.getMessage());
+            return null;
+        }
+    }
+
+    private boolean isInShard(Path file) {
+        return shardCount == 0 || shardOf(relativePath(file), shardCount) == shard - 1;
+    }
+
+    private boolean isValidFile(String fileName) {
+        // Skip hidden files
+        if (fileName.startsWith(".")) {
+            return false;
+        }
+        int dot = fileName.lastIndexOf('.');
+        return dot > 0 && VALID_EXTENSIONS.contains(fileName.substring(dot + 1).toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Applies .gitignore rules from the outermost to the innermost directory, then the
+     * caller-supplied patterns; the last rule that matches decides.
+     */
+    private boolean isIgnored(Path path, String name, boolean directory, Deque<IgnoreRules> gitignores) {
+        if (gitignores.isEmpty() && excludes.isEmpty()) {
+            return false;
+        }
+        String relativePath = relativePath(path);
+        int decision = IgnoreRules.NO_MATCH;
+        for (Iterator<IgnoreRules> it = gitignores.descendingIterator(); it.hasNext(); ) {
+            int match = it.next().match(relativePath, name, directory);
+            if (match != IgnoreRules.NO_MATCH) {
+                decision = match;
+            }
+        }
+        int match = excludes.match(relativePath, name, directory);
+        if (match != IgnoreRules.NO_MATCH) {
+            decision = match;
+        }
+        return decision == IgnoreRules.IGNORED;
+    }
+
+    private String relativePath(Path path) {
+        String relativePath = root.relativize(path).toString();
+        return File.separatorChar != '/' ? relativePath.replace(File.separatorChar, '/') : relativePath;
+    }
+
+    /**
+     * Returns the 0-based shard of a file, from a 64-bit FNV-1a hash of its path relative
+     * to the project root with / as separator, so it is the same on every machine.
+     */
+    public static int shardOf(String relativePath, int shards) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : relativePath.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xFF;
+            hash *= 0x100000001b3L;
+        }
+        return (int) Long.remainderUnsigned(hash, shards);
+    }
+
+    /**
+     * Orders relative paths (with / as separator) the way the walk lists them: directory
+     * by directory, each level by name.
+     */
+    public static int compareRelativePaths(String a, String b) {
+        int length = Math.min(a.length(), b.length());
+        for (int i = 0; i < length; i++) {
+            char x = a.charAt(i);
+            char y = b.charAt(i);
+            if (x != y) {
+                // The end of a name sorts before any character that continues it
+                if (x == '/') {
+                    return -1;
+                }
+                if (y == '/') {
+                    return 1;
+                }
+                return Character.compare(x, y);
+            }
+        }
+        return Integer.compare(a.length(), b.length());
+    }
+
+    private IgnoreRules readGitignore(Path dir) {
+        Path file = dir.resolve(GITIGNORE);
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try {
+            String base = root.relativize(dir).toString().replace(File.separatorChar, '/');
+            IgnoreRules rules = IgnoreRules.parse(base, Files.readAllLines(file, StandardCharsets.UTF_8));
+            return rules.isEmpty() ? null : rules;
+        } catch (IOException e) {
+            logger.warn("Could not read {}: {}", file, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * A directory on the walk stack: its sorted entries and the next one to visit.
+     */
+    private static final class Directory {
+        final List<Path> entries;
+        final boolean hasRules;
+        int next;
+
+        Directory(List<Path> entries, boolean hasRules) {
+            this.entries = entries;
+            this.hasRules = hasRules;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package net.gcae.utils.extractor.analyzer;
+
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+
+/**
+ * A file selected for analysis, together with the attributes read while walking
+ * the project so they do not have to be fetched from the file system again.
+ */
+public final class SourceFile {
+
+    private final Path path;
+    private final long size;
+    private final long lastModified;
+
+    public SourceFile(Path path, long size, long lastModified) {
+        this.path = path;
+        this.size = size;
+        this.lastModified = lastModified;
+    }
+
+    public SourceFile(Path path, BasicFileAttributes attributes) {
+        this(path, attributes.size(), attributes.lastModifiedTime().toMillis());
+    }
+
+    public Path getPath() { return path; }
+
+    public long getSize() { return size; }
+
+    public long getLastModified() { return lastModified; }
+
+    @Override
+    public String toString() {
+        return path.toString();
+    }
+}
@@ -0,0 +1,406 @@
+package net.gcae.utils.extractor.analyzer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+
+/**
+ * Reads a source file once and decodes it with the encoding detected from its bytes.
+ *
+ * <p>A byte order mark selects UTF-8, UTF-16LE or UTF-16BE. Without one, the bytes
+ * are decoded as UTF-8 by a decoder that reports malformed input instead of
+ * throwing, so valid files are decoded in a single pass; a file that turns out not
+ * to be UTF-8 is decoded again as ISO-8859-1, which is what the former
+ * read-as-UTF-8-then-retry approach produced, without the second read or the
+ * exception. Decoders and the character buffer are kept per thread and reused for
+ * every file.
+ *
+ * <p>Files that only get an inventory row are not decoded at all: {@link #scan}
+ * detects the encoding and counts lines on the bytes. They are not read whole
+ * either, but streamed through a direct buffer kept per thread, so a large asset
+ * costs no more heap than a small one.
+ */
+final class SourceReader {
+
+    static final String UTF_8 = "UTF-8";
+    static final String UTF_8_BOM = "UTF-8 BOM";
+    static final String UTF_16LE = "UTF-16LE";
+    static final String UTF_16BE = "UTF-16BE";
+    static final String ISO_8859_1 = "ISO-8859-1";
+
+    // Files at least this large are memory-mapped instead of copied onto the heap. A
+    // mapping is only released when its buffer is collected, so it is kept for files
+    // too large to copy
+    static final long MAP_THRESHOLD = 64L * 1024 * 1024;
+
+    // Files that are only scanned are read this many bytes at a time
+    static final int SCAN_CHUNK = 64 * 1024;
+
+    // Character buffers larger than this are not kept for the next file
+    private static final int KEPT_BUFFER_CHARS = 1024 * 1024;
+
+    private static final ThreadLocal<SourceReader> READERS = ThreadLocal.withInitial(SourceReader::new);
+
+    private final CharsetDecoder utf8 = newDecoder(StandardCharsets.UTF_8);
+    private final CharsetDecoder strictUtf8 = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPORT)
+            .onUnmappableCharacter(CodingErrorAction.REPORT);
+    private final CharsetDecoder latin1 = newDecoder(StandardCharsets.ISO_8859_1);
+    private final CharsetDecoder utf16le = newDecoder(StandardCharsets.UTF_16LE);
+    private final CharsetDecoder utf16be = newDecoder(StandardCharsets.UTF_16BE);
+    private CharBuffer chars = CharBuffer.allocate(8192);
+    private ByteBuffer chunk;
+
+    private SourceReader() {}
+
+    /**
+     * Reads a file's bytes: very large files are mapped, others read into a heap buffer.
+     */
+    static ByteBuffer read(Path path, long size) throws IOException {
+        if (size < MAP_THRESHOLD) {
+            return ByteBuffer.wrap(Files.readAllBytes(path));
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long length = channel.size();
+            if (length > Integer.MAX_VALUE) {
+                throw new IOException("File too large to analyze: " + length + " bytes");
+            }
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+        }
+    }
+
+    /**
+     * Decodes file content on the calling thread's reader.
+     */
+    static Source decode(ByteBuffer bytes) {
+        return READERS.get().decodeBytes(bytes.duplicate());
+    }
+
+    /**
+     * Detects the encoding and counts lines without decoding. Lines are counted as
+     * {@link String#lines()} counts them on the decoded text: each of {@code \n},
+     * {@code \r} and {@code \r\n} ends a line, and trailing text without a line
+     * terminator is one more line. The terminators are single bytes in UTF-8 and
+     * ISO-8859-1 and never occur inside a multi-byte UTF-8 sequence, so the count
+     * matches the decoded text exactly.
+     */
+    static Scan scan(ByteBuffer bytes) {
+        LineScanner scanner = new LineScanner();
+        scanner.feed(bytes, bytes.position(), bytes.limit(), true);
+        return scanner.result(bytes.remaining());
+    }
+
+    /**
+     * Scans a file like {@link #scan(ByteBuffer)} without holding it in memory: the
+     * bytes pass through the calling thread's direct buffer a chunk at a time, and are
+     * also added to the digest unless it is null.
+     */
+    static Scan scan(Path path, MessageDigest digest) throws IOException {
+        return READERS.get().scanFile(path, digest);
+    }
+
+    private Scan scanFile(Path path, MessageDigest digest) throws IOException {
+        if (chunk == null) {
+            chunk = ByteBuffer.allocateDirect(SCAN_CHUNK);
+        }
+        ByteBuffer buffer = chunk;
+        buffer.clear();
+        LineScanner scanner = new LineScanner();
+        long length = 0;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            boolean last = false;
+            while (!last) {
+                // Fill the buffer behind the bytes held back from the previous chunk
+                int from = buffer.position();
+                while (buffer.hasRemaining()) {
+                    if (channel.read(buffer) < 0) {
+                        last = true;
+                        break;
+                    }
+                }
+                buffer.flip();
+                length += buffer.limit() - from;
+                if (digest != null) {
+                    ByteBuffer read = buffer.duplicate();
+                    read.position(from);
+                    digest.update(read);
+                }
+                buffer.position(scanner.feed(buffer, buffer.position(), buffer.limit(), last));
+                buffer.compact();
+            }
+        }
+        return scanner.result(length);
+    }
+
+    private static boolean hasPrefix(ByteBuffer bytes, int start, int end, int... prefix) {
+        if (end - start < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if ((bytes.get(start + i) & 0xFF) != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static char utf16At(ByteBuffer bytes, int i, boolean bigEndian) {
+        int first = bytes.get(i) & 0xFF;
+        int second = bytes.get(i + 1) & 0xFF;
+        return (char) (bigEndian ? first << 8 | second : second << 8 | first);
+    }
+
+    private Source decodeBytes(ByteBuffer bytes) {
+        String encoding;
+        CharsetDecoder decoder;
+        if (startsWith(bytes, 0xEF, 0xBB, 0xBF)) {
+            bytes.position(bytes.position() + 3);
+            encoding = UTF_8_BOM;
+            decoder = utf8;
+        } else if (startsWith(bytes, 0xFF, 0xFE)) {
+            bytes.position(bytes.position() + 2);
+            encoding = UTF_16LE;
+            decoder = utf16le;
+        } else if (startsWith(bytes, 0xFE, 0xFF)) {
+            bytes.position(bytes.position() + 2);
+            encoding = UTF_16BE;
+            decoder = utf16be;
+        } else {
+            int start = bytes.position();
+            if (decodeInto(strictUtf8, bytes).isUnderflow()) {
+                return new Source(takeText(), UTF_8);
+            }
+            // Not UTF-8: start over from the same bytes
+            bytes.position(start);
+            encoding = ISO_8859_1;
+            decoder = latin1;
+        }
+        decodeInto(decoder, bytes);
+        return new Source(takeText(), encoding);
+    }
+
+    /**
+     * Decodes the bytes into the character buffer, stopping at the first error the
+     * decoder reports.
+     */
+    private CoderResult decodeInto(CharsetDecoder decoder, ByteBuffer bytes) {
+        int capacity = (int) Math.min(Integer.MAX_VALUE, (long) bytes.remaining() * (long) Math.ceil(decoder.maxCharsPerByte()));
+        if (chars.capacity() < capacity) {
+            chars = CharBuffer.allocate(capacity);
+        }
+        chars.clear();
+        decoder.reset();
+        CoderResult result = decoder.decode(bytes, chars, true);
+        if (result.isUnderflow()) {
+            result = decoder.flush(chars);
+        }
+        return result;
+    }
+
+    private String takeText() {
+        chars.flip();
+        String text = chars.toString();
+        if (chars.capacity() > KEPT_BUFFER_CHARS) {
+            chars = CharBuffer.allocate(8192); // don't keep a large buffer alive between files
+        }
+        return text;
+    }
+
+    private static boolean startsWith(ByteBuffer bytes, int... prefix) {
+        if (bytes.remaining() < prefix.length) {
+            return false;
+        }
+        int position = bytes.position();
+        for (int i = 0; i < prefix.length; i++) {
+            if ((bytes.get(position + i) & 0xFF) != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the length of the well-formed multi-byte sequence starting at {@code i},
+     * or -1 if it is malformed or truncated. Sequences are well-formed as the JDK
+     * decoder defines it: no overlong forms, no surrogates and nothing above U+10FFFF.
+     */
+    private static int sequenceLength(ByteBuffer bytes, int i, int end) {
+        int b = bytes.get(i) & 0xFF;
+        int continuation;
+        if (b >= 0xC2 && b <= 0xDF) {
+            continuation = 1;
+        } else if (b >= 0xE0 && b <= 0xEF) {
+            continuation = 2;
+        } else if (b >= 0xF0 && b <= 0xF4) {
+            continuation = 3;
+        } else {
+            return -1;
+        }
+        if (i + continuation >= end) {
+            return -1;
+        }
+        int second = bytes.get(i + 1) & 0xFF;
+        if ((b == 0xE0 && second < 0xA0) || (b == 0xED && second > 0x9F)
+                || (b == 0xF0 && second < 0x90) || (b == 0xF4 && second > 0x8F)) {
+            return -1;
+        }
+        for (int k = 1; k <= continuation; k++) {
+            if ((bytes.get(i + k) & 0xC0) != 0x80) {
+                return -1;
+            }
+        }
+        return continuation + 1;
+    }
+
+    private static CharsetDecoder newDecoder(Charset charset) {
+        return charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    }
+
+    /**
+     * Line count and encoding of a file that was scanned but not decoded.
+     */
+    static final class Scan {
+        final int lines;
+        final String encoding;
+        final long bytes;
+
+        Scan(int lines, String encoding, long bytes) {
+            this.lines = lines;
+            this.encoding = encoding;
+            this.bytes = bytes;
+        }
+    }
+
+    /**
+     * Counts lines and validates UTF-8 over bytes that may arrive in several chunks.
+     * {@link #feed} stops short of a line break, multi-byte sequence or UTF-16 unit
+     * cut by the end of a chunk that is not the last one, and returns where it
+     * stopped, so the caller hands those bytes in again at the start of the next one.
+     */
+    private static final class LineScanner {
+        private static final int UNKNOWN = 0;
+        private static final int UTF8 = 1;
+        private static final int UTF8_BOM = 2;
+        private static final int UTF16LE = 3;
+        private static final int UTF16BE = 4;
+
+        private int mode = UNKNOWN;
+        private int lines;
+        private boolean open;
+        // Cleared at the first invalid sequence, after which bytes are only counted
+        private boolean valid = true;
+
+        int feed(ByteBuffer bytes, int start, int end, boolean last) {
+            int i = start;
+            if (mode == UNKNOWN) {
+                if (end - start < 3 && !last) {
+                    return start;
+                }
+                if (hasPrefix(bytes, start, end, 0xEF, 0xBB, 0xBF)) {
+                    mode = UTF8_BOM;
+                    i += 3;
+                } else if (hasPrefix(bytes, start, end, 0xFF, 0xFE)) {
+                    mode = UTF16LE;
+                    i += 2;
+                } else if (hasPrefix(bytes, start, end, 0xFE, 0xFF)) {
+                    mode = UTF16BE;
+                    i += 2;
+                } else {
+                    mode = UTF8;
+                }
+            }
+            if (mode == UTF16LE || mode == UTF16BE) {
+                return feedUtf16(bytes, i, end, last, mode == UTF16BE);
+            }
+            while (i < end) {
+                int b = bytes.get(i);
+                if (b == '\n' || b == '\r') {
+                    if (b == '\r' && i + 1 == end && !last) {
+                        break; // a \n may follow in the next chunk
+                    }
+                    lines++;
+                    open = false;
+                    i += b == '\r' && i + 1 < end && bytes.get(i + 1) == '\n' ? 2 : 1;
+                    continue;
+                }
+                open = true;
+                if (b >= 0 || !valid || mode == UTF8_BOM) {
+                    i++;
+                    continue;
+                }
+                int length = sequenceLength(bytes, i, end);
+                if (length < 0 && !last && i + 4 > end) {
+                    break; // possibly cut by the end of the chunk
+                }
+                if (length < 0) {
+                    valid = false;
+                    i++;
+                } else {
+                    i += length;
+                }
+            }
+            return i;
+        }
+
+        private int feedUtf16(ByteBuffer bytes, int i, int end, boolean last, boolean bigEndian) {
+            while (i + 1 < end) {
+                char c = utf16At(bytes, i, bigEndian);
+                if (c == '\r' && i + 3 >= end && !last) {
+                    break; // a \n may follow in the next chunk
+                }
+                i += 2;
+                if (c == '\n' || c == '\r') {
+                    lines++;
+                    open = false;
+                    if (c == '\r' && i + 1 < end && utf16At(bytes, i, bigEndian) == '\n') {
+                        i += 2;
+                    }
+                } else {
+                    open = true;
+                }
+            }
+            // A trailing odd byte decodes to a replacement character
+            if (last && i < end) {
+                open = true;
+                i = end;
+            }
+            return i;
+        }
+
+        Scan result(long length) {
+            String encoding;
+            switch (mode) {
+                case UTF8_BOM: encoding = UTF_8_BOM; break;
+                case UTF16LE: encoding = UTF_16LE; break;
+                case UTF16BE: encoding = UTF_16BE; break;
+                default: encoding = valid ? UTF_8 : ISO_8859_1; break;
+            }
+            return new Scan(open ? lines + 1 : lines, encoding, length);
+        }
+    }
+
+    /**
+     * Decoded file content and the encoding it was read with.
+     */
+    static final class Source {
+        final String text;
+        final String encoding;
+
+        Source(String text, String encoding) {
+            this.text = text;
+            this.encoding = encoding;
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package net.gcae.utils.extractor.analyzer;
+
+/**
+ * Finds SQL statements in the string literals of a token stream in a single
+ * forward pass, replacing the regular expression that backtracked on long
+ * literals.
+ *
+ * <p>Literals joined with the {@code .} operator are scanned as one string, with
+ * simple operands ({@code $id}, {@code $this->table}, {@code self::PREFIX})
+ * carried over as their source text, so a statement assembled from several
+ * pieces is reported once and in full. A statement starts where a literal chain
+ * or a previous statement begins, optionally after whitespace and opening
+ * parentheses, with one of the SQL keywords followed by whitespace; in literals
+ * that interpret escapes, {@code \n}, {@code \t} and the like count as
+ * whitespace. It ends at a {@code ;} outside SQL quotes and interpolation
+ * braces, or at the end of the chain. Each character and each token is
+ * visited a bounded number of times, so the cost is linear in the size of the
+ * file whatever its content.
+ */
+final class SqlScanner {
+
+    private static final String[] KEYWORDS = {"SELECT", "INSERT", "UPDATE", "DELETE", "CREATE", "DROP", "ALTER"};
+
+    /**
+     * Receives each statement found, with the offset of its first keyword in the file content.
+     */
+    interface Listener {
+        void statement(String sql, int offset);
+    }
+
+    private final TokenStream tokens;
+    private final String content;
+    private final Listener listener;
+
+    // Scanner state, carried across the pieces of one chain
+    private final StringBuilder statement = new StringBuilder();
+    private boolean inStatement;
+    private boolean atStatementStart;
+    private int statementOffset;
+    private char sqlQuote;
+
+    private SqlScanner(TokenStream tokens, Listener listener) {
+        this.tokens = tokens;
+        this.content = tokens.getContent();
+        this.listener = listener;
+    }
+
+    static void scan(TokenStream tokens, Listener listener) {
+        new SqlScanner(tokens, listener).scanTokens();
+    }
+
+    private void scanTokens() {
+        int size = tokens.size();
+        int i = 0;
+        while (i < size) {
+            if (!tokens.isStringLiteral(i)) {
+                i++;
+                continue;
+            }
+            startChain();
+            scanLiteral(i);
+            int last = i;
+            // Follow "literal . operand . literal ..." as long as the operands are simple
+            while (tokens.isPunct(last + 1, '.')) {
+                int operand = last + 2;
+                if (tokens.isStringLiteral(operand)) {
+                    scanLiteral(operand);
+                    last = operand;
+                    continue;
+                }
+                int operandEnd = simpleOperandEnd(operand);
+                if (operandEnd < 0) {
+                    break;
+                }
+                scanOperand(tokens.start(operand), tokens.end(operandEnd));
+                last = operandEnd;
+            }
+            endChain();
+            i = last + 1;
+        }
+    }
+
+    /**
+     * Returns the last token of a variable, constant or member chain starting at {@code i}, or -1.
+     */
+    private int simpleOperandEnd(int i) {
+        int kind = tokens.kind(i);
+        if (kind != TokenStream.VARIABLE && kind != TokenStream.NUMBER && !tokens.isName(i)) {
+            return -1;
+        }
+        int end = i;
+        while (tokens.kind(end + 1) == TokenStream.PUNCT && tokens.isMemberAccess(end + 2)
+                && (tokens.isName(end + 2) || tokens.kind(end + 2) == TokenStream.VARIABLE)) {
+            end += 2;
+        }
+        // A call or an array access makes the operand too complex to inline
+        if (tokens.isPunct(end + 1, '(') || tokens.isPunct(end + 1, '[')) {
+            return -1;
+        }
+        return end;
+    }
+
+    private void startChain() {
+        statement.setLength(0);
+        inStatement = false;
+        atStatementStart = true;
+        sqlQuote = 0;
+    }
+
+    private void endChain() {
+        if (inStatement) {
+            emit();
+        }
+    }
+
+    private void scanLiteral(int token) {
+        int kind = tokens.kind(token);
+        boolean interpolates = kind == TokenStream.TEMPLATE || kind == TokenStream.HEREDOC;
+        int end = tokens.literalEnd(token);
+        int p = tokens.literalStart(token);
+        while (p < end) {
+            char c = content.charAt(p);
+            if (!inStatement) {
+                if (atStatementStart) {
+                    if (Character.isWhitespace(c) || c == '(') {
+                        p++;
+                    } else if (interpolates && c == '\\' && isWhitespaceEscape(p + 1, end)) {
+                        // "\n SELECT ..." starts with a line break once PHP has read the literal
+                        p += 2;
+                    } else if (matchesKeyword(p, end, interpolates)) {
+                        inStatement = true;
+                        statementOffset = p;
+                    } else {
+                        atStatementStart = false;
+                    }
+                } else {
+                    // Not SQL; the next statement can only start after a ';'
+                    while (p < end && content.charAt(p) != ';') {
+                        p++;
+                    }
+                    if (p < end) {
+                        atStatementStart = true;
+                        p++;
+                    }
+                }
+                continue;
+            }
+
+            if (interpolates && c == '{' && p + 1 < end && content.charAt(p + 1) == '$') {
+                // Copy "{$expr}" through its closing brace without looking for terminators inside it
+                int close = interpolationEnd(p, end);
+                statement.append(content, p, close);
+                p = close;
+                continue;
+            }
+            if (sqlQuote != 0) {
+                statement.append(c);
+                if (c == '\\' && p + 1 < end) {
+                    statement.append(content.charAt(++p));
+                } else if (c == sqlQuote) {
+                    sqlQuote = 0;
+                }
+            } else if (c == '\'' || c == '"' || c == '`') {
+                sqlQuote = c;
+                statement.append(c);
+            } else if (c == ';') {
+                emit();
+                atStatementStart = true;
+            } else {
+                statement.append(c);
+            }
+            p++;
+        }
+    }
+
+    private void scanOperand(int start, int end) {
+        if (inStatement) {
+            statement.append(content, start, end);
+        } else {
+            atStatementStart = false;
+        }
+    }
+
+    private boolean matchesKeyword(int p, int end, boolean escapes) {
+        for (String keyword : KEYWORDS) {
+            int after = p + keyword.length();
+            if (after < end && content.regionMatches(true, p, keyword, 0, keyword.length())
+                    && (Character.isWhitespace(content.charAt(after))
+                        || escapes && content.charAt(after) == '\\' && isWhitespaceEscape(after + 1, end))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isWhitespaceEscape(int p, int end) {
+        return p < end && "nrtvf".indexOf(content.charAt(p)) >= 0;
+    }
+
+    private int interpolationEnd(int open, int end) {
+        int depth = 0;
+        for (int p = open; p < end; p++) {
+            char c = content.charAt(p);
+            if (c == '{') {
+                depth++;
+            } else if (c == '}' && --depth == 0) {
+                return p + 1;
+            }
+        }
+        return end;
+    }
+
+    private void emit() {
+        int length = statement.length();
+        while (length > 0 && Character.isWhitespace(statement.charAt(length - 1))) {
+            length--;
+        }
+        listener.statement(statement.substring(0, length), statementOffset);
+        statement.setLength(0);
+        inStatement = false;
+        sqlQuote = 0;
+    }
+}
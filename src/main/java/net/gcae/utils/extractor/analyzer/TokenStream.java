@@ -0,0 +1,119 @@
+package net.gcae.utils.extractor.analyzer;
+
+/**
+ * Compact token stream produced by {@link PhpLexer}. Tokens are stored in parallel
+ * primitive arrays (kind, start offset, end offset) over the original file content,
+ * so no per-token objects or substrings are created unless an extractor asks for text.
+ */
+public final class TokenStream {
+
+    // Token kinds
+    public static final byte IDENT = 1;
+    public static final byte VARIABLE = 2;
+    public static final byte NUMBER = 3;
+    public static final byte STRING = 4;      // single-quoted literal
+    public static final byte TEMPLATE = 5;    // double-quoted or backtick literal, may interpolate
+    public static final byte HEREDOC = 6;     // body of a <<<LABEL block, may interpolate
+    public static final byte NOWDOC = 7;      // body of a <<<'LABEL' block
+    public static final byte PUNCT = 8;
+    public static final byte CLOSE_TAG = 9;
+
+    // Identifiers the extractors dispatch on, classified once by the lexer
+    public static final byte KW_FUNCTION = 20;
+    public static final byte KW_CLASS = 21;
+    public static final byte KW_INTERFACE = 22;
+    public static final byte KW_TRAIT = 23;
+    public static final byte KW_EXTENDS = 24;
+    public static final byte KW_IMPLEMENTS = 25;
+    public static final byte KW_USE = 26;
+    public static final byte KW_AS = 27;
+    public static final byte KW_NEW = 28;
+    public static final byte KW_REQUIRE = 29;
+    public static final byte KW_INCLUDE = 30;
+    public static final byte KW_CURL_INIT = 31;
+    public static final byte KW_CURL_SETOPT = 32;
+    public static final byte KW_CURL_EXEC = 33;
+
+    private final String content;
+    private final byte[] kinds;
+    private final int[] starts;
+    private final int[] ends;
+    private final int size;
+
+    TokenStream(String content, byte[] kinds, int[] starts, int[] ends, int size) {
+        this.content = content;
+        this.kinds = kinds;
+        this.starts = starts;
+        this.ends = ends;
+        this.size = size;
+    }
+
+    public String getContent() { return content; }
+
+    public int size() { return size; }
+
+    public int kind(int i) { return i >= 0 && i < size ? kinds[i] : 0; }
+
+    public int start(int i) { return starts[i]; }
+
+    public int end(int i) { return ends[i]; }
+
+    public String text(int i) {
+        return content.substring(starts[i], ends[i]);
+    }
+
+    /**
+     * Returns the source text between the end of token {@code from} and the start of token {@code to}.
+     */
+    public String textBetween(int from, int to) {
+        return content.substring(ends[from], starts[to]);
+    }
+
+    /**
+     * True for plain identifiers and for identifiers that were classified as keywords.
+     */
+    public boolean isName(int i) {
+        int kind = kind(i);
+        return kind == IDENT || kind >= KW_FUNCTION;
+    }
+
+    public boolean isPunct(int i, char c) {
+        return kind(i) == PUNCT && ends[i] - starts[i] == 1 && content.charAt(starts[i]) == c;
+    }
+
+    public boolean isStringLiteral(int i) {
+        int kind = kind(i);
+        return kind == STRING || kind == TEMPLATE || kind == HEREDOC || kind == NOWDOC;
+    }
+
+    /**
+     * Start of the literal's contents, excluding quotes.
+     */
+    public int literalStart(int i) {
+        return kinds[i] == STRING || kinds[i] == TEMPLATE ? starts[i] + 1 : starts[i];
+    }
+
+    /**
+     * End of the literal's contents, excluding quotes.
+     */
+    public int literalEnd(int i) {
+        return kinds[i] == STRING || kinds[i] == TEMPLATE ? Math.max(starts[i] + 1, ends[i] - 1) : ends[i];
+    }
+
+    public String literalText(int i) {
+        return content.substring(literalStart(i), literalEnd(i));
+    }
+
+    /**
+     * True when the token is used as a member or static member name ({@code $x->class}, {@code Foo::class}),
+     * in which case it is not a declaration keyword.
+     */
+    public boolean isMemberAccess(int i) {
+        if (i == 0 || kinds[i - 1] != PUNCT) {
+            return false;
+        }
+        int length = ends[i - 1] - starts[i - 1];
+        return (length == 2 || length == 3) && (content.startsWith("->", ends[i - 1] - 2)
+                || content.startsWith("::", starts[i - 1]));
+    }
+}
@@ -0,0 +1,298 @@
+package net.gcae.utils.extractor.cache;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.gcae.utils.extractor.model.FileAnalysis;
+import net.gcae.utils.extractor.model.PathTable;
+
+/**
+ * On-disk cache of the records extracted from each file, so unchanged files are
+ * not read or parsed again on the next run.
+ *
+ * <p>Each file gets one entry, stored under a name derived from a hash of its path
+ * and spread over 256 subdirectories. An entry records the file's size, modification
+ * time and a SHA-256 of its content. A file whose size and modification time match
+ * is reused without being read; if only the modification time changed, the content
+ * hash decides. The cache directory carries a version stamp combining the entry
+ * format and the extractor version; on a mismatch all entries are discarded.
+ *
+ * <p>Entries are written atomically, so concurrent workers and interrupted runs
+ * never leave a partial entry behind. Entries for files not seen during a complete
+ * run are removed by {@link #prune()}.
+ */
+public class AnalysisCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(AnalysisCache.class);
+
+    // Version of the entry layout written by RecordCodec
+    public static final int FORMAT_VERSION = 3;
+
+    private static final String VERSION_FILE = "cache.version";
+    private static final String ENTRIES_DIR = "entries";
+    private static final String ENTRY_SUFFIX = ".bin";
+    private static final int ENTRY_MAGIC = 0x50484543; // "PHEC"
+
+    // Files modified this close to the time their entry was written may have changed
+    // again within the same timestamp tick, so their content is always compared
+    private static final long RACY_WINDOW_MILLIS = 2000;
+
+    private final Path entriesDir;
+    private final Set<String> visited = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger reused = new AtomicInteger();
+    private final AtomicInteger stored = new AtomicInteger();
+
+    private AnalysisCache(Path entriesDir) {
+        this.entriesDir = entriesDir;
+    }
+
+    /**
+     * Opens the cache in the given directory, creating it if needed. Existing entries
+     * written by another format or extractor version are deleted.
+     */
+    public static AnalysisCache open(Path directory, int extractorVersion) throws IOException {
+        Files.createDirectories(directory);
+        Path versionFile = directory.resolve(VERSION_FILE);
+        Path entriesDir = directory.resolve(ENTRIES_DIR);
+        String version = "format=" + FORMAT_VERSION + " extractor=" + extractorVersion;
+
+        String existing = Files.exists(versionFile)
+                ? new String(Files.readAllBytes(versionFile), StandardCharsets.UTF_8).trim()
+                : null;
+        if (!version.equals(existing)) {
+            if (Files.exists(entriesDir)) {
+                logger.info("Analysis cache version changed ({} -> {}), discarding cached entries", existing, version);
+                FileUtils.deleteDirectory(entriesDir.toFile());
+            }
+            Files.createDirectories(entriesDir);
+            Files.write(versionFile, version.getBytes(StandardCharsets.UTF_8));
+        } else {
+            Files.createDirectories(entriesDir);
+        }
+        logger.info("Using analysis cache: {}", directory.toAbsolutePath());
+        return new AnalysisCache(entriesDir);
+    }
+
+    /**
+     * Starts counting and collecting the entries of a new run, for a cache kept open
+     * across runs; entries seen by earlier runs are no longer protected from pruning.
+     */
+    public void startRun() {
+        visited.clear();
+        reused.set(0);
+        stored.set(0);
+    }
+
+    /**
+     * Reads the entry for a file, or returns null when there is none or it cannot be read.
+     * The path of the cached records is interned in the given table.
+     */
+    public Entry lookup(Path file, PathTable paths) {
+        Path entryFile = entryFile(file);
+        if (!Files.isRegularFile(entryFile)) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(entryFile)))) {
+            if (in.readInt() != ENTRY_MAGIC) {
+                throw new IOException("bad header");
+            }
+            String path = RecordCodec.readString(in);
+            if (!file.toString().equals(path)) {
+                return null; // a different path with the same hash
+            }
+            long size = in.readLong();
+            long lastModified = in.readLong();
+            long writtenAt = in.readLong();
+            byte[] contentHash = new byte[in.readUnsignedByte()];
+            in.readFully(contentHash);
+            FileAnalysis analysis = RecordCodec.read(in, paths);
+            return new Entry(entryFile, size, lastModified, writtenAt, contentHash, analysis);
+        } catch (IOException e) {
+            logger.debug("Ignoring unreadable cache entry {}: {}", entryFile, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Marks a cached entry as still valid for this run. If the file's modification time
+     * changed without its content changing, the entry is rewritten with the new time.
+     */
+    public FileAnalysis reuse(Entry entry, Path file, long size, long lastModified) {
+        if (entry.lastModified != lastModified) {
+            write(file, size, lastModified, entry.contentHash, entry.analysis);
+        } else {
+            visited.add(entriesDir.relativize(entry.entryFile).toString());
+        }
+        reused.incrementAndGet();
+        return entry.analysis;
+    }
+
+    /**
+     * Stores the records extracted from a file.
+     */
+    public void store(Path file, long size, long lastModified, byte[] contentHash, FileAnalysis analysis) {
+        write(file, size, lastModified, contentHash, analysis);
+        stored.incrementAndGet();
+    }
+
+    private void write(Path file, long size, long lastModified, byte[] contentHash, FileAnalysis analysis) {
+        Path entryFile = entryFile(file);
+        visited.add(entriesDir.relativize(entryFile).toString());
+        Path temp = null;
+        try {
+            Files.createDirectories(entryFile.getParent());
+            temp = Files.createTempFile(entryFile.getParent(), "entry", ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(ENTRY_MAGIC);
+                RecordCodec.writeString(out, file.toString());
+                out.writeLong(size);
+                out.writeLong(lastModified);
+                out.writeLong(System.currentTimeMillis());
+                out.writeByte(contentHash.length);
+                out.write(contentHash);
+                RecordCodec.write(out, analysis);
+            }
+            try {
+                Files.move(temp, entryFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, entryFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            logger.warn("Could not write cache entry for {}: {}", file, e.getMessage());
+            if (temp != null) {
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException ignored) {
+                    // Left for the next prune
+                }
+            }
+        }
+    }
+
+    /**
+     * Deletes the entries of files that were neither reused nor stored during this run.
+     * Call only after a complete walk of the project.
+     *
+     * @return the number of entries removed
+     */
+    public int prune() throws IOException {
+        int removed = 0;
+        try (DirectoryStream<Path> shards = Files.newDirectoryStream(entriesDir)) {
+            for (Path shard : shards) {
+                if (!Files.isDirectory(shard)) {
+                    continue;
+                }
+                try (DirectoryStream<Path> entries = Files.newDirectoryStream(shard)) {
+                    for (Path entry : entries) {
+                        if (!visited.contains(entriesDir.relativize(entry).toString())) {
+                            Files.deleteIfExists(entry);
+                            removed++;
+                        }
+                    }
+                }
+            }
+        }
+        return removed;
+    }
+
+    public int getReusedCount() { return reused.get(); }
+
+    public int getStoredCount() { return stored.get(); }
+
+    private Path entryFile(Path file) {
+        String hash = toHex(digest(file.toString().getBytes(StandardCharsets.UTF_8)));
+        return entriesDir.resolve(hash.substring(0, 2)).resolve(hash.substring(2) + ENTRY_SUFFIX);
+    }
+
+    /**
+     * Hashes a file's content for comparison with a cached entry.
+     */
+    public static byte[] contentHash(ByteBuffer content) {
+        MessageDigest digest = newDigest();
+        digest.update(content.duplicate());
+        return digest.digest();
+    }
+
+    /**
+     * Returns a digest that computes the same hash as {@link #contentHash} over content
+     * given a part at a time.
+     */
+    public static MessageDigest contentDigest() {
+        return newDigest();
+    }
+
+    private static byte[] digest(byte[] bytes) {
+        return newDigest().digest(bytes);
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        char[] digits = "0123456789abcdef".toCharArray();
+        char[] hex = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            hex[i * 2] = digits[(bytes[i] >> 4) & 0xF];
+            hex[i * 2 + 1] = digits[bytes[i] & 0xF];
+        }
+        return new String(hex);
+    }
+
+    /**
+     * A cached entry as read from disk.
+     */
+    public static final class Entry {
+        private final Path entryFile;
+        private final long size;
+        private final long lastModified;
+        private final long writtenAt;
+        private final byte[] contentHash;
+        private final FileAnalysis analysis;
+
+        Entry(Path entryFile, long size, long lastModified, long writtenAt, byte[] contentHash, FileAnalysis analysis) {
+            this.entryFile = entryFile;
+            this.size = size;
+            this.lastModified = lastModified;
+            this.writtenAt = writtenAt;
+            this.contentHash = contentHash;
+            this.analysis = analysis;
+        }
+
+        /**
+         * Whether the file can be assumed unchanged from its size and modification time alone.
+         */
+        public boolean isUnchanged(long size, long lastModified) {
+            return this.size == size && this.lastModified == lastModified
+                    && lastModified < writtenAt - RACY_WINDOW_MILLIS;
+        }
+
+        public boolean hasContent(byte[] contentHash) {
+            return Arrays.equals(this.contentHash, contentHash);
+        }
+    }
+}
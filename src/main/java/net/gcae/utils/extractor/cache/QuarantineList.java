@@ -0,0 +1,129 @@
+package net.gcae.utils.extractor.cache;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Files whose analysis exceeded the per-file time budget. Later runs list them in
+ * the report without analyzing their code again, until the file changes or the
+ * run is forced.
+ *
+ * <p>The list is a text file with one line per file: size, modification time and
+ * reason, then the path, separated by tabs. It is read when opened and written
+ * back by {@link #save()} if anything changed.
+ */
+public class QuarantineList {
+
+    private static final Logger logger = LoggerFactory.getLogger(QuarantineList.class);
+
+    public static final String FILE_NAME = "quarantine.txt";
+
+    private static final String HEADER = "# Files skipped by PHPExtractor: size\tlastModified\treason\tpath";
+
+    private final Path listFile;
+    private final Map<String, Entry> entries = new TreeMap<>();
+    private boolean changed;
+
+    private QuarantineList(Path listFile) {
+        this.listFile = listFile;
+    }
+
+    /**
+     * Loads the list kept in the given directory; a missing list is empty.
+     */
+    public static QuarantineList open(Path directory) throws IOException {
+        QuarantineList list = new QuarantineList(directory.resolve(FILE_NAME));
+        if (Files.isRegularFile(list.listFile)) {
+            for (String line : Files.readAllLines(list.listFile, StandardCharsets.UTF_8)) {
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] fields = line.split("\t", 4);
+                try {
+                    list.entries.put(fields[3], new Entry(Long.parseLong(fields[0]), Long.parseLong(fields[1]), fields[2]));
+                } catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
+                    logger.warn("Ignoring malformed line in {}: {}", list.listFile, line);
+                }
+            }
+            if (!list.entries.isEmpty()) {
+                logger.info("{} quarantined files listed in {}", list.entries.size(), list.listFile);
+            }
+        }
+        return list;
+    }
+
+    /**
+     * True when the file is quarantined and has not changed since.
+     */
+    public synchronized boolean contains(Path file, long size, long lastModified) {
+        Entry entry = entries.get(file.toString());
+        return entry != null && entry.size == size && entry.lastModified == lastModified;
+    }
+
+    public synchronized void add(Path file, long size, long lastModified, String reason) {
+        entries.put(file.toString(), new Entry(size, lastModified, reason.replace('\t', ' ').replace('\n', ' ')));
+        changed = true;
+    }
+
+    /**
+     * Releases a file that has now been analyzed within its budget.
+     */
+    public synchronized void remove(Path file) {
+        if (entries.remove(file.toString()) != null) {
+            changed = true;
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Writes the list back atomically if files were added or removed.
+     */
+    public synchronized void save() throws IOException {
+        if (!changed) {
+            return;
+        }
+        Files.createDirectories(listFile.toAbsolutePath().getParent());
+        Path temp = Files.createTempFile(listFile.toAbsolutePath().getParent(), FILE_NAME, ".tmp");
+        try (BufferedWriter out = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            out.write(HEADER);
+            out.newLine();
+            for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+                Entry value = entry.getValue();
+                out.write(value.size + "\t" + value.lastModified + "\t" + value.reason + "\t" + entry.getKey());
+                out.newLine();
+            }
+        }
+        try {
+            Files.move(temp, listFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, listFile, StandardCopyOption.REPLACE_EXISTING);
+        }
+        changed = false;
+        logger.info("Quarantine list updated: {} files in {}", entries.size(), listFile);
+    }
+
+    private static final class Entry {
+        final long size;
+        final long lastModified;
+        final String reason;
+
+        Entry(long size, long lastModified, String reason) {
+            this.size = size;
+            this.lastModified = lastModified;
+            this.reason = reason;
+        }
+    }
+}
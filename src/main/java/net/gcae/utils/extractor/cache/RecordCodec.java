@@ -0,0 +1,232 @@
+package net.gcae.utils.extractor.cache;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import net.gcae.utils.extractor.model.ClassDefinition;
+import net.gcae.utils.extractor.model.Complexity;
+import net.gcae.utils.extractor.model.CurlCall;
+import net.gcae.utils.extractor.model.CurlCallType;
+import net.gcae.utils.extractor.model.FileAnalysis;
+import net.gcae.utils.extractor.model.FileInventory;
+import net.gcae.utils.extractor.model.FileReference;
+import net.gcae.utils.extractor.model.FileType;
+import net.gcae.utils.extractor.model.FunctionDefinition;
+import net.gcae.utils.extractor.model.InheritanceInfo;
+import net.gcae.utils.extractor.model.InheritanceType;
+import net.gcae.utils.extractor.model.InterfaceDefinition;
+import net.gcae.utils.extractor.model.InterfaceImplementation;
+import net.gcae.utils.extractor.model.PathTable;
+import net.gcae.utils.extractor.model.ReferenceType;
+import net.gcae.utils.extractor.model.SQLQuery;
+
+/**
+ * Binary encoding of the records extracted from one file. Fields are written in
+ * constructor order; any change to the layout requires a new
+ * {@link AnalysisCache#FORMAT_VERSION}.
+ *
+ * <p>The file's path is written once with its inventory; every record of the
+ * entry belongs to that file and stores only its line. Enumerated fields are
+ * written as their ordinal.
+ */
+final class RecordCodec {
+
+    // Larger lengths can only come from a damaged entry
+    private static final int MAX_STRING_BYTES = 64 * 1024 * 1024;
+
+    private static final Complexity[] COMPLEXITIES = Complexity.values();
+    private static final FileType[] FILE_TYPES = FileType.values();
+    private static final CurlCallType[] CALL_TYPES = CurlCallType.values();
+    private static final ReferenceType[] REFERENCE_TYPES = ReferenceType.values();
+    private static final InheritanceType[] INHERITANCE_TYPES = InheritanceType.values();
+
+    private RecordCodec() {}
+
+    static void write(DataOutput out, FileAnalysis analysis) throws IOException {
+        FileInventory file = analysis.getFile();
+        writeString(out, file.getFileName());
+        writeString(out, analysis.getFilePath());
+        writeEnum(out, file.getFileType());
+        out.writeLong(file.getFileSize());
+        out.writeInt(file.getLineCount());
+        writeString(out, file.getEncoding());
+
+        out.writeInt(analysis.getSqlQueries().size());
+        for (SQLQuery query : analysis.getSqlQueries()) {
+            writeString(out, query.getQueryName());
+            writeString(out, query.getDbTable());
+            out.writeInt(query.getLine());
+            writeString(out, query.getDataSource());
+            writeString(out, query.getSqlQuery());
+            writeEnum(out, query.getComplexity());
+        }
+        writeReferences(out, analysis.getRequires());
+        writeReferences(out, analysis.getIncludes());
+        out.writeInt(analysis.getCurlCalls().size());
+        for (CurlCall call : analysis.getCurlCalls()) {
+            writeEnum(out, call.getCallType());
+            out.writeInt(call.getLine());
+            writeString(out, call.getTarget());
+        }
+        out.writeInt(analysis.getFunctions().size());
+        for (FunctionDefinition function : analysis.getFunctions()) {
+            writeString(out, function.getFunctionName());
+            out.writeInt(function.getLine());
+            out.writeInt(function.getLineCount());
+            writeEnum(out, function.getComplexity());
+            writeString(out, function.getParameters());
+        }
+        out.writeInt(analysis.getClasses().size());
+        for (ClassDefinition clazz : analysis.getClasses()) {
+            writeString(out, clazz.getClassName());
+            out.writeInt(clazz.getLine());
+            out.writeInt(clazz.getMethodCount());
+            writeString(out, clazz.getParentClass());
+            writeString(out, clazz.getInterfaces());
+        }
+        writeInheritances(out, analysis.getTraits());
+        writeInheritances(out, analysis.getClassInheritances());
+        out.writeInt(analysis.getImplementations().size());
+        for (InterfaceImplementation implementation : analysis.getImplementations()) {
+            writeString(out, implementation.getClassName());
+            writeString(out, implementation.getInterfaceName());
+            out.writeInt(implementation.getLine());
+        }
+        out.writeInt(analysis.getInterfaces().size());
+        for (InterfaceDefinition interfaceDefinition : analysis.getInterfaces()) {
+            writeString(out, interfaceDefinition.getInterfaceName());
+            out.writeInt(interfaceDefinition.getLine());
+            out.writeInt(interfaceDefinition.getMethodCount());
+            writeString(out, interfaceDefinition.getExtendsInterface());
+        }
+    }
+
+    static FileAnalysis read(DataInput in, PathTable paths) throws IOException {
+        FileAnalysis analysis = new FileAnalysis(paths);
+        String fileName = readString(in);
+        String path = readString(in);
+        if (path == null) {
+            throw new IOException("Corrupt cache entry: missing path");
+        }
+        int fileId = paths.intern(path);
+        analysis.setFile(new FileInventory(fileName, fileId, readEnum(in, FILE_TYPES), in.readLong(), in.readInt(),
+                readString(in)));
+
+        for (int i = readCount(in); i > 0; i--) {
+            analysis.getSqlQueries().add(new SQLQuery(readString(in), readString(in), fileId, in.readInt(),
+                    readString(in), readString(in), readEnum(in, COMPLEXITIES)));
+        }
+        readReferences(in, fileId, analysis.getRequires());
+        readReferences(in, fileId, analysis.getIncludes());
+        for (int i = readCount(in); i > 0; i--) {
+            analysis.getCurlCalls().add(new CurlCall(readEnum(in, CALL_TYPES), fileId, in.readInt(), readString(in)));
+        }
+        for (int i = readCount(in); i > 0; i--) {
+            analysis.getFunctions().add(new FunctionDefinition(readString(in), fileId, in.readInt(), in.readInt(),
+                    readEnum(in, COMPLEXITIES), readString(in)));
+        }
+        for (int i = readCount(in); i > 0; i--) {
+            analysis.getClasses().add(new ClassDefinition(readString(in), fileId, in.readInt(), in.readInt(),
+                    readString(in), readString(in)));
+        }
+        readInheritances(in, fileId, analysis.getTraits());
+        readInheritances(in, fileId, analysis.getClassInheritances());
+        for (int i = readCount(in); i > 0; i--) {
+            analysis.getImplementations().add(new InterfaceImplementation(readString(in), readString(in), fileId,
+                    in.readInt()));
+        }
+        for (int i = readCount(in); i > 0; i--) {
+            analysis.getInterfaces().add(new InterfaceDefinition(readString(in), fileId, in.readInt(), in.readInt(),
+                    readString(in)));
+        }
+        return analysis;
+    }
+
+    private static void writeReferences(DataOutput out, List<FileReference> references) throws IOException {
+        out.writeInt(references.size());
+        for (FileReference reference : references) {
+            writeString(out, reference.getReferencedFile());
+            out.writeInt(reference.getLine());
+            writeEnum(out, reference.getReferenceType());
+        }
+    }
+
+    private static void readReferences(DataInput in, int fileId, List<FileReference> references) throws IOException {
+        for (int i = readCount(in); i > 0; i--) {
+            references.add(new FileReference(readString(in), fileId, in.readInt(), readEnum(in, REFERENCE_TYPES)));
+        }
+    }
+
+    private static void writeInheritances(DataOutput out, List<InheritanceInfo> inheritances) throws IOException {
+        out.writeInt(inheritances.size());
+        for (InheritanceInfo inheritance : inheritances) {
+            writeString(out, inheritance.getChildName());
+            writeString(out, inheritance.getParentName());
+            out.writeInt(inheritance.getLine());
+            writeEnum(out, inheritance.getInheritanceType());
+        }
+    }
+
+    private static void readInheritances(DataInput in, int fileId, List<InheritanceInfo> inheritances) throws IOException {
+        for (int i = readCount(in); i > 0; i--) {
+            inheritances.add(new InheritanceInfo(readString(in), readString(in), fileId, in.readInt(),
+                    readEnum(in, INHERITANCE_TYPES)));
+        }
+    }
+
+    /**
+     * Writes an enum constant as its ordinal, or -1 for null.
+     */
+    private static void writeEnum(DataOutput out, Enum<?> value) throws IOException {
+        out.writeByte(value == null ? -1 : value.ordinal());
+    }
+
+    private static <E extends Enum<E>> E readEnum(DataInput in, E[] values) throws IOException {
+        int ordinal = in.readByte();
+        if (ordinal < 0) {
+            return null;
+        }
+        if (ordinal >= values.length) {
+            throw new IOException("Corrupt cache entry: constant " + ordinal + " out of range");
+        }
+        return values[ordinal];
+    }
+
+    /**
+     * Writes a length-prefixed UTF-8 string; unlike writeUTF this has no 64 KB limit
+     * and preserves null.
+     */
+    static void writeString(DataOutput out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    static String readString(DataInput in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        if (length > MAX_STRING_BYTES) {
+            throw new IOException("Corrupt cache entry: string of " + length + " bytes");
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int readCount(DataInput in) throws IOException {
+        int count = in.readInt();
+        if (count < 0) {
+            throw new IOException("Corrupt cache entry: negative record count");
+        }
+        return count;
+    }
+}
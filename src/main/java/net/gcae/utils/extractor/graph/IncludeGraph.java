@@ -0,0 +1,435 @@
+package net.gcae.utils.extractor.graph;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+/**
+ * The resolved require and include statements of a project, as a graph whose nodes
+ * are the project's files numbered in walk order. Edges are kept in compressed
+ * sparse rows: the files a node includes are {@code outEdges[outOffsets[node]]} to
+ * {@code outEdges[outOffsets[node + 1] - 1]}, and the files including it likewise
+ * in {@code inEdges}.
+ *
+ * <p>Tarjan's algorithm groups the nodes into strongly connected components when the
+ * graph is built; a component of several files is an include cycle. Every file of a
+ * component reaches the same files, so transitive sets are searched for on the graph
+ * of components, where a cycle of a thousand files is a single node, and only then
+ * expanded to files. They are not stored, as that would take a bit per pair of files:
+ * they are computed as bitsets, a batch at a time on several threads, and handed out in
+ * order by {@link #forEachClosure}. Their sizes are computed once, up front.
+ */
+public final class IncludeGraph {
+
+    // Searches run per thread before a batch is handed out
+    private static final int BATCH_PER_THREAD = 32;
+
+    private final String[] paths;
+    private final boolean[] scripts;
+    private final int[] unresolved;
+    private final int[] outOffsets;
+    private final int[] outEdges;
+    private final int[] inOffsets;
+    private final int[] inEdges;
+    private final int threads;
+
+    // Component of each node, its members, and the edges between components in both directions
+    private final int[] componentOf;
+    private int[] memberOffsets;
+    private int[] members;
+    private int[] componentOutOffsets;
+    private int[] componentOutEdges;
+    private int[] componentInOffsets;
+    private int[] componentInEdges;
+
+    // Number of the cycle each node belongs to, from 1, or 0
+    private final int[] cycleOf;
+    private final List<int[]> cycles = new ArrayList<>();
+    private final int[] transitiveIncludes;
+    private final int[] transitiveDependents;
+
+    /**
+     * @param edges pairs of including and included node, without duplicates
+     * @param scripts true for the nodes that are PHP files and so may be entry points
+     * @param threads threads computing the transitive sets; values below 1 use all processors
+     */
+    IncludeGraph(String[] paths, boolean[] scripts, int[] unresolved, int[] edges, int edgeCount, int threads)
+            throws IOException {
+        this.paths = paths;
+        this.scripts = scripts;
+        this.unresolved = unresolved;
+        this.threads = threads < 1 ? Runtime.getRuntime().availableProcessors() : threads;
+        int nodes = paths.length;
+        outOffsets = new int[nodes + 1];
+        outEdges = new int[edgeCount];
+        inOffsets = new int[nodes + 1];
+        inEdges = new int[edgeCount];
+        buildRows(edges, edgeCount, nodes, outOffsets, outEdges, false);
+        buildRows(edges, edgeCount, nodes, inOffsets, inEdges, true);
+
+        componentOf = new int[nodes];
+        cycleOf = new int[nodes];
+        findComponents();
+
+        transitiveIncludes = new int[nodes];
+        transitiveDependents = new int[nodes];
+        int components = memberOffsets.length - 1;
+        computeInBatches(components, component -> componentClosure(component, false),
+                (component, reached) -> setSizes(component, reached, transitiveIncludes));
+        computeInBatches(components, component -> componentClosure(component, true),
+                (component, reached) -> setSizes(component, reached, transitiveDependents));
+    }
+
+    /**
+     * Receives the transitive set of one node.
+     */
+    public interface ClosureConsumer {
+        void accept(int node, BitSet closure) throws IOException;
+    }
+
+    public int getNodeCount() { return paths.length; }
+
+    public int getEdgeCount() { return outEdges.length; }
+
+    public String getPath(int node) { return paths[node]; }
+
+    /**
+     * Returns the number of files the node includes directly.
+     */
+    public int getFanOut(int node) { return outOffsets[node + 1] - outOffsets[node]; }
+
+    /**
+     * Returns the number of files including the node directly.
+     */
+    public int getFanIn(int node) { return inOffsets[node + 1] - inOffsets[node]; }
+
+    public int getTransitiveIncludes(int node) { return transitiveIncludes[node]; }
+
+    public int getTransitiveDependents(int node) { return transitiveDependents[node]; }
+
+    /**
+     * Returns the number of the node's require and include targets that name none of the project's files.
+     */
+    public int getUnresolved(int node) { return unresolved[node]; }
+
+    /**
+     * Returns the number of the cycle the node belongs to, or 0.
+     */
+    public int getCycle(int node) { return cycleOf[node]; }
+
+    /**
+     * Returns the members of each cycle in node order; cycle n is at index n - 1.
+     */
+    public List<int[]> getCycles() { return cycles; }
+
+    /**
+     * Returns true for a node that takes part in the graph, including or included by another file
+     * or holding a statement that could not be resolved.
+     */
+    public boolean isConnected(int node) {
+        return getFanOut(node) > 0 || getFanIn(node) > 0 || unresolved[node] > 0;
+    }
+
+    /**
+     * Returns true for a PHP file that includes others but is included by none, such as a
+     * page or a command line script run on its own.
+     */
+    public boolean isEntryPoint(int node) {
+        return scripts[node] && getFanIn(node) == 0 && getFanOut(node) > 0;
+    }
+
+    public int[] getEntryPoints() {
+        int count = 0;
+        int[] entryPoints = new int[paths.length];
+        for (int node = 0; node < paths.length; node++) {
+            if (isEntryPoint(node)) {
+                entryPoints[count++] = node;
+            }
+        }
+        return Arrays.copyOf(entryPoints, count);
+    }
+
+    /**
+     * Computes the transitive set of each given node, the files it includes directly or
+     * not or, for dependents, the files including it, and hands them to the consumer in
+     * the order of the nodes, on the calling thread. The node itself is left out of its
+     * set, even when a cycle leads back to it.
+     */
+    public void forEachClosure(int[] nodes, boolean dependents, ClosureConsumer consumer) throws IOException {
+        computeInBatches(nodes.length, i -> {
+            int node = nodes[i];
+            BitSet reached = componentClosure(componentOf[node], dependents);
+            BitSet closure = new BitSet();
+            for (int component = reached.nextSetBit(0); component >= 0; component = reached.nextSetBit(component + 1)) {
+                for (int m = memberOffsets[component]; m < memberOffsets[component + 1]; m++) {
+                    closure.set(members[m]);
+                }
+            }
+            closure.clear(node);
+            return closure;
+        }, (i, closure) -> consumer.accept(nodes[i], closure));
+    }
+
+    /**
+     * Returns the components reachable from the component, itself included only when it is a cycle.
+     */
+    private BitSet componentClosure(int start, boolean dependents) {
+        int[] offsets = dependents ? componentInOffsets : componentOutOffsets;
+        int[] edges = dependents ? componentInEdges : componentOutEdges;
+        BitSet reached = new BitSet();
+        if (isCycle(start)) {
+            reached.set(start);
+        }
+        int[] queue = new int[Math.max(8, offsets[start + 1] - offsets[start])];
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = start;
+        while (head < tail) {
+            int current = queue[head++];
+            for (int e = offsets[current]; e < offsets[current + 1]; e++) {
+                int next = edges[e];
+                if (!reached.get(next)) {
+                    reached.set(next);
+                    if (tail == queue.length) {
+                        queue = Arrays.copyOf(queue, queue.length * 2);
+                    }
+                    queue[tail++] = next;
+                }
+            }
+        }
+        return reached;
+    }
+
+    private void setSizes(int component, BitSet reached, int[] sizes) {
+        int size = 0;
+        for (int c = reached.nextSetBit(0); c >= 0; c = reached.nextSetBit(c + 1)) {
+            size += memberOffsets[c + 1] - memberOffsets[c];
+        }
+        // A member of a cycle reaches every file of its component but itself
+        if (reached.get(component)) {
+            size--;
+        }
+        for (int m = memberOffsets[component]; m < memberOffsets[component + 1]; m++) {
+            sizes[members[m]] = size;
+        }
+    }
+
+    private boolean isCycle(int component) {
+        return cycleOf[members[memberOffsets[component]]] > 0;
+    }
+
+    /**
+     * Runs the computations of items 0 to count - 1 on the graph's threads, a batch at a
+     * time, and hands each result to the consumer in item order on the calling thread.
+     */
+    private void computeInBatches(int count, IntFunction<BitSet> computation, BatchConsumer consumer) throws IOException {
+        int workers = Math.min(threads, Math.max(1, count / BATCH_PER_THREAD));
+        int batchSize = workers * BATCH_PER_THREAD;
+        BitSet[] results = new BitSet[Math.min(batchSize, count)];
+        ExecutorService pool = workers > 1 ? Executors.newFixedThreadPool(workers, graphThreads()) : null;
+        try {
+            for (int start = 0; start < count; start += batchSize) {
+                int first = start;
+                int end = Math.min(count, start + batchSize);
+                if (pool == null) {
+                    for (int i = first; i < end; i++) {
+                        results[i - first] = computation.apply(i);
+                    }
+                } else {
+                    List<Future<?>> tasks = new ArrayList<>(workers);
+                    for (int worker = 0; worker < workers; worker++) {
+                        int offset = worker;
+                        tasks.add(pool.submit(() -> {
+                            for (int i = first + offset; i < end; i += workers) {
+                                results[i - first] = computation.apply(i);
+                            }
+                        }));
+                    }
+                    await(tasks);
+                }
+                for (int i = first; i < end; i++) {
+                    consumer.accept(i, results[i - first]);
+                    results[i - first] = null;
+                }
+            }
+        } finally {
+            if (pool != null) {
+                pool.shutdownNow();
+            }
+        }
+    }
+
+    private interface BatchConsumer {
+        void accept(int item, BitSet result) throws IOException;
+    }
+
+    /**
+     * Tarjan's strongly connected components, with an explicit stack so that long
+     * include chains cannot overflow the thread's, followed by the edges between the
+     * components. A component of several files, or a file including itself, is a cycle.
+     */
+    private void findComponents() {
+        int nodes = paths.length;
+        int[] index = new int[nodes];
+        Arrays.fill(index, -1);
+        int[] low = new int[nodes];
+        boolean[] onStack = new boolean[nodes];
+        int[] stack = new int[nodes];
+        int stackSize = 0;
+        int[] callNodes = new int[nodes];
+        int[] callEdges = new int[nodes];
+        int counter = 0;
+
+        // The members of a component come off the stack as a block when it is completed,
+        // and are stored in node order
+        members = new int[nodes];
+        int memberCount = 0;
+        int[] offsets = new int[nodes + 1];
+        int components = 0;
+
+        for (int root = 0; root < nodes; root++) {
+            if (index[root] >= 0) {
+                continue;
+            }
+            index[root] = low[root] = counter++;
+            stack[stackSize++] = root;
+            onStack[root] = true;
+            callNodes[0] = root;
+            callEdges[0] = outOffsets[root];
+            int depth = 1;
+            while (depth > 0) {
+                int node = callNodes[depth - 1];
+                int edge = callEdges[depth - 1];
+                if (edge < outOffsets[node + 1]) {
+                    callEdges[depth - 1] = edge + 1;
+                    int next = outEdges[edge];
+                    if (index[next] < 0) {
+                        index[next] = low[next] = counter++;
+                        stack[stackSize++] = next;
+                        onStack[next] = true;
+                        callNodes[depth] = next;
+                        callEdges[depth] = outOffsets[next];
+                        depth++;
+                    } else if (onStack[next]) {
+                        low[node] = Math.min(low[node], index[next]);
+                    }
+                    continue;
+                }
+                depth--;
+                if (depth > 0) {
+                    int parent = callNodes[depth - 1];
+                    low[parent] = Math.min(low[parent], low[node]);
+                }
+                if (low[node] == index[node]) {
+                    int start = stackSize;
+                    do {
+                        onStack[stack[--start]] = false;
+                    } while (stack[start] != node);
+                    Arrays.sort(stack, start, stackSize);
+                    for (int i = start; i < stackSize; i++) {
+                        members[memberCount++] = stack[i];
+                        componentOf[stack[i]] = components;
+                    }
+                    offsets[++components] = memberCount;
+                    if (stackSize - start > 1 || includesItself(node)) {
+                        cycles.add(Arrays.copyOfRange(stack, start, stackSize));
+                    }
+                    stackSize = start;
+                }
+            }
+        }
+        memberOffsets = Arrays.copyOf(offsets, components + 1);
+
+        // Number the cycles by their first file, so the numbers do not depend on the search order
+        cycles.sort((a, b) -> Integer.compare(a[0], b[0]));
+        for (int i = 0; i < cycles.size(); i++) {
+            for (int member : cycles.get(i)) {
+                cycleOf[member] = i + 1;
+            }
+        }
+
+        // Edges between different components, without duplicates
+        int[] componentEdges = new int[2 * outEdges.length];
+        int componentEdgeCount = 0;
+        int[] lastSource = new int[components];
+        Arrays.fill(lastSource, -1);
+        for (int component = 0; component < components; component++) {
+            for (int m = memberOffsets[component]; m < memberOffsets[component + 1]; m++) {
+                int node = members[m];
+                for (int e = outOffsets[node]; e < outOffsets[node + 1]; e++) {
+                    int target = componentOf[outEdges[e]];
+                    if (target != component && lastSource[target] != component) {
+                        lastSource[target] = component;
+                        componentEdges[2 * componentEdgeCount] = component;
+                        componentEdges[2 * componentEdgeCount + 1] = target;
+                        componentEdgeCount++;
+                    }
+                }
+            }
+        }
+        componentOutOffsets = new int[components + 1];
+        componentOutEdges = new int[componentEdgeCount];
+        componentInOffsets = new int[components + 1];
+        componentInEdges = new int[componentEdgeCount];
+        buildRows(componentEdges, componentEdgeCount, components, componentOutOffsets, componentOutEdges, false);
+        buildRows(componentEdges, componentEdgeCount, components, componentInOffsets, componentInEdges, true);
+    }
+
+    private boolean includesItself(int node) {
+        for (int e = outOffsets[node]; e < outOffsets[node + 1]; e++) {
+            if (outEdges[e] == node) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Fills compressed rows from edge pairs, by source or, reversed, by target.
+     */
+    private static void buildRows(int[] edges, int edgeCount, int nodes, int[] offsets, int[] targets, boolean reversed) {
+        int from = reversed ? 1 : 0;
+        for (int i = 0; i < edgeCount; i++) {
+            offsets[edges[2 * i + from] + 1]++;
+        }
+        for (int node = 0; node < nodes; node++) {
+            offsets[node + 1] += offsets[node];
+        }
+        int[] next = Arrays.copyOf(offsets, nodes);
+        for (int i = 0; i < edgeCount; i++) {
+            targets[next[edges[2 * i + from]]++] = edges[2 * i + 1 - from];
+        }
+    }
+
+    private static void await(List<Future<?>> tasks) throws IOException {
+        try {
+            for (Future<?> task : tasks) {
+                task.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while computing include sets");
+        } catch (ExecutionException e) {
+            throw new IOException("Computing include sets failed: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    private static ThreadFactory graphThreads() {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "php-graph-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
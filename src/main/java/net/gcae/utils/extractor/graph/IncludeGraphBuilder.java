@@ -0,0 +1,118 @@
+package net.gcae.utils.extractor.graph;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.gcae.utils.extractor.analyzer.AnalysisSink;
+import net.gcae.utils.extractor.model.FileAnalysis;
+import net.gcae.utils.extractor.model.FileReference;
+import net.gcae.utils.extractor.model.FileType;
+
+/**
+ * Collects the require and include targets of every file as the records arrive.
+ * A target can name a file that has not been analyzed yet, so nothing is resolved
+ * until {@link #build()}, which numbers the files in the order they arrived.
+ */
+public class IncludeGraphBuilder implements AnalysisSink {
+
+    private static final Logger logger = LoggerFactory.getLogger(IncludeGraphBuilder.class);
+
+    private static final String[] NO_TARGETS = new String[0];
+
+    private final List<String> includePaths;
+    private final Path projectRoot;
+    private final int threads;
+    private final List<String> paths = new ArrayList<>();
+    private final List<String[]> targets = new ArrayList<>();
+    private boolean[] scripts = new boolean[64];
+
+    /**
+     * @param includePaths directories searched for targets given without a path, as PHP's include_path
+     * @param projectRoot the analyzed directory, or null when the records come from a snapshot
+     * @param threads threads computing the transitive include sets; values below 1 use all processors
+     */
+    public IncludeGraphBuilder(List<String> includePaths, Path projectRoot, int threads) {
+        this.includePaths = includePaths;
+        this.projectRoot = projectRoot;
+        this.threads = threads;
+    }
+
+    @Override
+    public void accept(FileAnalysis analysis) {
+        int node = paths.size();
+        paths.add(analysis.getFilePath());
+        if (node == scripts.length) {
+            scripts = Arrays.copyOf(scripts, node * 2);
+        }
+        scripts[node] = analysis.getFile().getFileType() == FileType.PHP;
+
+        int count = analysis.getRequires().size() + analysis.getIncludes().size();
+        String[] fileTargets = count == 0 ? NO_TARGETS : new String[count];
+        int i = 0;
+        for (FileReference require : analysis.getRequires()) {
+            fileTargets[i++] = require.getReferencedFile();
+        }
+        for (FileReference include : analysis.getIncludes()) {
+            fileTargets[i++] = include.getReferencedFile();
+        }
+        targets.add(fileTargets);
+    }
+
+    /**
+     * Resolves the collected targets and builds the graph, with its cycles and transitive set sizes.
+     */
+    public IncludeGraph build() throws IOException {
+        long start = System.nanoTime();
+        int nodes = paths.size();
+        IncludeResolver resolver = new IncludeResolver(includePaths, projectRoot);
+        for (int node = 0; node < nodes; node++) {
+            resolver.addFile(paths.get(node), node);
+        }
+
+        int[] unresolved = new int[nodes];
+        int[] edges = new int[64];
+        int edgeCount = 0;
+        int[] resolved = new int[16];
+        for (int node = 0; node < nodes; node++) {
+            String[] fileTargets = targets.get(node);
+            if (resolved.length < fileTargets.length) {
+                resolved = new int[fileTargets.length];
+            }
+            int distinct = 0;
+            for (String target : fileTargets) {
+                int included = resolver.resolve(paths.get(node), target);
+                if (included < 0) {
+                    unresolved[node]++;
+                } else {
+                    resolved[distinct++] = included;
+                }
+            }
+            // A file included twice, e.g. by require_once in two branches, is one edge
+            Arrays.sort(resolved, 0, distinct);
+            for (int i = 0; i < distinct; i++) {
+                if (i > 0 && resolved[i] == resolved[i - 1]) {
+                    continue;
+                }
+                if (2 * edgeCount + 2 > edges.length) {
+                    edges = Arrays.copyOf(edges, edges.length * 2);
+                }
+                edges[2 * edgeCount] = node;
+                edges[2 * edgeCount + 1] = resolved[i];
+                edgeCount++;
+            }
+        }
+
+        IncludeGraph graph = new IncludeGraph(paths.toArray(new String[0]), Arrays.copyOf(scripts, nodes),
+                unresolved, edges, edgeCount, threads);
+        logger.info("Include graph: {} files, {} resolved includes, {} unresolved, {} entry points, {} cycles ({} ms)",
+                nodes, edgeCount, Arrays.stream(unresolved).sum(), graph.getEntryPoints().length,
+                graph.getCycles().size(), (System.nanoTime() - start) / 1_000_000);
+        return graph;
+    }
+}
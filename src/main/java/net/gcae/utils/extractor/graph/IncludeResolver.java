@@ -0,0 +1,100 @@
+package net.gcae.utils.extractor.graph;
+
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Resolves the target of a require or include statement to one of the project's
+ * files, following PHP's rules as far as they can be applied without running the code:
+ * <ul>
+ *   <li>a target starting with ./ or ../ is relative to the directory of the including file;</li>
+ *   <li>an absolute target is taken as it is, and failing that below the project root,
+ *       where a document root usually maps;</li>
+ *   <li>any other target is looked for in each include path in turn, then in the
+ *       directory of the including file, then in the project root.</li>
+ * </ul>
+ * Backslashes are read as separators, and a target that matches no file exactly may
+ * still match one whose path differs only in case, as code written on Windows often does.
+ * Stream wrappers such as http:// or phar:// are never resolved.
+ */
+final class IncludeResolver {
+
+    private final Map<String, Integer> files = new HashMap<>();
+    private final Map<String, Integer> filesIgnoringCase = new HashMap<>();
+    private final List<Path> includePaths = new ArrayList<>();
+    private final Path projectRoot;
+
+    /**
+     * @param includePaths directories searched for targets that are neither absolute nor
+     *        relative to the including file; relative ones are taken from the project root
+     * @param projectRoot the analyzed directory, or null when it is not known
+     */
+    IncludeResolver(List<String> includePaths, Path projectRoot) {
+        this.projectRoot = projectRoot != null ? projectRoot.normalize() : null;
+        for (String includePath : includePaths) {
+            Path path = Paths.get(includePath);
+            this.includePaths.add((this.projectRoot != null ? this.projectRoot.resolve(path) : path).normalize());
+        }
+    }
+
+    /**
+     * Registers a file of the project under its node number.
+     */
+    void addFile(String filePath, int node) {
+        String key = Paths.get(filePath).normalize().toString();
+        files.putIfAbsent(key, node);
+        filesIgnoringCase.putIfAbsent(key.toLowerCase(Locale.ROOT), node);
+    }
+
+    /**
+     * Returns the node of the file the target names, or -1 when it names none of the project's files.
+     */
+    int resolve(String includingFile, String target) {
+        String name = target.trim().replace('\\', '/');
+        if (name.isEmpty() || name.contains("://") || name.startsWith("phar:") || name.startsWith("data:")) {
+            return -1;
+        }
+        try {
+            Path directory = Paths.get(includingFile).getParent();
+            Path path = Paths.get(name);
+            if (path.isAbsolute() || name.startsWith("/")) {
+                int node = find(path);
+                if (node < 0 && projectRoot != null) {
+                    node = find(projectRoot.resolve(name.replaceFirst("^/+", "")));
+                }
+                return node;
+            }
+            if (name.equals(".") || name.equals("..") || name.startsWith("./") || name.startsWith("../")) {
+                return directory != null ? find(directory.resolve(path)) : find(path);
+            }
+            for (Path includePath : includePaths) {
+                int node = find(includePath.resolve(path));
+                if (node >= 0) {
+                    return node;
+                }
+            }
+            int node = find(directory != null ? directory.resolve(path) : path);
+            if (node < 0 && projectRoot != null) {
+                node = find(projectRoot.resolve(path));
+            }
+            return node;
+        } catch (InvalidPathException e) {
+            return -1;
+        }
+    }
+
+    private int find(Path path) {
+        String key = path.normalize().toString();
+        Integer node = files.get(key);
+        if (node == null) {
+            node = filesIgnoringCase.get(key.toLowerCase(Locale.ROOT));
+        }
+        return node != null ? node : -1;
+    }
+}
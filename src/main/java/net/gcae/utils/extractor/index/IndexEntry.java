@@ -0,0 +1,32 @@
+package net.gcae.utils.extractor.index;
+
+/**
+ * One location found by an index lookup.
+ */
+public final class IndexEntry {
+    private final IndexKind kind;
+    private final String key;
+    private final IndexRole role;
+    private final String filePath;
+    private final int line;
+
+    IndexEntry(IndexKind kind, String key, IndexRole role, String filePath, int line) {
+        this.kind = kind;
+        this.key = key;
+        this.role = role;
+        this.filePath = filePath;
+        this.line = line;
+    }
+
+    public IndexKind getKind() { return kind; }
+
+    /**
+     * Returns the indexed name, in lower case.
+     */
+    public String getKey() { return key; }
+    public IndexRole getRole() { return role; }
+    public String getFilePath() { return filePath; }
+    public int getLine() { return line; }
+
+    public String getFileLocation() { return filePath + ":" + line; }
+}
@@ -0,0 +1,72 @@
+package net.gcae.utils.extractor.index;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * Layout of an index file, a sorted string table of names with the locations
+ * referring to them.
+ *
+ * <pre>
+ * index     := MAGIC version:int32 path* offset* postings* key* sparse* footer
+ * path      := bytes                                       file paths, by file id
+ * offset    := int64                                       position of each path
+ * postings  := count:varint (fileDelta:varint line:varint role:byte)*
+ * key       := kind:byte shared:varint suffix:bytes postings:varint
+ * sparse    := kind:byte key:bytes position:varint        every {@link #RESTART_INTERVAL}th key
+ * footer    := fileCount:int64 offsets:int64 keys:int64 sparse:int64 keyCount:int64 sparseCount:int64 MAGIC
+ * bytes     := length:varint utf8-bytes
+ * </pre>
+ *
+ * Keys are lower case and sorted by kind, then by {@link String#compareTo}. Each key
+ * shares a prefix with the previous one, except at every restart, where the sparse
+ * table points; a lookup binary-searches the sparse table, which is read when the
+ * index is opened, and scans at most one restart interval of keys. Postings are
+ * located by their absolute position and list the file ids in ascending order.
+ */
+final class IndexFormat {
+
+    static final int MAGIC = 0x50485849; // "PHXI"
+    static final int VERSION = 1;
+
+    static final int RESTART_INTERVAL = 32;
+
+    // The footer's six int64 values and the closing magic
+    static final int FOOTER_SIZE = 6 * 8 + 4;
+
+    private IndexFormat() {}
+
+    static void writeVarint(OutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    static long readVarint(ByteBuffer in) throws IOException {
+        long value = 0;
+        try {
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = in.get();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Corrupt index: truncated value", e);
+        }
+        throw new IOException("Corrupt index: varint too long");
+    }
+
+    static int readInt(ByteBuffer in) throws IOException {
+        long value = readVarint(in);
+        if (value > Integer.MAX_VALUE) {
+            throw new IOException("Corrupt index: value out of range");
+        }
+        return (int) value;
+    }
+}
@@ -0,0 +1,51 @@
+package net.gcae.utils.extractor.index;
+
+import java.util.Locale;
+
+/**
+ * The kinds of names the index can be searched by.
+ */
+public enum IndexKind {
+
+    /** Database tables of SQL queries. */
+    TABLE("table"),
+
+    /** Classes and traits: where they are defined, extended and used. */
+    CLASS("class"),
+
+    /** Function definitions. */
+    FUNCTION("function"),
+
+    /** Interfaces: where they are defined, extended and implemented. */
+    INTERFACE("interface"),
+
+    /** Targets of require and include statements, as written in the code. */
+    INCLUDE("include"),
+
+    /** Targets of CURL calls, as written in the code. */
+    CURL("curl");
+
+    private final String name;
+
+    IndexKind(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Returns the name used by the query command.
+     */
+    public String getName() { return name; }
+
+    /**
+     * @throws IllegalArgumentException if no kind has the name
+     */
+    public static IndexKind fromName(String name) {
+        for (IndexKind kind : values()) {
+            if (kind.name.equals(name.toLowerCase(Locale.ROOT))) {
+                return kind;
+            }
+        }
+        throw new IllegalArgumentException("Unknown index kind: " + name
+                + " (expected table, class, function, interface, include or curl)");
+    }
+}
@@ -0,0 +1,233 @@
+package net.gcae.utils.extractor.index;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Answers lookups from an index file without reading it whole: the file is mapped
+ * into memory, only the sparse key table is decoded when it is opened, and each
+ * lookup touches one restart interval of keys, the postings found and the paths
+ * they name. Lookups ignore case; a reader may be shared by several threads.
+ */
+public class IndexReader implements Closeable {
+
+    private final Path indexPath;
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+    private final long fileCount;
+    private final int offsets;
+    private final int keysStart;
+    private final int sparseStart;
+    private final long keyCount;
+    private final IndexKind[] sparseKinds;
+    private final String[] sparseKeys;
+    private final int[] sparsePositions;
+
+    private IndexReader(Path indexPath, FileChannel channel, ByteBuffer buffer) throws IOException {
+        this.indexPath = indexPath;
+        this.channel = channel;
+        this.buffer = buffer;
+        try {
+            if (buffer.capacity() < 8 + IndexFormat.FOOTER_SIZE || buffer.getInt(0) != IndexFormat.MAGIC
+                    || buffer.getInt(buffer.capacity() - 4) != IndexFormat.MAGIC) {
+                throw new IOException("Not an index file: " + indexPath);
+            }
+            int version = buffer.getInt(4);
+            if (version != IndexFormat.VERSION) {
+                throw new IOException("Unsupported index version " + version + " (expected "
+                        + IndexFormat.VERSION + "); run the analysis again: " + indexPath);
+            }
+            int footer = buffer.capacity() - IndexFormat.FOOTER_SIZE;
+            this.fileCount = buffer.getLong(footer);
+            this.offsets = position(buffer.getLong(footer + 8));
+            this.keysStart = position(buffer.getLong(footer + 16));
+            this.sparseStart = position(buffer.getLong(footer + 24));
+            this.keyCount = buffer.getLong(footer + 32);
+            int sparseCount = position(buffer.getLong(footer + 40));
+
+            sparseKinds = new IndexKind[sparseCount];
+            sparseKeys = new String[sparseCount];
+            sparsePositions = new int[sparseCount];
+            ByteBuffer in = view(sparseStart);
+            for (int i = 0; i < sparseCount; i++) {
+                sparseKinds[i] = kind(in.get());
+                sparseKeys[i] = string(in);
+                sparsePositions[i] = position(IndexFormat.readVarint(in));
+            }
+        } catch (IndexOutOfBoundsException | BufferUnderflowException e) {
+            throw new IOException("Corrupt index: " + indexPath, e);
+        }
+    }
+
+    /**
+     * Opens an index file for lookups.
+     */
+    public static IndexReader open(Path indexPath) throws IOException {
+        FileChannel channel = FileChannel.open(indexPath, StandardOpenOption.READ);
+        try {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Index exceeds 2 GB: " + indexPath);
+            }
+            return new IndexReader(indexPath, channel, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public Path getIndexPath() { return indexPath; }
+    public long getFileCount() { return fileCount; }
+
+    /**
+     * Returns the number of distinct names of all kinds.
+     */
+    public long getKeyCount() { return keyCount; }
+
+    /**
+     * Returns the locations listed under the name, in file order.
+     */
+    public List<IndexEntry> lookup(IndexKind kind, String name) throws IOException {
+        return scan(kind, normalize(kind, name), false);
+    }
+
+    /**
+     * Returns the locations of every name of the kind starting with the prefix, by
+     * name and then in file order; an empty prefix lists the whole kind.
+     */
+    public List<IndexEntry> lookupPrefix(IndexKind kind, String prefix) throws IOException {
+        return scan(kind, normalize(kind, prefix), true);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private List<IndexEntry> scan(IndexKind kind, String target, boolean prefix) throws IOException {
+        List<IndexEntry> entries = new ArrayList<>();
+        if (sparseKeys.length == 0) {
+            return entries;
+        }
+        Map<Integer, String> paths = new HashMap<>();
+        try {
+            ByteBuffer in = view(sparsePositions[floor(kind, target)]);
+            String previous = "";
+            while (in.position() < sparseStart) {
+                IndexKind keyKind = kind(in.get());
+                int shared = IndexFormat.readInt(in);
+                String key = previous.substring(0, shared) + string(in);
+                int postings = position(IndexFormat.readVarint(in));
+                previous = key;
+
+                int order = compare(keyKind, key, kind, target);
+                if (prefix ? keyKind == kind && key.startsWith(target) : order == 0) {
+                    readPostings(postings, keyKind, key, paths, entries);
+                    if (!prefix) {
+                        break;
+                    }
+                } else if (order > 0) {
+                    break;
+                }
+            }
+        } catch (IndexOutOfBoundsException | BufferUnderflowException e) {
+            throw new IOException("Corrupt index: " + indexPath, e);
+        }
+        return entries;
+    }
+
+    /**
+     * Returns the last restart whose key is not after the target, or the first restart.
+     */
+    private int floor(IndexKind kind, String target) {
+        int low = 0;
+        int high = sparseKeys.length - 1;
+        int found = 0;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (compare(sparseKinds[middle], sparseKeys[middle], kind, target) <= 0) {
+                found = middle;
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return found;
+    }
+
+    private void readPostings(int position, IndexKind kind, String key, Map<Integer, String> paths,
+                              List<IndexEntry> entries) throws IOException {
+        ByteBuffer in = view(position);
+        int count = IndexFormat.readInt(in);
+        int file = 0;
+        IndexRole[] roles = IndexRole.values();
+        for (int i = 0; i < count; i++) {
+            file += IndexFormat.readInt(in);
+            int line = IndexFormat.readInt(in);
+            int role = in.get();
+            if (file >= fileCount || role < 0 || role >= roles.length) {
+                throw new IOException("Corrupt index: " + indexPath);
+            }
+            String path = paths.get(file);
+            if (path == null) {
+                path = string(view(position(buffer.getLong(offsets + file * 8))));
+                paths.put(file, path);
+            }
+            entries.add(new IndexEntry(kind, key, roles[role], path, line));
+        }
+    }
+
+    private static int compare(IndexKind kindA, String keyA, IndexKind kindB, String keyB) {
+        int order = Integer.compare(kindA.ordinal(), kindB.ordinal());
+        return order != 0 ? order : keyA.compareTo(keyB);
+    }
+
+    /**
+     * Matches the keys as {@link IndexWriter} stores them.
+     */
+    private static String normalize(IndexKind kind, String name) {
+        String key = name.trim();
+        if (IndexWriter.isQualifiable(kind) && key.startsWith("\\")) {
+            key = key.substring(1);
+        }
+        return key.toLowerCase(Locale.ROOT);
+    }
+
+    private ByteBuffer view(int position) {
+        ByteBuffer view = buffer.duplicate();
+        view.position(position);
+        return view;
+    }
+
+    private IndexKind kind(byte ordinal) throws IOException {
+        IndexKind[] kinds = IndexKind.values();
+        if (ordinal < 0 || ordinal >= kinds.length) {
+            throw new IOException("Corrupt index: " + indexPath);
+        }
+        return kinds[ordinal];
+    }
+
+    private int position(long value) throws IOException {
+        if (value < 0 || value > buffer.capacity()) {
+            throw new IOException("Corrupt index: " + indexPath);
+        }
+        return (int) value;
+    }
+
+    private static String string(ByteBuffer in) throws IOException {
+        int length = IndexFormat.readInt(in);
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,23 @@
+package net.gcae.utils.extractor.index;
+
+/**
+ * How the code at an indexed location refers to the name it is listed under.
+ */
+public enum IndexRole {
+    QUERY("query"),
+    DEFINITION("definition"),
+    EXTENDS("extends"),
+    IMPLEMENTS("implements"),
+    USES_TRAIT("uses trait"),
+    REQUIRE("require"),
+    INCLUDE("include"),
+    CALL("call");
+
+    private final String label;
+
+    IndexRole(String label) {
+        this.label = label;
+    }
+
+    public String getLabel() { return label; }
+}
@@ -0,0 +1,268 @@
+package net.gcae.utils.extractor.index;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.gcae.utils.extractor.analyzer.AnalysisSink;
+import net.gcae.utils.extractor.model.ClassDefinition;
+import net.gcae.utils.extractor.model.CurlCall;
+import net.gcae.utils.extractor.model.FileAnalysis;
+import net.gcae.utils.extractor.model.FileReference;
+import net.gcae.utils.extractor.model.FunctionDefinition;
+import net.gcae.utils.extractor.model.InheritanceInfo;
+import net.gcae.utils.extractor.model.InterfaceDefinition;
+import net.gcae.utils.extractor.model.InterfaceImplementation;
+import net.gcae.utils.extractor.model.SQLQuery;
+
+/**
+ * Builds the index of a run from the records as they are produced. Names are
+ * collected with their locations as packed integers, three per location, and the
+ * file is written sorted by {@link #finish()}. See {@link IndexFormat} for the layout.
+ *
+ * <p>The index is written to a temporary file beside it and moved into place, so
+ * a reader never sees a partial index; {@link #close()} removes the temporary file
+ * of a run that failed.
+ */
+public class IndexWriter implements AnalysisSink {
+
+    private static final Logger logger = LoggerFactory.getLogger(IndexWriter.class);
+
+    private final Path outputPath;
+    private final List<String> files = new ArrayList<>();
+    private final Map<IndexKind, Map<String, Postings>> names = new EnumMap<>(IndexKind.class);
+    private int file;
+    private Path tempPath;
+
+    public IndexWriter(Path outputPath) {
+        this.outputPath = outputPath;
+        for (IndexKind kind : IndexKind.values()) {
+            names.put(kind, new HashMap<>());
+        }
+    }
+
+    @Override
+    public void accept(FileAnalysis analysis) {
+        file = files.size();
+        files.add(analysis.getFilePath());
+        for (SQLQuery query : analysis.getSqlQueries()) {
+            add(IndexKind.TABLE, query.getDbTable(), IndexRole.QUERY, query.getLine());
+        }
+        for (FileReference require : analysis.getRequires()) {
+            add(IndexKind.INCLUDE, require.getReferencedFile(), IndexRole.REQUIRE, require.getLine());
+        }
+        for (FileReference include : analysis.getIncludes()) {
+            add(IndexKind.INCLUDE, include.getReferencedFile(), IndexRole.INCLUDE, include.getLine());
+        }
+        for (CurlCall call : analysis.getCurlCalls()) {
+            add(IndexKind.CURL, call.getTarget(), IndexRole.CALL, call.getLine());
+        }
+        for (FunctionDefinition function : analysis.getFunctions()) {
+            add(IndexKind.FUNCTION, function.getFunctionName(), IndexRole.DEFINITION, function.getLine());
+        }
+        for (ClassDefinition clazz : analysis.getClasses()) {
+            add(IndexKind.CLASS, clazz.getClassName(), IndexRole.DEFINITION, clazz.getLine());
+        }
+        for (InheritanceInfo trait : analysis.getTraits()) {
+            add(IndexKind.CLASS, trait.getParentName(), IndexRole.USES_TRAIT, trait.getLine());
+        }
+        for (InheritanceInfo inheritance : analysis.getClassInheritances()) {
+            add(IndexKind.CLASS, inheritance.getParentName(), IndexRole.EXTENDS, inheritance.getLine());
+        }
+        for (InterfaceImplementation implementation : analysis.getImplementations()) {
+            add(IndexKind.INTERFACE, implementation.getInterfaceName(), IndexRole.IMPLEMENTS, implementation.getLine());
+        }
+        for (InterfaceDefinition interfaceDefinition : analysis.getInterfaces()) {
+            add(IndexKind.INTERFACE, interfaceDefinition.getInterfaceName(), IndexRole.DEFINITION, interfaceDefinition.getLine());
+            String extendsInterface = interfaceDefinition.getExtendsInterface();
+            if (extendsInterface != null) {
+                for (String parent : extendsInterface.split(",")) {
+                    add(IndexKind.INTERFACE, parent, IndexRole.EXTENDS, interfaceDefinition.getLine());
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes the index file.
+     */
+    @Override
+    public void finish() throws IOException {
+        Files.createDirectories(outputPath.toAbsolutePath().getParent());
+        // The index path is reserved for this job, so the name beside it is too
+        tempPath = outputPath.resolveSibling(outputPath.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempPath), 64 * 1024))) {
+            out.writeInt(IndexFormat.MAGIC);
+            out.writeInt(IndexFormat.VERSION);
+
+            long[] pathPositions = new long[files.size()];
+            for (int i = 0; i < files.size(); i++) {
+                pathPositions[i] = out.size();
+                bytes(out, files.get(i));
+            }
+            long offsets = out.size();
+            for (long position : pathPositions) {
+                out.writeLong(position);
+            }
+
+            // Postings in key order, then the keys pointing at them
+            Map<IndexKind, String[]> sortedKeys = new EnumMap<>(IndexKind.class);
+            Map<IndexKind, long[]> postingPositions = new EnumMap<>(IndexKind.class);
+            for (IndexKind kind : IndexKind.values()) {
+                Map<String, Postings> keys = names.get(kind);
+                String[] sorted = keys.keySet().toArray(new String[0]);
+                Arrays.sort(sorted);
+                long[] positions = new long[sorted.length];
+                for (int i = 0; i < sorted.length; i++) {
+                    positions[i] = out.size();
+                    keys.get(sorted[i]).write(out);
+                }
+                sortedKeys.put(kind, sorted);
+                postingPositions.put(kind, positions);
+            }
+
+            long keysStart = out.size();
+            long keyCount = 0;
+            List<IndexKind> sparseKinds = new ArrayList<>();
+            List<String> sparseKeys = new ArrayList<>();
+            List<Long> sparsePositions = new ArrayList<>();
+            String previous = null;
+            for (IndexKind kind : IndexKind.values()) {
+                String[] sorted = sortedKeys.get(kind);
+                long[] positions = postingPositions.get(kind);
+                for (int i = 0; i < sorted.length; i++, keyCount++) {
+                    String key = sorted[i];
+                    int shared = 0;
+                    if (keyCount % IndexFormat.RESTART_INTERVAL == 0) {
+                        sparseKinds.add(kind);
+                        sparseKeys.add(key);
+                        sparsePositions.add((long) out.size());
+                    } else if (i > 0) {
+                        shared = sharedPrefix(previous, key);
+                    }
+                    out.write(kind.ordinal());
+                    IndexFormat.writeVarint(out, shared);
+                    bytes(out, key.substring(shared));
+                    IndexFormat.writeVarint(out, positions[i]);
+                    previous = key;
+                }
+            }
+
+            long sparseStart = out.size();
+            for (int i = 0; i < sparseKeys.size(); i++) {
+                out.write(sparseKinds.get(i).ordinal());
+                bytes(out, sparseKeys.get(i));
+                IndexFormat.writeVarint(out, sparsePositions.get(i));
+            }
+            if (out.size() < 0) {
+                throw new IOException("Index exceeds 2 GB: " + outputPath);
+            }
+
+            out.writeLong(files.size());
+            out.writeLong(offsets);
+            out.writeLong(keysStart);
+            out.writeLong(sparseStart);
+            out.writeLong(keyCount);
+            out.writeLong(sparseKeys.size());
+            out.writeInt(IndexFormat.MAGIC);
+            logger.info("Index written to: {} ({} files, {} names, {} bytes)", outputPath, files.size(), keyCount, out.size());
+        }
+        try {
+            Files.move(tempPath, outputPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tempPath, outputPath, StandardCopyOption.REPLACE_EXISTING);
+        }
+        tempPath = null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (tempPath != null) {
+            Files.deleteIfExists(tempPath);
+            tempPath = null;
+        }
+    }
+
+    private void add(IndexKind kind, String name, IndexRole role, int line) {
+        if (name == null) {
+            return;
+        }
+        String key = name.trim();
+        if (isQualifiable(kind) && key.startsWith("\\")) {
+            key = key.substring(1);
+        }
+        if (key.isEmpty()) {
+            return;
+        }
+        names.get(kind).computeIfAbsent(key.toLowerCase(Locale.ROOT), k -> new Postings()).add(file, line, role);
+    }
+
+    /**
+     * Returns true for the kinds whose names may be written fully qualified, with a leading backslash.
+     */
+    static boolean isQualifiable(IndexKind kind) {
+        return kind == IndexKind.CLASS || kind == IndexKind.FUNCTION || kind == IndexKind.INTERFACE;
+    }
+
+    private static int sharedPrefix(String a, String b) {
+        int max = Math.min(a.length(), b.length());
+        int shared = 0;
+        while (shared < max && a.charAt(shared) == b.charAt(shared)) {
+            shared++;
+        }
+        // Keep surrogate pairs together, as the suffix is encoded on its own
+        if (shared > 0 && Character.isHighSurrogate(b.charAt(shared - 1))) {
+            shared--;
+        }
+        return shared;
+    }
+
+    private static void bytes(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        IndexFormat.writeVarint(out, bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * The locations of one name, as file id, line and role triples.
+     */
+    private static final class Postings {
+        private int[] values = new int[6];
+        private int size;
+
+        void add(int file, int line, IndexRole role) {
+            if (size + 3 > values.length) {
+                values = Arrays.copyOf(values, values.length * 2);
+            }
+            values[size++] = file;
+            values[size++] = line;
+            values[size++] = role.ordinal();
+        }
+
+        void write(DataOutputStream out) throws IOException {
+            IndexFormat.writeVarint(out, size / 3);
+            int previousFile = 0;
+            for (int i = 0; i < size; i += 3) {
+                IndexFormat.writeVarint(out, values[i] - previousFile);
+                IndexFormat.writeVarint(out, Math.max(0, values[i + 1]));
+                out.write(values[i + 2]);
+                previousFile = values[i];
+            }
+        }
+    }
+}
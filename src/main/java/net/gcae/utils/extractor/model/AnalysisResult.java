@@ -1,5 +1,6 @@
 package net.gcae.utils.extractor.model;
 
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -7,6 +8,8 @@ import java.util.List;
  */
 public class AnalysisResult {
     
+    // Table the records' file ids refer to
+    private PathTable paths = new PathTable();
     private List<FileInventory> files;
     private List<SQLQuery> sqlQueries;
     private List<FileReference> requires;
@@ -42,6 +45,9 @@ public class AnalysisResult {
     }
     
     // Getters and Setters
+    public PathTable getPaths() { return paths; }
+    public void setPaths(PathTable paths) { this.paths = paths; }
+    
     public List<FileInventory> getFiles() { return files; }
     public void setFiles(List<FileInventory> files) { this.files = files; }
     
@@ -76,6 +82,37 @@ public class AnalysisResult {
     public void setInterfaces(List<InterfaceDefinition> interfaces) { this.interfaces = interfaces; }
     
     // Utility methods
+    
+    /**
+     * Appends the records extracted from one file to this result. The records must
+     * refer to this result's {@link #getPaths() path table}.
+     */
+    public void addFileAnalysis(FileAnalysis analysis) {
+        if (files == null) files = new ArrayList<>();
+        if (sqlQueries == null) sqlQueries = new ArrayList<>();
+        if (requires == null) requires = new ArrayList<>();
+        if (includes == null) includes = new ArrayList<>();
+        if (curlCalls == null) curlCalls = new ArrayList<>();
+        if (functions == null) functions = new ArrayList<>();
+        if (classes == null) classes = new ArrayList<>();
+        if (traits == null) traits = new ArrayList<>();
+        if (classInheritances == null) classInheritances = new ArrayList<>();
+        if (implementations == null) implementations = new ArrayList<>();
+        if (interfaces == null) interfaces = new ArrayList<>();
+        
+        files.add(analysis.getFile());
+        sqlQueries.addAll(analysis.getSqlQueries());
+        requires.addAll(analysis.getRequires());
+        includes.addAll(analysis.getIncludes());
+        curlCalls.addAll(analysis.getCurlCalls());
+        functions.addAll(analysis.getFunctions());
+        classes.addAll(analysis.getClasses());
+        traits.addAll(analysis.getTraits());
+        classInheritances.addAll(analysis.getClassInheritances());
+        implementations.addAll(analysis.getImplementations());
+        interfaces.addAll(analysis.getInterfaces());
+    }
+    
     public boolean hasData() {
         return (files != null && !files.isEmpty()) ||
                (sqlQueries != null && !sqlQueries.isEmpty()) ||
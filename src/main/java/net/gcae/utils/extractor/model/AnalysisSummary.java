@@ -0,0 +1,55 @@
+package net.gcae.utils.extractor.model;
+
+/**
+ * Record counts of an analysis run, kept while results are streamed to their output
+ */
+public class AnalysisSummary {
+    
+    private int files;
+    private int quarantined;
+    private int sqlQueries;
+    private int requires;
+    private int includes;
+    private int curlCalls;
+    private int functions;
+    private int classes;
+    private int traits;
+    private int classInheritances;
+    private int implementations;
+    private int interfaces;
+    
+    public void add(FileAnalysis analysis) {
+        files++;
+        if (analysis.getFile().isQuarantined()) {
+            quarantined++;
+        }
+        sqlQueries += analysis.getSqlQueries().size();
+        requires += analysis.getRequires().size();
+        includes += analysis.getIncludes().size();
+        curlCalls += analysis.getCurlCalls().size();
+        functions += analysis.getFunctions().size();
+        classes += analysis.getClasses().size();
+        traits += analysis.getTraits().size();
+        classInheritances += analysis.getClassInheritances().size();
+        implementations += analysis.getImplementations().size();
+        interfaces += analysis.getInterfaces().size();
+    }
+    
+    // Getters
+    public int getFiles() { return files; }
+    public int getQuarantined() { return quarantined; }
+    public int getSqlQueries() { return sqlQueries; }
+    public int getRequires() { return requires; }
+    public int getIncludes() { return includes; }
+    public int getCurlCalls() { return curlCalls; }
+    public int getFunctions() { return functions; }
+    public int getClasses() { return classes; }
+    public int getTraits() { return traits; }
+    public int getClassInheritances() { return classInheritances; }
+    public int getImplementations() { return implementations; }
+    public int getInterfaces() { return interfaces; }
+    
+    public boolean hasData() {
+        return files > 0;
+    }
+}
@@ -5,14 +5,16 @@ package net.gcae.utils.extractor.model;
  */
 public class ClassDefinition {
     private String className;
-    private String fileLocation;
+    private int fileId;
+    private int line;
     private int methodCount;
     private String parentClass;
     private String interfaces;
     
-    public ClassDefinition(String className, String fileLocation, int methodCount, String parentClass, String interfaces) {
+    public ClassDefinition(String className, int fileId, int line, int methodCount, String parentClass, String interfaces) {
         this.className = className;
-        this.fileLocation = fileLocation;
+        this.fileId = fileId;
+        this.line = line;
         this.methodCount = methodCount;
         this.parentClass = parentClass;
         this.interfaces = interfaces;
@@ -22,8 +24,11 @@ public class ClassDefinition {
     public String getClassName() { return className; }
     public void setClassName(String className) { this.className = className; }
     
-    public String getFileLocation() { return fileLocation; }
-    public void setFileLocation(String fileLocation) { this.fileLocation = fileLocation; }
+    public int getFileId() { return fileId; }
+    public void setFileId(int fileId) { this.fileId = fileId; }
+    
+    public int getLine() { return line; }
+    public void setLine(int line) { this.line = line; }
     
     public int getMethodCount() { return methodCount; }
     public void setMethodCount(int methodCount) { this.methodCount = methodCount; }
@@ -0,0 +1,21 @@
+package net.gcae.utils.extractor.model;
+
+/**
+ * Complexity rating of an SQL query or a function
+ */
+public enum Complexity {
+    LOW("Low"),
+    MEDIUM("Medium"),
+    HIGH("High");
+
+    private final String label;
+
+    Complexity(String label) {
+        this.label = label;
+    }
+
+    /**
+     * Returns the text shown in reports.
+     */
+    public String getLabel() { return label; }
+}
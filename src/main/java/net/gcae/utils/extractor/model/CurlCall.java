@@ -4,28 +4,30 @@ package net.gcae.utils.extractor.model;
  * Represents a CURL call found in the PHP code
  */
 public class CurlCall {
-    private String callType;
-    private String fileLocation;
+    private CurlCallType callType;
+    private int fileId;
+    private int line;
     private String target;
-    private String purpose;
     
-    public CurlCall(String callType, String fileLocation, String target, String purpose) {
+    public CurlCall(CurlCallType callType, int fileId, int line, String target) {
         this.callType = callType;
-        this.fileLocation = fileLocation;
+        this.fileId = fileId;
+        this.line = line;
         this.target = target;
-        this.purpose = purpose;
     }
     
     // Getters and Setters
-    public String getCallType() { return callType; }
-    public void setCallType(String callType) { this.callType = callType; }
+    public CurlCallType getCallType() { return callType; }
+    public void setCallType(CurlCallType callType) { this.callType = callType; }
     
-    public String getFileLocation() { return fileLocation; }
-    public void setFileLocation(String fileLocation) { this.fileLocation = fileLocation; }
+    public int getFileId() { return fileId; }
+    public void setFileId(int fileId) { this.fileId = fileId; }
+    
+    public int getLine() { return line; }
+    public void setLine(int line) { this.line = line; }
     
     public String getTarget() { return target; }
     public void setTarget(String target) { this.target = target; }
     
-    public String getPurpose() { return purpose; }
-    public void setPurpose(String purpose) { this.purpose = purpose; }
+    public String getPurpose() { return callType.getPurpose(); }
 }
\ No newline at end of file
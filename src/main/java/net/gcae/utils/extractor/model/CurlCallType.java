@@ -0,0 +1,25 @@
+package net.gcae.utils.extractor.model;
+
+/**
+ * CURL function called, with the purpose shown for it in reports
+ */
+public enum CurlCallType {
+    CURL_INIT("curl_init", "Initialize CURL session"),
+    CURL_SETOPT("curl_setopt", "Set CURL option"),
+    CURL_EXEC("curl_exec", "Execute CURL session");
+
+    private final String label;
+    private final String purpose;
+
+    CurlCallType(String label, String purpose) {
+        this.label = label;
+        this.purpose = purpose;
+    }
+
+    /**
+     * Returns the text shown in reports.
+     */
+    public String getLabel() { return label; }
+
+    public String getPurpose() { return purpose; }
+}
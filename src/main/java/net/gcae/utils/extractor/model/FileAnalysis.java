@@ -0,0 +1,58 @@
+package net.gcae.utils.extractor.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Contains the code elements extracted from a single file
+ */
+public class FileAnalysis {
+
+    private final PathTable paths;
+    private FileInventory file;
+    private final List<SQLQuery> sqlQueries = new ArrayList<>();
+    private final List<FileReference> requires = new ArrayList<>();
+    private final List<FileReference> includes = new ArrayList<>();
+    private final List<CurlCall> curlCalls = new ArrayList<>();
+    private final List<FunctionDefinition> functions = new ArrayList<>();
+    private final List<ClassDefinition> classes = new ArrayList<>();
+    private final List<InheritanceInfo> traits = new ArrayList<>();
+    private final List<InheritanceInfo> classInheritances = new ArrayList<>();
+    private final List<InterfaceImplementation> implementations = new ArrayList<>();
+    private final List<InterfaceDefinition> interfaces = new ArrayList<>();
+
+    /**
+     * @param paths the table of the run the records belong to, which their file ids refer to
+     */
+    public FileAnalysis(PathTable paths) {
+        this.paths = paths;
+    }
+
+    // Getters and Setters
+    public PathTable getPaths() { return paths; }
+
+    public FileInventory getFile() { return file; }
+    public void setFile(FileInventory file) { this.file = file; }
+
+    public String getFilePath() { return paths.path(file.getFileId()); }
+
+    public List<SQLQuery> getSqlQueries() { return sqlQueries; }
+
+    public List<FileReference> getRequires() { return requires; }
+
+    public List<FileReference> getIncludes() { return includes; }
+
+    public List<CurlCall> getCurlCalls() { return curlCalls; }
+
+    public List<FunctionDefinition> getFunctions() { return functions; }
+
+    public List<ClassDefinition> getClasses() { return classes; }
+
+    public List<InheritanceInfo> getTraits() { return traits; }
+
+    public List<InheritanceInfo> getClassInheritances() { return classInheritances; }
+
+    public List<InterfaceImplementation> getImplementations() { return implementations; }
+
+    public List<InterfaceDefinition> getInterfaces() { return interfaces; }
+}
@@ -5,32 +5,45 @@ package net.gcae.utils.extractor.model;
  */
 public class FileInventory {
     private String fileName;
-    private String filePath;
-    private String fileType;
+    private int fileId;
+    private FileType fileType;
     private long fileSize;
     private int lineCount;
+    private String encoding;
+    private boolean quarantined;
     
-    public FileInventory(String fileName, String filePath, String fileType, long fileSize, int lineCount) {
+    public FileInventory(String fileName, int fileId, FileType fileType, long fileSize, int lineCount, String encoding) {
         this.fileName = fileName;
-        this.filePath = filePath;
+        this.fileId = fileId;
         this.fileType = fileType;
         this.fileSize = fileSize;
         this.lineCount = lineCount;
+        this.encoding = encoding;
     }
     
     // Getters and Setters
     public String getFileName() { return fileName; }
     public void setFileName(String fileName) { this.fileName = fileName; }
     
-    public String getFilePath() { return filePath; }
-    public void setFilePath(String filePath) { this.filePath = filePath; }
+    public int getFileId() { return fileId; }
+    public void setFileId(int fileId) { this.fileId = fileId; }
     
-    public String getFileType() { return fileType; }
-    public void setFileType(String fileType) { this.fileType = fileType; }
+    public FileType getFileType() { return fileType; }
+    public void setFileType(FileType fileType) { this.fileType = fileType; }
     
     public long getFileSize() { return fileSize; }
     public void setFileSize(long fileSize) { this.fileSize = fileSize; }
     
     public int getLineCount() { return lineCount; }
     public void setLineCount(int lineCount) { this.lineCount = lineCount; }
+    
+    public String getEncoding() { return encoding; }
+    public void setEncoding(String encoding) { this.encoding = encoding; }
+    
+    /**
+     * True when the file's code was not analyzed because it exceeded its time budget, now or in an earlier run.
+     * A file quarantined by an earlier run is not read, so its line count is 0 and its encoding null.
+     */
+    public boolean isQuarantined() { return quarantined; }
+    public void setQuarantined(boolean quarantined) { this.quarantined = quarantined; }
 }
\ No newline at end of file
@@ -5,12 +5,14 @@ package net.gcae.utils.extractor.model;
  */
 public class FileReference {
     private String referencedFile;
-    private String fileLocation;
-    private String referenceType;
+    private int fileId;
+    private int line;
+    private ReferenceType referenceType;
     
-    public FileReference(String referencedFile, String fileLocation, String referenceType) {
+    public FileReference(String referencedFile, int fileId, int line, ReferenceType referenceType) {
         this.referencedFile = referencedFile;
-        this.fileLocation = fileLocation;
+        this.fileId = fileId;
+        this.line = line;
         this.referenceType = referenceType;
     }
     
@@ -18,9 +20,12 @@ public class FileReference {
     public String getReferencedFile() { return referencedFile; }
     public void setReferencedFile(String referencedFile) { this.referencedFile = referencedFile; }
     
-    public String getFileLocation() { return fileLocation; }
-    public void setFileLocation(String fileLocation) { this.fileLocation = fileLocation; }
+    public int getFileId() { return fileId; }
+    public void setFileId(int fileId) { this.fileId = fileId; }
     
-    public String getReferenceType() { return referenceType; }
-    public void setReferenceType(String referenceType) { this.referenceType = referenceType; }
+    public int getLine() { return line; }
+    public void setLine(int line) { this.line = line; }
+    
+    public ReferenceType getReferenceType() { return referenceType; }
+    public void setReferenceType(ReferenceType referenceType) { this.referenceType = referenceType; }
 }
\ No newline at end of file
@@ -0,0 +1,23 @@
+package net.gcae.utils.extractor.model;
+
+/**
+ * Type of a file in the project inventory, derived from its extension
+ */
+public enum FileType {
+    PHP("PHP"),
+    HTML("HTML"),
+    JAVASCRIPT("JavaScript"),
+    CSS("CSS"),
+    OTHER("Other");
+
+    private final String label;
+
+    FileType(String label) {
+        this.label = label;
+    }
+
+    /**
+     * Returns the text shown in reports.
+     */
+    public String getLabel() { return label; }
+}
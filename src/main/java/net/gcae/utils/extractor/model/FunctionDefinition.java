@@ -5,14 +5,16 @@ package net.gcae.utils.extractor.model;
  */
 public class FunctionDefinition {
     private String functionName;
-    private String fileLocation;
+    private int fileId;
+    private int line;
     private int lineCount;
-    private String complexity;
+    private Complexity complexity;
     private String parameters;
     
-    public FunctionDefinition(String functionName, String fileLocation, int lineCount, String complexity, String parameters) {
+    public FunctionDefinition(String functionName, int fileId, int line, int lineCount, Complexity complexity, String parameters) {
         this.functionName = functionName;
-        this.fileLocation = fileLocation;
+        this.fileId = fileId;
+        this.line = line;
         this.lineCount = lineCount;
         this.complexity = complexity;
         this.parameters = parameters;
@@ -22,14 +24,17 @@ public class FunctionDefinition {
     public String getFunctionName() { return functionName; }
     public void setFunctionName(String functionName) { this.functionName = functionName; }
     
-    public String getFileLocation() { return fileLocation; }
-    public void setFileLocation(String fileLocation) { this.fileLocation = fileLocation; }
+    public int getFileId() { return fileId; }
+    public void setFileId(int fileId) { this.fileId = fileId; }
+    
+    public int getLine() { return line; }
+    public void setLine(int line) { this.line = line; }
     
     public int getLineCount() { return lineCount; }
     public void setLineCount(int lineCount) { this.lineCount = lineCount; }
     
-    public String getComplexity() { return complexity; }
-    public void setComplexity(String complexity) { this.complexity = complexity; }
+    public Complexity getComplexity() { return complexity; }
+    public void setComplexity(Complexity complexity) { this.complexity = complexity; }
     
     public String getParameters() { return parameters; }
     public void setParameters(String parameters) { this.parameters = parameters; }
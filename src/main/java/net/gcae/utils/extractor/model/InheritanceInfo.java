@@ -6,13 +6,15 @@ package net.gcae.utils.extractor.model;
 public class InheritanceInfo {
     private String childName;
     private String parentName;
-    private String fileLocation;
-    private String inheritanceType;
+    private int fileId;
+    private int line;
+    private InheritanceType inheritanceType;
     
-    public InheritanceInfo(String childName, String parentName, String fileLocation, String inheritanceType) {
+    public InheritanceInfo(String childName, String parentName, int fileId, int line, InheritanceType inheritanceType) {
         this.childName = childName;
         this.parentName = parentName;
-        this.fileLocation = fileLocation;
+        this.fileId = fileId;
+        this.line = line;
         this.inheritanceType = inheritanceType;
     }
     
@@ -23,9 +25,12 @@ public class InheritanceInfo {
     public String getParentName() { return parentName; }
     public void setParentName(String parentName) { this.parentName = parentName; }
     
-    public String getFileLocation() { return fileLocation; }
-    public void setFileLocation(String fileLocation) { this.fileLocation = fileLocation; }
+    public int getFileId() { return fileId; }
+    public void setFileId(int fileId) { this.fileId = fileId; }
     
-    public String getInheritanceType() { return inheritanceType; }
-    public void setInheritanceType(String inheritanceType) { this.inheritanceType = inheritanceType; }
+    public int getLine() { return line; }
+    public void setLine(int line) { this.line = line; }
+    
+    public InheritanceType getInheritanceType() { return inheritanceType; }
+    public void setInheritanceType(InheritanceType inheritanceType) { this.inheritanceType = inheritanceType; }
 }
\ No newline at end of file
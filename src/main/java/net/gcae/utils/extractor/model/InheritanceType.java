@@ -0,0 +1,20 @@
+package net.gcae.utils.extractor.model;
+
+/**
+ * Kind of inheritance relation between two types
+ */
+public enum InheritanceType {
+    USE_TRAIT("use trait"),
+    EXTENDS("extends");
+
+    private final String label;
+
+    InheritanceType(String label) {
+        this.label = label;
+    }
+
+    /**
+     * Returns the text shown in reports.
+     */
+    public String getLabel() { return label; }
+}
@@ -5,13 +5,15 @@ package net.gcae.utils.extractor.model;
  */
 public class InterfaceDefinition {
     private String interfaceName;
-    private String fileLocation;
+    private int fileId;
+    private int line;
     private int methodCount;
     private String extendsInterface;
     
-    public InterfaceDefinition(String interfaceName, String fileLocation, int methodCount, String extendsInterface) {
+    public InterfaceDefinition(String interfaceName, int fileId, int line, int methodCount, String extendsInterface) {
         this.interfaceName = interfaceName;
-        this.fileLocation = fileLocation;
+        this.fileId = fileId;
+        this.line = line;
         this.methodCount = methodCount;
         this.extendsInterface = extendsInterface;
     }
@@ -20,8 +22,11 @@ public class InterfaceDefinition {
     public String getInterfaceName() { return interfaceName; }
     public void setInterfaceName(String interfaceName) { this.interfaceName = interfaceName; }
     
-    public String getFileLocation() { return fileLocation; }
-    public void setFileLocation(String fileLocation) { this.fileLocation = fileLocation; }
+    public int getFileId() { return fileId; }
+    public void setFileId(int fileId) { this.fileId = fileId; }
+    
+    public int getLine() { return line; }
+    public void setLine(int line) { this.line = line; }
     
     public int getMethodCount() { return methodCount; }
     public void setMethodCount(int methodCount) { this.methodCount = methodCount; }
@@ -6,12 +6,14 @@ package net.gcae.utils.extractor.model;
 public class InterfaceImplementation {
     private String className;
     private String interfaceName;
-    private String fileLocation;
+    private int fileId;
+    private int line;
     
-    public InterfaceImplementation(String className, String interfaceName, String fileLocation) {
+    public InterfaceImplementation(String className, String interfaceName, int fileId, int line) {
         this.className = className;
         this.interfaceName = interfaceName;
-        this.fileLocation = fileLocation;
+        this.fileId = fileId;
+        this.line = line;
     }
     
     // Getters and Setters
@@ -21,6 +23,9 @@ public class InterfaceImplementation {
     public String getInterfaceName() { return interfaceName; }
     public void setInterfaceName(String interfaceName) { this.interfaceName = interfaceName; }
     
-    public String getFileLocation() { return fileLocation; }
-    public void setFileLocation(String fileLocation) { this.fileLocation = fileLocation; }
+    public int getFileId() { return fileId; }
+    public void setFileId(int fileId) { this.fileId = fileId; }
+    
+    public int getLine() { return line; }
+    public void setLine(int line) { this.line = line; }
 }
\ No newline at end of file
@@ -0,0 +1,71 @@
+package net.gcae.utils.extractor.model;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Table of the file paths that the records of one run refer to. Records hold the
+ * int id of their file instead of the path itself, so a path is stored once no
+ * matter how many records point into that file; the "path:line" location shown
+ * in reports is only built when a report is written.
+ *
+ * <p>Each run (a report job, a watch session, an {@link AnalysisResult}) owns its
+ * table and hands it to whatever produces records; every {@link FileAnalysis}
+ * carries the table its ids belong to. Ids are assigned in order of first use
+ * and the table is released with the run's records.
+ *
+ * <p>The table may be shared by the worker threads of a run. An id is only
+ * known to a thread after the path was stored, either through {@link #intern}
+ * or through the record it was handed, so {@link #path} needs no lock.
+ */
+public final class PathTable {
+
+    private final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+    private volatile String[] paths = new String[1024];
+    private int size;
+
+    /**
+     * Returns the id of a path, adding it to the table on first use.
+     */
+    public int intern(String path) {
+        Integer id = ids.get(path);
+        return id != null ? id : add(path);
+    }
+
+    private synchronized int add(String path) {
+        Integer id = ids.get(path);
+        if (id != null) {
+            return id;
+        }
+        String[] table = paths;
+        if (size == table.length) {
+            table = Arrays.copyOf(table, size * 2);
+        }
+        table[size] = path;
+        // Publish the array holding the path before the id becomes visible
+        paths = table;
+        ids.put(path, size);
+        return size++;
+    }
+
+    /**
+     * Returns the path with the given id.
+     */
+    public String path(int id) {
+        return paths[id];
+    }
+
+    /**
+     * Renders a record location as "path:line".
+     */
+    public String location(int fileId, int line) {
+        return paths[fileId] + ":" + line;
+    }
+
+    /**
+     * Returns the number of paths in the table.
+     */
+    public synchronized int size() {
+        return size;
+    }
+}
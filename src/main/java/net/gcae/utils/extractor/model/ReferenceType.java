@@ -0,0 +1,20 @@
+package net.gcae.utils.extractor.model;
+
+/**
+ * Statement that references another file
+ */
+public enum ReferenceType {
+    REQUIRE("require"),
+    INCLUDE("include");
+
+    private final String label;
+
+    ReferenceType(String label) {
+        this.label = label;
+    }
+
+    /**
+     * Returns the text shown in reports.
+     */
+    public String getLabel() { return label; }
+}
@@ -6,15 +6,17 @@ package net.gcae.utils.extractor.model;
 public class SQLQuery {
     private String queryName;
     private String dbTable;
-    private String fileLocation;
+    private int fileId;
+    private int line;
     private String dataSource;
     private String sqlQuery;
-    private String complexity;
+    private Complexity complexity;
     
-    public SQLQuery(String queryName, String dbTable, String fileLocation, String dataSource, String sqlQuery, String complexity) {
+    public SQLQuery(String queryName, String dbTable, int fileId, int line, String dataSource, String sqlQuery, Complexity complexity) {
         this.queryName = queryName;
         this.dbTable = dbTable;
-        this.fileLocation = fileLocation;
+        this.fileId = fileId;
+        this.line = line;
         this.dataSource = dataSource;
         this.sqlQuery = sqlQuery;
         this.complexity = complexity;
@@ -27,8 +29,11 @@ public class SQLQuery {
     public String getDbTable() { return dbTable; }
     public void setDbTable(String dbTable) { this.dbTable = dbTable; }
     
-    public String getFileLocation() { return fileLocation; }
-    public void setFileLocation(String fileLocation) { this.fileLocation = fileLocation; }
+    public int getFileId() { return fileId; }
+    public void setFileId(int fileId) { this.fileId = fileId; }
+    
+    public int getLine() { return line; }
+    public void setLine(int line) { this.line = line; }
     
     public String getDataSource() { return dataSource; }
     public void setDataSource(String dataSource) { this.dataSource = dataSource; }
@@ -36,6 +41,6 @@ public class SQLQuery {
     public String getSqlQuery() { return sqlQuery; }
     public void setSqlQuery(String sqlQuery) { this.sqlQuery = sqlQuery; }
     
-    public String getComplexity() { return complexity; }
-    public void setComplexity(String complexity) { this.complexity = complexity; }
+    public Complexity getComplexity() { return complexity; }
+    public void setComplexity(Complexity complexity) { this.complexity = complexity; }
 }
\ No newline at end of file
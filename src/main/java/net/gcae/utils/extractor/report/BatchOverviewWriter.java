@@ -0,0 +1,152 @@
+package net.gcae.utils.extractor.report;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.gcae.utils.extractor.model.AnalysisSummary;
+
+/**
+ * Writes the overview of a batch run: one row per project with its counts, run time
+ * and report, and a total row. Projects that failed keep their row with the error.
+ */
+public class BatchOverviewWriter implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(BatchOverviewWriter.class);
+
+    public static final String SHEET_NAME = "Batch Overview";
+
+    private static final String[] HEADERS = {
+        "Project", "Path", "Status", "Files", "Quarantined", "SQL Queries", "Requires", "Includes",
+        "CURL Calls", "Functions", "Classes", "Interfaces", "Time (s)", "Report"
+    };
+
+    // Columns holding counts, summed into the total row
+    private static final int FIRST_COUNT = 3;
+    private static final int LAST_COUNT = 11;
+
+    private final String outputPath;
+    private final XSSFWorkbook workbook = new XSSFWorkbook();
+    private final Sheet sheet;
+    private final CellStyle headerStyle;
+    private final CellStyle dataStyle;
+    private final long[] totals = new long[HEADERS.length];
+    private final int[] maxLengths = new int[HEADERS.length];
+    private double totalSeconds;
+    private int projects;
+    private int failed;
+
+    public BatchOverviewWriter(String outputPath) {
+        this.outputPath = outputPath;
+        this.headerStyle = ExcelReportWriter.createHeaderStyle(workbook);
+        this.dataStyle = ExcelReportWriter.createDataStyle(workbook);
+        this.sheet = workbook.createSheet(SHEET_NAME);
+        Row header = sheet.createRow(0);
+        for (int i = 0; i < HEADERS.length; i++) {
+            Cell cell = header.createCell(i);
+            cell.setCellValue(HEADERS[i]);
+            cell.setCellStyle(headerStyle);
+            maxLengths[i] = HEADERS[i].length();
+        }
+    }
+
+    /**
+     * Adds a project's row.
+     *
+     * @param summary counts of a completed project, or null when it failed
+     * @param reportPath the project's report, or null when it failed
+     * @param error the reason it failed, or null
+     */
+    public void addProject(String name, String path, AnalysisSummary summary, long millis, String reportPath, String error) {
+        Row row = sheet.createRow(++projects);
+        text(row, 0, name);
+        text(row, 1, path);
+        text(row, 2, error == null ? "OK" : "Failed: " + error);
+        if (summary != null) {
+            count(row, 3, summary.getFiles());
+            count(row, 4, summary.getQuarantined());
+            count(row, 5, summary.getSqlQueries());
+            count(row, 6, summary.getRequires());
+            count(row, 7, summary.getIncludes());
+            count(row, 8, summary.getCurlCalls());
+            count(row, 9, summary.getFunctions());
+            count(row, 10, summary.getClasses());
+            count(row, 11, summary.getInterfaces());
+        }
+        double seconds = Math.round(millis / 10.0) / 100.0;
+        seconds(row, 12, seconds);
+        totalSeconds += seconds;
+        text(row, 13, reportPath);
+        if (error != null) {
+            failed++;
+        }
+    }
+
+    /**
+     * Adds the total row and writes the workbook.
+     */
+    public void finish() throws IOException {
+        Row row = sheet.createRow(projects + 1);
+        text(row, 0, "Total");
+        text(row, 2, projects + " projects, " + failed + " failed");
+        for (int i = FIRST_COUNT; i <= LAST_COUNT; i++) {
+            Cell cell = row.createCell(i);
+            cell.setCellValue(totals[i]);
+        }
+        seconds(row, 12, Math.round(totalSeconds * 100) / 100.0);
+        // The total row is set off like the header
+        for (Cell cell : row) {
+            cell.setCellStyle(headerStyle);
+        }
+        for (int i = 0; i < HEADERS.length; i++) {
+            sheet.setColumnWidth(i, Math.min(255, maxLengths[i] + 2) * 256);
+        }
+
+        File parentDir = new File(outputPath).getAbsoluteFile().getParentFile();
+        if (parentDir != null && !parentDir.exists()) {
+            parentDir.mkdirs();
+        }
+        try (FileOutputStream out = new FileOutputStream(outputPath)) {
+            workbook.write(out);
+        }
+        logger.info("Batch overview written to: {}", outputPath);
+    }
+
+    @Override
+    public void close() throws IOException {
+        workbook.close();
+    }
+
+    private void text(Row row, int column, String value) {
+        if (value == null) {
+            return;
+        }
+        Cell cell = row.createCell(column);
+        cell.setCellValue(value);
+        cell.setCellStyle(dataStyle);
+        maxLengths[column] = Math.max(maxLengths[column], value.length());
+    }
+
+    private void count(Row row, int column, long value) {
+        Cell cell = row.createCell(column);
+        cell.setCellValue(value);
+        cell.setCellStyle(dataStyle);
+        totals[column] += value;
+        maxLengths[column] = Math.max(maxLengths[column], Long.toString(value).length());
+    }
+
+    private void seconds(Row row, int column, double value) {
+        Cell cell = row.createCell(column);
+        cell.setCellValue(value);
+        cell.setCellStyle(dataStyle);
+        maxLengths[column] = Math.max(maxLengths[column], Double.toString(value).length());
+    }
+}
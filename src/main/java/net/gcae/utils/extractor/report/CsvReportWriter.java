@@ -0,0 +1,142 @@
+package net.gcae.utils.extractor.report;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Writes the report as a directory of CSV files, one per category and named after
+ * its sheet. A file is created, with its header line, when the category's first
+ * record arrives, and every row is written as soon as it is complete. Fields are
+ * quoted as RFC 4180 describes when they hold a comma, a quote or a line break;
+ * rows end with a line feed.
+ */
+public class CsvReportWriter extends TabularReportWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(CsvReportWriter.class);
+
+    private final Path directory;
+    private final boolean gzip;
+    private final Map<ReportSheet, Writer> files = new EnumMap<>(ReportSheet.class);
+    private Writer out;
+    private int columns;
+    private int nextColumn;
+
+    /**
+     * @param directory the directory to write the files to; it is created if needed
+     * @param gzip compress each file, adding .gz to its name
+     */
+    public CsvReportWriter(Path directory, boolean gzip) throws IOException {
+        logger.info("Writing CSV report to: {}", directory);
+        this.directory = directory;
+        this.gzip = gzip;
+        Files.createDirectories(directory);
+    }
+
+    @Override
+    protected void startRow(ReportSheet sheet) throws IOException {
+        out = files.get(sheet);
+        String[] headers = sheet.getHeaders();
+        columns = headers.length;
+        if (out == null) {
+            String name = sheet.getSheetName() + ".csv" + (gzip ? ".gz" : "");
+            out = new OutputStreamWriter(openFile(directory.resolve(name), gzip), StandardCharsets.UTF_8);
+            files.put(sheet, out);
+            nextColumn = 0;
+            for (int i = 0; i < headers.length; i++) {
+                cell(i, headers[i]);
+            }
+            endRow();
+        }
+        nextColumn = 0;
+    }
+
+    @Override
+    protected void cell(int column, String value) throws IOException {
+        separate(column);
+        if (value != null) {
+            field(value);
+        }
+    }
+
+    @Override
+    protected void cell(int column, long value) throws IOException {
+        separate(column);
+        out.write(Long.toString(value));
+    }
+
+    @Override
+    protected void endRow() throws IOException {
+        // Cells that were not set still get their separators
+        separate(columns);
+        out.write('\n');
+    }
+
+    @Override
+    public void finish() throws IOException {
+        for (Writer file : files.values()) {
+            file.flush();
+        }
+        logger.info("CSV report written with {} files", files.size());
+    }
+
+    @Override
+    public void close() throws IOException {
+        IOException failure = null;
+        for (Writer file : files.values()) {
+            try {
+                file.close();
+            } catch (IOException e) {
+                if (failure == null) {
+                    failure = e;
+                }
+            }
+        }
+        files.clear();
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private void separate(int column) throws IOException {
+        while (nextColumn < column) {
+            if (nextColumn > 0) {
+                out.write(',');
+            }
+            nextColumn++;
+        }
+        if (column > 0 && column < columns) {
+            out.write(',');
+        }
+        nextColumn = column + 1;
+    }
+
+    private void field(String value) throws IOException {
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            out.write(value);
+            return;
+        }
+        out.write('"');
+        int start = 0;
+        for (int i = value.indexOf('"'); i >= 0; i = value.indexOf('"', start)) {
+            out.write(value, start, i + 1 - start);
+            out.write('"');
+            start = i + 1;
+        }
+        out.write(value, start, value.length() - start);
+        out.write('"');
+    }
+}
@@ -0,0 +1,379 @@
+package net.gcae.utils.extractor.report;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.usermodel.BorderStyle;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.FillPatternType;
+import org.apache.poi.ss.usermodel.Font;
+import org.apache.poi.ss.usermodel.IndexedColors;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.gcae.utils.extractor.analyzer.AnalysisMetrics;
+
+/**
+ * Writes the Excel report incrementally: rows are added as each file's records
+ * arrive, a sheet is created when its first row is written, and the overview
+ * sheet and final sheet order are produced by {@link #finish()}.
+ *
+ * <p>By default the workbook is streamed: only the last {@link #DEFAULT_ROW_WINDOW}
+ * rows of each sheet stay in memory and older rows are flushed to compressed
+ * temporary files. Column widths are estimated from the longest value written to
+ * each column rather than measured with fonts, which would need every row in memory.
+ *
+ * <p>A sheet that reaches Excel's row limit continues on sheets named
+ * "name (2)", "name (3)" and so on, each with its own header row.
+ */
+public class ExcelReportWriter extends TabularReportWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExcelReportWriter.class);
+
+    // Rows kept in memory per sheet when streaming
+    public static final int DEFAULT_ROW_WINDOW = 100;
+
+    // Excel's column width limit, in characters
+    private static final int MAX_COLUMN_WIDTH = 255;
+
+    // Excel's cell text limit; longer values (e.g. very long SQL statements) are truncated
+    private static final int MAX_CELL_LENGTH = SpreadsheetVersion.EXCEL2007.getMaxTextLength();
+
+    // Excel's limits on rows per sheet, header included, and on sheet name length
+    private static final int MAX_ROWS = SpreadsheetVersion.EXCEL2007.getMaxRows();
+    private static final int MAX_SHEET_NAME_LENGTH = 31;
+
+    private final String outputPath;
+    private final int maxRows;
+    private final Workbook workbook;
+    private final CellStyle headerStyle;
+    private final CellStyle dataStyle;
+    private final Map<ReportSheet, SheetWriter> sheets = new EnumMap<>(ReportSheet.class);
+    private SheetWriter performanceSheet;
+    private SheetWriter current;
+
+    public ExcelReportWriter(String outputPath) {
+        this(outputPath, DEFAULT_ROW_WINDOW);
+    }
+
+    /**
+     * @param outputPath the .xlsx file to write
+     * @param rowWindow rows kept in memory per sheet; 0 builds the whole workbook in memory
+     */
+    public ExcelReportWriter(String outputPath, int rowWindow) {
+        this(outputPath, rowWindow, MAX_ROWS);
+    }
+
+    ExcelReportWriter(String outputPath, int rowWindow, int maxRows) {
+        logger.info("Generating Excel report: {}", outputPath);
+        this.outputPath = outputPath;
+        this.maxRows = maxRows;
+
+        // Ensure output directory exists
+        File parentDir = new File(outputPath).getParentFile();
+        if (parentDir != null && !parentDir.exists()) {
+            parentDir.mkdirs();
+            logger.debug("Created output directory: {}", parentDir.getAbsolutePath());
+        }
+
+        if (rowWindow > 0) {
+            SXSSFWorkbook streamingWorkbook = new SXSSFWorkbook(rowWindow);
+            streamingWorkbook.setCompressTempFiles(true);
+            this.workbook = streamingWorkbook;
+        } else {
+            this.workbook = new XSSFWorkbook();
+        }
+        this.headerStyle = createHeaderStyle(workbook);
+        this.dataStyle = createDataStyle(workbook);
+    }
+
+    @Override
+    protected void startRow(ReportSheet reportSheet) {
+        current = sheets.get(reportSheet);
+        if (current == null) {
+            current = new SheetWriter(workbook.createSheet(reportSheet.getSheetName()), reportSheet.getHeaders());
+            sheets.put(reportSheet, current);
+        }
+        current.startRow();
+    }
+
+    @Override
+    protected void cell(int column, String value) {
+        current.cell(column, value);
+    }
+
+    @Override
+    protected void cell(int column, long value) {
+        current.cell(column, value);
+    }
+
+    /**
+     * Adds a sheet with the run's timings: totals, read and decode time, each
+     * extractor, and the slowest files. Call it once, before {@link #finish()}.
+     */
+    public void addPerformance(AnalysisMetrics metrics) {
+        String[] headers = {"Category", "Name", "Files", "Matches", "Time (ms)", "Bytes"};
+        SheetWriter sheet = new SheetWriter(workbook.createSheet(ReportSheet.PERFORMANCE_SHEET), headers);
+
+        sheet.startRow();
+        sheet.cell(0, "Run");
+        sheet.cell(1, "wall time");
+        sheet.cell(2, metrics.getFilesAnalyzed() + metrics.getFilesReused() + metrics.getFilesQuarantined());
+        sheet.cell(4, millis(metrics.getWallNanos()));
+        sheet.cell(5, metrics.getBytesRead());
+
+        sheet.startRow();
+        sheet.cell(0, "Run");
+        sheet.cell(1, "reused from cache");
+        sheet.cell(2, metrics.getFilesReused());
+
+        sheet.startRow();
+        sheet.cell(0, "Run");
+        sheet.cell(1, "skipped, quarantined");
+        sheet.cell(2, metrics.getFilesQuarantined());
+
+        sheet.startRow();
+        sheet.cell(0, "I/O");
+        sheet.cell(1, "read");
+        sheet.cell(2, metrics.getFilesAnalyzed());
+        sheet.cell(4, millis(metrics.getReadNanos()));
+        sheet.cell(5, metrics.getBytesRead());
+
+        sheet.startRow();
+        sheet.cell(0, "I/O");
+        sheet.cell(1, "decode");
+        sheet.cell(2, metrics.getFilesAnalyzed());
+        sheet.cell(4, millis(metrics.getDecodeNanos()));
+
+        for (AnalysisMetrics.Stage stage : AnalysisMetrics.Stage.values()) {
+            sheet.startRow();
+            sheet.cell(0, "Extractor");
+            sheet.cell(1, stage.getLabel());
+            sheet.cell(2, metrics.getPhpFiles());
+            sheet.cell(3, metrics.getStageMatches(stage));
+            sheet.cell(4, millis(metrics.getStageNanos(stage)));
+        }
+
+        for (AnalysisMetrics.FileTiming file : metrics.getSlowestFiles()) {
+            sheet.startRow();
+            sheet.cell(0, "Slowest file");
+            sheet.cell(1, file.getPath());
+            sheet.cell(4, millis(file.getNanos()));
+            sheet.cell(5, file.getBytes());
+        }
+        performanceSheet = sheet;
+    }
+
+    /**
+     * Adds the overview sheet, puts the sheets in report order and writes the workbook.
+     */
+    @Override
+    public void finish() throws IOException {
+        try {
+            createOverviewSheet();
+
+            int position = 1;
+            for (ReportSheet reportSheet : ReportSheet.values()) {
+                SheetWriter writer = sheets.get(reportSheet);
+                if (writer == null) {
+                    logger.info("No {} data found, skipping {} sheet", reportSheet.getLabel(), reportSheet.getSheetName());
+                    continue;
+                }
+                for (Sheet sheet : writer.sheets) {
+                    workbook.setSheetOrder(sheet.getSheetName(), position++);
+                }
+                writer.applyColumnWidths();
+                logger.debug("Created {} sheet with {} entries", reportSheet.getLabel(), writer.rowCount());
+            }
+            if (performanceSheet != null) {
+                workbook.setSheetOrder(ReportSheet.PERFORMANCE_SHEET, position);
+                performanceSheet.applyColumnWidths();
+            }
+            workbook.setActiveSheet(0);
+            workbook.setSelectedTab(0);
+
+            // Write the workbook to file
+            try (FileOutputStream fileOut = new FileOutputStream(outputPath)) {
+                workbook.write(fileOut);
+                logger.info("Excel report written successfully to: {}", outputPath);
+            }
+
+            logger.info("Excel report generated successfully with {} sheets", workbook.getNumberOfSheets());
+        } catch (Exception e) {
+            logger.error("Error generating Excel report: {}", e.getMessage(), e);
+            throw new IOException("Failed to generate Excel report: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (workbook instanceof SXSSFWorkbook) {
+            // Delete the temporary files backing the flushed rows
+            ((SXSSFWorkbook) workbook).dispose();
+        }
+        workbook.close();
+    }
+
+    private void createOverviewSheet() {
+        String[] headers = {"Category", "Count", "Description"};
+        SheetWriter sheet = new SheetWriter(workbook.createSheet(ReportSheet.OVERVIEW_SHEET), headers);
+        workbook.setSheetOrder(ReportSheet.OVERVIEW_SHEET, 0);
+
+        for (ReportSheet reportSheet : ReportSheet.values()) {
+            SheetWriter writer = sheets.get(reportSheet);
+            sheet.startRow();
+            sheet.cell(0, reportSheet.getOverviewCategory());
+            sheet.cell(1, writer != null ? writer.rowCount() : 0);
+            sheet.cell(2, reportSheet.getOverviewDescription());
+        }
+
+        sheet.applyColumnWidths();
+    }
+
+    static CellStyle createHeaderStyle(Workbook workbook) {
+        CellStyle style = workbook.createCellStyle();
+        Font font = workbook.createFont();
+        font.setBold(true);
+        font.setColor(IndexedColors.WHITE.getIndex());
+        style.setFont(font);
+        style.setFillForegroundColor(IndexedColors.DARK_BLUE.getIndex());
+        style.setFillPattern(FillPatternType.SOLID_FOREGROUND);
+        style.setBorderBottom(BorderStyle.THIN);
+        style.setBorderTop(BorderStyle.THIN);
+        style.setBorderRight(BorderStyle.THIN);
+        style.setBorderLeft(BorderStyle.THIN);
+        return style;
+    }
+
+    static CellStyle createDataStyle(Workbook workbook) {
+        CellStyle style = workbook.createCellStyle();
+        style.setBorderBottom(BorderStyle.THIN);
+        style.setBorderTop(BorderStyle.THIN);
+        style.setBorderRight(BorderStyle.THIN);
+        style.setBorderLeft(BorderStyle.THIN);
+        return style;
+    }
+
+    /**
+     * Appends rows to one sheet, below its header row, and tracks the longest
+     * value written to each column. Rows past the row limit go to a continuation sheet.
+     */
+    private final class SheetWriter {
+        private final List<Sheet> sheets = new ArrayList<>();
+        private final String[] headers;
+        private final int[] maxLengths;
+        private Sheet sheet;
+        private int nextRow;
+        private int rows;
+        private Row row;
+
+        SheetWriter(Sheet sheet, String[] headers) {
+            this.headers = headers;
+            this.maxLengths = new int[headers.length];
+            for (int i = 0; i < headers.length; i++) {
+                maxLengths[i] = headers[i].length();
+            }
+            addSheet(sheet);
+        }
+
+        private void addSheet(Sheet next) {
+            sheet = next;
+            sheets.add(next);
+            nextRow = 0;
+            Row headerRow = sheet.createRow(nextRow++);
+            for (int i = 0; i < headers.length; i++) {
+                Cell cell = headerRow.createCell(i);
+                cell.setCellValue(headers[i]);
+                cell.setCellStyle(headerStyle);
+            }
+        }
+
+        void startRow() {
+            if (nextRow == maxRows) {
+                String name = sheets.get(0).getSheetName();
+                String suffix = " (" + (sheets.size() + 1) + ")";
+                name = name.substring(0, Math.min(name.length(), MAX_SHEET_NAME_LENGTH - suffix.length())) + suffix;
+                logger.warn("Sheet {} reached Excel's limit of {} rows, continuing on sheet {}",
+                        sheets.get(0).getSheetName(), maxRows, name);
+                addSheet(workbook.createSheet(name));
+            }
+            row = sheet.createRow(nextRow++);
+            rows++;
+        }
+
+        void cell(int column, String value) {
+            Cell cell = row.createCell(column);
+            if (value != null && value.length() > MAX_CELL_LENGTH) {
+                value = value.substring(0, MAX_CELL_LENGTH);
+            }
+            cell.setCellValue(value);
+            cell.setCellStyle(dataStyle);
+            if (value != null) {
+                track(column, longestLine(value));
+            }
+        }
+
+        void cell(int column, long value) {
+            Cell cell = row.createCell(column);
+            cell.setCellValue(value);
+            cell.setCellStyle(dataStyle);
+            track(column, Long.toString(value).length());
+        }
+
+        void cell(int column, double value) {
+            Cell cell = row.createCell(column);
+            cell.setCellValue(value);
+            cell.setCellStyle(dataStyle);
+            track(column, String.format(Locale.ROOT, "%.3f", value).length());
+        }
+
+        private void track(int column, int length) {
+            if (length > maxLengths[column]) {
+                maxLengths[column] = length;
+            }
+        }
+
+        void applyColumnWidths() {
+            for (Sheet each : sheets) {
+                for (int i = 0; i < maxLengths.length; i++) {
+                    // Widths are in 1/256ths of a character; two characters of padding for borders and the bold header
+                    int characters = Math.min(MAX_COLUMN_WIDTH, maxLengths[i] + 2);
+                    each.setColumnWidth(i, characters * 256);
+                }
+            }
+        }
+
+        int rowCount() {
+            return rows;
+        }
+    }
+
+    private static double millis(long nanos) {
+        return Math.round(nanos / 1000.0) / 1000.0;
+    }
+
+    private static int longestLine(String value) {
+        int longest = 0;
+        int lineStart = 0;
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) == '\n') {
+                longest = Math.max(longest, i - lineStart);
+                lineStart = i + 1;
+            }
+        }
+        return Math.max(longest, value.length() - lineStart);
+    }
+}
@@ -0,0 +1,313 @@
+package net.gcae.utils.extractor.report;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Properties;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Writes the report as a directory of HTML pages laid out by html-templates.properties.
+ * Each category is split into pages of a fixed number of rows, so that even a very
+ * large inventory opens quickly in a browser, and index.html lists every category with
+ * its count and links to its pages once all records have arrived.
+ *
+ * <p>Rows are rendered into their page as they arrive, and a page is completed when
+ * the next one is started; at most one page per category is open at a time and
+ * nothing else is held in memory.
+ */
+public class HtmlReportWriter extends TabularReportWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(HtmlReportWriter.class);
+
+    public static final String TEMPLATES_RESOURCE = "/html-templates.properties";
+
+    // Rows per page unless configured otherwise
+    public static final int DEFAULT_PAGE_SIZE = 1000;
+
+    public static final String INDEX_PAGE = "index.html";
+
+    // Variables of the templates around the tables, by position
+    private static final String[] PAGE_VARIABLES = {"title", "timestamp", "count", "pageSize", "page", "href", "first", "last"};
+    private static final int TITLE = 0;
+    private static final int TIMESTAMP = 1;
+    private static final int COUNT = 2;
+    private static final int PAGE_SIZE = 3;
+    private static final int PAGE = 4;
+    private static final int HREF = 5;
+    private static final int FIRST = 6;
+    private static final int LAST = 7;
+
+    private final Path directory;
+    private final int pageSize;
+    private final String timestamp;
+    private final HtmlTemplate htmlHeader;
+    private final HtmlTemplate htmlFooter;
+    private final HtmlTemplate indexHeading;
+    private final HtmlTemplate indexPagesHeader;
+    private final HtmlTemplate indexPagesLink;
+    private final HtmlTemplate indexPagesFooter;
+    private final HtmlTemplate indexEmpty;
+    private final HtmlTemplate pageHeading;
+    private final HtmlTemplate pageRows;
+    private final HtmlTemplate pagePrevious;
+    private final HtmlTemplate pageNext;
+    private final HtmlTemplate pageFooter;
+    private final String indexTitle;
+    private final Map<ReportSheet, Category> categories = new EnumMap<>(ReportSheet.class);
+    private final String[] pageValues = new String[PAGE_VARIABLES.length];
+    private Category current;
+
+    /**
+     * @param directory the directory to write the pages to; it is created if needed
+     * @param pageSize rows per page
+     * @throws IOException if the templates cannot be read, or one is missing or invalid
+     */
+    public HtmlReportWriter(Path directory, int pageSize) throws IOException {
+        logger.info("Writing HTML report to: {}", directory);
+        this.directory = directory;
+        this.pageSize = Math.max(1, pageSize);
+        this.timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"));
+
+        Properties templates = loadTemplates();
+        this.htmlHeader = compile(templates, "html.header");
+        this.htmlFooter = compile(templates, "html.footer");
+        this.indexTitle = template(templates, "index.title");
+        this.indexHeading = compile(templates, "index.heading");
+        this.indexPagesHeader = compile(templates, "index.pages.header");
+        this.indexPagesLink = compile(templates, "index.pages.link");
+        this.indexPagesFooter = compile(templates, "index.pages.footer");
+        this.indexEmpty = compile(templates, "index.empty");
+        this.pageHeading = compile(templates, "page.heading");
+        this.pageRows = compile(templates, "page.rows");
+        this.pagePrevious = compile(templates, "page.previous");
+        this.pageNext = compile(templates, "page.next");
+        this.pageFooter = compile(templates, "page.footer");
+        for (ReportSheet sheet : ReportSheet.values()) {
+            categories.put(sheet, new Category(templates, sheet));
+        }
+        Files.createDirectories(directory);
+    }
+
+    @Override
+    protected void startRow(ReportSheet sheet) throws IOException {
+        current = categories.get(sheet);
+        if (current.page == null || current.pageRows == pageSize) {
+            if (current.page != null) {
+                closePage(current, true);
+            }
+            openPage(current);
+        }
+        current.rows++;
+        current.pageRows++;
+        Arrays.fill(current.values, null);
+    }
+
+    @Override
+    protected void cell(int column, String value) {
+        current.values[column] = value;
+    }
+
+    @Override
+    protected void cell(int column, long value) {
+        current.values[column] = Long.toString(value);
+    }
+
+    @Override
+    protected void endRow() throws IOException {
+        current.row.render(current.page, current.values);
+    }
+
+    /**
+     * Completes the last page of each category and writes the index page.
+     */
+    @Override
+    public void finish() throws IOException {
+        for (Category category : categories.values()) {
+            if (category.page != null) {
+                closePage(category, false);
+            }
+        }
+        try (Writer out = openPage(INDEX_PAGE)) {
+            clearPageValues();
+            pageValues[TITLE] = indexTitle;
+            pageValues[TIMESTAMP] = timestamp;
+            pageValues[PAGE_SIZE] = Integer.toString(pageSize);
+            htmlHeader.render(out, pageValues);
+            indexHeading.render(out, pageValues);
+            for (Category category : categories.values()) {
+                pageValues[COUNT] = Long.toString(category.rows);
+                category.heading.render(out, pageValues);
+                if (category.pages == 0) {
+                    indexEmpty.render(out, pageValues);
+                    continue;
+                }
+                indexPagesHeader.render(out, pageValues);
+                for (int page = 1; page <= category.pages; page++) {
+                    pageValues[PAGE] = Integer.toString(page);
+                    pageValues[HREF] = category.fileName(page);
+                    indexPagesLink.render(out, pageValues);
+                }
+                indexPagesFooter.render(out, pageValues);
+            }
+            htmlFooter.render(out, pageValues);
+        }
+        logger.info("HTML report written: {}", directory.resolve(INDEX_PAGE));
+    }
+
+    @Override
+    public void close() throws IOException {
+        // Pages still open here belong to a report that failed
+        for (Category category : categories.values()) {
+            if (category.page != null) {
+                category.page.close();
+                category.page = null;
+            }
+        }
+    }
+
+    private void openPage(Category category) throws IOException {
+        category.pages++;
+        category.pageRows = 0;
+        category.page = openPage(category.fileName(category.pages));
+        clearPageValues();
+        pageValues[TITLE] = category.title + " - page " + category.pages;
+        pageValues[TIMESTAMP] = timestamp;
+        htmlHeader.render(category.page, pageValues);
+        pageValues[TITLE] = category.title;
+        pageValues[PAGE] = Integer.toString(category.pages);
+        pageHeading.render(category.page, pageValues);
+        category.tableHeader.render(category.page, pageValues);
+    }
+
+    private void closePage(Category category, boolean hasNext) throws IOException {
+        Writer out = category.page;
+        clearPageValues();
+        pageValues[TITLE] = category.title;
+        pageValues[TIMESTAMP] = timestamp;
+        category.tableFooter.render(out, pageValues);
+        pageValues[FIRST] = Long.toString(category.rows - category.pageRows + 1);
+        pageValues[LAST] = Long.toString(category.rows);
+        pageRows.render(out, pageValues);
+        if (category.pages > 1) {
+            pageValues[HREF] = category.fileName(category.pages - 1);
+            pagePrevious.render(out, pageValues);
+        }
+        if (hasNext) {
+            pageValues[HREF] = category.fileName(category.pages + 1);
+            pageNext.render(out, pageValues);
+        }
+        pageFooter.render(out, pageValues);
+        htmlFooter.render(out, pageValues);
+        category.page = null;
+        out.close();
+    }
+
+    private Writer openPage(String fileName) throws IOException {
+        return new BufferedWriter(new OutputStreamWriter(openFile(directory.resolve(fileName), false),
+                StandardCharsets.UTF_8), BUFFER_SIZE);
+    }
+
+    private void clearPageValues() {
+        Arrays.fill(pageValues, null);
+    }
+
+    private static Properties loadTemplates() throws IOException {
+        try (InputStream in = HtmlReportWriter.class.getResourceAsStream(TEMPLATES_RESOURCE)) {
+            if (in == null) {
+                throw new IOException("HTML templates not found on the class path: " + TEMPLATES_RESOURCE);
+            }
+            Properties templates = new Properties();
+            try (Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+                templates.load(reader);
+            }
+            return templates;
+        }
+    }
+
+    private static String template(Properties templates, String key) throws IOException {
+        String text = templates.getProperty(key);
+        if (text == null) {
+            throw new IOException("Missing HTML template: " + key);
+        }
+        return text;
+    }
+
+    private static HtmlTemplate compile(Properties templates, String key, String... variableNames) throws IOException {
+        try {
+            return HtmlTemplate.compile(key, template(templates, key),
+                    variableNames.length > 0 ? variableNames : PAGE_VARIABLES);
+        } catch (IllegalArgumentException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Returns the template key of a category, as in "report.queries.table.row".
+     */
+    private static String templateKey(ReportSheet sheet) {
+        switch (sheet) {
+            case FILES: return "files";
+            case QUERIES: return "queries";
+            case REQUIRES: return "requires";
+            case INCLUDES: return "includes";
+            case CALLS: return "calls";
+            case FUNCTIONS: return "functions";
+            case CLASSES: return "classes";
+            case TRAITS: return "traituses";
+            case INHERITANCE: return "classextends";
+            case IMPLEMENTS: return "implements";
+            case INTERFACES: return "interfaces";
+            case INCLUDE_GRAPH: return "includegraph";
+            case INCLUDE_CYCLES: return "includecycles";
+            case ENTRY_POINT_INCLUDES: return "entrypoints";
+            default: throw new IllegalArgumentException("No HTML templates for " + sheet);
+        }
+    }
+
+    /**
+     * The compiled templates of one category and the page being written.
+     */
+    private static final class Category {
+        final String key;
+        final String title;
+        final HtmlTemplate heading;
+        final HtmlTemplate tableHeader;
+        final HtmlTemplate row;
+        final HtmlTemplate tableFooter;
+        final String[] values;
+        Writer page;
+        int pages;
+        int pageRows;
+        long rows;
+
+        Category(Properties templates, ReportSheet sheet) throws IOException {
+            key = templateKey(sheet);
+            String prefix = "report." + key + ".";
+            title = template(templates, prefix + "title");
+            heading = compile(templates, prefix + "heading");
+            tableHeader = compile(templates, prefix + "table.header");
+            row = compile(templates, prefix + "table.row", sheet.getFieldNames());
+            tableFooter = compile(templates, prefix + "table.footer");
+            values = new String[sheet.getFieldNames().length];
+        }
+
+        String fileName(int page) {
+            return key + "-" + page + ".html";
+        }
+    }
+}
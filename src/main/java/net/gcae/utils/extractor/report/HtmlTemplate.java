@@ -0,0 +1,93 @@
+package net.gcae.utils.extractor.report;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A template of html-templates.properties, split once into literal text and
+ * ${variable} placeholders. The placeholders are bound to positions in a fixed
+ * list of variable names when the template is compiled, so rendering only writes
+ * the literals and the escaped values in turn, without building the output in memory.
+ */
+final class HtmlTemplate {
+
+    private final String[] literals;
+    // Position of the value written after literals[i]; literals has one more element
+    private final int[] variables;
+
+    private HtmlTemplate(String[] literals, int[] variables) {
+        this.literals = literals;
+        this.variables = variables;
+    }
+
+    /**
+     * @param name the template's key, used in error messages
+     * @param variableNames the variables the template may use, in the order their values are given to {@link #render}
+     * @throws IllegalArgumentException if the template uses another variable or leaves a placeholder open
+     */
+    static HtmlTemplate compile(String name, String text, String... variableNames) {
+        List<String> names = Arrays.asList(variableNames);
+        List<String> literals = new ArrayList<>();
+        List<Integer> variables = new ArrayList<>();
+        int start = 0;
+        for (int open = text.indexOf("${"); open >= 0; open = text.indexOf("${", start)) {
+            int close = text.indexOf('}', open + 2);
+            if (close < 0) {
+                throw new IllegalArgumentException("Unclosed placeholder in template " + name);
+            }
+            String variable = text.substring(open + 2, close);
+            int position = names.indexOf(variable);
+            if (position < 0) {
+                throw new IllegalArgumentException("Unknown variable ${" + variable + "} in template " + name
+                        + " (available: " + names + ")");
+            }
+            literals.add(text.substring(start, open));
+            variables.add(position);
+            start = close + 1;
+        }
+        literals.add(text.substring(start));
+        int[] positions = new int[variables.size()];
+        for (int i = 0; i < positions.length; i++) {
+            positions[i] = variables.get(i);
+        }
+        return new HtmlTemplate(literals.toArray(new String[0]), positions);
+    }
+
+    /**
+     * Writes the template followed by a line break, with each placeholder replaced by
+     * its value HTML-escaped; null values are written as nothing.
+     */
+    void render(Writer out, String... values) throws IOException {
+        for (int i = 0; i < variables.length; i++) {
+            out.write(literals[i]);
+            String value = values[variables[i]];
+            if (value != null) {
+                escape(out, value);
+            }
+        }
+        out.write(literals[variables.length]);
+        out.write('\n');
+    }
+
+    private static void escape(Writer out, String value) throws IOException {
+        int start = 0;
+        for (int i = 0; i < value.length(); i++) {
+            String entity;
+            switch (value.charAt(i)) {
+                case '&': entity = "&amp;"; break;
+                case '<': entity = "&lt;"; break;
+                case '>': entity = "&gt;"; break;
+                case '"': entity = "&quot;"; break;
+                case '\'': entity = "&#39;"; break;
+                default: continue;
+            }
+            out.write(value, start, i - start);
+            out.write(entity);
+            start = i + 1;
+        }
+        out.write(value, start, value.length() - start);
+    }
+}
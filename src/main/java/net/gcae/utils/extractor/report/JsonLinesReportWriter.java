@@ -0,0 +1,98 @@
+package net.gcae.utils.extractor.report;
+
+import java.io.BufferedWriter;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Writes every record as one line of JSON, in the order the records arrive, so the
+ * output can be consumed while the analysis is still running. Each object names its
+ * category in a "category" member, the sheet name, followed by the columns of that
+ * sheet under the names given by {@link ReportSheet#getFieldNames()}.
+ */
+public class JsonLinesReportWriter extends TabularReportWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(JsonLinesReportWriter.class);
+
+    private final JsonWriter json;
+    private final Map<ReportSheet, String[]> fieldNames = new EnumMap<>(ReportSheet.class);
+    private String[] fields;
+    private long records;
+
+    /**
+     * Writes to a file, compressed with gzip if requested.
+     */
+    public JsonLinesReportWriter(Path path, boolean gzip) throws IOException {
+        this(openFile(path, gzip));
+        logger.info("Writing JSON Lines report to: {}", path);
+    }
+
+    /**
+     * Writes to the given stream, which is closed with this writer.
+     */
+    public JsonLinesReportWriter(OutputStream out) {
+        this.json = new JsonWriter(new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE), true);
+    }
+
+    /**
+     * Writes to standard output, which stays open for whatever the process prints next.
+     */
+    public static JsonLinesReportWriter toStandardOutput(boolean gzip) throws IOException {
+        OutputStream out = new FilterOutputStream(System.out) {
+            @Override
+            public void write(byte[] bytes, int offset, int length) throws IOException {
+                this.out.write(bytes, offset, length);
+            }
+
+            @Override
+            public void close() throws IOException {
+                flush();
+            }
+        };
+        return new JsonLinesReportWriter(gzip ? new GZIPOutputStream(out, BUFFER_SIZE) : out);
+    }
+
+    @Override
+    protected void startRow(ReportSheet sheet) throws IOException {
+        fields = fieldNames.computeIfAbsent(sheet, ReportSheet::getFieldNames);
+        json.beginObject();
+        json.name("category").value(sheet.getSheetName());
+    }
+
+    @Override
+    protected void cell(int column, String value) throws IOException {
+        json.name(fields[column]).value(value);
+    }
+
+    @Override
+    protected void cell(int column, long value) throws IOException {
+        json.name(fields[column]).value(value);
+    }
+
+    @Override
+    protected void endRow() throws IOException {
+        json.endObject();
+        records++;
+    }
+
+    @Override
+    public void finish() throws IOException {
+        json.flush();
+        logger.info("JSON Lines report written with {} records", records);
+    }
+
+    @Override
+    public void close() throws IOException {
+        json.close();
+    }
+}
@@ -0,0 +1,175 @@
+package net.gcae.utils.extractor.report;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Minimal streaming JSON writer for the machine-readable outputs. Values are
+ * written as they are given, indented two spaces per level; the caller is
+ * responsible for pairing begin and end calls and for naming object members.
+ *
+ * <p>In compact mode nothing is indented and every top-level value ends with a
+ * line break, which produces JSON Lines.
+ */
+public class JsonWriter implements Closeable {
+
+    private final Writer out;
+    private final boolean compact;
+    private boolean[] hasMembers = new boolean[8];
+    private int depth;
+    private boolean afterName;
+
+    public JsonWriter(Writer out) {
+        this(out, false);
+    }
+
+    /**
+     * @param compact write each top-level value on a single line
+     */
+    public JsonWriter(Writer out, boolean compact) {
+        this.out = out;
+        this.compact = compact;
+    }
+
+    public JsonWriter beginObject() throws IOException {
+        return open('{');
+    }
+
+    public JsonWriter endObject() throws IOException {
+        return close('}');
+    }
+
+    public JsonWriter beginArray() throws IOException {
+        return open('[');
+    }
+
+    public JsonWriter endArray() throws IOException {
+        return close(']');
+    }
+
+    public JsonWriter name(String name) throws IOException {
+        separate();
+        string(name);
+        out.write(compact ? ":" : ": ");
+        afterName = true;
+        return this;
+    }
+
+    public JsonWriter value(String value) throws IOException {
+        separate();
+        if (value == null) {
+            out.write("null");
+        } else {
+            string(value);
+        }
+        return this;
+    }
+
+    public JsonWriter value(long value) throws IOException {
+        separate();
+        out.write(Long.toString(value));
+        return this;
+    }
+
+    public JsonWriter value(double value) throws IOException {
+        separate();
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            out.write("null");
+        } else {
+            out.write(String.format(Locale.ROOT, "%.3f", value));
+        }
+        return this;
+    }
+
+    public JsonWriter value(boolean value) throws IOException {
+        separate();
+        out.write(value ? "true" : "false");
+        return this;
+    }
+
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (depth == 0 && !compact) {
+            out.write('\n');
+        }
+        out.close();
+    }
+
+    private JsonWriter open(char bracket) throws IOException {
+        separate();
+        out.write(bracket);
+        if (depth == hasMembers.length) {
+            hasMembers = Arrays.copyOf(hasMembers, depth * 2);
+        }
+        hasMembers[depth++] = false;
+        return this;
+    }
+
+    private JsonWriter close(char bracket) throws IOException {
+        boolean empty = !hasMembers[--depth];
+        if (!empty) {
+            newline();
+        }
+        out.write(bracket);
+        if (compact && depth == 0) {
+            out.write('\n');
+        }
+        return this;
+    }
+
+    /**
+     * Writes the comma and line break before a member, unless a name was just written.
+     */
+    private void separate() throws IOException {
+        if (afterName) {
+            afterName = false;
+            return;
+        }
+        if (depth > 0) {
+            if (hasMembers[depth - 1]) {
+                out.write(',');
+            }
+            hasMembers[depth - 1] = true;
+            newline();
+        }
+    }
+
+    private void newline() throws IOException {
+        if (compact) {
+            return;
+        }
+        out.write('\n');
+        for (int i = 0; i < depth; i++) {
+            out.write("  ");
+        }
+    }
+
+    private void string(String value) throws IOException {
+        out.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"': out.write("\\\""); break;
+                case '\\': out.write("\\\\"); break;
+                case '\n': out.write("\\n"); break;
+                case '\r': out.write("\\r"); break;
+                case '\t': out.write("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        out.write(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.write(c);
+                    }
+                    break;
+            }
+        }
+        out.write('"');
+    }
+}
@@ -0,0 +1,66 @@
+package net.gcae.utils.extractor.report;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.gcae.utils.extractor.analyzer.AnalysisMetrics;
+
+/**
+ * Writes the metrics of an analysis run as JSON. Times are in milliseconds.
+ */
+public class MetricsReport {
+
+    private static final Logger logger = LoggerFactory.getLogger(MetricsReport.class);
+
+    private MetricsReport() {}
+
+    public static void writeJson(AnalysisMetrics metrics, Path outputPath) throws IOException {
+        Path parentDir = outputPath.toAbsolutePath().getParent();
+        if (parentDir != null) {
+            Files.createDirectories(parentDir);
+        }
+        try (JsonWriter json = new JsonWriter(Files.newBufferedWriter(outputPath, StandardCharsets.UTF_8))) {
+            json.beginObject();
+            json.name("wallMillis").value(millis(metrics.getWallNanos()));
+            json.name("filesAnalyzed").value(metrics.getFilesAnalyzed());
+            json.name("filesReused").value(metrics.getFilesReused());
+            json.name("filesQuarantined").value(metrics.getFilesQuarantined());
+            json.name("phpFiles").value(metrics.getPhpFiles());
+            json.name("bytesRead").value(metrics.getBytesRead());
+            json.name("readMillis").value(millis(metrics.getReadNanos()));
+            json.name("decodeMillis").value(millis(metrics.getDecodeNanos()));
+            json.name("fileMillis").value(millis(metrics.getFileNanos()));
+
+            json.name("extractors").beginArray();
+            for (AnalysisMetrics.Stage stage : AnalysisMetrics.Stage.values()) {
+                json.beginObject();
+                json.name("name").value(stage.getLabel());
+                json.name("millis").value(millis(metrics.getStageNanos(stage)));
+                json.name("matches").value(metrics.getStageMatches(stage));
+                json.endObject();
+            }
+            json.endArray();
+
+            json.name("slowestFiles").beginArray();
+            for (AnalysisMetrics.FileTiming file : metrics.getSlowestFiles()) {
+                json.beginObject();
+                json.name("path").value(file.getPath());
+                json.name("bytes").value(file.getBytes());
+                json.name("millis").value(millis(file.getNanos()));
+                json.endObject();
+            }
+            json.endArray();
+            json.endObject();
+        }
+        logger.info("Metrics written to: {}", outputPath);
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
@@ -0,0 +1,51 @@
+package net.gcae.utils.extractor.report;
+
+import java.util.Locale;
+
+/**
+ * The output formats of the report.
+ */
+public enum ReportFormat {
+
+    /** The Excel workbook, with an overview sheet and one sheet per category. */
+    XLSX("xlsx"),
+
+    /** A directory holding one CSV file per category. */
+    CSV("csv"),
+
+    /** One JSON object per line for every record, tagged with its category. */
+    JSONL("jsonl"),
+
+    /** A directory of HTML pages: an index and each category split into pages. */
+    HTML("html");
+
+    private final String name;
+
+    ReportFormat(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Returns the name used on the command line, which is also the file extension.
+     */
+    public String getName() { return name; }
+
+    /**
+     * Returns true for formats written as a directory of files rather than a single file.
+     */
+    public boolean isDirectory() {
+        return this == CSV || this == HTML;
+    }
+
+    /**
+     * @throws IllegalArgumentException if no format has the name
+     */
+    public static ReportFormat fromName(String name) {
+        for (ReportFormat format : values()) {
+            if (format.name.equals(name.toLowerCase(Locale.ROOT))) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("Unknown report format: " + name + " (expected xlsx, csv, jsonl or html)");
+    }
+}
@@ -0,0 +1,96 @@
+package net.gcae.utils.extractor.report;
+
+import java.util.Locale;
+
+/**
+ * The report categories, in report order, with their sheet names, column headers
+ * and the texts used for them on the overview sheet.
+ */
+public enum ReportSheet {
+
+    FILES("phpFilesReport", "files", "Total Files", "PHP, HTML, JS, CSS files analyzed",
+            "File Name", "File Path", "File Type", "File Size (bytes)", "Line Count", "Encoding", "Status"),
+    QUERIES("phpQueriesReport", "SQL queries", "SQL Queries", "Database queries found in code",
+            "Query Name", "DB Table", "File:Line", "Data Source", "SQL Query", "Complexity"),
+    REQUIRES("phpRequiresReport", "requires", "Require Statements", "File require statements",
+            "Required File", "File Location", "Reference Type"),
+    INCLUDES("phpIncludesReport", "includes", "Include Statements", "File include statements",
+            "Included File", "File Location", "Reference Type"),
+    CALLS("phpCallsReport", "CURL calls", "CURL Calls", "CURL operations found",
+            "Call Type", "File Location", "Target", "Purpose"),
+    FUNCTIONS("phpFunctionReport", "functions", "Functions", "Function definitions",
+            "Function Name", "File Location", "Line Count", "Complexity", "Parameters"),
+    CLASSES("phpClassesReport", "classes", "Classes", "Class definitions",
+            "Class Name", "File Location", "Method Count", "Parent Class", "Interfaces"),
+    TRAITS("phpInheritTritReport", "traits", "Traits Usage", "Trait usage statements",
+            "Child Name", "Trait Name", "File Location", "Inheritance Type"),
+    INHERITANCE("phpInheritClassReport", "class inheritance", "Class Inheritance", "Class extends relationships",
+            "Child Class", "Parent Class", "File Location", "Inheritance Type"),
+    IMPLEMENTS("phpImplementReport", "interface implementations", "Interface Implementations", "Interface implementations",
+            "Class Name", "Interface Name", "File Location"),
+    INTERFACES("phpInterfacesReport", "interfaces", "Interface Definitions", "Interface definitions",
+            "Interface Name", "File Location", "Method Count", "Extends Interface"),
+    // Derived from the require and include statements of the whole project once every file has been analyzed
+    INCLUDE_GRAPH("phpIncludeGraphReport", "include graph", "Include Graph", "Files including or included by other files",
+            "File Path", "Includes", "Included By", "Transitive Includes", "Transitive Dependents", "Unresolved",
+            "Entry Point", "Cycle"),
+    INCLUDE_CYCLES("phpIncludeCyclesReport", "include cycles", "Include Cycles", "Files including each other in a cycle",
+            "Cycle", "Cycle Size", "File Path"),
+    ENTRY_POINT_INCLUDES("phpEntryPointIncludesReport", "entry point includes", "Entry Point Includes",
+            "Files each entry-point script includes, directly or not",
+            "Entry Point", "Included File");
+
+    public static final String OVERVIEW_SHEET = "ITx Inventory Overview";
+
+    // Optional sheet with the timings of the run, placed after the record sheets
+    public static final String PERFORMANCE_SHEET = "Performance";
+
+    private final String sheetName;
+    private final String label;
+    private final String overviewCategory;
+    private final String overviewDescription;
+    private final String[] headers;
+    private final String[] fieldNames;
+
+    ReportSheet(String sheetName, String label, String overviewCategory, String overviewDescription, String... headers) {
+        this.sheetName = sheetName;
+        this.label = label;
+        this.overviewCategory = overviewCategory;
+        this.overviewDescription = overviewDescription;
+        this.headers = headers;
+        this.fieldNames = new String[headers.length];
+        for (int i = 0; i < headers.length; i++) {
+            fieldNames[i] = fieldName(headers[i]);
+        }
+    }
+
+    public String getSheetName() { return sheetName; }
+
+    /**
+     * Lower-case name used in log messages.
+     */
+    public String getLabel() { return label; }
+
+    public String getOverviewCategory() { return overviewCategory; }
+
+    public String getOverviewDescription() { return overviewDescription; }
+
+    public String[] getHeaders() { return headers.clone(); }
+
+    /**
+     * Returns the headers as identifiers for machine-readable output, e.g. "File Size (bytes)" as "fileSizeBytes".
+     */
+    public String[] getFieldNames() { return fieldNames.clone(); }
+
+    private static String fieldName(String header) {
+        StringBuilder name = new StringBuilder();
+        for (String word : header.split("[^A-Za-z0-9]+")) {
+            if (word.isEmpty()) {
+                continue;
+            }
+            String lower = word.toLowerCase(Locale.ROOT);
+            name.append(name.length() == 0 ? lower : Character.toUpperCase(lower.charAt(0)) + lower.substring(1));
+        }
+        return name.toString();
+    }
+}
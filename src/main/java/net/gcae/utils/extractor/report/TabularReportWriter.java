@@ -0,0 +1,252 @@
+package net.gcae.utils.extractor.report;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import net.gcae.utils.extractor.analyzer.AnalysisSink;
+import net.gcae.utils.extractor.graph.IncludeGraph;
+import net.gcae.utils.extractor.model.ClassDefinition;
+import net.gcae.utils.extractor.model.CurlCall;
+import net.gcae.utils.extractor.model.FileAnalysis;
+import net.gcae.utils.extractor.model.FileInventory;
+import net.gcae.utils.extractor.model.FileReference;
+import net.gcae.utils.extractor.model.FunctionDefinition;
+import net.gcae.utils.extractor.model.InheritanceInfo;
+import net.gcae.utils.extractor.model.InterfaceDefinition;
+import net.gcae.utils.extractor.model.InterfaceImplementation;
+import net.gcae.utils.extractor.model.PathTable;
+import net.gcae.utils.extractor.model.SQLQuery;
+
+/**
+ * Turns each record into a row of its {@link ReportSheet}, with the cells in column
+ * order. Subclasses decide where the rows go: {@link ExcelReportWriter} adds them to
+ * the workbook, while {@link CsvReportWriter} and {@link JsonLinesReportWriter} write
+ * them out as they arrive and hold nothing once a row is complete.
+ */
+public abstract class TabularReportWriter implements AnalysisSink {
+
+    // Buffer of the streaming outputs, and of the compressor in front of them
+    static final int BUFFER_SIZE = 64 * 1024;
+
+    @Override
+    public void accept(FileAnalysis analysis) throws IOException {
+        PathTable paths = analysis.getPaths();
+        addFile(analysis.getFile(), paths);
+        for (SQLQuery query : analysis.getSqlQueries()) {
+            addQuery(query, paths);
+        }
+        for (FileReference require : analysis.getRequires()) {
+            addRequire(require, paths);
+        }
+        for (FileReference include : analysis.getIncludes()) {
+            addInclude(include, paths);
+        }
+        for (CurlCall call : analysis.getCurlCalls()) {
+            addCall(call, paths);
+        }
+        for (FunctionDefinition function : analysis.getFunctions()) {
+            addFunction(function, paths);
+        }
+        for (ClassDefinition clazz : analysis.getClasses()) {
+            addClass(clazz, paths);
+        }
+        for (InheritanceInfo trait : analysis.getTraits()) {
+            addTrait(trait, paths);
+        }
+        for (InheritanceInfo inheritance : analysis.getClassInheritances()) {
+            addInheritance(inheritance, paths);
+        }
+        for (InterfaceImplementation implementation : analysis.getImplementations()) {
+            addImplementation(implementation, paths);
+        }
+        for (InterfaceDefinition interfaceDefinition : analysis.getInterfaces()) {
+            addInterface(interfaceDefinition, paths);
+        }
+    }
+
+    public void addFile(FileInventory file, PathTable paths) throws IOException {
+        startRow(ReportSheet.FILES);
+        cell(0, file.getFileName());
+        cell(1, paths.path(file.getFileId()));
+        cell(2, file.getFileType().getLabel());
+        cell(3, file.getFileSize());
+        cell(4, file.getLineCount());
+        cell(5, file.getEncoding());
+        cell(6, file.isQuarantined() ? "Quarantined" : "OK");
+        endRow();
+    }
+
+    public void addQuery(SQLQuery query, PathTable paths) throws IOException {
+        startRow(ReportSheet.QUERIES);
+        cell(0, query.getQueryName());
+        cell(1, query.getDbTable());
+        cell(2, paths.location(query.getFileId(), query.getLine()));
+        cell(3, query.getDataSource());
+        cell(4, query.getSqlQuery());
+        cell(5, query.getComplexity().getLabel());
+        endRow();
+    }
+
+    public void addRequire(FileReference require, PathTable paths) throws IOException {
+        addReference(ReportSheet.REQUIRES, require, paths);
+    }
+
+    public void addInclude(FileReference include, PathTable paths) throws IOException {
+        addReference(ReportSheet.INCLUDES, include, paths);
+    }
+
+    private void addReference(ReportSheet sheet, FileReference reference, PathTable paths) throws IOException {
+        startRow(sheet);
+        cell(0, reference.getReferencedFile());
+        cell(1, paths.location(reference.getFileId(), reference.getLine()));
+        cell(2, reference.getReferenceType().getLabel());
+        endRow();
+    }
+
+    public void addCall(CurlCall call, PathTable paths) throws IOException {
+        startRow(ReportSheet.CALLS);
+        cell(0, call.getCallType().getLabel());
+        cell(1, paths.location(call.getFileId(), call.getLine()));
+        cell(2, call.getTarget());
+        cell(3, call.getPurpose());
+        endRow();
+    }
+
+    public void addFunction(FunctionDefinition function, PathTable paths) throws IOException {
+        startRow(ReportSheet.FUNCTIONS);
+        cell(0, function.getFunctionName());
+        cell(1, paths.location(function.getFileId(), function.getLine()));
+        cell(2, function.getLineCount());
+        cell(3, function.getComplexity().getLabel());
+        cell(4, function.getParameters());
+        endRow();
+    }
+
+    public void addClass(ClassDefinition clazz, PathTable paths) throws IOException {
+        startRow(ReportSheet.CLASSES);
+        cell(0, clazz.getClassName());
+        cell(1, paths.location(clazz.getFileId(), clazz.getLine()));
+        cell(2, clazz.getMethodCount());
+        cell(3, clazz.getParentClass());
+        cell(4, clazz.getInterfaces());
+        endRow();
+    }
+
+    public void addTrait(InheritanceInfo trait, PathTable paths) throws IOException {
+        addInheritance(ReportSheet.TRAITS, trait, paths);
+    }
+
+    public void addInheritance(InheritanceInfo inheritance, PathTable paths) throws IOException {
+        addInheritance(ReportSheet.INHERITANCE, inheritance, paths);
+    }
+
+    private void addInheritance(ReportSheet sheet, InheritanceInfo inheritance, PathTable paths) throws IOException {
+        startRow(sheet);
+        cell(0, inheritance.getChildName());
+        cell(1, inheritance.getParentName());
+        cell(2, paths.location(inheritance.getFileId(), inheritance.getLine()));
+        cell(3, inheritance.getInheritanceType().getLabel());
+        endRow();
+    }
+
+    public void addImplementation(InterfaceImplementation implementation, PathTable paths) throws IOException {
+        startRow(ReportSheet.IMPLEMENTS);
+        cell(0, implementation.getClassName());
+        cell(1, implementation.getInterfaceName());
+        cell(2, paths.location(implementation.getFileId(), implementation.getLine()));
+        endRow();
+    }
+
+    public void addInterface(InterfaceDefinition interfaceDefinition, PathTable paths) throws IOException {
+        startRow(ReportSheet.INTERFACES);
+        cell(0, interfaceDefinition.getInterfaceName());
+        cell(1, paths.location(interfaceDefinition.getFileId(), interfaceDefinition.getLine()));
+        cell(2, interfaceDefinition.getMethodCount());
+        cell(3, interfaceDefinition.getExtendsInterface());
+        endRow();
+    }
+
+    /**
+     * Adds the include graph: a row for each file taking part in it and the members of each
+     * cycle. The files each entry point includes take a row per pair, as many as entry points
+     * times files in the worst case, so they are listed only when {@code entryPointIncludes}
+     * is set. Call it once, before {@link #finish()}.
+     */
+    public void addIncludeGraph(IncludeGraph graph, boolean entryPointIncludes) throws IOException {
+        for (int node = 0; node < graph.getNodeCount(); node++) {
+            if (!graph.isConnected(node)) {
+                continue;
+            }
+            startRow(ReportSheet.INCLUDE_GRAPH);
+            cell(0, graph.getPath(node));
+            cell(1, graph.getFanOut(node));
+            cell(2, graph.getFanIn(node));
+            cell(3, graph.getTransitiveIncludes(node));
+            cell(4, graph.getTransitiveDependents(node));
+            cell(5, graph.getUnresolved(node));
+            cell(6, graph.isEntryPoint(node) ? "Yes" : "No");
+            if (graph.getCycle(node) > 0) {
+                cell(7, graph.getCycle(node));
+            }
+            endRow();
+        }
+
+        List<int[]> cycles = graph.getCycles();
+        for (int i = 0; i < cycles.size(); i++) {
+            for (int member : cycles.get(i)) {
+                startRow(ReportSheet.INCLUDE_CYCLES);
+                cell(0, i + 1);
+                cell(1, cycles.get(i).length);
+                cell(2, graph.getPath(member));
+                endRow();
+            }
+        }
+
+        if (!entryPointIncludes) {
+            return;
+        }
+        graph.forEachClosure(graph.getEntryPoints(), false, (entryPoint, closure) -> {
+            for (int node = closure.nextSetBit(0); node >= 0; node = closure.nextSetBit(node + 1)) {
+                startRow(ReportSheet.ENTRY_POINT_INCLUDES);
+                cell(0, graph.getPath(entryPoint));
+                cell(1, graph.getPath(node));
+                endRow();
+            }
+        });
+    }
+
+    /**
+     * Begins a row of the given category; its cells follow in column order.
+     */
+    protected abstract void startRow(ReportSheet sheet) throws IOException;
+
+    /**
+     * Sets a text cell of the current row; the value may be null.
+     */
+    protected abstract void cell(int column, String value) throws IOException;
+
+    protected abstract void cell(int column, long value) throws IOException;
+
+    /**
+     * Completes the current row.
+     */
+    protected void endRow() throws IOException {
+    }
+
+    /**
+     * Opens a buffered output file, compressed with gzip if requested.
+     */
+    static OutputStream openFile(Path path, boolean gzip) throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        OutputStream out = Files.newOutputStream(path);
+        return gzip ? new GZIPOutputStream(out, BUFFER_SIZE) : new BufferedOutputStream(out, BUFFER_SIZE);
+    }
+}
@@ -0,0 +1,554 @@
+package net.gcae.utils.extractor.server;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import net.gcae.utils.extractor.ExtractorOptions;
+import net.gcae.utils.extractor.ReportJob;
+import net.gcae.utils.extractor.analyzer.AnalysisSink;
+import net.gcae.utils.extractor.analyzer.FairWorkerPool;
+import net.gcae.utils.extractor.analyzer.PHPAnalyzer;
+import net.gcae.utils.extractor.cache.AnalysisCache;
+import net.gcae.utils.extractor.cache.QuarantineList;
+import net.gcae.utils.extractor.model.AnalysisSummary;
+import net.gcae.utils.extractor.model.FileAnalysis;
+import net.gcae.utils.extractor.report.JsonWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Long-running extractor that accepts analysis jobs over HTTP on the loopback
+ * interface, so repeated runs do not pay for JVM startup, class loading and JIT
+ * warm-up each time.
+ *
+ * <p>Jobs run on a fixed number of job threads, and all of them share one pool of
+ * analyzer threads, which takes files from the running jobs in turn. Jobs writing
+ * to the same cache directory run one at a time, and the cache and quarantine list
+ * of recently used directories stay open for the next job instead of being loaded
+ * again; the daemon assumes no other process writes to them meanwhile.
+ * Each request receives a stream of JSON Lines events while its job is queued,
+ * runs and completes. Endpoints:
+ * <ul>
+ *   <li>{@code POST /analyze?project=<dir>&output=<dir>&<option>=<value>...} runs a job;
+ *       options are the command line options without the leading dashes, flags take
+ *       {@code true}, and {@code exclude} may be repeated</li>
+ *   <li>{@code GET /status} reports uptime and job counts</li>
+ *   <li>{@code POST /shutdown} lets running jobs finish and stops the daemon</li>
+ * </ul>
+ *
+ * <p>A job reads and writes wherever its request says, so the daemon only accepts
+ * {@code /analyze} and {@code /shutdown} from clients that can read its token file,
+ * which it writes at startup readable by its own user only; they send the token as
+ * {@code Authorization: Bearer <token>}. Requests carrying an {@code Origin} header,
+ * which browsers add to cross-site requests, or a {@code Host} other than the
+ * loopback address, as after DNS rebinding, are refused on every endpoint.
+ */
+public class AnalysisServer {
+
+    private static final Logger logger = LoggerFactory.getLogger(AnalysisServer.class);
+
+    public static final int DEFAULT_PORT = 8563;
+
+    // Where the daemon writes its token unless told otherwise
+    public static final String DEFAULT_TOKEN_FILE = ".phpextractor/daemon.token";
+
+    // Minimum time between two progress events of a job
+    private static final long PROGRESS_INTERVAL_NANOS = 500_000_000L;
+
+    private static final int TOKEN_BYTES = 32;
+
+    // Cache directories whose cache and quarantine list stay open between jobs
+    private static final int MAX_WARM_CACHES = 16;
+
+    private final ExtractorOptions defaults;
+    private final int poolSize;
+    private final HttpServer server;
+    private final Path tokenFile;
+    private final byte[] token;
+    private final ExecutorService jobPool;
+    private final FairWorkerPool workerPool;
+    // Cache directories with jobs queued or running on them; an entry goes with its last job
+    private final Map<String, DirectoryLock> directoryLocks = new ConcurrentHashMap<>();
+
+    // Caches and quarantine lists kept open between jobs, least recently used first
+    private final Map<String, WarmCache> warmCaches = new LinkedHashMap<String, WarmCache>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, WarmCache> eldest) {
+            return size() > MAX_WARM_CACHES;
+        }
+    };
+    private final CountDownLatch stopped = new CountDownLatch(1);
+    private final long startedAt = System.currentTimeMillis();
+    private final AtomicLong jobIds = new AtomicLong();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger running = new AtomicInteger();
+    private final AtomicInteger completed = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+
+    /**
+     * @param defaults options applied to every job before the request's own
+     * @param port TCP port on the loopback interface; 0 picks a free one
+     * @param concurrentJobs number of jobs running at the same time
+     * @param tokenFile file the daemon writes its access token to, replacing an older one
+     */
+    public AnalysisServer(ExtractorOptions defaults, int port, int concurrentJobs, Path tokenFile) throws IOException {
+        this.defaults = defaults;
+        this.tokenFile = tokenFile;
+        this.token = newToken().getBytes(StandardCharsets.US_ASCII);
+        this.poolSize = defaults.getThreads() < 1 ? Runtime.getRuntime().availableProcessors() : defaults.getThreads();
+        this.jobPool = Executors.newFixedThreadPool(Math.max(1, concurrentJobs), threads("php-job-"));
+        this.workerPool = new FairWorkerPool(poolSize, "php-analyzer-");
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.setExecutor(Executors.newCachedThreadPool(threads("php-http-")));
+        server.createContext("/analyze", this::handleAnalyze);
+        server.createContext("/status", this::handleStatus);
+        server.createContext("/shutdown", this::handleShutdown);
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    public Path getTokenFile() {
+        return tokenFile;
+    }
+
+    /**
+     * Starts accepting requests and blocks until the daemon is shut down.
+     */
+    public void run() throws IOException, InterruptedException {
+        writeToken();
+        server.start();
+        logger.info("Daemon listening on http://{}:{}/ with {} analyzer threads",
+                server.getAddress().getHostString(), getPort(), poolSize);
+        stopped.await();
+    }
+
+    /**
+     * Stops accepting jobs, waits for the running ones and releases the port.
+     */
+    public void shutdown() {
+        jobPool.shutdown();
+        try {
+            jobPool.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        server.stop(1);
+        try {
+            Files.deleteIfExists(tokenFile);
+        } catch (IOException e) {
+            logger.warn("Could not delete token file {}: {}", tokenFile, e.getMessage());
+        }
+        workerPool.close();
+        ((ExecutorService) server.getExecutor()).shutdown();
+        logger.info("Daemon stopped after {} jobs", completed.get() + failed.get());
+        stopped.countDown();
+    }
+
+    private void handleAnalyze(HttpExchange exchange) throws IOException {
+        if (!authorize(exchange, true)) {
+            return;
+        }
+        String project = null;
+        String output = ".";
+        ExtractorOptions options = defaults.copy();
+        try {
+            for (String[] parameter : parameters(exchange)) {
+                String name = parameter[0];
+                String value = parameter[1];
+                if (name.equals("project")) {
+                    project = value;
+                } else if (name.equals("output")) {
+                    output = value;
+                } else if (ExtractorOptions.isFlag("--" + name)) {
+                    if (!value.equals("false")) {
+                        options.apply("--" + name, null);
+                    }
+                } else if (ExtractorOptions.takesValue("--" + name)) {
+                    options.apply("--" + name, value);
+                } else {
+                    throw new IllegalArgumentException("Unknown parameter: " + name);
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            reply(exchange, 400, e.getMessage());
+            return;
+        }
+        if (project == null && options.getFromSnapshot() == null && options.getMergeInputs().isEmpty()) {
+            reply(exchange, 400, "Missing parameter: project");
+            return;
+        }
+        if (options.isStdout()) {
+            reply(exchange, 400, "Daemon jobs cannot write their report to standard output");
+            return;
+        }
+        // A job may use the whole shared pool but no more
+        if (options.getThreads() < 1 || options.getThreads() > poolSize) {
+            options.apply("--threads", Integer.toString(poolSize));
+        }
+
+        String source = project != null ? project
+                : options.getFromSnapshot() != null ? options.getFromSnapshot() : String.join(", ", options.getMergeInputs());
+        ReportJob job = new ReportJob(options, project != null ? new File(project) : null, new File(output));
+        long id = jobIds.incrementAndGet();
+        exchange.getResponseHeaders().set("Content-Type", "application/x-ndjson; charset=utf-8");
+        exchange.sendResponseHeaders(200, 0);
+        try (JobEvents events = new JobEvents(exchange.getResponseBody(), id)) {
+            Future<?> result;
+            events.queued();
+            try {
+                queued.incrementAndGet();
+                result = jobPool.submit(() -> runJob(job, id, source, events));
+            } catch (RejectedExecutionException e) {
+                queued.decrementAndGet();
+                events.failed("Daemon is shutting down");
+                return;
+            }
+            try {
+                result.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                logger.error("Job {} failed: {}", id, e.getCause().getMessage(), e.getCause());
+            }
+        }
+    }
+
+    private void runJob(ReportJob job, long id, String source, JobEvents events) {
+        queued.decrementAndGet();
+        running.incrementAndGet();
+        long start = System.nanoTime();
+        try {
+            String problem = job.prepare();
+            if (problem != null) {
+                failed.incrementAndGet();
+                events.failed(problem);
+                return;
+            }
+            File cacheDirectory = job.getCacheDirectory().getAbsoluteFile();
+            String key = cacheDirectory.toPath().normalize().toString();
+            DirectoryLock lock = directoryLocks.compute(key, (k, held) -> {
+                DirectoryLock taken = held != null ? held : new DirectoryLock();
+                taken.jobs++;
+                return taken;
+            });
+            ReportJob.Result result;
+            try {
+                synchronized (lock) {
+                    logger.info("Job {} started: {}", id, source);
+                    events.started(source);
+                    job.setWorkerPool(workerPool);
+                    job.setListener(new ProgressListener(events));
+                    if (job.analyzesProject()) {
+                        WarmCache warm = warmCache(key, cacheDirectory);
+                        job.setQuarantine(warm.quarantine);
+                        if (job.usesCache()) {
+                            if (warm.cache == null) {
+                                warm.cache = AnalysisCache.open(cacheDirectory.toPath(), PHPAnalyzer.EXTRACTOR_VERSION);
+                            }
+                            job.setCache(warm.cache);
+                        }
+                    }
+                    result = job.run();
+                }
+            } finally {
+                directoryLocks.computeIfPresent(key, (k, held) -> --held.jobs == 0 ? null : held);
+            }
+            completed.incrementAndGet();
+            events.completed(result, (System.nanoTime() - start) / 1_000_000L);
+            logger.info("Job {} completed: {}", id, result.getReportPath());
+        } catch (Exception e) {
+            failed.incrementAndGet();
+            logger.error("Job {} failed: {}", id, e.getMessage(), e);
+            events.failed(e.getMessage() != null ? e.getMessage() : e.toString());
+        } finally {
+            running.decrementAndGet();
+        }
+    }
+
+    /**
+     * Returns the open cache and quarantine list of a cache directory, loading the quarantine
+     * list on first use. Called with the directory's lock held, so no other job opens them.
+     */
+    private WarmCache warmCache(String key, File directory) throws IOException {
+        WarmCache warm;
+        synchronized (warmCaches) {
+            warm = warmCaches.get(key);
+        }
+        if (warm == null) {
+            warm = new WarmCache(QuarantineList.open(directory.toPath()));
+            synchronized (warmCaches) {
+                warmCaches.put(key, warm);
+            }
+        }
+        return warm;
+    }
+
+    /**
+     * Number of cache directories with jobs queued or running on them.
+     */
+    int getLockedDirectories() {
+        return directoryLocks.size();
+    }
+
+    private void handleStatus(HttpExchange exchange) throws IOException {
+        if (!authorize(exchange, false)) {
+            return;
+        }
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(200, 0);
+        try (JsonWriter json = new JsonWriter(new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8), true)) {
+            json.beginObject();
+            json.name("uptimeMillis").value(System.currentTimeMillis() - startedAt);
+            json.name("analyzerThreads").value(poolSize);
+            json.name("jobsQueued").value(queued.get());
+            json.name("jobsRunning").value(running.get());
+            json.name("jobsCompleted").value(completed.get());
+            json.name("jobsFailed").value(failed.get());
+            json.endObject();
+        }
+    }
+
+    private void handleShutdown(HttpExchange exchange) throws IOException {
+        if (!authorize(exchange, true)) {
+            return;
+        }
+        logger.info("Shutdown requested; waiting for {} queued and {} running jobs", queued.get(), running.get());
+        reply(exchange, 202, "Shutting down");
+        Thread stopper = new Thread(this::shutdown, "php-daemon-shutdown");
+        stopper.start();
+    }
+
+    /**
+     * Checks where a request comes from and, for the endpoints that act, that it is a POST
+     * carrying the token; replies with the error and returns false otherwise.
+     */
+    private boolean authorize(HttpExchange exchange, boolean act) throws IOException {
+        Headers headers = exchange.getRequestHeaders();
+        if (headers.containsKey("Origin")) {
+            reply(exchange, 403, "Cross-origin requests are not accepted");
+            return false;
+        }
+        if (!isLoopbackHost(headers.getFirst("Host"))) {
+            reply(exchange, 403, "Host must be the loopback address");
+            return false;
+        }
+        if (!act) {
+            return true;
+        }
+        if (!"POST".equals(exchange.getRequestMethod())) {
+            reply(exchange, 405, "Use POST");
+            return false;
+        }
+        String authorization = headers.getFirst("Authorization");
+        byte[] presented = authorization != null && authorization.startsWith("Bearer ")
+                ? authorization.substring("Bearer ".length()).trim().getBytes(StandardCharsets.US_ASCII) : new byte[0];
+        if (!MessageDigest.isEqual(token, presented)) {
+            exchange.getResponseHeaders().set("WWW-Authenticate", "Bearer");
+            reply(exchange, 401, "Missing or wrong token; send the content of " + tokenFile + " as Authorization: Bearer <token>");
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Whether a Host header names the loopback interface, with or without a port.
+     */
+    static boolean isLoopbackHost(String host) {
+        if (host == null) {
+            return false;
+        }
+        String name = host.trim().toLowerCase(Locale.ROOT);
+        if (name.startsWith("[")) {
+            int end = name.indexOf(']');
+            if (end < 0 || (end + 1 < name.length() && name.charAt(end + 1) != ':')) {
+                return false;
+            }
+            name = name.substring(1, end);
+        } else if (name.indexOf(':') >= 0) {
+            name = name.substring(0, name.indexOf(':'));
+        }
+        return name.equals("localhost") || name.equals("::1") || (name.startsWith("127.") && isIpv4(name));
+    }
+
+    private static boolean isIpv4(String name) {
+        String[] parts = name.split("\\.", -1);
+        if (parts.length != 4) {
+            return false;
+        }
+        for (String part : parts) {
+            if (part.isEmpty() || part.length() > 3 || !part.chars().allMatch(Character::isDigit)
+                    || Integer.parseInt(part) > 255) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String newToken() {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        new SecureRandom().nextBytes(bytes);
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    /**
+     * Writes the token to a file only the daemon's user can read, created with those
+     * permissions before the token is written, and moved over an older token file.
+     */
+    private void writeToken() throws IOException {
+        Path directory = tokenFile.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temp;
+        if (directory.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+            temp = Files.createTempFile(directory, tokenFile.getFileName().toString(), ".tmp",
+                    PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+        } else {
+            temp = Files.createTempFile(directory, tokenFile.getFileName().toString(), ".tmp");
+            File file = temp.toFile();
+            if (!(file.setReadable(false, false) && file.setReadable(true, true)
+                    && file.setWritable(false, false) && file.setWritable(true, true))) {
+                Files.delete(temp);
+                throw new IOException("Could not restrict access to " + temp);
+            }
+        }
+        try {
+            Files.write(temp, token);
+            try {
+                Files.move(temp, tokenFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, tokenFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        logger.info("Daemon token written to {}", tokenFile);
+    }
+
+    private static void reply(HttpExchange exchange, int status, String message) throws IOException {
+        byte[] body = (message + "\n").getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    /**
+     * Returns the name-value pairs of the query string and of a form-encoded body, in order.
+     */
+    private static List<String[]> parameters(HttpExchange exchange) throws IOException {
+        List<String[]> parameters = new ArrayList<>();
+        addParameters(exchange.getRequestURI().getRawQuery(), parameters);
+        try (InputStream in = exchange.getRequestBody()) {
+            addParameters(new String(in.readAllBytes(), StandardCharsets.UTF_8).trim(), parameters);
+        }
+        return parameters;
+    }
+
+    private static void addParameters(String encoded, List<String[]> parameters) {
+        if (encoded == null || encoded.isEmpty()) {
+            return;
+        }
+        for (String pair : encoded.split("&")) {
+            if (pair.isEmpty()) {
+                continue;
+            }
+            int equals = pair.indexOf('=');
+            String name = equals < 0 ? pair : pair.substring(0, equals);
+            String value = equals < 0 ? "" : pair.substring(equals + 1);
+            parameters.add(new String[] {
+                    URLDecoder.decode(name, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8)});
+        }
+    }
+
+    private static ThreadFactory threads(String prefix) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Lock the jobs of one cache directory take turns on, with the number of jobs holding it.
+     */
+    private static final class DirectoryLock {
+        // Changed only inside the lock map's compute functions
+        int jobs;
+    }
+
+    /**
+     * Incremental state of a cache directory reused by its next job; the cache is opened by
+     * the first job that uses it.
+     */
+    private static final class WarmCache {
+        final QuarantineList quarantine;
+        AnalysisCache cache;
+
+        WarmCache(QuarantineList quarantine) {
+            this.quarantine = quarantine;
+        }
+    }
+
+    /**
+     * Counts the records of a running job and reports them at most twice a second.
+     */
+    private static final class ProgressListener implements AnalysisSink {
+        private final JobEvents events;
+        private final AnalysisSummary summary = new AnalysisSummary();
+        private long lastEvent = System.nanoTime();
+
+        ProgressListener(JobEvents events) {
+            this.events = events;
+        }
+
+        @Override
+        public void accept(FileAnalysis analysis) {
+            summary.add(analysis);
+            long now = System.nanoTime();
+            if (now - lastEvent >= PROGRESS_INTERVAL_NANOS) {
+                lastEvent = now;
+                events.progress(summary);
+            }
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package net.gcae.utils.extractor.server;
+
+import net.gcae.utils.extractor.ReportJob;
+import net.gcae.utils.extractor.analyzer.AnalysisMetrics;
+import net.gcae.utils.extractor.model.AnalysisSummary;
+import net.gcae.utils.extractor.report.JsonWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * JSON Lines event stream of one daemon job, written to the response of the
+ * request that submitted it. Every event carries its {@code event} name and the
+ * job id. A client that disconnects does not stop the job; later events are dropped.
+ */
+final class JobEvents implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(JobEvents.class);
+
+    private final JsonWriter json;
+    private final long jobId;
+    private boolean disconnected;
+
+    JobEvents(OutputStream out, long jobId) {
+        this.json = new JsonWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), true);
+        this.jobId = jobId;
+    }
+
+    synchronized void queued() {
+        try {
+            begin("queued");
+            end();
+        } catch (IOException e) {
+            disconnect(e);
+        }
+    }
+
+    synchronized void started(String source) {
+        try {
+            begin("started");
+            json.name("source").value(source);
+            end();
+        } catch (IOException e) {
+            disconnect(e);
+        }
+    }
+
+    synchronized void progress(AnalysisSummary summary) {
+        try {
+            begin("progress");
+            counts(summary);
+            end();
+        } catch (IOException e) {
+            disconnect(e);
+        }
+    }
+
+    synchronized void completed(ReportJob.Result result, long millis) {
+        try {
+            begin("completed");
+            json.name("report").value(result.getReportPath());
+            json.name("millis").value(millis);
+            counts(result.getSummary());
+            AnalysisMetrics metrics = result.getMetrics();
+            if (metrics != null) {
+                json.name("filesReused").value(metrics.getFilesReused());
+                json.name("filesQuarantined").value(metrics.getFilesQuarantined());
+                json.name("bytesRead").value(metrics.getBytesRead());
+            }
+            end();
+        } catch (IOException e) {
+            disconnect(e);
+        }
+    }
+
+    synchronized void failed(String message) {
+        try {
+            begin("failed");
+            json.name("message").value(message);
+            end();
+        } catch (IOException e) {
+            disconnect(e);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        try {
+            json.close();
+        } catch (IOException e) {
+            // The client is gone; nothing left to tell it
+        }
+    }
+
+    private void begin(String event) throws IOException {
+        if (disconnected) {
+            throw new IOException("client disconnected");
+        }
+        json.beginObject();
+        json.name("event").value(event);
+        json.name("job").value(jobId);
+    }
+
+    private void end() throws IOException {
+        json.endObject();
+        json.flush();
+    }
+
+    private void counts(AnalysisSummary summary) throws IOException {
+        json.name("files").value(summary.getFiles());
+        json.name("sqlQueries").value(summary.getSqlQueries());
+        json.name("functions").value(summary.getFunctions());
+        json.name("classes").value(summary.getClasses());
+        json.name("quarantined").value(summary.getQuarantined());
+    }
+
+    private void disconnect(IOException e) {
+        if (!disconnected) {
+            logger.info("Job {}: client disconnected ({}), job continues", jobId, e.getMessage());
+            disconnected = true;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package net.gcae.utils.extractor.snapshot;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Layout of a snapshot file.
+ *
+ * <pre>
+ * snapshot  := MAGIC version:int32 header block* END fileCount:varint
+ * header    := root:bytes shard:varint shardCount:varint     shardCount 0 = the whole project
+ * block     := FILE strings file records{10}
+ * strings   := count:varint bytes*                        strings first used in this block
+ * bytes     := length:varint utf8-bytes
+ * file      := name:str path:str type:enum size:num lines:num encoding:str quarantined:num
+ * records   := count:varint column*                        one column per field, all rows of the block
+ * str       := varint                                      0 = null, otherwise 1-based dictionary index
+ * enum      := varint                                      0 = null, otherwise 1 + ordinal
+ * line      := num                                         records are located in the block's file
+ * num       := zig-zag varint
+ * </pre>
+ *
+ * The dictionary grows as the snapshot is written, so it can be read and written
+ * in a single pass without holding more than one file's records. A partial result
+ * of a sharded run holds one shard's files, in walk order, and records the project
+ * root so the partial results of several machines can be merged by relative path.
+ */
+final class SnapshotFormat {
+
+    static final int MAGIC = 0x50485853; // "PHXS"
+    static final int VERSION = 5;
+
+    static final int END = 0;
+    static final int FILE = 1;
+
+    private SnapshotFormat() {}
+
+    static void writeVarint(OutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    static long readVarint(InputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.read();
+            if (b < 0) {
+                throw new EOFException("Truncated snapshot");
+            }
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Corrupt snapshot: varint too long");
+    }
+
+    static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
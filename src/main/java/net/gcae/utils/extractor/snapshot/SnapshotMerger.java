@@ -0,0 +1,137 @@
+package net.gcae.utils.extractor.snapshot;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.TreeSet;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.gcae.utils.extractor.analyzer.AnalysisSink;
+import net.gcae.utils.extractor.analyzer.ProjectWalker;
+import net.gcae.utils.extractor.model.AnalysisSummary;
+import net.gcae.utils.extractor.model.FileAnalysis;
+import net.gcae.utils.extractor.model.PathTable;
+
+/**
+ * Combines the partial results of a sharded run into one stream of files, as if the
+ * project had been analyzed in a single run. Each partial result lists its files in
+ * walk order, so a k-way merge on the path relative to each shard's project root
+ * yields the walk order of the whole project while holding one file per shard.
+ * Query numbering is per file and therefore the same however the files were sharded.
+ */
+public final class SnapshotMerger {
+
+    private static final Logger logger = LoggerFactory.getLogger(SnapshotMerger.class);
+
+    private SnapshotMerger() {}
+
+    /**
+     * Merges the partial results into the sink. The sink is neither finished nor closed.
+     * The paths of the files are interned in the given table.
+     *
+     * @throws IOException if a partial result cannot be read, the partial results are of
+     *         different shard counts, or a shard is missing or given twice
+     */
+    public static AnalysisSummary merge(List<Path> partialResults, PathTable paths, AnalysisSink sink)
+            throws IOException {
+        List<Cursor> cursors = new ArrayList<>();
+        try {
+            for (Path partialResult : partialResults) {
+                cursors.add(new Cursor(SnapshotReader.open(partialResult, paths)));
+            }
+            checkShards(cursors);
+
+            PriorityQueue<Cursor> heads = new PriorityQueue<>(
+                    (a, b) -> ProjectWalker.compareRelativePaths(a.relativePath, b.relativePath));
+            for (Cursor cursor : cursors) {
+                if (cursor.advance()) {
+                    heads.add(cursor);
+                }
+            }
+            AnalysisSummary summary = new AnalysisSummary();
+            String previous = null;
+            while (!heads.isEmpty()) {
+                Cursor cursor = heads.poll();
+                if (cursor.relativePath.equals(previous)) {
+                    throw new IOException("File " + previous + " appears in more than one partial result");
+                }
+                previous = cursor.relativePath;
+                sink.accept(cursor.analysis);
+                summary.add(cursor.analysis);
+                if (cursor.advance()) {
+                    heads.add(cursor);
+                }
+            }
+            logger.info("Merged {} files from {} partial results", summary.getFiles(), cursors.size());
+            return summary;
+        } finally {
+            for (Cursor cursor : cursors) {
+                cursor.reader.close();
+            }
+        }
+    }
+
+    private static void checkShards(List<Cursor> cursors) throws IOException {
+        if (cursors.isEmpty()) {
+            throw new IOException("No partial results to merge");
+        }
+        int shardCount = cursors.get(0).reader.getShardCount();
+        TreeSet<Integer> missing = new TreeSet<>();
+        for (int shard = 1; shard <= shardCount; shard++) {
+            missing.add(shard);
+        }
+        for (Cursor cursor : cursors) {
+            SnapshotReader reader = cursor.reader;
+            if (reader.getShardCount() == 0) {
+                throw new IOException("Not a partial result of a sharded run: " + reader.getSnapshotPath());
+            }
+            if (reader.getShardCount() != shardCount) {
+                throw new IOException("Partial results of different shard counts: " + shardCount + " and "
+                        + reader.getShardCount() + " (" + reader.getSnapshotPath() + ")");
+            }
+            if (!missing.remove(reader.getShard())) {
+                throw new IOException("Shard " + reader.getShard() + "/" + shardCount + " given more than once ("
+                        + reader.getSnapshotPath() + ")");
+            }
+        }
+        if (!missing.isEmpty()) {
+            throw new IOException("Missing partial results for shard " + missing + " of " + shardCount);
+        }
+    }
+
+    /**
+     * The next unmerged file of one partial result.
+     */
+    private static final class Cursor {
+        final SnapshotReader reader;
+        final String root;
+        FileAnalysis analysis;
+        String relativePath;
+
+        Cursor(SnapshotReader reader) {
+            this.reader = reader;
+            this.root = reader.getRoot();
+        }
+
+        boolean advance() throws IOException {
+            analysis = reader.next();
+            if (analysis == null) {
+                return false;
+            }
+            String path = analysis.getFilePath();
+            if (!root.isEmpty() && path.startsWith(root)) {
+                path = path.substring(root.length());
+            }
+            if (File.separatorChar != '/') {
+                path = path.replace(File.separatorChar, '/');
+            }
+            relativePath = path.startsWith("/") ? path.substring(1) : path;
+            return true;
+        }
+    }
+}
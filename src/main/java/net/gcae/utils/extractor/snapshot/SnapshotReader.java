@@ -0,0 +1,340 @@
+package net.gcae.utils.extractor.snapshot;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.gcae.utils.extractor.analyzer.AnalysisSink;
+import net.gcae.utils.extractor.model.AnalysisSummary;
+import net.gcae.utils.extractor.model.ClassDefinition;
+import net.gcae.utils.extractor.model.Complexity;
+import net.gcae.utils.extractor.model.CurlCall;
+import net.gcae.utils.extractor.model.CurlCallType;
+import net.gcae.utils.extractor.model.FileAnalysis;
+import net.gcae.utils.extractor.model.FileInventory;
+import net.gcae.utils.extractor.model.FileReference;
+import net.gcae.utils.extractor.model.FileType;
+import net.gcae.utils.extractor.model.FunctionDefinition;
+import net.gcae.utils.extractor.model.InheritanceInfo;
+import net.gcae.utils.extractor.model.InheritanceType;
+import net.gcae.utils.extractor.model.InterfaceDefinition;
+import net.gcae.utils.extractor.model.InterfaceImplementation;
+import net.gcae.utils.extractor.model.PathTable;
+import net.gcae.utils.extractor.model.ReferenceType;
+import net.gcae.utils.extractor.model.SQLQuery;
+
+/**
+ * Reads a snapshot written by {@link SnapshotWriter} and replays it, one file at a
+ * time and in the original order, into any {@link AnalysisSink}. Opened as a cursor,
+ * it hands out the files one by one instead.
+ */
+public class SnapshotReader implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(SnapshotReader.class);
+
+    private static final Complexity[] COMPLEXITIES = Complexity.values();
+    private static final FileType[] FILE_TYPES = FileType.values();
+    private static final CurlCallType[] CALL_TYPES = CurlCallType.values();
+    private static final ReferenceType[] REFERENCE_TYPES = ReferenceType.values();
+    private static final InheritanceType[] INHERITANCE_TYPES = InheritanceType.values();
+
+    private final Path snapshotPath;
+    private final InputStream in;
+    private final PathTable paths;
+    private final List<String> dictionary = new ArrayList<>();
+    private String root;
+    private int shard;
+    private int shardCount;
+    private long filesRead;
+    private boolean ended;
+
+    private SnapshotReader(Path snapshotPath, InputStream in, PathTable paths) {
+        this.snapshotPath = snapshotPath;
+        this.in = in;
+        this.paths = paths;
+    }
+
+    /**
+     * Streams every file in the snapshot to the sink. The sink is neither finished nor closed.
+     *
+     * @param paths the run's table, in which the paths of the files are interned
+     */
+    public static AnalysisSummary read(Path snapshotPath, PathTable paths, AnalysisSink sink) throws IOException {
+        try (SnapshotReader reader = open(snapshotPath, paths)) {
+            AnalysisSummary summary = new AnalysisSummary();
+            FileAnalysis analysis;
+            while ((analysis = reader.next()) != null) {
+                sink.accept(analysis);
+                summary.add(analysis);
+            }
+            logger.info("Read {} files from snapshot", summary.getFiles());
+            return summary;
+        }
+    }
+
+    /**
+     * Opens a snapshot and reads its header; the files are then read with {@link #next()}
+     * and their paths interned in the given table.
+     */
+    public static SnapshotReader open(Path snapshotPath, PathTable paths) throws IOException {
+        logger.info("Reading snapshot: {}", snapshotPath);
+        InputStream in = new BufferedInputStream(Files.newInputStream(snapshotPath), 64 * 1024);
+        SnapshotReader reader = new SnapshotReader(snapshotPath, in, paths);
+        try {
+            DataInputStream header = new DataInputStream(in);
+            int magic;
+            try {
+                magic = header.readInt();
+            } catch (EOFException e) {
+                magic = 0;
+            }
+            if (magic != SnapshotFormat.MAGIC) {
+                throw new IOException("Not a snapshot file: " + snapshotPath);
+            }
+            int version = header.readInt();
+            if (version != SnapshotFormat.VERSION) {
+                throw new IOException("Unsupported snapshot version " + version + " in " + snapshotPath
+                        + " (expected " + SnapshotFormat.VERSION + ")");
+            }
+            byte[] rootBytes = new byte[reader.count()];
+            reader.readFully(rootBytes);
+            reader.root = new String(rootBytes, StandardCharsets.UTF_8);
+            reader.shard = reader.count();
+            reader.shardCount = reader.count();
+            return reader;
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the directory of the analyzed project, or an empty string when it was not recorded.
+     */
+    public String getRoot() { return root; }
+
+    /**
+     * Returns the 1-based shard this snapshot holds, or 0 when it holds the whole project.
+     */
+    public int getShard() { return shard; }
+
+    public int getShardCount() { return shardCount; }
+
+    public Path getSnapshotPath() { return snapshotPath; }
+
+    /**
+     * Reads the next file, or returns null after the last one.
+     */
+    public FileAnalysis next() throws IOException {
+        if (ended) {
+            return null;
+        }
+        int tag = in.read();
+        if (tag == SnapshotFormat.FILE) {
+            filesRead++;
+            return readFile();
+        }
+        if (tag != SnapshotFormat.END) {
+            throw new IOException("Corrupt or truncated snapshot: " + snapshotPath);
+        }
+        ended = true;
+        long expected = SnapshotFormat.readVarint(in);
+        if (expected != filesRead) {
+            throw new IOException("Corrupt snapshot: expected " + expected + " files, found " + filesRead);
+        }
+        return null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private FileAnalysis readFile() throws IOException {
+        for (int i = count(); i > 0; i--) {
+            byte[] bytes = new byte[count()];
+            readFully(bytes);
+            dictionary.add(new String(bytes, StandardCharsets.UTF_8));
+        }
+
+        FileAnalysis analysis = new FileAnalysis(paths);
+        String fileName = string();
+        String path = string();
+        if (path == null) {
+            throw new IOException("Corrupt snapshot: file without a path");
+        }
+        int fileId = paths.intern(path);
+        FileInventory file = new FileInventory(fileName, fileId, constant(FILE_TYPES), number(), (int) number(), string());
+        file.setQuarantined(number() != 0);
+        analysis.setFile(file);
+
+        int n = count();
+        String[] names = strings(n);
+        String[] tables = strings(n);
+        int[] lines = numbers(n);
+        String[] dataSources = strings(n);
+        String[] queries = strings(n);
+        Complexity[] complexities = constants(n, COMPLEXITIES);
+        for (int i = 0; i < n; i++) {
+            analysis.getSqlQueries().add(new SQLQuery(names[i], tables[i], fileId, lines[i], dataSources[i],
+                    queries[i], complexities[i]));
+        }
+
+        readReferences(fileId, analysis.getRequires());
+        readReferences(fileId, analysis.getIncludes());
+
+        n = count();
+        CurlCallType[] callTypes = constants(n, CALL_TYPES);
+        lines = numbers(n);
+        String[] targets = strings(n);
+        for (int i = 0; i < n; i++) {
+            analysis.getCurlCalls().add(new CurlCall(callTypes[i], fileId, lines[i], targets[i]));
+        }
+
+        n = count();
+        names = strings(n);
+        lines = numbers(n);
+        int[] lineCounts = numbers(n);
+        complexities = constants(n, COMPLEXITIES);
+        String[] parameters = strings(n);
+        for (int i = 0; i < n; i++) {
+            analysis.getFunctions().add(new FunctionDefinition(names[i], fileId, lines[i], lineCounts[i],
+                    complexities[i], parameters[i]));
+        }
+
+        n = count();
+        names = strings(n);
+        lines = numbers(n);
+        int[] methodCounts = numbers(n);
+        String[] parents = strings(n);
+        String[] interfaces = strings(n);
+        for (int i = 0; i < n; i++) {
+            analysis.getClasses().add(new ClassDefinition(names[i], fileId, lines[i], methodCounts[i],
+                    parents[i], interfaces[i]));
+        }
+
+        readInheritances(fileId, analysis.getTraits());
+        readInheritances(fileId, analysis.getClassInheritances());
+
+        n = count();
+        names = strings(n);
+        String[] interfaceNames = strings(n);
+        lines = numbers(n);
+        for (int i = 0; i < n; i++) {
+            analysis.getImplementations().add(new InterfaceImplementation(names[i], interfaceNames[i], fileId, lines[i]));
+        }
+
+        n = count();
+        names = strings(n);
+        lines = numbers(n);
+        methodCounts = numbers(n);
+        String[] extendsInterfaces = strings(n);
+        for (int i = 0; i < n; i++) {
+            analysis.getInterfaces().add(new InterfaceDefinition(names[i], fileId, lines[i], methodCounts[i],
+                    extendsInterfaces[i]));
+        }
+        return analysis;
+    }
+
+    private void readReferences(int fileId, List<FileReference> references) throws IOException {
+        int n = count();
+        String[] files = strings(n);
+        int[] lines = numbers(n);
+        ReferenceType[] types = constants(n, REFERENCE_TYPES);
+        for (int i = 0; i < n; i++) {
+            references.add(new FileReference(files[i], fileId, lines[i], types[i]));
+        }
+    }
+
+    private void readInheritances(int fileId, List<InheritanceInfo> inheritances) throws IOException {
+        int n = count();
+        String[] children = strings(n);
+        String[] parents = strings(n);
+        int[] lines = numbers(n);
+        InheritanceType[] types = constants(n, INHERITANCE_TYPES);
+        for (int i = 0; i < n; i++) {
+            inheritances.add(new InheritanceInfo(children[i], parents[i], fileId, lines[i], types[i]));
+        }
+    }
+
+    private String[] strings(int n) throws IOException {
+        String[] values = new String[n];
+        for (int i = 0; i < n; i++) {
+            values[i] = string();
+        }
+        return values;
+    }
+
+    private int[] numbers(int n) throws IOException {
+        int[] values = new int[n];
+        for (int i = 0; i < n; i++) {
+            values[i] = (int) number();
+        }
+        return values;
+    }
+
+    private <E extends Enum<E>> E[] constants(int n, E[] universe) throws IOException {
+        E[] values = Arrays.copyOf(universe, n);
+        for (int i = 0; i < n; i++) {
+            values[i] = constant(universe);
+        }
+        return values;
+    }
+
+    private String string() throws IOException {
+        long index = SnapshotFormat.readVarint(in);
+        if (index == 0) {
+            return null;
+        }
+        if (index > dictionary.size()) {
+            throw new IOException("Corrupt snapshot: string index " + index + " out of range");
+        }
+        return dictionary.get((int) index - 1);
+    }
+
+    private <E extends Enum<E>> E constant(E[] universe) throws IOException {
+        long value = SnapshotFormat.readVarint(in);
+        if (value == 0) {
+            return null;
+        }
+        if (value > universe.length) {
+            throw new IOException("Corrupt snapshot: constant " + value + " out of range");
+        }
+        return universe[(int) value - 1];
+    }
+
+    private long number() throws IOException {
+        return SnapshotFormat.unZigZag(SnapshotFormat.readVarint(in));
+    }
+
+    private int count() throws IOException {
+        long count = SnapshotFormat.readVarint(in);
+        if (count > Integer.MAX_VALUE) {
+            throw new IOException("Corrupt snapshot: count " + count);
+        }
+        return (int) count;
+    }
+
+    private void readFully(byte[] bytes) throws IOException {
+        int offset = 0;
+        while (offset < bytes.length) {
+            int read = in.read(bytes, offset, bytes.length - offset);
+            if (read < 0) {
+                throw new EOFException("Truncated snapshot");
+            }
+            offset += read;
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package net.gcae.utils.extractor.snapshot;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.gcae.utils.extractor.analyzer.AnalysisSink;
+import net.gcae.utils.extractor.model.ClassDefinition;
+import net.gcae.utils.extractor.model.CurlCall;
+import net.gcae.utils.extractor.model.FileAnalysis;
+import net.gcae.utils.extractor.model.FileInventory;
+import net.gcae.utils.extractor.model.FileReference;
+import net.gcae.utils.extractor.model.FunctionDefinition;
+import net.gcae.utils.extractor.model.InheritanceInfo;
+import net.gcae.utils.extractor.model.InterfaceDefinition;
+import net.gcae.utils.extractor.model.InterfaceImplementation;
+import net.gcae.utils.extractor.model.SQLQuery;
+
+/**
+ * Writes analysis results to a compact binary snapshot as they are produced.
+ * Strings are stored once in a dictionary and referenced by index, records store
+ * only their line since their file is the block's, and the records of each file
+ * are laid out column by column as varints. See {@link SnapshotFormat} for the layout.
+ */
+public class SnapshotWriter implements AnalysisSink {
+
+    private static final Logger logger = LoggerFactory.getLogger(SnapshotWriter.class);
+
+    private final Path outputPath;
+    private final OutputStream out;
+    private final Map<String, Integer> dictionary = new HashMap<>();
+    private final List<String> newStrings = new ArrayList<>();
+    private final ByteArrayOutputStream block = new ByteArrayOutputStream(8192);
+    private long fileCount;
+
+    public SnapshotWriter(Path outputPath) throws IOException {
+        this(outputPath, null, 0, 0);
+    }
+
+    /**
+     * @param root the analyzed project's directory, or null when unknown
+     * @param shard 1-based shard the snapshot holds, or 0 for the whole project
+     * @param shardCount number of shards, or 0 for the whole project
+     */
+    public SnapshotWriter(Path outputPath, String root, int shard, int shardCount) throws IOException {
+        this.outputPath = outputPath;
+        File parentDir = outputPath.toAbsolutePath().getParent().toFile();
+        if (!parentDir.exists()) {
+            parentDir.mkdirs();
+        }
+        this.out = new BufferedOutputStream(Files.newOutputStream(outputPath), 64 * 1024);
+        DataOutputStream header = new DataOutputStream(out);
+        header.writeInt(SnapshotFormat.MAGIC);
+        header.writeInt(SnapshotFormat.VERSION);
+        byte[] rootBytes = root != null ? root.getBytes(StandardCharsets.UTF_8) : new byte[0];
+        SnapshotFormat.writeVarint(out, rootBytes.length);
+        out.write(rootBytes);
+        SnapshotFormat.writeVarint(out, shard);
+        SnapshotFormat.writeVarint(out, shardCount);
+        logger.info("Writing snapshot: {}", outputPath);
+    }
+
+    @Override
+    public void accept(FileAnalysis analysis) throws IOException {
+        block.reset();
+        newStrings.clear();
+
+        FileInventory file = analysis.getFile();
+        string(file.getFileName());
+        string(analysis.getFilePath());
+        constant(file.getFileType());
+        number(file.getFileSize());
+        number(file.getLineCount());
+        string(file.getEncoding());
+        number(file.isQuarantined() ? 1 : 0);
+
+        List<SQLQuery> queries = analysis.getSqlQueries();
+        count(queries);
+        strings(queries, SQLQuery::getQueryName);
+        strings(queries, SQLQuery::getDbTable);
+        numbers(queries, SQLQuery::getLine);
+        strings(queries, SQLQuery::getDataSource);
+        strings(queries, SQLQuery::getSqlQuery);
+        constants(queries, SQLQuery::getComplexity);
+
+        references(analysis.getRequires());
+        references(analysis.getIncludes());
+
+        List<CurlCall> calls = analysis.getCurlCalls();
+        count(calls);
+        constants(calls, CurlCall::getCallType);
+        numbers(calls, CurlCall::getLine);
+        strings(calls, CurlCall::getTarget);
+
+        List<FunctionDefinition> functions = analysis.getFunctions();
+        count(functions);
+        strings(functions, FunctionDefinition::getFunctionName);
+        numbers(functions, FunctionDefinition::getLine);
+        numbers(functions, FunctionDefinition::getLineCount);
+        constants(functions, FunctionDefinition::getComplexity);
+        strings(functions, FunctionDefinition::getParameters);
+
+        List<ClassDefinition> classes = analysis.getClasses();
+        count(classes);
+        strings(classes, ClassDefinition::getClassName);
+        numbers(classes, ClassDefinition::getLine);
+        numbers(classes, ClassDefinition::getMethodCount);
+        strings(classes, ClassDefinition::getParentClass);
+        strings(classes, ClassDefinition::getInterfaces);
+
+        inheritances(analysis.getTraits());
+        inheritances(analysis.getClassInheritances());
+
+        List<InterfaceImplementation> implementations = analysis.getImplementations();
+        count(implementations);
+        strings(implementations, InterfaceImplementation::getClassName);
+        strings(implementations, InterfaceImplementation::getInterfaceName);
+        numbers(implementations, InterfaceImplementation::getLine);
+
+        List<InterfaceDefinition> interfaces = analysis.getInterfaces();
+        count(interfaces);
+        strings(interfaces, InterfaceDefinition::getInterfaceName);
+        numbers(interfaces, InterfaceDefinition::getLine);
+        numbers(interfaces, InterfaceDefinition::getMethodCount);
+        strings(interfaces, InterfaceDefinition::getExtendsInterface);
+
+        // Strings introduced by this file precede its records
+        out.write(SnapshotFormat.FILE);
+        SnapshotFormat.writeVarint(out, newStrings.size());
+        for (String value : newStrings) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            SnapshotFormat.writeVarint(out, bytes.length);
+            out.write(bytes);
+        }
+        block.writeTo(out);
+        fileCount++;
+    }
+
+    @Override
+    public void finish() throws IOException {
+        out.write(SnapshotFormat.END);
+        SnapshotFormat.writeVarint(out, fileCount);
+        out.flush();
+        logger.info("Snapshot written to: {} ({} files, {} distinct strings, {} bytes)",
+                outputPath, fileCount, dictionary.size(), Files.size(outputPath));
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    private void references(List<FileReference> references) throws IOException {
+        count(references);
+        strings(references, FileReference::getReferencedFile);
+        numbers(references, FileReference::getLine);
+        constants(references, FileReference::getReferenceType);
+    }
+
+    private void inheritances(List<InheritanceInfo> inheritances) throws IOException {
+        count(inheritances);
+        strings(inheritances, InheritanceInfo::getChildName);
+        strings(inheritances, InheritanceInfo::getParentName);
+        numbers(inheritances, InheritanceInfo::getLine);
+        constants(inheritances, InheritanceInfo::getInheritanceType);
+    }
+
+    private void count(List<?> records) throws IOException {
+        SnapshotFormat.writeVarint(block, records.size());
+    }
+
+    private <T> void strings(List<T> records, Function<T, String> field) throws IOException {
+        for (T record : records) {
+            string(field.apply(record));
+        }
+    }
+
+    private <T> void numbers(List<T> records, ToLongFunction<T> field) throws IOException {
+        for (T record : records) {
+            number(field.applyAsLong(record));
+        }
+    }
+
+    private <T> void constants(List<T> records, Function<T, Enum<?>> field) throws IOException {
+        for (T record : records) {
+            constant(field.apply(record));
+        }
+    }
+
+    private void string(String value) throws IOException {
+        if (value == null) {
+            SnapshotFormat.writeVarint(block, 0);
+            return;
+        }
+        Integer index = dictionary.get(value);
+        if (index == null) {
+            index = dictionary.size() + 1;
+            dictionary.put(value, index);
+            newStrings.add(value);
+        }
+        SnapshotFormat.writeVarint(block, index);
+    }
+
+    private void constant(Enum<?> value) throws IOException {
+        SnapshotFormat.writeVarint(block, value == null ? 0 : value.ordinal() + 1);
+    }
+
+    private void number(long value) throws IOException {
+        SnapshotFormat.writeVarint(block, SnapshotFormat.zigZag(value));
+    }
+}
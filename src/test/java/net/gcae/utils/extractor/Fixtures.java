@@ -0,0 +1,75 @@
+package net.gcae.utils.extractor;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import net.gcae.utils.extractor.analyzer.PHPAnalyzer;
+import net.gcae.utils.extractor.analyzer.SourceFile;
+import net.gcae.utils.extractor.model.FileAnalysis;
+import net.gcae.utils.extractor.model.PathTable;
+import net.gcae.utils.extractor.report.JsonLinesReportWriter;
+
+/**
+ * Sample PHP code with a record of every kind, and helpers to analyze and compare it.
+ */
+public final class Fixtures {
+
+    public static final String PHP = "<?php\n"
+        + "require_once 'lib/db.php';\n"
+        + "include 'config.php';\n"
+        + "\n"
+        + "interface Repository {\n"
+        + "    public function find($id);\n"
+        + "}\n"
+        + "\n"
+        + "trait Loggable {\n"
+        + "    public function log($message) {}\n"
+        + "}\n"
+        + "\n"
+        + "abstract class Base {}\n"
+        + "\n"
+        + "class UserRepository extends Base implements Repository {\n"
+        + "    use Loggable;\n"
+        + "\n"
+        + "    public function find($id) {\n"
+        + "        $sql = \"SELECT id, name FROM users WHERE id = \" . $id;\n"
+        + "        $ch = curl_init('https://api.example.com/users');\n"
+        + "        curl_exec($ch);\n"
+        + "        return $this->db->query($sql);\n"
+        + "    }\n"
+        + "}\n"
+        + "\n"
+        + "function helper($a, $b) {\n"
+        + "    return $a + $b;\n"
+        + "}\n";
+
+    private Fixtures() {}
+
+    /**
+     * Writes PHP code to a file and analyzes it, interning its path in the given table.
+     */
+    public static FileAnalysis analyze(Path file, String php, PathTable paths) throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        Files.write(file, php.getBytes(StandardCharsets.UTF_8));
+        PHPAnalyzer analyzer = new PHPAnalyzer();
+        analyzer.setPaths(paths);
+        return analyzer.analyzeSingleFile(new SourceFile(file, Files.size(file), Files.getLastModifiedTime(file).toMillis()));
+    }
+
+    /**
+     * Renders records as JSON Lines, every column of every record, so two sets of records
+     * can be compared as text.
+     */
+    public static String render(Iterable<FileAnalysis> analyses) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (JsonLinesReportWriter writer = new JsonLinesReportWriter(out)) {
+            for (FileAnalysis analysis : analyses) {
+                writer.accept(analysis);
+            }
+        }
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
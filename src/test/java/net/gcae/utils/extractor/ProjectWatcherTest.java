@@ -0,0 +1,89 @@
+package net.gcae.utils.extractor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import net.gcae.utils.extractor.model.FileAnalysis;
+import net.gcae.utils.extractor.model.PathTable;
+import net.gcae.utils.extractor.snapshot.SnapshotReader;
+
+class ProjectWatcherTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void listsNewFilesInWalkOrder() throws Exception {
+        Path project = directory.resolve("project");
+        write(project.resolve("b.php"));
+        write(project.resolve("c/d.php"));
+        ProjectWatcher watcher = new ProjectWatcher(options("watch.snap"), project.toFile(),
+                directory.resolve("watch").toFile(), 50);
+        assertNull(watcher.prepare());
+        watcher.start();
+
+        BlockingQueue<ProjectWatcher.Update> updates = new LinkedBlockingQueue<>();
+        Thread watch = new Thread(() -> {
+            try {
+                watcher.watch(updates::add);
+            } catch (InterruptedException e) {
+                // Stopped by the test
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        watch.start();
+        try {
+            // Sorts before the files already reported, and between them
+            write(project.resolve("a.php"));
+            write(project.resolve("c/a.php"));
+            int analyzed = 0;
+            while (analyzed < 2) {
+                ProjectWatcher.Update update = updates.poll(30, TimeUnit.SECONDS);
+                assertNotNull(update, "no report update");
+                analyzed += update.getAnalyzed();
+            }
+        } finally {
+            watch.interrupt();
+            watch.join();
+        }
+
+        ReportJob full = new ReportJob(options("full.snap"), project.toFile(), directory.resolve("full").toFile());
+        assertNull(full.prepare());
+        full.run();
+        assertEquals(render(directory.resolve("full.snap")), render(directory.resolve("watch.snap")));
+    }
+
+    private ExtractorOptions options(String snapshot) {
+        ExtractorOptions options = new ExtractorOptions();
+        options.apply("--no-cache", null);
+        options.apply("--no-index", null);
+        options.apply("--snapshot", directory.resolve(snapshot).toString());
+        return options;
+    }
+
+    private static void write(Path file) throws IOException {
+        Files.createDirectories(file.getParent());
+        Files.write(file, Fixtures.PHP.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String render(Path snapshot) throws IOException {
+        List<FileAnalysis> analyses = new ArrayList<>();
+        SnapshotReader.read(snapshot, new PathTable(), analyses::add);
+        return Fixtures.render(analyses);
+    }
+}
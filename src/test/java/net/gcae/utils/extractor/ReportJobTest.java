@@ -0,0 +1,134 @@
+package net.gcae.utils.extractor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ReportJobTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void reservesADistinctReportForEveryConcurrentJob() throws Exception {
+        ReportJob job = new ReportJob(new ExtractorOptions(), directory.toFile(), directory.toFile());
+        int jobs = 16;
+        ExecutorService pool = Executors.newFixedThreadPool(jobs);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < jobs; i++) {
+                results.add(pool.submit(job::reportPath));
+            }
+            HashSet<String> reports = new HashSet<>();
+            for (Future<String> result : results) {
+                String report = result.get();
+                assertTrue(Files.isRegularFile(Paths.get(report)));
+                reports.add(report);
+            }
+            assertEquals(jobs, reports.size());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void namesTheIndexAfterTheReportUnlessItIsTaken() throws IOException {
+        ReportJob job = new ReportJob(new ExtractorOptions(), directory.toFile(), directory.toFile());
+        String report = job.reportPath();
+        String base = report.substring(0, report.length() - ".xlsx".length());
+
+        assertEquals(base + ".idx", job.indexPath(report));
+        String other = job.indexPath(report);
+        assertTrue(other.endsWith(".idx"));
+        assertNotEquals(base + ".idx", other);
+        assertTrue(Files.isRegularFile(Paths.get(other)));
+    }
+
+    @Test
+    void reservesDirectoriesForDirectoryFormats() throws IOException {
+        ExtractorOptions options = new ExtractorOptions();
+        options.apply("--format", "csv");
+        ReportJob job = new ReportJob(options, directory.toFile(), directory.toFile());
+
+        String first = job.reportPath();
+        String second = job.reportPath();
+        assertTrue(Files.isDirectory(Paths.get(first)));
+        assertTrue(Files.isDirectory(Paths.get(second)));
+        assertNotEquals(first, second);
+    }
+
+    @Test
+    void deletesTheReservedReportAndIndexWhenTheJobFails() throws IOException {
+        Path notSnapshot = directory.resolve("input/not-a-snapshot.snap");
+        Files.createDirectories(notSnapshot.getParent());
+        Files.write(notSnapshot, Arrays.asList("not a snapshot"));
+        Path output = directory.resolve("out");
+        for (String format : new String[] { "xlsx", "csv", "html" }) {
+            ExtractorOptions options = new ExtractorOptions();
+            options.apply("--from-snapshot", notSnapshot.toString());
+            options.apply("--format", format);
+            ReportJob job = new ReportJob(options, null, output.toFile());
+            assertNull(job.prepare());
+
+            assertThrows(IOException.class, job::run, format);
+            try (Stream<Path> left = Files.list(output)) {
+                assertEquals(Collections.emptyList(), left.collect(Collectors.toList()), format);
+            }
+        }
+    }
+
+    @Test
+    void listsEntryPointIncludesOnlyWhenAsked() throws IOException {
+        Path project = directory.resolve("project");
+        Files.createDirectories(project);
+        Files.write(project.resolve("index.php"), Arrays.asList("<?php require 'lib.php';"));
+        Files.write(project.resolve("lib.php"), Arrays.asList("<?php require_once 'db.php';"));
+        Files.write(project.resolve("db.php"), Arrays.asList("<?php"));
+
+        Path plain = report(project, directory.resolve("plain"), false);
+        assertTrue(Files.exists(plain.resolve("phpIncludeGraphReport.csv")));
+        assertTrue(Files.notExists(plain.resolve("phpEntryPointIncludesReport.csv")));
+
+        Path listed = report(project, directory.resolve("listed"), true);
+        String index = project.resolve("index.php").toString();
+        assertEquals(Arrays.asList("Entry Point,Included File",
+                index + "," + project.resolve("db.php"), index + "," + project.resolve("lib.php")),
+            Files.readAllLines(listed.resolve("phpEntryPointIncludesReport.csv")));
+    }
+
+    private static Path report(Path project, Path output, boolean entryPointIncludes) throws IOException {
+        ExtractorOptions options = new ExtractorOptions();
+        options.apply("--format", "csv");
+        options.apply("--no-cache", null);
+        options.apply("--no-index", null);
+        if (entryPointIncludes) {
+            options.apply("--entry-point-includes", null);
+        }
+        ReportJob job = new ReportJob(options, project.toFile(), output.toFile());
+        assertNull(job.prepare());
+        job.run();
+        try (Stream<Path> reports = Files.list(output)) {
+            return reports.filter(Files::isDirectory).findFirst().get();
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package net.gcae.utils.extractor.analyzer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import net.gcae.utils.extractor.cache.QuarantineList;
+
+class AnalysisMetricsTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void timesFilesThatRunOutOfTimeOrAreSkipped() throws IOException {
+        // Far more tokens than can be read within a millisecond
+        StringBuilder php = new StringBuilder("<?php\n");
+        for (int i = 0; i < 200_000; i++) {
+            php.append("$a").append(i).append(" = foo($b, 'c', [1, 2]);\n");
+        }
+        Path file = directory.resolve("huge.php");
+        Files.write(file, php.toString().getBytes(StandardCharsets.UTF_8));
+        SourceFile source = new SourceFile(file, Files.readAttributes(file, BasicFileAttributes.class));
+
+        AnalysisMetrics metrics = new AnalysisMetrics();
+        PHPAnalyzer analyzer = new PHPAnalyzer();
+        analyzer.setMetrics(metrics);
+        analyzer.setQuarantine(QuarantineList.open(directory.resolve("cache")));
+        analyzer.setFileTimeoutMillis(1);
+
+        assertTrue(analyzer.analyzeSingleFile(source).getFile().isQuarantined());
+        assertEquals(1, metrics.getFilesAnalyzed());
+        assertEquals(1, metrics.getPhpFiles());
+        List<AnalysisMetrics.FileTiming> slowest = metrics.getSlowestFiles();
+        assertEquals(1, slowest.size());
+        assertEquals(file.toString(), slowest.get(0).getPath());
+        assertEquals(source.getSize(), slowest.get(0).getBytes());
+        long timedOut = metrics.getFileNanos();
+        assertTrue(timedOut >= 1_000_000L, Long.toString(timedOut));
+
+        // The next run lists the file without reading it, and counts it once
+        assertTrue(analyzer.analyzeSingleFile(source).getFile().isQuarantined());
+        assertEquals(1, metrics.getFilesAnalyzed());
+        assertEquals(1, metrics.getFilesQuarantined());
+        assertTrue(metrics.getFileNanos() > timedOut);
+        assertEquals(2, metrics.getSlowestFiles().size());
+    }
+}
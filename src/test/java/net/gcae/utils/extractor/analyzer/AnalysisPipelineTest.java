@@ -0,0 +1,97 @@
+package net.gcae.utils.extractor.analyzer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import net.gcae.utils.extractor.Fixtures;
+import net.gcae.utils.extractor.model.FileAnalysis;
+
+class AnalysisPipelineTest {
+
+    @TempDir
+    Path root;
+
+    @BeforeEach
+    void createProject() throws IOException {
+        // Files of very different sizes, so workers finish them out of order
+        for (int i = 0; i < 60; i++) {
+            Path file = root.resolve("module" + (i % 5) + "/sub" + (i % 3) + "/file" + i + ".php");
+            StringBuilder php = new StringBuilder(Fixtures.PHP);
+            for (int n = 0; n < (i * 37) % 200; n++) {
+                php.append("function f").append(i).append('_').append(n).append("() { return \"SELECT ").append(n)
+                    .append(" FROM t").append(i).append("\"; }\n");
+            }
+            write(file, php.toString());
+        }
+        write(root.resolve("index.php"), Fixtures.PHP);
+        write(root.resolve("public/app.js"), "console.log('app');\n");
+        write(root.resolve("public/style.css"), "body { margin: 0; }\n");
+    }
+
+    @Test
+    void rendersTheSameRecordsOnOneThreadAsOnMany() throws IOException {
+        List<FileAnalysis> sequential = analyze(1, PHPAnalyzer.DEFAULT_MEMORY_BUDGET);
+        assertEquals(walkOrder(), filePaths(sequential));
+
+        for (int threads : new int[] { 2, 8 }) {
+            assertEquals(render(sequential), render(analyze(threads, PHPAnalyzer.DEFAULT_MEMORY_BUDGET)), threads + " threads");
+        }
+    }
+
+    @Test
+    void completesInWalkOrderWhenNoFileFitsTheBudget() throws IOException {
+        // One byte, rounded up to the KiB the budget is counted in: less than any file needs, so
+        // each one in turn takes the whole budget
+        List<FileAnalysis> analyses = assertTimeoutPreemptively(Duration.ofSeconds(60), () -> analyze(4, 1));
+
+        assertEquals(walkOrder(), filePaths(analyses));
+        assertEquals(render(analyze(1, PHPAnalyzer.DEFAULT_MEMORY_BUDGET)), render(analyses));
+    }
+
+    private List<FileAnalysis> analyze(int threads, long memoryBudget) throws IOException {
+        PHPAnalyzer analyzer = new PHPAnalyzer(threads);
+        analyzer.setMemoryBudget(memoryBudget);
+        List<FileAnalysis> analyses = new ArrayList<>();
+        analyzer.analyzeProject(root.toFile(), analyses::add);
+        return analyses;
+    }
+
+    private List<String> walkOrder() throws IOException {
+        List<String> paths = new ArrayList<>();
+        for (SourceFile file : new ProjectWalker(root).listFiles()) {
+            paths.add(file.getPath().toString());
+        }
+        return paths;
+    }
+
+    private static List<String> filePaths(List<FileAnalysis> analyses) {
+        List<String> paths = new ArrayList<>();
+        for (FileAnalysis analysis : analyses) {
+            paths.add(analysis.getFilePath());
+        }
+        return paths;
+    }
+
+    private static String render(List<FileAnalysis> analyses) throws IOException {
+        assertTrue(analyses.size() > 60);
+        return Fixtures.render(analyses);
+    }
+
+    private static void write(Path file, String content) throws IOException {
+        Files.createDirectories(file.getParent());
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+    }
+}
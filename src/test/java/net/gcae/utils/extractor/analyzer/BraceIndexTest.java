@@ -0,0 +1,123 @@
+package net.gcae.utils.extractor.analyzer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import net.gcae.utils.extractor.model.ClassDefinition;
+import net.gcae.utils.extractor.model.FileAnalysis;
+import net.gcae.utils.extractor.model.FunctionDefinition;
+import net.gcae.utils.extractor.model.PathTable;
+
+class BraceIndexTest {
+
+    private static final String PHP = "<?php\n"
+        + "class Service {\n"                                      // 2
+        + "    public function build($x) {\n"                      // 3
+        + "        $logger = new class($x, function () { return 1; }) extends Base {\n"
+        + "            public function log($m) { echo \"{$m}\"; }\n"
+        + "            public function flush() {}\n"
+        + "        };\n"
+        + "        $other = new readonly class {\n"
+        + "            public function get() {}\n"
+        + "        };\n"
+        + "        return $logger;\n"
+        + "    }\n"                                                // 12
+        + "\n"
+        + "    private function &ref(array $a = []) {\n"           // 14
+        + "        if ($a) { return $a; }\n"
+        + "        return [];\n"
+        + "    }\n"                                                // 17
+        + "\n"
+        + "    abstract protected function hook();\n"
+        + "}\n"                                                    // 20
+        + "\n"
+        + "function helper() {\n"                                 // 22
+        + "    $f = fn($x) => $x;\n"
+        + "    $g = function ($y) use ($f) { return $y; };\n"
+        + "}\n"                                                    // 25
+        + "\n"
+        + "class Empty_ {}\n"                                      // 27
+        + "$s = Service::class; $t = $obj->class;\n";
+
+    @Test
+    void reportsDeclaredFunctionsWithTheirLineCounts() {
+        FileAnalysis analysis = analyze(PHP);
+
+        List<String> functions = new ArrayList<>();
+        for (FunctionDefinition function : analysis.getFunctions()) {
+            functions.add(function.getFunctionName() + "@" + function.getLine() + "+" + function.getLineCount());
+        }
+        // Anonymous class methods, closures, arrow functions and bodiless methods are left out
+        assertEquals(Arrays.asList("build@3+9", "ref@14+3", "helper@22+3"), functions);
+    }
+
+    @Test
+    void countsTheMethodsOfDeclaredClassesOnly() {
+        FileAnalysis analysis = analyze(PHP);
+
+        List<String> classes = new ArrayList<>();
+        for (ClassDefinition definition : analysis.getClasses()) {
+            classes.add(definition.getClassName() + "@" + definition.getLine() + "=" + definition.getMethodCount());
+        }
+        // hook() is declared without a body but is still a method of Service
+        assertEquals(Arrays.asList("Service@2=3", "Empty_@27=0"), classes);
+    }
+
+    @Test
+    void findsTheLineWhereEachBodyEnds() {
+        TokenStream tokens = PhpLexer.tokenize(PHP);
+        BraceIndex braces = BraceIndex.of(tokens);
+        LineIndex lines = LineIndex.of(PHP);
+
+        int service = indexOf(tokens, "{", indexOf(tokens, "Service", 0));
+        int empty = indexOf(tokens, "{", indexOf(tokens, "Empty_", 0));
+        assertEquals(20, lines.lineOf(tokens.start(braces.closing(service))));
+        assertEquals(27, lines.lineOf(tokens.start(braces.closing(empty))));
+        int build = braces.functionName(0);
+        assertEquals(12, lines.lineOf(tokens.start(braces.closing(indexOf(tokens, "{", build)))));
+    }
+
+    @Test
+    void matchesEachKindOfBracketOnItsOwn() {
+        String php = "<?php class A { function f() { $a = [1, (2)]; } } )";
+        TokenStream tokens = PhpLexer.tokenize(php);
+        BraceIndex braces = BraceIndex.of(tokens);
+
+        int classBrace = indexOf(tokens, "{", 0);
+        int methodBrace = indexOf(tokens, "{", classBrace + 1);
+        assertEquals(tokens.size() - 2, braces.closing(classBrace));
+        assertEquals(tokens.size() - 3, braces.closing(methodBrace));
+        assertEquals("]", tokens.text(braces.closing(indexOf(tokens, "[", 0))));
+        // The stray ) closes nothing and leaves the braces matched
+        assertEquals(-1, braces.closing(tokens.size() - 1));
+        assertEquals(1, braces.countFunctionsBetween(classBrace, braces.closing(classBrace)));
+    }
+
+    @Test
+    void letsAnUnclosedAnonymousClassRunToTheEndOfTheFile() {
+        String php = "<?php $a = new class { function inner() {}\nfunction after() {}";
+        BraceIndex braces = BraceIndex.of(PhpLexer.tokenize(php));
+
+        assertEquals(0, braces.getFunctionCount());
+    }
+
+    private static int indexOf(TokenStream tokens, String text, int from) {
+        for (int i = from; i < tokens.size(); i++) {
+            if (tokens.text(i).equals(text)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static FileAnalysis analyze(String php) {
+        FileAnalysis analysis = new FileAnalysis(new PathTable());
+        new PHPAnalyzer().analyzePHPContent(php, "/app/Service.php", analysis);
+        return analysis;
+    }
+}
@@ -0,0 +1,139 @@
+package net.gcae.utils.extractor.analyzer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+class IgnoreRulesTest {
+
+    private static final int NO_MATCH = IgnoreRules.NO_MATCH;
+    private static final int IGNORED = IgnoreRules.IGNORED;
+    private static final int INCLUDED = IgnoreRules.INCLUDED;
+
+    @Test
+    void matchesPlainNamesAtAnyDepth() {
+        IgnoreRules rules = rules("", "vendor", "# a comment", "", "*.log");
+
+        assertEquals(IGNORED, file(rules, "vendor"));
+        assertEquals(IGNORED, directory(rules, "lib/vendor"));
+        assertEquals(IGNORED, file(rules, "var/logs/error.log"));
+        assertEquals(NO_MATCH, file(rules, "vendors"));
+        assertEquals(NO_MATCH, file(rules, "# a comment"));
+    }
+
+    @Test
+    void anchorsPatternsContainingASlash() {
+        IgnoreRules rules = rules("", "/cache", "doc/*.txt");
+
+        assertEquals(IGNORED, directory(rules, "cache"));
+        assertEquals(NO_MATCH, directory(rules, "app/cache"));
+        assertEquals(IGNORED, file(rules, "doc/notes.txt"));
+        // A single star does not cross directories
+        assertEquals(NO_MATCH, file(rules, "doc/api/notes.txt"));
+        assertEquals(NO_MATCH, file(rules, "app/doc/notes.txt"));
+    }
+
+    @Test
+    void appliesTrailingSlashPatternsToDirectoriesOnly() {
+        IgnoreRules rules = rules("", "build/", "tmp*/");
+
+        assertEquals(IGNORED, directory(rules, "build"));
+        assertEquals(IGNORED, directory(rules, "app/build"));
+        assertEquals(NO_MATCH, file(rules, "build"));
+        assertEquals(IGNORED, directory(rules, "tmp1"));
+        assertEquals(NO_MATCH, file(rules, "tmp1"));
+    }
+
+    @Test
+    void letsTheLastMatchingRuleWin() {
+        IgnoreRules rules = rules("", "*.php", "!index.php", "legacy/index.php");
+
+        assertEquals(IGNORED, file(rules, "lib/util.php"));
+        assertEquals(INCLUDED, file(rules, "index.php"));
+        assertEquals(INCLUDED, file(rules, "admin/index.php"));
+        assertEquals(IGNORED, file(rules, "legacy/index.php"));
+    }
+
+    @Test
+    void letsTheLastLiteralNameWin() {
+        IgnoreRules rules = rules("", "config", "!config", "logs/");
+
+        assertEquals(INCLUDED, file(rules, "app/config"));
+        assertEquals(IGNORED, directory(rules, "logs"));
+        assertEquals(NO_MATCH, file(rules, "logs"));
+    }
+
+    @Test
+    void matchesDoubleStars() {
+        IgnoreRules rules = rules("", "**/fixtures", "generated/**", "a/**/b.php");
+
+        assertEquals(IGNORED, directory(rules, "fixtures"));
+        assertEquals(IGNORED, directory(rules, "tests/unit/fixtures"));
+        assertEquals(IGNORED, file(rules, "generated/models/User.php"));
+        assertEquals(NO_MATCH, directory(rules, "generated"));
+        assertEquals(IGNORED, file(rules, "a/b.php"));
+        assertEquals(IGNORED, file(rules, "a/x/y/b.php"));
+        assertEquals(NO_MATCH, file(rules, "c/a/b.php"));
+    }
+
+    @Test
+    void matchesCharacterClassesAndSingleCharacters() {
+        IgnoreRules rules = rules("", "file[0-9].php", "draft[!s].md", "v?.php");
+
+        assertEquals(IGNORED, file(rules, "file7.php"));
+        assertEquals(NO_MATCH, file(rules, "fileA.php"));
+        assertEquals(IGNORED, file(rules, "drafta.md"));
+        assertEquals(NO_MATCH, file(rules, "drafts.md"));
+        assertEquals(IGNORED, file(rules, "v1.php"));
+        assertEquals(NO_MATCH, file(rules, "v10.php"));
+    }
+
+    @Test
+    void handlesEscapesAndTrailingSpaces() {
+        IgnoreRules rules = rules("", "\\#notes", "\\!important", "spaced\\ ", "trimmed   ", "a+b(1).php");
+
+        assertEquals(IGNORED, file(rules, "#notes"));
+        assertEquals(IGNORED, file(rules, "!important"));
+        assertEquals(IGNORED, file(rules, "spaced "));
+        assertEquals(IGNORED, file(rules, "trimmed"));
+        assertEquals(NO_MATCH, file(rules, "trimmed   "));
+        // Regular expression characters in a name are taken literally
+        assertEquals(IGNORED, file(rules, "a+b(1).php"));
+        assertEquals(NO_MATCH, file(rules, "aab1.php"));
+    }
+
+    @Test
+    void scopesRulesToTheirDirectory() {
+        IgnoreRules rules = rules("modules/shop", "/tmp", "*.bak");
+
+        assertEquals(IGNORED, directory(rules, "modules/shop/tmp"));
+        assertEquals(NO_MATCH, directory(rules, "modules/shop/lib/tmp"));
+        assertEquals(IGNORED, file(rules, "modules/shop/lib/cart.bak"));
+        assertEquals(NO_MATCH, file(rules, "modules/blog/post.bak"));
+        assertEquals(NO_MATCH, directory(rules, "tmp"));
+    }
+
+    @Test
+    void ignoresBlankAndCommentLines() {
+        assertTrue(rules("", "", "   ", "# comment", "!", "/").isEmpty());
+    }
+
+    private static IgnoreRules rules(String base, String... lines) {
+        return IgnoreRules.parse(base, Arrays.asList(lines));
+    }
+
+    private static int file(IgnoreRules rules, String path) {
+        return rules.match(path, name(path), false);
+    }
+
+    private static int directory(IgnoreRules rules, String path) {
+        return rules.match(path, name(path), true);
+    }
+
+    private static String name(String path) {
+        return path.substring(path.lastIndexOf('/') + 1);
+    }
+}
@@ -0,0 +1,126 @@
+package net.gcae.utils.extractor.analyzer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import net.gcae.utils.extractor.model.FileAnalysis;
+import net.gcae.utils.extractor.model.FileReference;
+import net.gcae.utils.extractor.model.PathTable;
+
+class PhpLexerTest {
+
+    @Test
+    void skipsCommentsAndInlineHtml() {
+        String php = "<html><title>$title</title>\n"
+            + "<?php /* $hidden = 'SELECT'; */ $a = 1; // $b\n"
+            + "# $c\n"
+            + "#[Attribute] ?>\n"
+            + "<p>$d</p><?= $e ?><?xml version=\"1.0\"?>";
+
+        assertEquals(Arrays.asList("$a", "=", "1", ";", "#", "[", "Attribute", "]", "?>", "$e", "?>"),
+            texts(PhpLexer.tokenize(php)));
+    }
+
+    @Test
+    void endsALineCommentAtACloseTag() {
+        String php = "<?php $a = 1; // done ?> <b>$html; require 'x.php';</b>\n<?php $b;";
+
+        TokenStream tokens = PhpLexer.tokenize(php);
+        assertEquals(Arrays.asList("$a", "=", "1", ";", "?>", "$b", ";"), texts(tokens));
+        assertEquals(TokenStream.CLOSE_TAG, tokens.kind(4));
+    }
+
+    @Test
+    void readsHeredocAndNowdocBodies() {
+        String php = "<?php\n"
+            + "$a = <<<SQL\n"
+            + "SELECT * FROM t WHERE a = '$x' // not a comment ?>\n"
+            + "SQL;\n"
+            + "$b = <<<'RAW'\n"
+            + "  {$not} \"interpolated\"\n"
+            + "  RAW;\n"
+            + "$c = << 2;";
+
+        TokenStream tokens = PhpLexer.tokenize(php);
+        assertEquals(Arrays.asList("$a", "=", "SELECT * FROM t WHERE a = '$x' // not a comment ?>", ";",
+            "$b", "=", "  {$not} \"interpolated\"", ";", "$c", "=", "<", "<", "2", ";"), texts(tokens));
+        assertEquals(TokenStream.HEREDOC, tokens.kind(2));
+        assertEquals(TokenStream.NOWDOC, tokens.kind(6));
+    }
+
+    @Test
+    void keepsInterpolatedQuotesInsideTheString() {
+        String php = "<?php $s = \"{$a[\"k\"]} and ${b['x']} and {$c->d(\"}\")}\"; $t = `ls {$dir[\"p\"]}`; $u = 'a\\'b';";
+
+        TokenStream tokens = PhpLexer.tokenize(php);
+        assertEquals(Arrays.asList("$s", "=", "\"{$a[\"k\"]} and ${b['x']} and {$c->d(\"}\")}\"", ";",
+            "$t", "=", "`ls {$dir[\"p\"]}`", ";", "$u", "=", "'a\\'b'", ";"), texts(tokens));
+        assertEquals(TokenStream.TEMPLATE, tokens.kind(2));
+        assertEquals(TokenStream.STRING, tokens.kind(10));
+    }
+
+    @Test
+    void countsLinesAcrossCrlfLineBreaks() {
+        String php = "<?php\r\n"
+            + "require 'a.php';\r\n"
+            + "/* one\r\n"
+            + "   two */\r\n"
+            + "function f($x) {\r\n"
+            + "    $q = \"SELECT id\r\n"
+            + "        FROM users\";\r\n"
+            + "    return $x;\r\n"
+            + "}\r\n"
+            + "class C {}\r\n";
+
+        FileAnalysis analysis = analyze(php);
+        assertEquals(2, analysis.getRequires().get(0).getLine());
+        assertEquals(5, analysis.getFunctions().get(0).getLine());
+        // Line breaks between the body braces, as the regex extractor counted them
+        assertEquals(4, analysis.getFunctions().get(0).getLineCount());
+        assertEquals(6, analysis.getSqlQueries().get(0).getLine());
+        assertEquals(10, analysis.getClasses().get(0).getLine());
+    }
+
+    @Test
+    void takesTheFirstLiteralOfAConcatenatedIncludePath() {
+        String php = "<?php\n"
+            + "require_once __DIR__ . '/lib/db.php';\n"
+            + "require(dirname(__FILE__) . '/../config.php');\n"
+            + "require_once 'plain.php';\n"
+            + "include $_SERVER['DOCUMENT_ROOT'] . '/inc/header.php';\n"
+            + "include $pages['home'];\n"
+            + "include BASE_DIR . \"/views/$view.php\";\n";
+
+        FileAnalysis analysis = analyze(php);
+        assertEquals(Arrays.asList("./lib/db.php", "./../config.php", "plain.php"), references(analysis.getRequires()));
+        assertEquals(Arrays.asList("/inc/header.php", "/views/$view.php"), references(analysis.getIncludes()));
+        assertEquals(5, analysis.getIncludes().get(0).getLine());
+    }
+
+    private static FileAnalysis analyze(String php) {
+        FileAnalysis analysis = new FileAnalysis(new PathTable());
+        new PHPAnalyzer().analyzePHPContent(php, "/app/test.php", analysis);
+        return analysis;
+    }
+
+    private static List<String> references(List<FileReference> references) {
+        List<String> files = new ArrayList<>();
+        for (FileReference reference : references) {
+            files.add(reference.getReferencedFile());
+        }
+        return files;
+    }
+
+    private static List<String> texts(TokenStream tokens) {
+        List<String> texts = new ArrayList<>();
+        for (int i = 0; i < tokens.size(); i++) {
+            texts.add(tokens.text(i));
+        }
+        return texts;
+    }
+}
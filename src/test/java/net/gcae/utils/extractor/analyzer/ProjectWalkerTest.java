@@ -0,0 +1,171 @@
+package net.gcae.utils.extractor.analyzer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ProjectWalkerTest {
+
+    private static final String[] FILES = {
+        "index.php", "about.html", "notes.txt", ".hidden.php", "debug.log.php",
+        "admin/index.php", "admin/users/list.php", "admin/users/edit.php",
+        "lib/db.php", "lib/Db/Connection.php", "lib-old/legacy.php",
+        "modules/shop/cart.php", "modules/shop/cache/page.php", "modules/shop/keep/cache/page.php",
+        "modules/blog/cache/post.php", "public/app.js", "public/style.css", "public/min/app.min.js",
+        "vendor/autoload.php", "node_modules/pkg/index.js", "Logs/today.php", ".idea/tasks.php",
+        "generated.js/real.php"
+    };
+
+    @TempDir
+    Path root;
+
+    @BeforeEach
+    void createProject() throws IOException {
+        for (String file : FILES) {
+            Path path = root.resolve(file);
+            Files.createDirectories(path.getParent());
+            Files.write(path, ("<?php // " + file + "\n").getBytes(StandardCharsets.UTF_8));
+        }
+        Files.write(root.resolve(".gitignore"), Arrays.asList("*.log.php", "/public/min/"));
+        Files.write(root.resolve("modules/shop/.gitignore"), Arrays.asList("cache/", "!keep/cache/"));
+    }
+
+    @Test
+    void listsTheProjectInWalkOrder() throws IOException {
+        ProjectWalker walker = new ProjectWalker(root, Collections.singletonList("lib/Db/"), true);
+
+        assertEquals(Arrays.asList(
+            ".idea/tasks.php", "about.html", "admin/index.php", "admin/users/edit.php", "admin/users/list.php",
+            "generated.js/real.php", "index.php", "lib/db.php", "lib-old/legacy.php", "modules/blog/cache/post.php",
+            "modules/shop/cart.php", "modules/shop/keep/cache/page.php", "public/app.js", "public/style.css"),
+            relativePaths(walker.listFiles()));
+    }
+
+    @Test
+    void listsIgnoredFilesWithoutGitignore() throws IOException {
+        List<String> files = relativePaths(new ProjectWalker(root, Collections.emptyList(), false).listFiles());
+
+        assertTrue(files.contains("debug.log.php"));
+        assertTrue(files.contains("modules/shop/cache/page.php"));
+        assertFalse(files.contains("vendor/autoload.php"));
+    }
+
+    @Test
+    void selectsTheFilesTheWalkLists() throws IOException {
+        ProjectWalker walker = new ProjectWalker(root, Collections.emptyList(), true);
+        List<String> listed = relativePaths(walker.listFiles());
+
+        for (String file : FILES) {
+            SourceFile selected = walker.select(root.resolve(file));
+            assertEquals(listed.contains(file), selected != null, file);
+        }
+        assertNull(walker.select(root.resolve("missing.php")));
+        assertNull(walker.select(root));
+    }
+
+    @Test
+    void splitsTheWalkIntoShards() throws IOException {
+        List<String> all = relativePaths(new ProjectWalker(root).listFiles());
+
+        List<String> sharded = new ArrayList<>();
+        for (int shard = 1; shard <= 3; shard++) {
+            ProjectWalker walker = new ProjectWalker(root);
+            walker.setShard(shard, 3);
+            List<String> files = relativePaths(walker.listFiles());
+            sharded.addAll(files);
+            // Watch mode selects single files by the same rule
+            for (String file : all) {
+                SourceFile selected = walker.select(root.resolve(file));
+                assertEquals(files.contains(file), selected != null, file);
+            }
+        }
+        sharded.sort(ProjectWalker::compareRelativePaths);
+        assertEquals(all, sharded);
+    }
+
+    @Test
+    void listsLinkedFilesButDoesNotEnterLinkedDirectories() throws IOException {
+        Path outside = Files.createTempDirectory(root.getParent(), "shared");
+        try {
+            Files.write(outside.resolve("config.php"), Arrays.asList("<?php"));
+            Files.createDirectories(outside.resolve("lib"));
+            Files.write(outside.resolve("lib/util.php"), Arrays.asList("<?php"));
+            try {
+                Files.createSymbolicLink(root.resolve("config.php"), outside.resolve("config.php"));
+            } catch (UnsupportedOperationException | IOException e) {
+                Assumptions.abort("Symbolic links are not supported here");
+            }
+            Files.createSymbolicLink(root.resolve("shared.php"), outside.resolve("lib"));
+            Files.createSymbolicLink(root.resolve("shared"), outside.resolve("lib"));
+            Files.createSymbolicLink(root.resolve("broken.php"), outside.resolve("missing.php"));
+            ProjectWalker walker = new ProjectWalker(root);
+
+            List<String> files = relativePaths(walker.listFiles());
+            assertTrue(files.contains("config.php"));
+            assertFalse(files.contains("shared.php"));
+            assertFalse(files.contains("shared/util.php"));
+            assertFalse(files.contains("broken.php"));
+            assertEquals(Files.size(outside.resolve("config.php")), walker.select(root.resolve("config.php")).getSize());
+            assertNull(walker.select(root.resolve("shared/util.php")));
+        } finally {
+            FileUtils.deleteDirectory(outside.toFile());
+        }
+    }
+
+    @Test
+    void walksTreesDeeperThanTheCallStack() throws IOException {
+        // Deep enough that one call frame per level would need far more than a thread's stack
+        Path deep = Files.createTempDirectory(root.getParent(), "deep");
+        try {
+            Path dir = deep;
+            for (int level = 0; level < 300; level++) {
+                dir = Files.createDirectory(dir.resolve("d"));
+            }
+            Files.write(dir.resolve("leaf.php"), Arrays.asList("<?php"));
+            Files.write(deep.resolve("top.php"), Arrays.asList("<?php"));
+
+            List<SourceFile> files = new ArrayList<>();
+            Thread walk = new Thread(null, () -> {
+                try {
+                    new ProjectWalker(deep).walk(files::add);
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+            }, "walk", 64 * 1024);
+            walk.start();
+            walk.join();
+
+            assertEquals(2, files.size());
+            assertEquals(dir.resolve("leaf.php"), files.get(0).getPath());
+            assertEquals(deep.resolve("top.php"), files.get(1).getPath());
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            FileUtils.deleteDirectory(deep.toFile());
+        }
+    }
+
+    private List<String> relativePaths(List<SourceFile> files) {
+        List<String> paths = new ArrayList<>();
+        for (SourceFile file : files) {
+            paths.add(root.relativize(file.getPath()).toString().replace('\\', '/'));
+        }
+        return paths;
+    }
+}
@@ -0,0 +1,171 @@
+package net.gcae.utils.extractor.analyzer;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import net.gcae.utils.extractor.cache.AnalysisCache;
+
+class SourceReaderTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void decodesUtf8InOnePass() {
+        String text = "<?php\n// Grüße, 日本語, 😀\r\n$a = 1;";
+
+        SourceReader.Source source = SourceReader.decode(ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8)));
+        assertEquals(SourceReader.UTF_8, source.encoding);
+        assertEquals(text, source.text);
+    }
+
+    @Test
+    void fallsBackToLatin1ForMalformedUtf8() {
+        // "Grüße" in ISO-8859-1, followed by valid UTF-8 that must not be decoded as such
+        byte[] bytes = "<?php echo 'Grüße'; // é".getBytes(StandardCharsets.ISO_8859_1);
+        byte[] withUtf8 = new byte[bytes.length + 2];
+        System.arraycopy(bytes, 0, withUtf8, 0, bytes.length);
+        withUtf8[bytes.length] = (byte) 0xC3;
+        withUtf8[bytes.length + 1] = (byte) 0xA9;
+
+        SourceReader.Source source = SourceReader.decode(ByteBuffer.wrap(withUtf8));
+        assertEquals(SourceReader.ISO_8859_1, source.encoding);
+        assertEquals(new String(withUtf8, StandardCharsets.ISO_8859_1), source.text);
+    }
+
+    @Test
+    void treatsTruncatedAndOverlongSequencesAsMalformed() {
+        byte[][] malformed = {
+            { 'a', (byte) 0xE2, (byte) 0x82 },             // truncated at the end
+            { (byte) 0xC0, (byte) 0xAF },                   // overlong '/'
+            { (byte) 0xED, (byte) 0xA0, (byte) 0x80 },      // surrogate
+            { (byte) 0xF4, (byte) 0x90, (byte) 0x80, (byte) 0x80 } // above U+10FFFF
+        };
+        for (byte[] bytes : malformed) {
+            assertEquals(SourceReader.ISO_8859_1, SourceReader.decode(ByteBuffer.wrap(bytes)).encoding);
+            assertEquals(SourceReader.ISO_8859_1, SourceReader.scan(ByteBuffer.wrap(bytes)).encoding);
+        }
+    }
+
+    @Test
+    void honoursByteOrderMarks() {
+        String text = "<?php\r\necho 'é';\n";
+        assertDecoded(text, SourceReader.UTF_8_BOM, prefixed(new byte[] { (byte) 0xEF, (byte) 0xBB, (byte) 0xBF },
+            text.getBytes(StandardCharsets.UTF_8)));
+        assertDecoded(text, SourceReader.UTF_16LE, prefixed(new byte[] { (byte) 0xFF, (byte) 0xFE },
+            text.getBytes(StandardCharsets.UTF_16LE)));
+        assertDecoded(text, SourceReader.UTF_16BE, prefixed(new byte[] { (byte) 0xFE, (byte) 0xFF },
+            text.getBytes(StandardCharsets.UTF_16BE)));
+    }
+
+    @Test
+    void scansTheSameEncodingAndLinesAsDecoding() {
+        Random random = new Random(42);
+        byte[] alphabet = { 'a', ' ', '\n', '\r', (byte) 0xC3, (byte) 0xA9, (byte) 0xE2, (byte) 0x82, (byte) 0xAC,
+            (byte) 0xF0, (byte) 0x9F, (byte) 0x98, (byte) 0x80, (byte) 0xFF, (byte) 0x80 };
+        int utf8 = 0;
+        for (int n = 0; n < 5_000; n++) {
+            byte[] bytes = new byte[random.nextInt(24)];
+            for (int i = 0; i < bytes.length; i++) {
+                bytes[i] = alphabet[random.nextInt(alphabet.length)];
+            }
+            SourceReader.Source source = SourceReader.decode(ByteBuffer.wrap(bytes));
+            SourceReader.Scan scan = SourceReader.scan(ByteBuffer.wrap(bytes));
+            assertEquals(source.encoding, scan.encoding);
+            assertEquals(source.text.lines().count(), scan.lines);
+            if (source.encoding.equals(SourceReader.UTF_8)) {
+                utf8++;
+            }
+        }
+        // Both outcomes were exercised
+        assertTrue(utf8 > 0 && utf8 < 5_000);
+    }
+
+    @Test
+    void scansFilesInChunksLikeWholeContent() throws IOException {
+        byte[][] straddling = {
+            "\r\n".getBytes(StandardCharsets.UTF_8),
+            "😀".getBytes(StandardCharsets.UTF_8),
+            "\r".getBytes(StandardCharsets.UTF_8),
+            { (byte) 0xE2, (byte) 0x82, 'a' },   // malformed
+            { (byte) 0xFF, (byte) 0xFE },       // a byte order mark that is not at the start
+            "a\r\nb".getBytes(StandardCharsets.UTF_16LE)
+        };
+        Path file = directory.resolve("asset.js");
+        for (byte[] pattern : straddling) {
+            for (int shift = 0; shift <= 4; shift++) {
+                for (byte[] prefix : new byte[][] { {}, { (byte) 0xFF, (byte) 0xFE }, { (byte) 0xEF, (byte) 0xBB, (byte) 0xBF } }) {
+                    // The pattern is cut by the end of the first chunk, and again by the end of the second
+                    byte[] bytes = new byte[2 * SourceReader.SCAN_CHUNK + 7];
+                    Arrays.fill(bytes, (byte) 'x');
+                    System.arraycopy(prefix, 0, bytes, 0, prefix.length);
+                    System.arraycopy(pattern, 0, bytes, SourceReader.SCAN_CHUNK - shift, pattern.length);
+                    System.arraycopy(pattern, 0, bytes, 2 * SourceReader.SCAN_CHUNK - shift - 1, pattern.length);
+                    Files.write(file, bytes);
+
+                    MessageDigest digest = AnalysisCache.contentDigest();
+                    SourceReader.Scan chunked = SourceReader.scan(file, digest);
+                    SourceReader.Scan whole = SourceReader.scan(ByteBuffer.wrap(bytes));
+                    String context = new String(pattern, StandardCharsets.ISO_8859_1) + " shifted " + shift
+                            + " after " + prefix.length + " prefix bytes";
+                    assertEquals(whole.encoding, chunked.encoding, context);
+                    assertEquals(whole.lines, chunked.lines, context);
+                    assertEquals(bytes.length, chunked.bytes, context);
+                    assertArrayEquals(AnalysisCache.contentHash(ByteBuffer.wrap(bytes)), digest.digest(), context);
+                }
+            }
+        }
+    }
+
+    @Test
+    void scansEmptyAndTinyFiles() throws IOException {
+        Path file = directory.resolve("tiny.css");
+        for (String text : new String[] { "", "a", "\r", "\r\n", "é" }) {
+            Files.write(file, text.getBytes(StandardCharsets.UTF_8));
+
+            SourceReader.Scan scan = SourceReader.scan(file, null);
+            assertEquals(text.lines().count(), scan.lines, text);
+            assertEquals(SourceReader.UTF_8, scan.encoding, text);
+        }
+    }
+
+    @Test
+    void readsFilesBelowTheMapThresholdOntoTheHeap() throws IOException {
+        Path file = directory.resolve("a.php");
+        Files.write(file, new byte[2 * 1024 * 1024]);
+
+        ByteBuffer bytes = SourceReader.read(file, Files.size(file));
+        assertFalse(bytes.isDirect());
+        assertEquals(2 * 1024 * 1024, bytes.remaining());
+    }
+
+    private static void assertDecoded(String text, String encoding, byte[] bytes) {
+        SourceReader.Source source = SourceReader.decode(ByteBuffer.wrap(bytes));
+        assertEquals(encoding, source.encoding);
+        assertEquals(text, source.text);
+        SourceReader.Scan scan = SourceReader.scan(ByteBuffer.wrap(bytes));
+        assertEquals(encoding, scan.encoding);
+        assertEquals(2, scan.lines);
+    }
+
+    private static byte[] prefixed(byte[] prefix, byte[] bytes) {
+        byte[] result = new byte[prefix.length + bytes.length];
+        System.arraycopy(prefix, 0, result, 0, prefix.length);
+        System.arraycopy(bytes, 0, result, prefix.length, bytes.length);
+        return result;
+    }
+}
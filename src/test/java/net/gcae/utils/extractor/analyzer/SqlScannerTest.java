@@ -0,0 +1,140 @@
+package net.gcae.utils.extractor.analyzer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.Test;
+
+class SqlScannerTest {
+
+    /** The expression the analyzer used before the scanner, kept to compare results on ordinary code. */
+    private static final Pattern REGEX_EXTRACTOR = Pattern.compile(
+        "(?i)(SELECT|INSERT|UPDATE|DELETE|CREATE|DROP|ALTER)\\s+.*?(?=;|$|\\)|\\?|'|\"|\\s*$)",
+        Pattern.MULTILINE | Pattern.DOTALL);
+
+    private static final Duration TIME_LIMIT = Duration.ofSeconds(5);
+
+    @Test
+    void findsTheSameStatementsAsTheRegexOnOrdinaryLiterals() {
+        String php = "<?php\n"
+            + "$list = \"SELECT id, name FROM users WHERE active = 1\";\n"
+            + "$db->query('DELETE FROM sessions WHERE expired = 1');\n"
+            + "$add = \"INSERT INTO log SET level = 3\";\n"
+            + "$up = 'update accounts set balance = 0';\n"
+            + "$ddl = <<<SQL\n"
+            + "ALTER TABLE audit ADD COLUMN note TEXT\n"
+            + "SQL;\n"
+            + "$greeting = \"Hello world\";\n"
+            + "$drop = 'DROP TABLE tmp_import';\n";
+
+        List<String> expected = regexStatements(php);
+        assertEquals(6, expected.size());
+        assertEquals(expected, scan(php));
+    }
+
+    @Test
+    void keepsParenthesesThatTheRegexCutOff() {
+        String php = "<?php $ddl = \"CREATE TABLE audit (id INT, note TEXT)\";";
+
+        assertEquals(Collections.singletonList("CREATE TABLE audit (id INT, note TEXT"), regexStatements(php));
+        assertEquals(Collections.singletonList("CREATE TABLE audit (id INT, note TEXT)"), scan(php));
+    }
+
+    @Test
+    void joinsConcatenatedLiteralsIntoOneStatement() {
+        String php = "<?php $sql = \"SELECT * FROM \" . $table . \" WHERE id = \" . $id . \";\";";
+
+        assertEquals(Collections.singletonList("SELECT * FROM $table WHERE id = $id"), scan(php));
+    }
+
+    @Test
+    void acceptsEscapedLineBreaksBeforeAndAfterTheKeyword() {
+        assertEquals(Collections.singletonList("SELECT id FROM users"),
+            scan("<?php $sql = \"\\n  SELECT id FROM users\";"));
+        assertEquals(Collections.singletonList("SELECT\\n  id FROM users"),
+            scan("<?php $sql = \"\\t(SELECT\\n  id FROM users\";"));
+    }
+
+    @Test
+    void leavesEscapesInSingleQuotedLiteralsAlone() {
+        // PHP does not interpret \n between single quotes, so this is not a statement
+        assertTrue(scan("<?php $sql = '\\n SELECT id FROM users';").isEmpty());
+    }
+
+    @Test
+    void ignoresKeywordsInsideProse() {
+        assertTrue(scan("<?php $help = \"Please select an option and update the form\";").isEmpty());
+    }
+
+    @Test
+    void handlesLongWhitespaceRunsInLinearTime() {
+        String php = "<?php $sql = \"SELECT" + repeat(' ', 200_000) + "x" + repeat(' ', 200_000) + "\";";
+
+        List<String> statements = assertTimeoutPreemptively(TIME_LIMIT, () -> scan(php));
+        assertEquals(1, statements.size());
+        assertTrue(statements.get(0).startsWith("SELECT"));
+        assertTrue(statements.get(0).endsWith("x"));
+    }
+
+    @Test
+    void handlesAOneMegabyteProseHeredoc() {
+        StringBuilder body = new StringBuilder();
+        while (body.length() < 1 << 20) {
+            body.append("Select the rows you want to update and delete the others, then alter the view.\n");
+        }
+        String php = "<?php\n$text = <<<TXT\n" + body + "TXT;\n";
+
+        List<String> statements = assertTimeoutPreemptively(TIME_LIMIT, () -> scan(php));
+        assertTrue(statements.size() <= 1);
+    }
+
+    @Test
+    void handlesLongConcatenationChains() {
+        StringBuilder php = new StringBuilder("<?php $sql = \"SELECT a FROM t WHERE a IN (\"");
+        for (int i = 0; i < 20_000; i++) {
+            php.append(" . $v").append(i).append(" . \",\"");
+        }
+        php.append(" . \")\";\n");
+
+        List<String> statements = assertTimeoutPreemptively(TIME_LIMIT, () -> scan(php.toString()));
+        assertEquals(1, statements.size());
+        assertTrue(statements.get(0).startsWith("SELECT a FROM t WHERE a IN ($v0,$v1,"));
+        assertTrue(statements.get(0).endsWith("$v19999,)"));
+    }
+
+    private static List<String> scan(String php) {
+        List<String> statements = new ArrayList<>();
+        SqlScanner.scan(PhpLexer.tokenize(php), (sql, offset) -> statements.add(sql));
+        return statements;
+    }
+
+    private static List<String> regexStatements(String php) {
+        TokenStream tokens = PhpLexer.tokenize(php);
+        Matcher matcher = REGEX_EXTRACTOR.matcher(php);
+        List<String> statements = new ArrayList<>();
+        for (int i = 0; i < tokens.size(); i++) {
+            if (tokens.isStringLiteral(i)) {
+                matcher.region(tokens.literalStart(i), tokens.literalEnd(i));
+                while (matcher.find()) {
+                    statements.add(matcher.group().trim());
+                }
+            }
+        }
+        return statements;
+    }
+
+    private static String repeat(char c, int count) {
+        char[] chars = new char[count];
+        Arrays.fill(chars, c);
+        return new String(chars);
+    }
+}
@@ -0,0 +1,170 @@
+package net.gcae.utils.extractor.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import net.gcae.utils.extractor.Fixtures;
+import net.gcae.utils.extractor.model.FileAnalysis;
+import net.gcae.utils.extractor.model.PathTable;
+
+class AnalysisCacheTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void recordCodecKeepsEveryRecord() throws IOException {
+        FileAnalysis analysis = Fixtures.analyze(directory.resolve("src/UserRepository.php"), Fixtures.PHP, new PathTable());
+        assertFalse(analysis.getSqlQueries().isEmpty());
+        assertFalse(analysis.getRequires().isEmpty());
+        assertFalse(analysis.getIncludes().isEmpty());
+        assertFalse(analysis.getCurlCalls().isEmpty());
+        assertFalse(analysis.getFunctions().isEmpty());
+        assertFalse(analysis.getClasses().isEmpty());
+        assertFalse(analysis.getTraits().isEmpty());
+        assertFalse(analysis.getClassInheritances().isEmpty());
+        assertFalse(analysis.getImplementations().isEmpty());
+        assertFalse(analysis.getInterfaces().isEmpty());
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            RecordCodec.write(out, analysis);
+        }
+        PathTable paths = new PathTable();
+        paths.intern("/another/file.php");
+        FileAnalysis read = RecordCodec.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())), paths);
+
+        // The path is interned in the reading table, under an id of its own
+        assertSame(paths, read.getPaths());
+        assertEquals(1, read.getFile().getFileId());
+        assertEquals(render(analysis), render(read));
+    }
+
+    @Test
+    void returnsStoredRecordsForTheSameFile() throws IOException {
+        Path file = directory.resolve("project/a.php");
+        FileAnalysis analysis = Fixtures.analyze(file, Fixtures.PHP, new PathTable());
+        byte[] hash = hash(Fixtures.PHP);
+        AnalysisCache.open(directory.resolve("cache"), 1).store(file, 100, 1_000, hash, analysis);
+
+        AnalysisCache cache = AnalysisCache.open(directory.resolve("cache"), 1);
+        AnalysisCache.Entry entry = cache.lookup(file, new PathTable());
+        assertNotNull(entry);
+        // Written long after the modification time, so size and time are enough
+        assertTrue(entry.isUnchanged(100, 1_000));
+        assertTrue(entry.hasContent(hash));
+        assertNull(cache.lookup(directory.resolve("project/b.php"), new PathTable()));
+
+        FileAnalysis reused = cache.reuse(entry, file, 100, 1_000);
+        assertEquals(render(analysis), render(reused));
+        assertEquals(1, cache.getReusedCount());
+        assertEquals(0, cache.getStoredCount());
+    }
+
+    @Test
+    void invalidatesEntriesOfChangedFiles() throws IOException {
+        Path file = directory.resolve("project/a.php");
+        FileAnalysis analysis = Fixtures.analyze(file, Fixtures.PHP, new PathTable());
+        AnalysisCache cache = AnalysisCache.open(directory.resolve("cache"), 1);
+        long now = System.currentTimeMillis();
+        cache.store(file, 100, now, hash(Fixtures.PHP), analysis);
+
+        AnalysisCache.Entry entry = cache.lookup(file, new PathTable());
+        // Modified within the same tick as the entry was written, so the content decides
+        assertFalse(entry.isUnchanged(100, now));
+        assertFalse(entry.isUnchanged(101, now));
+        assertFalse(entry.isUnchanged(100, now - 60_000));
+        assertTrue(entry.hasContent(hash(Fixtures.PHP)));
+        assertFalse(entry.hasContent(hash(Fixtures.PHP + "\n")));
+    }
+
+    @Test
+    void rewritesTheEntryWhenOnlyTheModificationTimeChanged() throws IOException {
+        Path file = directory.resolve("project/a.php");
+        FileAnalysis analysis = Fixtures.analyze(file, Fixtures.PHP, new PathTable());
+        AnalysisCache first = AnalysisCache.open(directory.resolve("cache"), 1);
+        first.store(file, 100, 1_000, hash(Fixtures.PHP), analysis);
+
+        AnalysisCache second = AnalysisCache.open(directory.resolve("cache"), 1);
+        second.reuse(second.lookup(file, new PathTable()), file, 100, 5_000);
+
+        AnalysisCache.Entry entry = AnalysisCache.open(directory.resolve("cache"), 1).lookup(file, new PathTable());
+        assertTrue(entry.isUnchanged(100, 5_000));
+        assertFalse(entry.isUnchanged(100, 1_000));
+    }
+
+    @Test
+    void discardsEntriesOfAnotherExtractorVersion() throws IOException {
+        Path file = directory.resolve("project/a.php");
+        FileAnalysis analysis = Fixtures.analyze(file, Fixtures.PHP, new PathTable());
+        AnalysisCache.open(directory.resolve("cache"), 1).store(file, 100, 1_000, hash(Fixtures.PHP), analysis);
+
+        assertNotNull(AnalysisCache.open(directory.resolve("cache"), 1).lookup(file, new PathTable()));
+        assertNull(AnalysisCache.open(directory.resolve("cache"), 2).lookup(file, new PathTable()));
+        assertNull(AnalysisCache.open(directory.resolve("cache"), 1).lookup(file, new PathTable()));
+    }
+
+    @Test
+    void prunesEntriesOfFilesNotSeenInARun() throws IOException {
+        Path kept = directory.resolve("project/kept.php");
+        Path deleted = directory.resolve("project/deleted.php");
+        AnalysisCache first = AnalysisCache.open(directory.resolve("cache"), 1);
+        first.store(kept, 100, 1_000, hash(Fixtures.PHP), Fixtures.analyze(kept, Fixtures.PHP, new PathTable()));
+        first.store(deleted, 100, 1_000, hash(Fixtures.PHP), Fixtures.analyze(deleted, Fixtures.PHP, new PathTable()));
+
+        AnalysisCache second = AnalysisCache.open(directory.resolve("cache"), 1);
+        second.reuse(second.lookup(kept, new PathTable()), kept, 100, 1_000);
+        assertEquals(1, second.prune());
+
+        AnalysisCache third = AnalysisCache.open(directory.resolve("cache"), 1);
+        assertNotNull(third.lookup(kept, new PathTable()));
+        assertNull(third.lookup(deleted, new PathTable()));
+    }
+
+    @Test
+    void ignoresTruncatedEntries() throws IOException {
+        Path file = directory.resolve("project/a.php");
+        AnalysisCache cache = AnalysisCache.open(directory.resolve("cache"), 1);
+        cache.store(file, 100, 1_000, hash(Fixtures.PHP), Fixtures.analyze(file, Fixtures.PHP, new PathTable()));
+
+        List<Path> entries;
+        try (Stream<Path> walk = Files.walk(directory.resolve("cache"))) {
+            entries = walk.filter(path -> path.toString().endsWith(".bin")).collect(Collectors.toList());
+        }
+        assertEquals(1, entries.size());
+        byte[] bytes = Files.readAllBytes(entries.get(0));
+        Files.write(entries.get(0), Arrays.copyOf(bytes, bytes.length / 2));
+
+        assertNull(cache.lookup(file, new PathTable()));
+    }
+
+    private static String render(FileAnalysis analysis) throws IOException {
+        return Fixtures.render(Collections.singletonList(analysis));
+    }
+
+    private static byte[] hash(String content) {
+        return AnalysisCache.contentHash(ByteBuffer.wrap(content.getBytes(StandardCharsets.UTF_8)));
+    }
+}
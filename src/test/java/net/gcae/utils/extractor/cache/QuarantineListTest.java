@@ -0,0 +1,81 @@
+package net.gcae.utils.extractor.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class QuarantineListTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void startsEmptyWithoutAList() throws IOException {
+        QuarantineList list = QuarantineList.open(directory);
+
+        assertEquals(0, list.size());
+        list.save();
+        assertFalse(Files.exists(directory.resolve(QuarantineList.FILE_NAME)));
+    }
+
+    @Test
+    void keepsFilesAcrossRunsUntilTheyChange() throws IOException {
+        Path slow = Paths.get("/app/slow file.php");
+        QuarantineList first = QuarantineList.open(directory);
+        first.add(slow, 1_024, 5_000, "Exceeded\tthe budget\nof 30 s");
+        first.add(Paths.get("/app/other.php"), 10, 20, "Exceeded the budget");
+        first.save();
+
+        QuarantineList second = QuarantineList.open(directory);
+        assertEquals(2, second.size());
+        assertTrue(second.contains(slow, 1_024, 5_000));
+        assertFalse(second.contains(slow, 1_025, 5_000));
+        assertFalse(second.contains(slow, 1_024, 5_001));
+        assertFalse(second.contains(Paths.get("/app/fast.php"), 1_024, 5_000));
+
+        // Tabs and line breaks in the reason cannot break the line format
+        List<String> lines = Files.readAllLines(directory.resolve(QuarantineList.FILE_NAME), StandardCharsets.UTF_8);
+        assertEquals(3, lines.size());
+        assertTrue(lines.get(0).startsWith("#"));
+        assertEquals("1024\t5000\tExceeded the budget of 30 s\t/app/slow file.php", lines.get(2));
+    }
+
+    @Test
+    void savesRemovals() throws IOException {
+        Path slow = Paths.get("/app/slow.php");
+        QuarantineList first = QuarantineList.open(directory);
+        first.add(slow, 1_024, 5_000, "Exceeded the budget");
+        first.save();
+
+        QuarantineList second = QuarantineList.open(directory);
+        second.remove(slow);
+        second.save();
+
+        assertEquals(0, QuarantineList.open(directory).size());
+    }
+
+    @Test
+    void skipsMalformedLines() throws IOException {
+        Files.write(directory.resolve(QuarantineList.FILE_NAME), Arrays.asList(
+            "# comment",
+            "",
+            "not a number\t5000\treason\t/app/a.php",
+            "1024\t5000",
+            "1024\t5000\treason\t/app/b.php"), StandardCharsets.UTF_8);
+
+        QuarantineList list = QuarantineList.open(directory);
+        assertEquals(1, list.size());
+        assertTrue(list.contains(Paths.get("/app/b.php"), 1_024, 5_000));
+    }
+}
@@ -0,0 +1,139 @@
+package net.gcae.utils.extractor.graph;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.function.IntUnaryOperator;
+
+import org.junit.jupiter.api.Test;
+
+class IncludeGraphTest {
+
+    /*
+     * index.php includes a.php and d.php; a.php, b.php and c.php include each other in a
+     * cycle; d.php includes itself and e.php; e.php includes app.js and a missing file;
+     * f.php stands alone.
+     */
+    private static final String[] PATHS = {
+        "index.php", "a.php", "b.php", "c.php", "d.php", "e.php", "f.php", "app.js"
+    };
+    private static final boolean[] SCRIPTS = { true, true, true, true, true, true, true, false };
+    private static final int[] UNRESOLVED = { 0, 0, 0, 0, 0, 1, 0, 0 };
+    private static final int[] EDGES = { 0, 1, 0, 4, 1, 2, 2, 3, 3, 1, 4, 4, 4, 5, 5, 7 };
+
+    @Test
+    void findsCyclesAndSelfIncludes() throws IOException {
+        IncludeGraph graph = graph(1);
+
+        assertEquals(8, graph.getNodeCount());
+        assertEquals(8, graph.getEdgeCount());
+        assertEquals(2, graph.getCycles().size());
+        assertArrayEquals(new int[] { 1, 2, 3 }, graph.getCycles().get(0));
+        assertArrayEquals(new int[] { 4 }, graph.getCycles().get(1));
+        assertArrayEquals(new int[] { 0, 1, 1, 1, 2, 0, 0, 0 }, perNode(graph, graph::getCycle));
+    }
+
+    @Test
+    void countsDirectAndTransitiveNeighbours() throws IOException {
+        IncludeGraph graph = graph(1);
+
+        assertArrayEquals(new int[] { 2, 1, 1, 1, 2, 1, 0, 0 }, perNode(graph, graph::getFanOut));
+        assertArrayEquals(new int[] { 0, 2, 1, 1, 2, 1, 0, 1 }, perNode(graph, graph::getFanIn));
+        // Members of a cycle reach each other but not themselves
+        assertArrayEquals(new int[] { 6, 2, 2, 2, 2, 1, 0, 0 }, perNode(graph, graph::getTransitiveIncludes));
+        assertArrayEquals(new int[] { 0, 3, 3, 3, 1, 2, 0, 3 }, perNode(graph, graph::getTransitiveDependents));
+    }
+
+    @Test
+    void findsEntryPointsAndIsolatedFiles() throws IOException {
+        IncludeGraph graph = graph(1);
+
+        assertArrayEquals(new int[] { 0 }, graph.getEntryPoints());
+        assertTrue(graph.isConnected(5));
+        assertTrue(graph.isConnected(7));
+        assertFalse(graph.isConnected(6));
+        assertFalse(graph.isEntryPoint(6));
+        assertEquals(1, graph.getUnresolved(5));
+    }
+
+    @Test
+    void handsOutClosuresInNodeOrder() throws IOException {
+        IncludeGraph graph = graph(4);
+        int[] nodes = { 7, 0, 2, 4 };
+        List<Integer> order = new ArrayList<>();
+        List<BitSet> includes = new ArrayList<>();
+        graph.forEachClosure(nodes, false, (node, closure) -> {
+            order.add(node);
+            includes.add(closure);
+        });
+        List<BitSet> dependents = new ArrayList<>();
+        graph.forEachClosure(nodes, true, (node, closure) -> dependents.add(closure));
+
+        assertEquals(List.of(7, 0, 2, 4), order);
+        assertEquals(bits(), includes.get(0));
+        assertEquals(bits(1, 2, 3, 4, 5, 7), includes.get(1));
+        assertEquals(bits(1, 3), includes.get(2));
+        assertEquals(bits(5, 7), includes.get(3));
+        assertEquals(bits(0, 4, 5), dependents.get(0));
+        assertEquals(bits(), dependents.get(1));
+        assertEquals(bits(0, 1, 3), dependents.get(2));
+        assertEquals(bits(0), dependents.get(3));
+    }
+
+    @Test
+    void givesTheSameCountsOnAnyNumberOfThreads() throws IOException {
+        IncludeGraph single = graph(1);
+        IncludeGraph parallel = graph(4);
+
+        assertArrayEquals(perNode(single, single::getTransitiveIncludes), perNode(parallel, parallel::getTransitiveIncludes));
+        assertArrayEquals(perNode(single, single::getTransitiveDependents), perNode(parallel, parallel::getTransitiveDependents));
+    }
+
+    @Test
+    void followsLongChainsAndCycles() throws IOException {
+        // A chain of files ending in a cycle back to its middle, deeper than a recursive search could go
+        int nodes = 20_000;
+        String[] paths = new String[nodes];
+        boolean[] scripts = new boolean[nodes];
+        int[] edges = new int[2 * nodes];
+        for (int node = 0; node < nodes; node++) {
+            paths[node] = "file" + node + ".php";
+            scripts[node] = true;
+            edges[2 * node] = node;
+            edges[2 * node + 1] = node + 1 < nodes ? node + 1 : nodes / 2;
+        }
+        IncludeGraph graph = new IncludeGraph(paths, scripts, new int[nodes], edges, nodes, 2);
+
+        assertEquals(1, graph.getCycles().size());
+        assertEquals(nodes / 2, graph.getCycles().get(0).length);
+        assertEquals(nodes - 1, graph.getTransitiveIncludes(0));
+        assertEquals(nodes - 1, graph.getTransitiveDependents(nodes - 1));
+        assertEquals(nodes / 2 - 1, graph.getTransitiveIncludes(nodes - 1));
+    }
+
+    private static IncludeGraph graph(int threads) throws IOException {
+        return new IncludeGraph(PATHS, SCRIPTS, UNRESOLVED, EDGES, EDGES.length / 2, threads);
+    }
+
+    private static int[] perNode(IncludeGraph graph, IntUnaryOperator value) {
+        int[] values = new int[graph.getNodeCount()];
+        for (int node = 0; node < values.length; node++) {
+            values[node] = value.applyAsInt(node);
+        }
+        return values;
+    }
+
+    private static BitSet bits(int... nodes) {
+        BitSet bits = new BitSet();
+        for (int node : nodes) {
+            bits.set(node);
+        }
+        return bits;
+    }
+}
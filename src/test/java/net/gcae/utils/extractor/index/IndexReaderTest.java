@@ -0,0 +1,143 @@
+package net.gcae.utils.extractor.index;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import net.gcae.utils.extractor.Fixtures;
+import net.gcae.utils.extractor.model.FileAnalysis;
+import net.gcae.utils.extractor.model.PathTable;
+
+class IndexReaderTest {
+
+    // Enough names of each kind to span many restart intervals
+    private static final int FILES = 200;
+
+    @TempDir
+    static Path directory;
+
+    private static Path index;
+    private static List<String> paths;
+
+    @BeforeAll
+    static void writeIndex() throws IOException {
+        PathTable table = new PathTable();
+        List<FileAnalysis> analyses = new ArrayList<>();
+        analyses.add(Fixtures.analyze(directory.resolve("project/UserRepository.php"), Fixtures.PHP, table));
+        for (int i = 0; i < FILES; i++) {
+            String php = "<?php\n"
+                + "require 'lib/common.php';\n"
+                + "class Widget" + i + " extends Base {}\n"
+                + "function helper_" + i + "() {}\n";
+            analyses.add(Fixtures.analyze(directory.resolve("project/widgets/Widget" + i + ".php"), php, table));
+        }
+        paths = new ArrayList<>();
+        index = directory.resolve("out/project.idx");
+        try (IndexWriter writer = new IndexWriter(index)) {
+            for (FileAnalysis analysis : analyses) {
+                writer.accept(analysis);
+                paths.add(analysis.getFilePath());
+            }
+            writer.finish();
+        }
+    }
+
+    @Test
+    void listsEveryLocationOfANameInFileOrder() throws IOException {
+        try (IndexReader reader = IndexReader.open(index)) {
+            assertEquals(FILES + 1, reader.getFileCount());
+
+            // Defined and extended by the fixture, then extended by every widget
+            List<IndexEntry> base = reader.lookup(IndexKind.CLASS, "Base");
+            assertEquals(FILES + 2, base.size());
+            assertEquals(paths.get(0), base.get(0).getFilePath());
+            assertEquals(paths.get(0), base.get(1).getFilePath());
+            for (int i = 0; i < FILES; i++) {
+                IndexEntry entry = base.get(i + 2);
+                assertEquals(IndexRole.EXTENDS, entry.getRole());
+                assertEquals(paths.get(i + 1), entry.getFilePath());
+                assertEquals(3, entry.getLine());
+            }
+
+            List<IndexEntry> common = reader.lookup(IndexKind.INCLUDE, "lib/common.php");
+            assertEquals(FILES, common.size());
+            assertEquals(IndexRole.REQUIRE, common.get(0).getRole());
+        }
+    }
+
+    @Test
+    void ignoresCase() throws IOException {
+        try (IndexReader reader = IndexReader.open(index)) {
+            List<IndexEntry> widget = reader.lookup(IndexKind.CLASS, "wIdGeT137");
+            assertEquals(1, widget.size());
+            assertEquals(IndexRole.DEFINITION, widget.get(0).getRole());
+            assertEquals(paths.get(138) + ":3", widget.get(0).getFileLocation());
+
+            assertEquals(1, reader.lookup(IndexKind.TABLE, "USERS").size());
+        }
+    }
+
+    @Test
+    void keepsKindsApart() throws IOException {
+        try (IndexReader reader = IndexReader.open(index)) {
+            List<IndexEntry> repository = reader.lookup(IndexKind.INTERFACE, "Repository");
+            assertEquals(EnumSet.of(IndexRole.DEFINITION, IndexRole.IMPLEMENTS),
+                EnumSet.of(repository.get(0).getRole(), repository.get(1).getRole()));
+            assertTrue(reader.lookup(IndexKind.CLASS, "Repository").isEmpty());
+            assertTrue(reader.lookup(IndexKind.FUNCTION, "Widget1").isEmpty());
+            assertTrue(reader.lookup(IndexKind.CLASS, "Widget200").isEmpty());
+            assertTrue(reader.lookup(IndexKind.CLASS, "").isEmpty());
+            // Call targets are listed as written, quotes included
+            assertEquals(1, reader.lookup(IndexKind.CURL, "'https://api.example.com/users'").size());
+        }
+    }
+
+    @Test
+    void listsNamesByPrefix() throws IOException {
+        try (IndexReader reader = IndexReader.open(index)) {
+            // helper_1, helper_10 to helper_19 and helper_100 to helper_199
+            List<IndexEntry> helpers = reader.lookupPrefix(IndexKind.FUNCTION, "HELPER_1");
+            assertEquals(1 + 10 + 100, helpers.size());
+            List<String> names = new ArrayList<>();
+            for (IndexEntry entry : helpers) {
+                names.add(entry.getKey());
+            }
+            List<String> sorted = new ArrayList<>(names);
+            sorted.sort(null);
+            assertEquals(sorted, names);
+            assertEquals("helper_1", names.get(0));
+
+            // The fixture's find, log and helper functions, and one helper per widget
+            assertEquals(FILES + 3, reader.lookupPrefix(IndexKind.FUNCTION, "").size());
+            assertTrue(reader.lookupPrefix(IndexKind.FUNCTION, "helper_x").isEmpty());
+        }
+    }
+
+    @Test
+    void rejectsFilesThatAreNotIndexes() throws IOException {
+        Path notIndex = directory.resolve("out/report.csv");
+        Files.write(notIndex, Arrays.asList("File Name,File Path", "a.php,/app/a.php"));
+
+        assertThrows(IOException.class, () -> IndexReader.open(notIndex));
+    }
+
+    @Test
+    void leavesNoTemporaryFileBehind() throws IOException {
+        try (Stream<Path> files = Files.list(index.getParent())) {
+            assertEquals(0, files.filter(file -> file.toString().endsWith(".tmp")).count());
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package net.gcae.utils.extractor.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+
+class PathTableTest {
+
+    @Test
+    void numbersPathsPerTable() {
+        PathTable first = new PathTable();
+        PathTable second = new PathTable();
+
+        assertEquals(0, first.intern("/app/a.php"));
+        assertEquals(1, first.intern("/app/b.php"));
+        assertEquals(0, first.intern("/app/a.php"));
+        assertEquals(0, second.intern("/app/b.php"));
+
+        assertEquals("/app/b.php", first.path(1));
+        assertEquals("/app/b.php:12", second.location(0, 12));
+        assertEquals(2, first.size());
+        assertEquals(1, second.size());
+    }
+
+    @Test
+    void resolvesIdsInternedByOtherThreadsWhileGrowing() throws Exception {
+        PathTable paths = new PathTable();
+        int threads = 4;
+        int perThread = 5000;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                results.add(pool.submit(() -> {
+                    // Every thread interns the same paths, so ids are handed out concurrently
+                    for (int i = 0; i < perThread; i++) {
+                        String path = "/app/file" + i + ".php";
+                        assertEquals(path, paths.path(paths.intern(path)));
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> result : results) {
+                result.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+        assertEquals(perThread, paths.size());
+    }
+}
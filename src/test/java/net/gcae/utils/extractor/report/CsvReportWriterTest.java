@@ -0,0 +1,86 @@
+package net.gcae.utils.extractor.report;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import net.gcae.utils.extractor.Fixtures;
+import net.gcae.utils.extractor.model.FileAnalysis;
+import net.gcae.utils.extractor.model.PathTable;
+
+class CsvReportWriterTest {
+
+    // A query spanning two lines, with quotes and commas
+    private static final String PHP = Fixtures.PHP
+        + "$q = 'SELECT \"name\", id FROM users\nWHERE note LIKE \"%a,b%\"';\n";
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void quotesFieldsWithCommasQuotesAndLineBreaks() throws IOException {
+        Path file = directory.resolve("project/we,\"ird\".php");
+        Path report = write(Fixtures.analyze(file, PHP, new PathTable()), directory.resolve("csv"), false);
+
+        String quotedPath = '"' + file.toString().replace("\"", "\"\"");
+        assertEquals(Arrays.asList(
+                "File Name,File Path,File Type,File Size (bytes),Line Count,Encoding,Status",
+                "\"we,\"\"ird\"\".php\"," + quotedPath + "\",PHP," + Files.size(file) + ",30,UTF-8,OK"),
+            Files.readAllLines(report.resolve("phpFilesReport.csv")));
+        String queries = read(report.resolve("phpQueriesReport.csv"));
+        assertTrue(queries.endsWith("\nQuery_2,users," + quotedPath + ":29\",Unknown,"
+                + "\"SELECT \"\"name\"\", id FROM users\nWHERE note LIKE \"\"%a,b%\"\"\",Low\n"), queries);
+    }
+
+    @Test
+    void writesEveryColumnOfEveryRow() throws IOException {
+        Path report = write(Fixtures.analyze(directory.resolve("project/index.php"), PHP, new PathTable()),
+                directory.resolve("csv"), false);
+
+        // Base has neither a parent class nor interfaces, and still gets their separators
+        List<String> classes = Files.readAllLines(report.resolve("phpClassesReport.csv"));
+        assertEquals("Class Name,File Location,Method Count,Parent Class,Interfaces", classes.get(0));
+        assertEquals("Base," + directory.resolve("project/index.php") + ":13,0,,", classes.get(1));
+        // Categories without records get no file
+        assertTrue(Files.notExists(report.resolve("phpIncludeCyclesReport.csv")));
+    }
+
+    @Test
+    void compressesEachFileWithGzip() throws IOException {
+        FileAnalysis analysis = Fixtures.analyze(directory.resolve("project/index.php"), PHP, new PathTable());
+        Path plain = write(analysis, directory.resolve("plain"), false);
+        Path compressed = write(analysis, directory.resolve("gzip"), true);
+
+        for (ReportSheet sheet : new ReportSheet[] { ReportSheet.FILES, ReportSheet.QUERIES, ReportSheet.CLASSES }) {
+            Path file = compressed.resolve(sheet.getSheetName() + ".csv.gz");
+            try (InputStream in = new GZIPInputStream(Files.newInputStream(file))) {
+                assertEquals(read(plain.resolve(sheet.getSheetName() + ".csv")),
+                    new String(in.readAllBytes(), StandardCharsets.UTF_8));
+            }
+            assertTrue(Files.notExists(compressed.resolve(sheet.getSheetName() + ".csv")));
+        }
+    }
+
+    private static Path write(FileAnalysis analysis, Path report, boolean gzip) throws IOException {
+        try (CsvReportWriter writer = new CsvReportWriter(report, gzip)) {
+            writer.accept(analysis);
+            writer.finish();
+        }
+        return report;
+    }
+
+    private static String read(Path file) throws IOException {
+        return new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+    }
+}
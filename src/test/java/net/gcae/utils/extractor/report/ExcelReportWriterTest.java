@@ -0,0 +1,59 @@
+package net.gcae.utils.extractor.report;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ExcelReportWriterTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void continuesOnANewSheetAtTheRowLimit() throws IOException {
+        Path report = directory.resolve("report.xlsx");
+        // Room for the overview, which has a row per report sheet
+        int maxRows = ReportSheet.values().length + 2;
+        int rows = 2 * (maxRows - 1) + 1;
+        try (ExcelReportWriter writer = new ExcelReportWriter(report.toString(), 2, maxRows)) {
+            for (int i = 0; i < rows; i++) {
+                writer.startRow(ReportSheet.ENTRY_POINT_INCLUDES);
+                writer.cell(0, "index.php");
+                writer.cell(1, "lib/file" + i + ".php");
+            }
+            writer.finish();
+        }
+
+        try (InputStream in = Files.newInputStream(report); Workbook workbook = new XSSFWorkbook(in)) {
+            assertEquals(ReportSheet.OVERVIEW_SHEET, workbook.getSheetName(0));
+            assertEquals("phpEntryPointIncludesReport", workbook.getSheetName(1));
+            assertEquals("phpEntryPointIncludesReport (2)", workbook.getSheetName(2));
+            assertEquals("phpEntryPointIncludesReport (3)", workbook.getSheetName(3));
+
+            // Full sheets hold maxRows - 1 records below their header, the last one the remaining record
+            Sheet first = workbook.getSheetAt(1);
+            assertEquals("Entry Point", first.getRow(0).getCell(0).getStringCellValue());
+            assertEquals(maxRows - 1, first.getLastRowNum());
+            assertEquals("lib/file0.php", first.getRow(1).getCell(1).getStringCellValue());
+            Sheet second = workbook.getSheetAt(2);
+            assertEquals("Entry Point", second.getRow(0).getCell(0).getStringCellValue());
+            assertEquals("lib/file" + (maxRows - 1) + ".php", second.getRow(1).getCell(1).getStringCellValue());
+            Sheet third = workbook.getSheetAt(3);
+            assertEquals(1, third.getLastRowNum());
+            assertEquals("lib/file" + (rows - 1) + ".php", third.getRow(1).getCell(1).getStringCellValue());
+
+            Sheet overview = workbook.getSheetAt(0);
+            int entryPoints = ReportSheet.ENTRY_POINT_INCLUDES.ordinal() + 1;
+            assertEquals(rows, (long) overview.getRow(entryPoints).getCell(1).getNumericCellValue());
+        }
+    }
+}
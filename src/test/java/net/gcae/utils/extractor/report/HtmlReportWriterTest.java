@@ -0,0 +1,95 @@
+package net.gcae.utils.extractor.report;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import net.gcae.utils.extractor.Fixtures;
+import net.gcae.utils.extractor.model.FileAnalysis;
+import net.gcae.utils.extractor.model.PathTable;
+
+class HtmlReportWriterTest {
+
+    // A query with markup, quotes and an ampersand
+    private static final String PHP = Fixtures.PHP
+        + "$q = 'SELECT name FROM users WHERE note = \"<script>\" AND flags & 2';\n";
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void escapesFilePathsAndSqlText() throws IOException {
+        Path file = directory.resolve("project/a<b>&\"c\".php");
+        Path report = directory.resolve("html");
+        try (HtmlReportWriter writer = new HtmlReportWriter(report, HtmlReportWriter.DEFAULT_PAGE_SIZE)) {
+            writer.accept(Fixtures.analyze(file, PHP, new PathTable()));
+            writer.finish();
+        }
+
+        String escapedPath = escape(file.toString());
+        String files = read(report.resolve("files-1.html"));
+        assertTrue(files.contains("<td>a&lt;b&gt;&amp;&quot;c&quot;.php</td>\n<td>" + escapedPath + "</td>"), files);
+        String queries = read(report.resolve("queries-1.html"));
+        assertTrue(queries.contains("<td>" + escapedPath + ":29</td>"), queries);
+        assertTrue(queries.contains("<td><code>SELECT name FROM users WHERE note = &quot;&lt;script&gt;&quot; "
+                + "AND flags &amp; 2</code></td>"), queries);
+        assertFalse(queries.contains("<script>"), queries);
+    }
+
+    @Test
+    void splitsCategoriesIntoPagesOfTheRowLimit() throws IOException {
+        Path report = directory.resolve("html");
+        try (HtmlReportWriter writer = new HtmlReportWriter(report, 2)) {
+            for (int i = 1; i <= 5; i++) {
+                FileAnalysis analysis = Fixtures.analyze(directory.resolve("project/file" + i + ".php"), PHP,
+                        new PathTable());
+                writer.accept(analysis);
+            }
+            writer.finish();
+        }
+
+        String first = read(report.resolve("files-1.html"));
+        assertTrue(first.contains("Rows 1 to 2"), first);
+        assertFalse(first.contains("Previous page"), first);
+        assertTrue(first.contains("<a href=\"files-2.html\">Next page"), first);
+        assertTrue(first.contains("file1.php") && first.contains("file2.php") && !first.contains("file3.php"), first);
+
+        String second = read(report.resolve("files-2.html"));
+        assertTrue(second.contains("Rows 3 to 4"), second);
+        assertTrue(second.contains("<a href=\"files-1.html\">&larr; Previous page"), second);
+        assertTrue(second.contains("<a href=\"files-3.html\">Next page"), second);
+
+        // The last page holds the remainder and links only back
+        String last = read(report.resolve("files-3.html"));
+        assertTrue(last.contains("Rows 5 to 5"), last);
+        assertTrue(last.contains("<a href=\"files-2.html\">&larr; Previous page"), last);
+        assertFalse(last.contains("Next page"), last);
+        assertTrue(Files.notExists(report.resolve("files-4.html")));
+
+        String index = read(report.resolve(HtmlReportWriter.INDEX_PAGE));
+        assertTrue(index.contains("at most <strong>2</strong> rows"), index);
+        assertTrue(index.contains("Total files found: <strong>5</strong>"), index);
+        for (int page = 1; page <= 3; page++) {
+            assertTrue(index.contains("<a href=\"files-" + page + ".html\">" + page + "</a>"), index);
+        }
+        // Categories without records are listed without pages
+        assertTrue(index.contains("Total files in include cycles: <strong>0</strong></div>\n"
+                + "<div class=\"no-data\">None found</div>"), index);
+        assertTrue(Files.notExists(report.resolve("includecycles-1.html")));
+    }
+
+    private static String escape(String text) {
+        return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("\"", "&quot;");
+    }
+
+    private static String read(Path file) throws IOException {
+        return new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,42 @@
+package net.gcae.utils.extractor.report;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import org.junit.jupiter.api.Test;
+
+class HtmlTemplateTest {
+
+    @Test
+    void escapesValuesButNotTheTemplate() throws IOException {
+        HtmlTemplate template = HtmlTemplate.compile("row", "<td title=\"${b}\">${a} &amp; ${b}</td>", "a", "b");
+
+        StringWriter out = new StringWriter();
+        template.render(out, "<script>alert('x')</script>", "a & \"b\"");
+        assertEquals("<td title=\"a &amp; &quot;b&quot;\">&lt;script&gt;alert(&#39;x&#39;)&lt;/script&gt; &amp; "
+                + "a &amp; &quot;b&quot;</td>\n", out.toString());
+    }
+
+    @Test
+    void writesNullValuesAsNothing() throws IOException {
+        HtmlTemplate template = HtmlTemplate.compile("row", "${a}|${b}|", "a", "b");
+
+        StringWriter out = new StringWriter();
+        template.render(out, null, "b");
+        assertEquals("|b|\n", out.toString());
+    }
+
+    @Test
+    void rejectsUnknownVariablesAndOpenPlaceholders() {
+        IllegalArgumentException unknown = assertThrows(IllegalArgumentException.class,
+            () -> HtmlTemplate.compile("page.rows", "Rows ${first} to ${end}", "first", "last"));
+        assertTrue(unknown.getMessage().contains("${end}"), unknown.getMessage());
+        assertTrue(unknown.getMessage().contains("page.rows"), unknown.getMessage());
+
+        assertThrows(IllegalArgumentException.class, () -> HtmlTemplate.compile("page.rows", "Rows ${first", "first"));
+    }
+}
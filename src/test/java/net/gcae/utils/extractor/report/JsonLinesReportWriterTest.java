@@ -0,0 +1,83 @@
+package net.gcae.utils.extractor.report;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import net.gcae.utils.extractor.Fixtures;
+import net.gcae.utils.extractor.model.FileAnalysis;
+import net.gcae.utils.extractor.model.PathTable;
+
+class JsonLinesReportWriterTest {
+
+    // A query spanning two lines, with quotes, a backslash, a tab and a control character
+    private static final String PHP = Fixtures.PHP
+        + "$q = 'SELECT \"name\",\tid FROM users\r\nWHERE path LIKE \"c:\\\\%\" AND flag = \u0001';\n";
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void escapesEveryValueOnASingleLine() throws IOException {
+        Path file = directory.resolve("project/we\"ird\\.php");
+        String report = write(Fixtures.analyze(file, PHP, new PathTable()));
+
+        String path = file.toString().replace("\\", "\\\\").replace("\"", "\\\"");
+        List<String> lines = report.lines().collect(Collectors.toList());
+        assertEquals("{\"category\":\"phpFilesReport\",\"fileName\":\"we\\\"ird\\\\.php\",\"filePath\":\"" + path
+                + "\",\"fileType\":\"PHP\",\"fileSizeBytes\":" + Files.size(file)
+                + ",\"lineCount\":30,\"encoding\":\"UTF-8\",\"status\":\"OK\"}", lines.get(0));
+        assertTrue(lines.contains("{\"category\":\"phpQueriesReport\",\"queryName\":\"Query_2\",\"dbTable\":\"users\","
+                + "\"fileLine\":\"" + path + ":29\",\"dataSource\":\"Unknown\",\"sqlQuery\":"
+                + "\"SELECT \\\"name\\\",\\tid FROM users\\r\\nWHERE path LIKE \\\"c:\\\\\\\\%\\\" AND flag = \\u0001\","
+                + "\"complexity\":\"Low\"}"), report);
+        // One object per record, none broken across lines
+        for (String line : lines) {
+            assertTrue(line.startsWith("{\"category\":\"php") && line.endsWith("}"), line);
+        }
+    }
+
+    @Test
+    void namesEveryColumnOfARecord() throws IOException {
+        String report = write(Fixtures.analyze(directory.resolve("project/index.php"), PHP, new PathTable()));
+
+        assertTrue(report.contains("{\"category\":\"phpClassesReport\",\"className\":\"Base\",\"fileLocation\":\""
+                + directory.resolve("project/index.php") + ":13\",\"methodCount\":0,\"parentClass\":\"\",\"interfaces\":\"\"}\n"),
+            report);
+    }
+
+    @Test
+    void compressesTheFileWithGzip() throws IOException {
+        FileAnalysis analysis = Fixtures.analyze(directory.resolve("project/index.php"), PHP, new PathTable());
+        Path report = directory.resolve("report.jsonl.gz");
+        try (JsonLinesReportWriter writer = new JsonLinesReportWriter(report, true)) {
+            writer.accept(analysis);
+            writer.finish();
+        }
+
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(report))) {
+            assertEquals(write(analysis), new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    private static String write(FileAnalysis analysis) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (JsonLinesReportWriter writer = new JsonLinesReportWriter(out)) {
+            writer.accept(analysis);
+            writer.finish();
+        }
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
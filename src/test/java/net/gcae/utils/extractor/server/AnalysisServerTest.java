@@ -0,0 +1,161 @@
+package net.gcae.utils.extractor.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.PosixFilePermissions;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import net.gcae.utils.extractor.ExtractorOptions;
+import net.gcae.utils.extractor.Fixtures;
+
+class AnalysisServerTest {
+
+    @TempDir
+    Path directory;
+
+    private AnalysisServer server;
+    private Thread runner;
+    private Path tokenFile;
+    private String token;
+
+    @BeforeEach
+    void start() throws Exception {
+        tokenFile = directory.resolve("daemon/daemon.token");
+        server = new AnalysisServer(new ExtractorOptions(), 0, 1, tokenFile);
+        runner = new Thread(() -> {
+            try {
+                server.run();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        runner.start();
+        for (int i = 0; i < 500 && !Files.exists(tokenFile); i++) {
+            Thread.sleep(10);
+        }
+        token = new String(Files.readAllBytes(tokenFile), StandardCharsets.US_ASCII);
+    }
+
+    @AfterEach
+    void stop() throws InterruptedException {
+        if (runner.isAlive()) {
+            server.shutdown();
+            runner.join();
+        }
+    }
+
+    @Test
+    void writesATokenOnlyItsUserCanRead() throws IOException {
+        assertEquals(64, token.length());
+        if (Files.getFileStore(tokenFile).supportsFileAttributeView("posix")) {
+            assertEquals("rw-------", PosixFilePermissions.toString(Files.getPosixFilePermissions(tokenFile)));
+        }
+    }
+
+    @Test
+    void refusesJobsWithoutTheToken() throws IOException {
+        String analyze = "/analyze?project=" + directory + "&output=" + directory.resolve("out");
+
+        assertEquals(401, status(request("POST", analyze, "127.0.0.1", null, null)));
+        assertEquals(401, status(request("POST", analyze, "127.0.0.1", null, "Bearer " + token.substring(1))));
+        assertEquals(401, status(request("POST", "/shutdown", "localhost", null, null)));
+        assertEquals(405, status(request("GET", "/shutdown", "localhost", null, "Bearer " + token)));
+        assertFalse(Files.exists(directory.resolve("out")));
+        assertTrue(runner.isAlive());
+    }
+
+    @Test
+    void refusesCrossOriginAndRebindingRequests() throws IOException {
+        String bearer = "Bearer " + token;
+
+        assertEquals(403, status(request("POST", "/shutdown", "127.0.0.1", "http://evil.example", bearer)));
+        assertEquals(403, status(request("POST", "/shutdown", "evil.example:" + server.getPort(), null, bearer)));
+        assertEquals(403, status(request("GET", "/status", "127.0.0.1.evil.example", null, null)));
+        assertEquals(403, status(request("GET", "/status", null, null, null)));
+        assertEquals(200, status(request("GET", "/status", "[::1]:" + server.getPort(), null, null)));
+        assertTrue(runner.isAlive());
+    }
+
+    @Test
+    void runsJobsAndShutsDownWithTheToken() throws Exception {
+        Path project = directory.resolve("project");
+        Files.createDirectories(project);
+        Files.write(project.resolve("index.php"), Fixtures.PHP.getBytes(StandardCharsets.UTF_8));
+        String bearer = "Bearer " + token;
+
+        String events = request("POST", "/analyze?project=" + project + "&output=" + directory.resolve("out") + "&no-index=true",
+                "127.0.0.1:" + server.getPort(), null, bearer);
+        assertEquals(200, status(events));
+        assertTrue(events.contains("\"event\":\"completed\""), events);
+
+        assertEquals(202, status(request("POST", "/shutdown", "localhost:" + server.getPort(), null, bearer)));
+        runner.join(10_000);
+        assertFalse(runner.isAlive());
+        assertFalse(Files.exists(tokenFile));
+    }
+
+    @Test
+    void reusesTheCacheOfEarlierJobsAndReleasesItsLock() throws Exception {
+        Path project = directory.resolve("project");
+        Files.createDirectories(project);
+        for (int i = 0; i < 3; i++) {
+            Path page = project.resolve("page" + i + ".php");
+            Files.write(page, Fixtures.PHP.getBytes(StandardCharsets.UTF_8));
+            // Old enough that the cache trusts size and modification time alone
+            Files.setLastModifiedTime(page, FileTime.fromMillis(1_000_000_000_000L));
+        }
+        String analyze = "/analyze?project=" + project + "&output=" + directory.resolve("out") + "&no-index=true";
+        String bearer = "Bearer " + token;
+
+        String first = request("POST", analyze, "127.0.0.1", null, bearer);
+        assertTrue(first.contains("\"filesReused\":0"), first);
+        String second = request("POST", analyze, "127.0.0.1", null, bearer);
+        assertTrue(second.contains("\"filesReused\":3"), second);
+        assertEquals(0, server.getLockedDirectories());
+    }
+
+    /**
+     * Sends a request as written, so the Host and Origin headers are exactly the given ones,
+     * and returns the whole response.
+     */
+    private String request(String method, String target, String host, String origin, String authorization)
+            throws IOException {
+        StringBuilder request = new StringBuilder(method).append(' ').append(target).append(" HTTP/1.1\r\n");
+        if (host != null) {
+            request.append("Host: ").append(host).append("\r\n");
+        }
+        if (origin != null) {
+            request.append("Origin: ").append(origin).append("\r\n");
+        }
+        if (authorization != null) {
+            request.append("Authorization: ").append(authorization).append("\r\n");
+        }
+        request.append("Content-Length: 0\r\nConnection: close\r\n\r\n");
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort())) {
+            OutputStream out = socket.getOutputStream();
+            out.write(request.toString().getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+            InputStream in = socket.getInputStream();
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static int status(String response) {
+        return Integer.parseInt(response.substring(response.indexOf(' ') + 1, response.indexOf(' ') + 4));
+    }
+}
@@ -0,0 +1,112 @@
+package net.gcae.utils.extractor.snapshot;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import net.gcae.utils.extractor.Fixtures;
+import net.gcae.utils.extractor.analyzer.PHPAnalyzer;
+import net.gcae.utils.extractor.model.AnalysisSummary;
+import net.gcae.utils.extractor.model.FileAnalysis;
+import net.gcae.utils.extractor.model.PathTable;
+
+class SnapshotMergerTest {
+
+    private static final int SHARDS = 3;
+
+    @TempDir
+    Path directory;
+
+    private Path project;
+
+    @BeforeEach
+    void createProject() throws IOException {
+        project = directory.resolve("project");
+        String[] files = {
+            "index.php", "admin/index.php", "admin/users/list.php", "admin/users/edit.php",
+            "lib/db.php", "lib/Db/Connection.php", "lib/util.php", "lib-old/legacy.php",
+            "public/app.js", "config.ini", "README.md", "Zeta.php"
+        };
+        for (int i = 0; i < files.length; i++) {
+            Path file = project.resolve(files[i]);
+            Files.createDirectories(file.getParent());
+            String content = files[i].endsWith(".php")
+                ? Fixtures.PHP.replace("UserRepository", "Repository" + i)
+                : "line one\nline two\n";
+            Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void mergesShardsIntoTheOrderOfASingleRun() throws IOException {
+        List<FileAnalysis> single = new ArrayList<>();
+        analyzer(0, 0).analyzeProject(project.toFile(), single::add);
+
+        List<Path> partialResults = new ArrayList<>();
+        int shardedFiles = 0;
+        for (int shard = SHARDS; shard >= 1; shard--) {
+            Path partialResult = directory.resolve("shard" + shard + ".snap");
+            try (SnapshotWriter writer = new SnapshotWriter(partialResult, project.toString(), shard, SHARDS)) {
+                shardedFiles += analyzer(shard, SHARDS).analyzeProject(project.toFile(), writer).getFiles();
+                writer.finish();
+            }
+            partialResults.add(partialResult);
+        }
+        assertEquals(single.size(), shardedFiles);
+
+        List<FileAnalysis> merged = new ArrayList<>();
+        AnalysisSummary summary = SnapshotMerger.merge(partialResults, new PathTable(), merged::add);
+        assertEquals(single.size(), summary.getFiles());
+        assertEquals(Fixtures.render(single), Fixtures.render(merged));
+    }
+
+    @Test
+    void rejectsIncompleteOrRepeatedShards() throws IOException {
+        Path first = partialResult(1, SHARDS);
+        Path second = partialResult(2, SHARDS);
+        Path third = partialResult(3, SHARDS);
+        Path otherCount = partialResult(1, 2);
+        Path whole = partialResult(0, 0);
+
+        assertMergeFails("Missing", Arrays.asList(first, second));
+        assertMergeFails("more than once", Arrays.asList(first, second, third, first));
+        assertMergeFails("different shard counts", Arrays.asList(first, second, third, otherCount));
+        assertMergeFails("Not a partial result", Arrays.asList(whole));
+        assertMergeFails("No partial results", Collections.emptyList());
+    }
+
+    private Path partialResult(int shard, int shardCount) throws IOException {
+        Path partialResult = directory.resolve("shard" + shard + "of" + shardCount + ".snap");
+        try (SnapshotWriter writer = new SnapshotWriter(partialResult, project.toString(), shard, shardCount)) {
+            analyzer(shard, shardCount).analyzeProject(project.toFile(), writer);
+            writer.finish();
+        }
+        return partialResult;
+    }
+
+    private static PHPAnalyzer analyzer(int shard, int shardCount) {
+        PHPAnalyzer analyzer = new PHPAnalyzer();
+        analyzer.setPaths(new PathTable());
+        analyzer.setShard(shard, shardCount);
+        return analyzer;
+    }
+
+    private static void assertMergeFails(String message, List<Path> partialResults) {
+        IOException e = assertThrows(IOException.class,
+            () -> SnapshotMerger.merge(partialResults, new PathTable(), analysis -> { }));
+        assertTrue(e.getMessage().contains(message), e.getMessage());
+    }
+}
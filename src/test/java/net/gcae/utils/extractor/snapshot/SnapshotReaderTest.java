@@ -0,0 +1,66 @@
+package net.gcae.utils.extractor.snapshot;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import net.gcae.utils.extractor.Fixtures;
+import net.gcae.utils.extractor.model.AnalysisSummary;
+import net.gcae.utils.extractor.model.FileAnalysis;
+import net.gcae.utils.extractor.model.PathTable;
+
+class SnapshotReaderTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void readsBackEveryRecordInOrder() throws IOException {
+        PathTable written = new PathTable();
+        List<FileAnalysis> analyses = new ArrayList<>();
+        analyses.add(Fixtures.analyze(directory.resolve("project/a.php"), Fixtures.PHP, written));
+        analyses.add(Fixtures.analyze(directory.resolve("project/lib/b.php"),
+            "<?php\n$db->query(\"DELETE FROM sessions WHERE expired = 1\");\n", written));
+        analyses.add(Fixtures.analyze(directory.resolve("project/README.md"), "# Project\n", written));
+        Path snapshot = directory.resolve("out/project.snap");
+        try (SnapshotWriter writer = new SnapshotWriter(snapshot, directory.resolve("project").toString(), 0, 0)) {
+            for (FileAnalysis analysis : analyses) {
+                writer.accept(analysis);
+            }
+            writer.finish();
+        }
+
+        List<FileAnalysis> read = new ArrayList<>();
+        AnalysisSummary summary = SnapshotReader.read(snapshot, new PathTable(), read::add);
+        assertEquals(3, summary.getFiles());
+        assertEquals(Fixtures.render(analyses), Fixtures.render(read));
+
+        try (SnapshotReader reader = SnapshotReader.open(snapshot, new PathTable())) {
+            assertEquals(directory.resolve("project").toString(), reader.getRoot());
+            assertEquals(0, reader.getShard());
+            assertEquals(0, reader.getShardCount());
+            for (int i = 0; i < analyses.size(); i++) {
+                reader.next();
+            }
+            assertNull(reader.next());
+        }
+    }
+
+    @Test
+    void rejectsFilesThatAreNotSnapshots() throws IOException {
+        Path notSnapshot = directory.resolve("report.csv");
+        Files.write(notSnapshot, Arrays.asList("File Name,File Path", "a.php,/app/a.php"));
+
+        assertThrows(IOException.class, () -> SnapshotReader.read(notSnapshot, new PathTable(), analysis -> { }));
+    }
+}